@@ -969,6 +969,25 @@ call apply_change(47, $aa$
                       ON m_shadow_default (lastLoginTimestamp);
 $aa$);
 
+-- Trigram indexes for fuzzy (similarity) searches on user names, used mainly by correlation.
+call apply_change(48, $aa$
+    CREATE INDEX m_user_fullNameNorm_trgm_idx ON m_user USING gin(fullNameNorm gin_trgm_ops);
+    CREATE INDEX m_user_familyNameNorm_trgm_idx ON m_user USING gin(familyNameNorm gin_trgm_ops);
+    CREATE INDEX m_user_givenNameNorm_trgm_idx ON m_user USING gin(givenNameNorm gin_trgm_ops);
+$aa$);
+
+-- Text search indexes for full-text search by word prefix (see fullTextSearchByWordPrefix repository option).
+-- Indexes are built from the existing fullTextInfo values, no reindex of the objects is needed.
+-- The (already normalized) words are used as they are, without any text search parser.
+call apply_change(49, $aa$
+    CREATE INDEX m_user_fullTextInfo_tsv_idx ON m_user USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
+    CREATE INDEX m_role_fullTextInfo_tsv_idx ON m_role USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
+    CREATE INDEX m_policy_fullTextInfo_tsv_idx ON m_policy USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
+    CREATE INDEX m_service_fullTextInfo_tsv_idx ON m_service USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
+    CREATE INDEX m_archetype_fullTextInfo_tsv_idx ON m_archetype USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
+    CREATE INDEX m_org_fullTextInfo_tsv_idx ON m_org USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
+$aa$);
+
 
 ---
 -- WRITE CHANGES ABOVE ^^
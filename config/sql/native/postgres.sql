@@ -666,6 +666,12 @@ CREATE INDEX m_user_organizationUnits_idx ON m_user USING gin(organizationUnits)
 CREATE INDEX m_user_validFrom_idx ON m_user (validFrom);
 CREATE INDEX m_user_validTo_idx ON m_user (validTo);
 CREATE INDEX m_user_fullTextInfo_idx ON m_user USING gin(fullTextInfo gin_trgm_ops);
+CREATE INDEX m_user_fullTextInfo_tsv_idx ON m_user USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
+-- trigram indexes for fuzzy searches (e.g. correlation using similarity), see also pg_trgm.similarity_threshold;
+-- fuzzy searches on other columns can use them only if similar indexes are created for these columns
+CREATE INDEX m_user_fullNameNorm_trgm_idx ON m_user USING gin(fullNameNorm gin_trgm_ops);
+CREATE INDEX m_user_familyNameNorm_trgm_idx ON m_user USING gin(familyNameNorm gin_trgm_ops);
+CREATE INDEX m_user_givenNameNorm_trgm_idx ON m_user USING gin(givenNameNorm gin_trgm_ops);
 CREATE INDEX m_user_createTimestamp_idx ON m_user (createTimestamp);
 CREATE INDEX m_user_modifyTimestamp_idx ON m_user (modifyTimestamp);
 -- endregion
@@ -716,6 +722,7 @@ CREATE INDEX m_role_identifier_idx ON m_role (identifier);
 CREATE INDEX m_role_validFrom_idx ON m_role (validFrom);
 CREATE INDEX m_role_validTo_idx ON m_role (validTo);
 CREATE INDEX m_role_fullTextInfo_idx ON m_role USING gin(fullTextInfo gin_trgm_ops);
+CREATE INDEX m_role_fullTextInfo_tsv_idx ON m_role USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
 CREATE INDEX m_role_createTimestamp_idx ON m_role (createTimestamp);
 CREATE INDEX m_role_modifyTimestamp_idx ON m_role (modifyTimestamp);
 
@@ -742,6 +749,7 @@ CREATE INDEX m_policy_identifier_idx ON m_policy (identifier);
 CREATE INDEX m_policy_validFrom_idx ON m_policy (validFrom);
 CREATE INDEX m_policy_validTo_idx ON m_policy (validTo);
 CREATE INDEX m_policy_fullTextInfo_idx ON m_policy USING gin(fullTextInfo gin_trgm_ops);
+CREATE INDEX m_policy_fullTextInfo_tsv_idx ON m_policy USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
 CREATE INDEX m_policy_createTimestamp_idx ON m_policy (createTimestamp);
 CREATE INDEX m_policy_modifyTimestamp_idx ON m_policy (modifyTimestamp);
 
@@ -770,6 +778,7 @@ CREATE INDEX m_service_identifier_idx ON m_service (identifier);
 CREATE INDEX m_service_validFrom_idx ON m_service (validFrom);
 CREATE INDEX m_service_validTo_idx ON m_service (validTo);
 CREATE INDEX m_service_fullTextInfo_idx ON m_service USING gin(fullTextInfo gin_trgm_ops);
+CREATE INDEX m_service_fullTextInfo_tsv_idx ON m_service USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
 CREATE INDEX m_service_createTimestamp_idx ON m_service (createTimestamp);
 CREATE INDEX m_service_modifyTimestamp_idx ON m_service (modifyTimestamp);
 
@@ -795,6 +804,7 @@ CREATE INDEX m_archetype_identifier_idx ON m_archetype (identifier);
 CREATE INDEX m_archetype_validFrom_idx ON m_archetype (validFrom);
 CREATE INDEX m_archetype_validTo_idx ON m_archetype (validTo);
 CREATE INDEX m_archetype_fullTextInfo_idx ON m_archetype USING gin(fullTextInfo gin_trgm_ops);
+CREATE INDEX m_archetype_fullTextInfo_tsv_idx ON m_archetype USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
 CREATE INDEX m_archetype_createTimestamp_idx ON m_archetype (createTimestamp);
 CREATE INDEX m_archetype_modifyTimestamp_idx ON m_archetype (modifyTimestamp);
 -- endregion
@@ -825,6 +835,7 @@ CREATE INDEX m_org_identifier_idx ON m_org (identifier);
 CREATE INDEX m_org_validFrom_idx ON m_org (validFrom);
 CREATE INDEX m_org_validTo_idx ON m_org (validTo);
 CREATE INDEX m_org_fullTextInfo_idx ON m_org USING gin(fullTextInfo gin_trgm_ops);
+CREATE INDEX m_org_fullTextInfo_tsv_idx ON m_org USING gin(array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), '')));
 CREATE INDEX m_org_createTimestamp_idx ON m_org (createTimestamp);
 CREATE INDEX m_org_modifyTimestamp_idx ON m_org (modifyTimestamp);
 
@@ -2609,4 +2620,4 @@ END $$;
 -- This is important to avoid applying any change more than once.
 -- Also update SqaleUtils.CURRENT_SCHEMA_CHANGE_NUMBER
 -- repo/repo-sqale/src/main/java/com/evolveum/midpoint/repo/sqale/SqaleUtils.java
-call apply_change(47, $$ SELECT 1 $$, true);
+call apply_change(49, $$ SELECT 1 $$, true);
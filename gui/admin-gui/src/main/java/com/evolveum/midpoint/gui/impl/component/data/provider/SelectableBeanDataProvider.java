@@ -65,6 +65,9 @@ public abstract class SelectableBeanDataProvider<T extends Serializable> extends
 
     private boolean useObjectCounting = true;
 
+    /** See {@link #isCountLimitExceeded()}. */
+    private boolean countLimitExceeded;
+
     private boolean export;
 
     public Set<T> getSelected() {
@@ -233,12 +236,23 @@ public abstract class SelectableBeanDataProvider<T extends Serializable> extends
             return Integer.MAX_VALUE;
         }
         int count = 0;
+        countLimitExceeded = false;
+        Integer countLimit = getCountLimit();
         Task task = getPageBase().createSimpleTask(OPERATION_COUNT_OBJECTS);
         OperationResult result = task.getResult();
         try {
-            Collection<SelectorOptions<GetOperationOptions>> currentOptions = GetOperationOptions.merge( getSearchOptions(), null);
+            Collection<SelectorOptions<GetOperationOptions>> currentOptions = countLimit != null
+                    ? GetOperationOptions.merge(
+                            SelectorOptions.createCollection(GetOperationOptions.createCountLimit(countLimit)),
+                            getSearchOptions())
+                    : GetOperationOptions.merge(getSearchOptions(), null);
             Integer counted = countObjects(getType(), getQuery(), currentOptions, task, result);
             count = defaultIfNull(counted, defaultCountIfNull);
+            if (countLimit != null && count > countLimit) {
+                // The same as if counting was disabled: only "previous" and "next" paging is possible.
+                countLimitExceeded = true;
+                count = Integer.MAX_VALUE;
+            }
         } catch (Exception ex) {
             setupUserFriendlyMessage(result, ex);
             result.recordFatalError(getPageBase().createStringResource("ObjectDataProvider.message.countObjects.fatalError").getString(), ex);
@@ -262,6 +276,16 @@ public abstract class SelectableBeanDataProvider<T extends Serializable> extends
             Task task, OperationResult result)
             throws CommonException;
 
+    private Integer getCountLimit() {
+        CompiledObjectCollectionView view = getCompiledObjectCollectionView();
+        return view != null ? view.getCountLimit() : null;
+    }
+
+    /** True if the last counting found more objects than the configured count limit, so the exact count is not known. */
+    public boolean isCountLimitExceeded() {
+        return countLimitExceeded;
+    }
+
     public boolean isUseObjectCounting() {
         CompiledObjectCollectionView guiObjectListViewType = getCompiledObjectCollectionView();
         if (guiObjectListViewType != null && guiObjectListViewType.isDisableCounting() != null) {
@@ -55,6 +55,9 @@ public class ResourceConnectorPanel extends AbstractObjectMainPanel<ResourceType
     private static final String ID_POOL_CONFIG_MAX_IDLE_TIME = "poolConfigMaxIdleTime";
     private static final String ID_POOL_STATUS_NUM_IDLE = "poolStatusNumIdle";
     private static final String ID_POOL_STATUS_NUM_ACTIVE = "poolStatusNumActive";
+    private static final String ID_CONCURRENCY_LIMIT = "concurrencyLimit";
+    private static final String ID_CONCURRENCY_NUM_ACTIVE = "concurrencyNumActive";
+    private static final String ID_CONCURRENCY_NUM_WAITING = "concurrencyNumWaiting";
 
 
     public ResourceConnectorPanel(String id, ResourceDetailsModel model, ContainerPanelConfigurationType config) {
@@ -100,6 +103,9 @@ public class ResourceConnectorPanel extends AbstractObjectMainPanel<ResourceType
                 item.add(createLabel(statModel, ID_POOL_CONFIG_MAX_IDLE_TIME, ConnectorOperationalStatus.F_POOL_CONFIG_MAX_IDLE_TIME));
                 item.add(createLabel(statModel, ID_POOL_STATUS_NUM_IDLE, ConnectorOperationalStatus.F_POOL_STATUS_NUM_IDLE));
                 item.add(createLabel(statModel, ID_POOL_STATUS_NUM_ACTIVE, ConnectorOperationalStatus.F_POOL_STATUS_NUM_ACTIVE));
+                item.add(createLabel(statModel, ID_CONCURRENCY_LIMIT, ConnectorOperationalStatus.F_CONCURRENCY_LIMIT));
+                item.add(createLabel(statModel, ID_CONCURRENCY_NUM_ACTIVE, ConnectorOperationalStatus.F_CONCURRENCY_NUM_ACTIVE));
+                item.add(createLabel(statModel, ID_CONCURRENCY_NUM_WAITING, ConnectorOperationalStatus.F_CONCURRENCY_NUM_WAITING));
 
             }
         };
@@ -155,6 +155,13 @@ public class TaskInternalPerformancePanel extends AbstractObjectMainPanel<TaskTy
                             options, iterations, seconds))
                     .append("\n");
         }
+        if (statistics.getOperationSamplesInformation() != null) {
+            sb.append("Operation samples (")
+                    .append(statistics.getOperationSamplesInformation().getSampleCount())
+                    .append(" samples taken; in collapsed stacks format usable for flame graphs)\n\n")
+                    .append(OperationSamplesInformationUtil.format(statistics.getOperationSamplesInformation()))
+                    .append("\n");
+        }
         sb.append(LINE);
         sb.append("Other performance-related information that is shown elsewhere (provided here just for completeness):\n\n");
         if (statistics.getEnvironmentalPerformanceInformation() != null) {
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.init;
+
+import org.apache.commons.lang3.Validate;
+
+import com.evolveum.midpoint.model.common.expression.script.ScriptExpressionWarmUp;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Precompiles script expressions after all the initial objects are imported.
+ * See {@link ScriptExpressionWarmUp}.
+ */
+public class ScriptWarmUpInitialSetup {
+
+    private static final Trace LOGGER = TraceManager.getTrace(ScriptWarmUpInitialSetup.class);
+
+    private ScriptExpressionWarmUp warmUp;
+
+    public void setWarmUp(ScriptExpressionWarmUp warmUp) {
+        Validate.notNull(warmUp, "Script warm-up must not be null.");
+        this.warmUp = warmUp;
+    }
+
+    public void init() {
+        try {
+            warmUp.warmUpOnStartup();
+        } catch (Exception ex) {
+            // The warm-up is only an optimization; the scripts are compiled on their first use anyway.
+            LoggingUtils.logUnexpectedException(LOGGER, "Script warm-up couldn't be started", ex);
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class DashboardWidgetDto implements Serializable {
     private String styleColor;
     private String styleCssStyle;
     private String iconCssClass;
+    private Long computedAt;
 
     private static final String NUMBER_MESSAGE_UNKNOWN = "InfoBoxPanel.message.unknown";
     private static final String DEFAULT_BACKGROUND_COLOR = "background-color:#00a65a;";
@@ -44,6 +45,7 @@ public class DashboardWidgetDto implements Serializable {
         this.styleColor = createStyleColor(dashboardWidget);
         this.styleCssStyle = createStyleCssStyle(dashboardWidget);
         this.iconCssClass = createIconCssClass(dashboardWidget);
+        this.computedAt = dashboardWidget != null ? dashboardWidget.getComputedAt() : null;
     }
 
     private String createNumberLabel(DashboardWidget widget, PageBase pageBase) {
@@ -143,6 +145,11 @@ public class DashboardWidgetDto implements Serializable {
         return iconCssClass;
     }
 
+    /** When the (cached) value was computed; `null` if the widget is not cached. */
+    public Long getComputedAt() {
+        return computedAt;
+    }
+
     public void setMessage(String message) {
         this.message = message;
     }
@@ -17,6 +17,7 @@ import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.query.RefFilter;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.apache.wicket.Component;
 import org.apache.wicket.RestartResponseException;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -228,10 +229,21 @@ public class PageDashboardConfigurable extends PageDashboard {
                 widgetModel.getObject().getStyleColor(),
                 " ",
                 widgetModel.getObject().getStyleCssStyle())));
+        box.add(AttributeAppender.append("title", () -> createValueAgeTitle(widgetModel.getObject())));
 
         return box;
     }
 
+    private String createValueAgeTitle(DashboardWidgetDto widget) {
+        Long computedAt = widget.getComputedAt();
+        if (computedAt == null) {
+            return null;
+        }
+        long age = Math.max(0, System.currentTimeMillis() - computedAt);
+        return createStringResourceStatic("PageDashboard.widget.valueAge", "Computed {0} ago",
+                DurationFormatUtils.formatDurationWords(age, true, true)).getString();
+    }
+
     private IModel<DashboardWidgetDto> loadWidgetData(IModel<DashboardWidgetType> model) {
         return new LoadableModel<>(false) {
 
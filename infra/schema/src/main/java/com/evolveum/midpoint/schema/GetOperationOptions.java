@@ -252,6 +252,15 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
      */
     private ShadowClassificationModeType shadowClassificationMode;
 
+    /**
+     * Maximal number of objects to be counted. If there are more of them, the count operation returns
+     * some (unspecified) number greater than this limit, so the client knows only that there are "more than N" objects.
+     * This allows the repository to stop counting early, which is much cheaper for large result sets.
+     * Applicable to count operations only. Not all providers support this option; they return the exact count then.
+     */
+    @Experimental
+    private Integer countLimit;
+
     /*
      *  !!! After adding option here don't forget to update equals, clone, merge, etc. !!!
      */
@@ -915,6 +924,33 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
         return opts;
     }
 
+    public Integer getCountLimit() {
+        return countLimit;
+    }
+
+    public void setCountLimit(Integer countLimit) {
+        this.countLimit = countLimit;
+    }
+
+    public GetOperationOptions countLimit(Integer countLimit) {
+        this.countLimit = countLimit;
+        return this;
+    }
+
+    public static Integer getCountLimit(GetOperationOptions options) {
+        return options != null ? options.countLimit : null;
+    }
+
+    /**
+     * Maximal number of objects to be counted, see {@link #countLimit}.
+     */
+    @Experimental
+    public static GetOperationOptions createCountLimit(Integer countLimit) {
+        GetOperationOptions opts = new GetOperationOptions();
+        opts.setCountLimit(countLimit);
+        return opts;
+    }
+
     public DefinitionProcessingOption getDefinitionProcessing() {
         return definitionProcessing;
     }
@@ -1087,7 +1123,8 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
                 Objects.equals(iterationMethod, that.iterationMethod) &&
                 Objects.equals(executionPhase, that.executionPhase) &&
                 Containerable.equivalent(errorHandling, that.errorHandling) &&
-                Objects.equals(shadowClassificationMode, that.shadowClassificationMode);
+                Objects.equals(shadowClassificationMode, that.shadowClassificationMode) &&
+                Objects.equals(countLimit, that.countLimit);
     }
 
     @Override
@@ -1095,7 +1132,7 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
         return Objects
                 .hash(retrieve, resolve, resolveNames, noFetch, raw, tolerateRawData, doNotDiscovery,
                         allowNotFound, readOnly, staleness, distinct, definitionProcessing, attachDiagData, executionPhase,
-                        shadowClassificationMode);
+                        shadowClassificationMode, countLimit);
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
@@ -1126,6 +1163,7 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
             clone.errorHandling = this.errorHandling.clone();
         }
         clone.shadowClassificationMode = this.shadowClassificationMode;
+        clone.countLimit = this.countLimit;
         return clone;
     }
 
@@ -1160,6 +1198,7 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
         appendFlag(sb, "executionPhase", executionPhase);
         appendVal(sb, "errorHandling", prettyPrint(errorHandling));
         appendVal(sb, "shadowClassificationMode", shadowClassificationMode);
+        appendVal(sb, "countLimit", countLimit);
         removeLastComma(sb);
     }
 
@@ -1335,6 +1374,9 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
         if (increment.shadowClassificationMode != null) {
             this.shadowClassificationMode = increment.shadowClassificationMode;
         }
+        if (increment.countLimit != null) {
+            this.countLimit = increment.countLimit;
+        }
     }
 
     /**
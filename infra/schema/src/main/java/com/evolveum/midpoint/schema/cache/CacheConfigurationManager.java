@@ -268,6 +268,7 @@ public class CacheConfigurationManager {
         addCacheSettings(aggregate, CacheType.LOCAL_FOCUS_CONSTRAINT_CHECKER_CACHE, profile.getLocalFocusConstraintCheckerCache());
         addCacheSettings(aggregate, CacheType.LOCAL_SHADOW_CONSTRAINT_CHECKER_CACHE, profile.getLocalShadowConstraintCheckerCache());
         addCacheSettings(aggregate, CacheType.LOCAL_ASSOCIATION_TARGET_SEARCH_EVALUATOR_CACHE, profile.getLocalAssociationTargetSearchEvaluatorCache());
+        addCacheSettings(aggregate, CacheType.GLOBAL_ASSOCIATION_TARGET_SEARCH_EVALUATOR_CACHE, profile.getGlobalAssociationTargetSearchEvaluatorCache());
         //addCacheSettings(aggregate, CacheType.LOCAL_DEFAULT_SEARCH_EVALUATOR_CACHE, profile.getLocalDefaultSearchEvaluatorCache());
     }
 
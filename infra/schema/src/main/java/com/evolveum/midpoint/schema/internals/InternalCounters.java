@@ -6,6 +6,7 @@
  */
 package com.evolveum.midpoint.schema.internals;
 
+import com.evolveum.midpoint.schema.processor.NativeResourceSchemaCache;
 import com.evolveum.midpoint.schema.processor.ResourceSchemaFactory;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
 
@@ -15,9 +16,19 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
  */
 public enum InternalCounters {
 
-    /** This denotes parsing from XML in {@link ResourceSchemaFactory#getNativeSchema(ResourceType)}. */
+    /**
+     * This denotes obtaining the native schema for a resource object in {@link ResourceSchemaFactory#getNativeSchema(ResourceType)}
+     * that has not been parsed for that object yet. The schema may be taken from {@link NativeResourceSchemaCache},
+     * see {@link #RESOURCE_SCHEMA_XSD_PARSE_COUNT}.
+     */
     RESOURCE_SCHEMA_PARSE_COUNT("resourceSchemaParseCount", "resource schema parse count", InternalOperationClasses.RESOURCE_SCHEMA_OPERATIONS),
 
+    /** This denotes real parsing of the resource schema XSD in {@link NativeResourceSchemaCache}. */
+    RESOURCE_SCHEMA_XSD_PARSE_COUNT("resourceSchemaXsdParseCount", "resource schema XSD parse count", InternalOperationClasses.RESOURCE_SCHEMA_OPERATIONS),
+
+    /** The resource schema was taken from {@link NativeResourceSchemaCache} instead of being parsed. */
+    RESOURCE_SCHEMA_SHARED_CACHE_HIT_COUNT("resourceSchemaSharedCacheHitCount", "resource schema shared cache hit count", InternalOperationClasses.RESOURCE_SCHEMA_OPERATIONS),
+
     RESOURCE_SCHEMA_FETCH_COUNT("resourceSchemaFetchCount", "resource schema fetch count", InternalOperationClasses.REPOSITORY_OPERATIONS),
 
     /** Resource definition is fetched from the repository (in ResourceManager; not necessarily in other places). */
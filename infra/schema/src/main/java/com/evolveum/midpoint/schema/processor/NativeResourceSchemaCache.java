@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema.processor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Element;
+
+import com.evolveum.midpoint.schema.internals.InternalCounters;
+import com.evolveum.midpoint.schema.internals.InternalMonitor;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Node-wide cache of parsed (frozen) {@link NativeResourceSchema} objects, shared by all the instances
+ * of the respective resource having the same schema.
+ *
+ * The parsed schema is normally stored in the user data of the resource object. But each time the resource is re-read
+ * from the repository - e.g. after a resource cache miss or invalidation, or by parallel threads - the object is new,
+ * and the schema would be parsed again. For resources with large schemas this takes seconds.
+ *
+ * Here, the schemas are keyed by the resource OID, and checked against the identity of the schema: the serial number
+ * of the schema caching metadata (set anew each time the schema is fetched from the resource), or - if there is none,
+ * e.g. for schemas provided manually - the digest of the XSD. Hence, modifications of other parts of the resource
+ * (and the resulting change of the resource version) do not require parsing the schema again.
+ * Only the latest schema for each resource is kept, so the size is limited by the number of resources. The parsing
+ * of given schema is done only once, even if requested by multiple threads at the same time: the others wait
+ * for the result. The reads are lock-free.
+ *
+ * A changed schema is detected by the identity check, so the cache needs no invalidation to be correct. It is invalidated
+ * only to free the memory, when the resource is deleted or its schema is modified (see the cache adapter
+ * in the provisioning module).
+ *
+ * Only the native (raw) schema is cached here. The complete (refined) schema depends on the rest of the resource
+ * definition, including the ancestor resources, so it is still computed for each resource object.
+ */
+public class NativeResourceSchemaCache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(NativeResourceSchemaCache.class);
+
+    private static final Map<String, CachedSchema> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the parsed schema for given XSD of given resource, either from the cache, or freshly parsed.
+     * The caller should hold the lock on the XSD element (because of the DOM access).
+     */
+    static @NotNull NativeResourceSchema getOrParse(
+            @NotNull String resourceOid, @Nullable String schemaSerialNumber, @NotNull Element xsdElement, String description)
+            throws SchemaException {
+        SchemaIdentity identity = schemaSerialNumber != null ?
+                new SchemaIdentity(schemaSerialNumber, null) :
+                new SchemaIdentity(null, digest(xsdElement));
+        for (;;) {
+            CachedSchema existing = CACHE.get(resourceOid);
+            if (existing != null && existing.identity.equals(identity)) {
+                NativeResourceSchema schema = waitFor(existing, description);
+                if (schema != null) {
+                    InternalMonitor.recordCount(InternalCounters.RESOURCE_SCHEMA_SHARED_CACHE_HIT_COUNT);
+                    return schema;
+                }
+                // Parsing in the other thread failed; we will try it ourselves. (And probably fail in the same way.)
+                CACHE.remove(resourceOid, existing);
+                continue;
+            }
+            CachedSchema mine = new CachedSchema(identity, new CompletableFuture<>());
+            boolean installed = existing != null ?
+                    CACHE.replace(resourceOid, existing, mine) :
+                    CACHE.putIfAbsent(resourceOid, mine) == null;
+            if (installed) {
+                return parse(resourceOid, mine, xsdElement, description);
+            }
+        }
+    }
+
+    /** Serializing the XSD is still much cheaper than parsing it into the schema. */
+    private static @NotNull String digest(@NotNull Element xsdElement) {
+        return Hashing.sha256()
+                .hashString(DOMUtil.serializeDOMToString(xsdElement), StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    private static @NotNull NativeResourceSchema parse(
+            String resourceOid, CachedSchema entry, Element xsdElement, String description) throws SchemaException {
+        try {
+            LOGGER.trace("Parsing {} ({})", description, entry.identity);
+            InternalMonitor.recordCount(InternalCounters.RESOURCE_SCHEMA_XSD_PARSE_COUNT);
+            NativeResourceSchema schema = ResourceSchemaFactory.parseNativeSchema(xsdElement, description);
+            schema.freeze();
+            entry.future.complete(schema);
+            return schema;
+        } catch (SchemaException | RuntimeException e) {
+            CACHE.remove(resourceOid, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Returns `null` if the parsing failed. */
+    private static NativeResourceSchema waitFor(CachedSchema entry, String description) {
+        try {
+            return entry.future.get();
+        } catch (ExecutionException e) {
+            LOGGER.debug("Parsing of {} in another thread failed: {}", description, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("Interrupted while waiting for " + description + " to be parsed", e);
+        }
+    }
+
+    /** Drops the schema of given resource, e.g. when the resource is deleted or its schema is changed. */
+    public static void invalidate(@NotNull String resourceOid) {
+        CACHE.remove(resourceOid);
+    }
+
+    public static void invalidateAll() {
+        CACHE.clear();
+    }
+
+    public static int size() {
+        return CACHE.size();
+    }
+
+    /** Either the serial number from the schema caching metadata, or the digest of the XSD. */
+    private record SchemaIdentity(@Nullable String serialNumber, @Nullable String xsdDigest) {
+    }
+
+    private record CachedSchema(@NotNull SchemaIdentity identity, @NotNull CompletableFuture<NativeResourceSchema> future) {
+    }
+}
@@ -24,8 +24,10 @@ import com.evolveum.midpoint.schema.util.ResourceTypeUtil;
 import com.evolveum.midpoint.util.MiscUtil;
 import com.evolveum.midpoint.util.exception.ConfigurationException;
 import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CachingMetadataType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.LayerType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.XmlSchemaType;
 
 /** The official place where resource schemas are created. */
 public class ResourceSchemaFactory {
@@ -185,15 +187,29 @@ public class ResourceSchemaFactory {
             } else {
                 stateCheck(!resource.isImmutable(), "Trying to set parsed schema on immutable resource: %s", resource);
                 InternalMonitor.recordCount(InternalCounters.RESOURCE_SCHEMA_PARSE_COUNT);
-                NativeResourceSchema parsedSchema =
-                        parseNativeSchema(resourceXsdSchemaElement, "resource schema of " + resource);
-                parsedSchema.freeze();
+                String description = "resource schema of " + resource;
+                String oid = resource.getOid();
+                NativeResourceSchema parsedSchema;
+                if (oid != null) {
+                    // Shared with other instances of the same resource having the same schema.
+                    parsedSchema = NativeResourceSchemaCache.getOrParse(
+                            oid, getSchemaSerialNumber(resource.asObjectable()), resourceXsdSchemaElement, description);
+                } else {
+                    parsedSchema = parseNativeSchema(resourceXsdSchemaElement, description);
+                    parsedSchema.freeze();
+                }
                 resource.setUserData(USER_DATA_KEY_NATIVE_SCHEMA, parsedSchema);
                 return parsedSchema;
             }
         }
     }
 
+    private static String getSchemaSerialNumber(ResourceType resource) {
+        XmlSchemaType schema = resource.getSchema();
+        CachingMetadataType cachingMetadata = schema != null ? schema.getCachingMetadata() : null;
+        return cachingMetadata != null ? cachingMetadata.getSerialNumber() : null;
+    }
+
     @VisibleForTesting
     public static boolean hasParsedSchema(ResourceType resource) {
         return resource.asPrismObject().getUserData(USER_DATA_KEY_NATIVE_SCHEMA) != null;
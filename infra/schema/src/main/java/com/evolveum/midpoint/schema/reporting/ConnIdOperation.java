@@ -37,6 +37,10 @@ public class ConnIdOperation {
     private long lastSuspendTimestamp;
     private long lastResumeTimestamp;
     private long netRunningTime;
+
+    /** Time spent waiting for the connector concurrency limits before the operation was started (not part of the duration). */
+    private long queueWaitTime;
+
     private OperationResultStatus status;
     private String message;
 
@@ -109,6 +113,14 @@ public class ConnIdOperation {
         this.endTimestamp = endTimestamp;
     }
 
+    public long getQueueWaitTime() {
+        return queueWaitTime;
+    }
+
+    public void setQueueWaitTime(long queueWaitTime) {
+        this.queueWaitTime = queueWaitTime;
+    }
+
     public OperationResultStatus getStatus() {
         return status;
     }
@@ -135,6 +147,7 @@ public class ConnIdOperation {
                 ", uid='" + uid + '\'' +
                 ", startTimestamp=" + startTimestamp +
                 ", endTimestamp=" + endTimestamp +
+                ", queueWaitTime=" + queueWaitTime +
                 ", result=" + status +
                 ", message='" + message + '\'' +
                 '}';
@@ -44,6 +44,7 @@ import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
 import com.evolveum.midpoint.schema.internals.ThreadLocalOperationsMonitor;
+import com.evolveum.midpoint.schema.statistics.OperationSampler;
 import com.evolveum.midpoint.schema.util.LocalizationUtil;
 import com.evolveum.midpoint.schema.util.ParamsTypeUtil;
 import com.evolveum.midpoint.schema.util.TraceUtil;
@@ -329,6 +330,9 @@ public class OperationResult
 
     private OperationInvocationRecord invocationRecord;
 
+    /** Position of this operation on the thread operation stack used by {@link OperationSampler} (if enabled). */
+    private transient OperationSampler.Frame samplingFrame;
+
     /**
      * Resolving that status HANDLED_ERROR will be propagated to parent as SUCCESS.
      */
@@ -435,6 +439,7 @@ public class OperationResult
         boolean measureCpuTime = tracingProfile != null && tracingProfile.isMeasureCpuTime();
         invocationRecord = OperationInvocationRecord.create(operation, arguments, measureCpuTime);
         invocationId = invocationRecord.getInvocationId();
+        samplingFrame = OperationSampler.recordStart(operation);
         start = System.currentTimeMillis();
     }
 
@@ -507,6 +512,10 @@ public class OperationResult
             invocationRecord = null;
         }
         end = System.currentTimeMillis();
+        if (samplingFrame != null) {
+            OperationSampler.recordEnd(samplingFrame);
+            samplingFrame = null;
+        }
         if (startedLoggingOverride) {
             LevelOverrideTurboFilter.cancelLoggingOverride();
             startedLoggingOverride = false;
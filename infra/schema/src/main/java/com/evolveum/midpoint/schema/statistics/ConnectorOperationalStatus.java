@@ -7,6 +7,7 @@
 package com.evolveum.midpoint.schema.statistics;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.util.DebugUtil;
@@ -29,6 +30,9 @@ public class ConnectorOperationalStatus implements DebugDumpable, Serializable {
     public static final String F_POOL_CONFIG_MAX_IDLE_TIME = "poolConfigMaxIdleTime";
     public static final String F_POOL_STATUS_NUM_IDLE = "poolStatusNumIdle";
     public static final String F_POOL_STATUS_NUM_ACTIVE = "poolStatusNumActive";
+    public static final String F_CONCURRENCY_LIMIT = "concurrencyLimit";
+    public static final String F_CONCURRENCY_NUM_ACTIVE = "concurrencyNumActive";
+    public static final String F_CONCURRENCY_NUM_WAITING = "concurrencyNumWaiting";
 
     private String connectorName;
     private String connectorClassName;
@@ -46,6 +50,11 @@ public class ConnectorOperationalStatus implements DebugDumpable, Serializable {
     private Integer poolStatusNumIdle;
     private Integer poolStatusNumActive;
 
+    // midPoint-level concurrency limits for the resource (if configured)
+    private Integer concurrencyLimit;
+    private Integer concurrencyNumActive;
+    private Integer concurrencyNumWaiting;
+
     public String getConnectorName() {
         return connectorName;
     }
@@ -134,6 +143,30 @@ public class ConnectorOperationalStatus implements DebugDumpable, Serializable {
         this.poolStatusNumActive = poolStatusNumActive;
     }
 
+    public Integer getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(Integer concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public Integer getConcurrencyNumActive() {
+        return concurrencyNumActive;
+    }
+
+    public void setConcurrencyNumActive(Integer concurrencyNumActive) {
+        this.concurrencyNumActive = concurrencyNumActive;
+    }
+
+    public Integer getConcurrencyNumWaiting() {
+        return concurrencyNumWaiting;
+    }
+
+    public void setConcurrencyNumWaiting(Integer concurrencyNumWaiting) {
+        this.concurrencyNumWaiting = concurrencyNumWaiting;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -148,6 +181,7 @@ public class ConnectorOperationalStatus implements DebugDumpable, Serializable {
         result = prime * result + ((poolConfigWaitTimeout == null) ? 0 : poolConfigWaitTimeout.hashCode());
         result = prime * result + ((poolStatusNumActive == null) ? 0 : poolStatusNumActive.hashCode());
         result = prime * result + ((poolStatusNumIdle == null) ? 0 : poolStatusNumIdle.hashCode());
+        result = prime * result + Objects.hash(concurrencyLimit, concurrencyNumActive, concurrencyNumWaiting);
         return result;
     }
 
@@ -226,7 +260,9 @@ public class ConnectorOperationalStatus implements DebugDumpable, Serializable {
         } else if (!poolStatusNumIdle.equals(other.poolStatusNumIdle)) {
             return false;
         }
-        return true;
+        return Objects.equals(concurrencyLimit, other.concurrencyLimit)
+                && Objects.equals(concurrencyNumActive, other.concurrencyNumActive)
+                && Objects.equals(concurrencyNumWaiting, other.concurrencyNumWaiting);
     }
 
     @Override
@@ -249,7 +285,10 @@ public class ConnectorOperationalStatus implements DebugDumpable, Serializable {
         DebugUtil.debugDumpWithLabelLn(sb, "poolConfigMinEvictableIdleTime", poolConfigMinEvictableIdleTime, indent + 1);
         DebugUtil.debugDumpWithLabelLn(sb, "poolConfigMaxIdleTime", poolConfigMaxIdleTime, indent + 1);
         DebugUtil.debugDumpWithLabelLn(sb, "poolStatusNumIdle", poolStatusNumIdle, indent + 1);
-        DebugUtil.debugDumpWithLabel(sb, "poolStatusNumActive", poolStatusNumActive, indent + 1);
+        DebugUtil.debugDumpWithLabelLn(sb, "poolStatusNumActive", poolStatusNumActive, indent + 1);
+        DebugUtil.debugDumpWithLabelLn(sb, "concurrencyLimit", concurrencyLimit, indent + 1);
+        DebugUtil.debugDumpWithLabelLn(sb, "concurrencyNumActive", concurrencyNumActive, indent + 1);
+        DebugUtil.debugDumpWithLabel(sb, "concurrencyNumWaiting", concurrencyNumWaiting, indent + 1);
         return sb.toString();
 
     }
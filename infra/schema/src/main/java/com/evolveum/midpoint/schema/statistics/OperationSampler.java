@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema.statistics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.annotation.Experimental;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Low-overhead sampling "profiler" working on the level of operations (i.e. {@link OperationResult} instances).
+ *
+ * Each thread keeps a lightweight stack of the operations it currently executes. It is maintained by {@link OperationResult}
+ * when the sampling is enabled. A separate thread periodically looks at the stacks of the threads that collect the samples
+ * (typically, the task threads; see {@link #startThreadLocalCollection()}) and records them into {@link OperationSamples}.
+ *
+ * Unlike tracing, this does not change the timing of the operations being measured in any significant way,
+ * so it can be used also in production. On the other hand, the stacks are read without synchronization,
+ * so a sample can be slightly inaccurate when taken at the moment of an operation start or end.
+ *
+ * As the samples are stored in the task, their size is limited: the package names in the operation names are abbreviated
+ * (see {@link #abbreviate(String)}), only the outermost {@link #MAX_DEPTH} operations of a stack are recorded,
+ * and the number of distinct paths as well as their total length are capped (see {@link #MAX_PATHS}
+ * and {@link #MAX_TOTAL_PATHS_LENGTH}). Samples that do not fit are counted under {@link #OTHER_PATHS}.
+ */
+@Experimental
+public class OperationSampler {
+
+    private static final Trace LOGGER = TraceManager.getTrace(OperationSampler.class);
+
+    /** Operations nested deeper than this are not recorded; the path ends with {@link #TRUNCATED} instead. */
+    static final int MAX_DEPTH = 40;
+
+    /** The last element of the paths of stacks deeper than {@link #MAX_DEPTH}. */
+    static final String TRUNCATED = "...";
+
+    /**
+     * Maximal number of distinct operation paths kept for a thread or a task. Samples of other paths are counted
+     * under {@link #OTHER_PATHS}, so that the samples stored in the task do not grow without limits.
+     */
+    public static final int MAX_PATHS = 300;
+
+    /** Maximal total length (in characters) of the distinct operation paths kept for a thread or a task. */
+    public static final int MAX_TOTAL_PATHS_LENGTH = 100_000;
+
+    /** Abbreviations are cached only up to this number of operation names (which is normally much more than needed). */
+    private static final int MAX_ABBREVIATIONS = 10_000;
+
+    /** Pseudo-path under which the samples exceeding {@link #MAX_PATHS} are counted. */
+    public static final String OTHER_PATHS = "(other)";
+
+    /** Stacks of all threads that executed an operation while the sampling was enabled. */
+    private static final Set<OperationStack> STACKS = ConcurrentHashMap.newKeySet();
+
+    private static final ThreadLocal<OperationStack> THREAD_LOCAL = ThreadLocal.withInitial(() -> {
+        OperationStack stack = new OperationStack(Thread.currentThread());
+        STACKS.add(stack);
+        return stack;
+    });
+
+    private static final Map<String, String> ABBREVIATIONS = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled;
+
+    private static SamplingThread samplingThread;
+
+    /** Starts the sampling with given interval (in milliseconds). */
+    public static synchronized void start(long interval) {
+        if (samplingThread != null) {
+            samplingThread.interval = interval;
+            return;
+        }
+        LOGGER.info("Starting operation sampling with the interval of {} ms", interval);
+        enabled = true;
+        samplingThread = new SamplingThread(interval);
+        samplingThread.start();
+    }
+
+    public static synchronized void stop() {
+        if (samplingThread == null) {
+            return;
+        }
+        LOGGER.info("Stopping operation sampling");
+        enabled = false;
+        samplingThread.interrupt();
+        samplingThread = null;
+        // Collections started before the stop must not continue if the sampling is started again.
+        STACKS.forEach(stack -> stack.samples = null);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the start of an operation in the current thread. Returns the handle to be passed to {@link #recordEnd(Frame)},
+     * or `null` if the sampling is not enabled.
+     */
+    public static @Nullable Frame recordStart(@NotNull String operation) {
+        if (!enabled) {
+            return null;
+        }
+        OperationStack stack = THREAD_LOCAL.get();
+        return new Frame(stack, stack.push(operation));
+    }
+
+    /**
+     * Records the end of an operation. Any operations started later (and not ended, e.g. because of an exception)
+     * are considered ended as well. Ends in other than the starting thread are ignored.
+     */
+    public static void recordEnd(@Nullable Frame frame) {
+        if (frame != null && frame.stack.owner == Thread.currentThread()) {
+            frame.stack.popTo(frame.depth);
+        }
+    }
+
+    /**
+     * Starts collecting samples for the current thread (replacing the collection that was started before, if any).
+     * Returns `null` if the sampling is not enabled.
+     */
+    public static @Nullable OperationSamples startThreadLocalCollection() {
+        if (!enabled) {
+            return null;
+        }
+        OperationSamples samples = new OperationSamples();
+        THREAD_LOCAL.get().samples = samples;
+        return samples;
+    }
+
+    /**
+     * Stops collecting samples for the current thread. Must be called when the task stops using the thread,
+     * as the threads (e.g. the ones of lightweight tasks) are pooled.
+     */
+    public static void stopThreadLocalCollection() {
+        if (enabled) {
+            THREAD_LOCAL.get().samples = null;
+        }
+    }
+
+    /** Returns the samples being collected for the current thread (if any). */
+    public static @Nullable OperationSamples getThreadLocalSamples() {
+        return enabled ? THREAD_LOCAL.get().samples : null;
+    }
+
+    private static void takeSamples() {
+        for (var iterator = STACKS.iterator(); iterator.hasNext(); ) {
+            OperationStack stack = iterator.next();
+            if (!stack.owner.isAlive()) {
+                iterator.remove();
+                continue;
+            }
+            OperationSamples samples = stack.samples;
+            if (samples != null) {
+                samples.record(stack.getPath());
+            }
+        }
+    }
+
+    /**
+     * Abbreviates the package part of an operation name, e.g. `com.evolveum.midpoint.model.impl.lens.Clockwork.run`
+     * to `c.e.m.m.i.l.Clockwork.run`. Names not following the `package.Class.method` convention are kept as they are.
+     */
+    static @NotNull String abbreviate(@NotNull String operation) {
+        String cached = ABBREVIATIONS.get(operation);
+        if (cached != null) {
+            return cached;
+        }
+        String[] segments = operation.split("\\.", -1);
+        StringBuilder sb = new StringBuilder(operation.length());
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (i > 0) {
+                sb.append('.');
+            }
+            // The last segment is the method name; package names start with a lower-case letter.
+            if (i < segments.length - 1 && !segment.isEmpty() && Character.isLowerCase(segment.charAt(0))) {
+                sb.append(segment.charAt(0));
+            } else {
+                sb.append(segment);
+            }
+        }
+        String abbreviated = sb.toString();
+        if (ABBREVIATIONS.size() < MAX_ABBREVIATIONS) {
+            ABBREVIATIONS.put(operation, abbreviated);
+        }
+        return abbreviated;
+    }
+
+    /**
+     * Returns `true` if a new path can be added to the collection of `pathsCount` distinct paths
+     * with given total length.
+     */
+    static boolean hasRoomFor(@NotNull String path, int pathsCount, long totalPathsLength) {
+        return pathsCount < MAX_PATHS && totalPathsLength + path.length() <= MAX_TOTAL_PATHS_LENGTH;
+    }
+
+    /** Opaque handle of an operation on the stack of a thread. */
+    public static class Frame {
+
+        @NotNull private final OperationStack stack;
+        private final int depth;
+
+        private Frame(@NotNull OperationStack stack, int depth) {
+            this.stack = stack;
+            this.depth = depth;
+        }
+    }
+
+    private static class OperationStack {
+
+        @NotNull private final Thread owner;
+
+        /** Written only by the owner thread. */
+        @NotNull private final String[] operations = new String[MAX_DEPTH];
+
+        /** Written only by the owner thread. May be greater than {@link #MAX_DEPTH}. */
+        private volatile int depth;
+
+        /** Where to put the samples of this stack; `null` if they are not collected. */
+        private volatile OperationSamples samples;
+
+        private OperationStack(@NotNull Thread owner) {
+            this.owner = owner;
+        }
+
+        /** Returns the depth at which the operation was pushed. */
+        private int push(String operation) {
+            int current = depth;
+            if (current < MAX_DEPTH) {
+                operations[current] = operation;
+            }
+            depth = current + 1;
+            return current;
+        }
+
+        private void popTo(int newDepth) {
+            if (newDepth >= 0 && newDepth < depth) {
+                depth = newDepth;
+            }
+        }
+
+        /** Called from the sampling thread. Returns `null` if there is no operation on the stack. */
+        private String getPath() {
+            int currentDepth = depth;
+            int recorded = Math.min(currentDepth, MAX_DEPTH);
+            if (recorded == 0) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < recorded; i++) {
+                if (i > 0) {
+                    sb.append(';');
+                }
+                String operation = operations[i];
+                sb.append(operation != null ? abbreviate(operation) : "?");
+            }
+            if (currentDepth > MAX_DEPTH) {
+                sb.append(';').append(TRUNCATED);
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Samples collected for a thread or threads. Thread-safe. */
+    public static class OperationSamples {
+
+        private final LongAdder sampleCount = new LongAdder();
+        private final Map<String, LongAdder> stacks = new ConcurrentHashMap<>();
+
+        /** Total length of the keys in {@link #stacks}. */
+        private final AtomicLong totalPathsLength = new AtomicLong();
+
+        void record(@Nullable String path) {
+            sampleCount.increment();
+            if (path != null) {
+                // Approximate under concurrent modifications, which is OK.
+                String pathToRecord = stacks.containsKey(path) || hasRoomFor(path, stacks.size(), totalPathsLength.get())
+                        ? path : OTHER_PATHS;
+                stacks.computeIfAbsent(pathToRecord, k -> {
+                    totalPathsLength.addAndGet(k.length());
+                    return new LongAdder();
+                }).increment();
+            }
+        }
+
+        public long getSampleCount() {
+            return sampleCount.sum();
+        }
+
+        /** Returns a snapshot of the counts (indexed by operation paths). */
+        public @NotNull Map<String, Long> getStacks() {
+            Map<String, Long> snapshot = new HashMap<>();
+            stacks.forEach((path, count) -> snapshot.put(path, count.sum()));
+            return snapshot;
+        }
+    }
+
+    private static class SamplingThread extends Thread {
+
+        private volatile long interval;
+
+        private SamplingThread(long interval) {
+            super("Operation sampler");
+            this.interval = interval;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (enabled && !isInterrupted()) {
+                try {
+                    //noinspection BusyWait
+                    Thread.sleep(interval);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                try {
+                    takeSamples();
+                } catch (Throwable t) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't take operation samples", t);
+                }
+            }
+            LOGGER.debug("Operation sampling thread finished");
+        }
+    }
+}
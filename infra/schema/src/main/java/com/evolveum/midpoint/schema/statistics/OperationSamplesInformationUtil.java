@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema.statistics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.evolveum.midpoint.schema.statistics.OperationSampler.OperationSamples;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationSamplesInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationStackSampleType;
+
+/**
+ * Utility methods for {@link OperationSamplesInformationType}.
+ */
+public class OperationSamplesInformationUtil {
+
+    public static @NotNull OperationSamplesInformationType toOperationSamplesInformationType(@NotNull OperationSamples samples) {
+        OperationSamplesInformationType rv = new OperationSamplesInformationType();
+        rv.setSampleCount(samples.getSampleCount());
+        samples.getStacks().forEach(
+                (path, count) -> rv.getStack().add(
+                        new OperationStackSampleType()
+                                .path(path)
+                                .count(count)));
+        return rv;
+    }
+
+    /**
+     * Adds the samples to the aggregate. At most {@link OperationSampler#MAX_PATHS} distinct paths
+     * (of at most {@link OperationSampler#MAX_TOTAL_PATHS_LENGTH} characters in total) are kept;
+     * the others are counted under {@link OperationSampler#OTHER_PATHS}.
+     */
+    public static void addTo(@NotNull OperationSamplesInformationType aggregate, @Nullable OperationSamplesInformationType part) {
+        if (part == null) {
+            return;
+        }
+        aggregate.setSampleCount(
+                or0(aggregate.getSampleCount()) + or0(part.getSampleCount()));
+        Map<String, OperationStackSampleType> aggregateStacks = new HashMap<>();
+        long totalPathsLength = 0;
+        for (OperationStackSampleType stack : aggregate.getStack()) {
+            aggregateStacks.put(stack.getPath(), stack);
+            totalPathsLength += length(stack.getPath());
+        }
+        for (OperationStackSampleType partStack : part.getStack()) {
+            String path = Objects.requireNonNullElse(partStack.getPath(), "");
+            if (!aggregateStacks.containsKey(path)
+                    && !OperationSampler.hasRoomFor(path, aggregateStacks.size(), totalPathsLength)) {
+                path = OperationSampler.OTHER_PATHS;
+            }
+            OperationStackSampleType matching = aggregateStacks.get(path);
+            if (matching != null) {
+                matching.setCount(or0(matching.getCount()) + or0(partStack.getCount()));
+            } else {
+                OperationStackSampleType added = new OperationStackSampleType()
+                        .path(path)
+                        .count(partStack.getCount());
+                aggregate.getStack().add(added);
+                aggregateStacks.put(path, added);
+                totalPathsLength += path.length();
+            }
+        }
+    }
+
+    /**
+     * Formats the samples in the "collapsed stacks" format (one stack per line, followed by the count), sorted by the count.
+     * This is the input format of commonly used flame graph tools.
+     */
+    public static String format(@NotNull OperationSamplesInformationType information) {
+        StringBuilder sb = new StringBuilder();
+        information.getStack().stream()
+                .sorted(Comparator.comparing((OperationStackSampleType s) -> or0(s.getCount())).reversed()
+                        .thenComparing(OperationStackSampleType::getPath, Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(stack -> sb.append(Objects.requireNonNullElse(stack.getPath(), ""))
+                        .append(' ')
+                        .append(or0(stack.getCount()))
+                        .append('\n'));
+        return sb.toString();
+    }
+
+    private static int length(String path) {
+        return path != null ? path.length() : 0;
+    }
+
+    private static long or0(Long value) {
+        return value != null ? value : 0;
+    }
+}
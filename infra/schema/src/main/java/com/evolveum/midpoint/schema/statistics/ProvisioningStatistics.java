@@ -70,7 +70,9 @@ public class ProvisioningStatistics {
                     .count(1)
                     .totalTime(operation.getNetRunningTime())
                     .minTime(operation.getNetRunningTime())
-                    .maxTime(operation.getNetRunningTime());
+                    .maxTime(operation.getNetRunningTime())
+                    .totalQueueWaitTime(nullIfZero(operation.getQueueWaitTime()))
+                    .maxQueueWaitTime(nullIfZero(operation.getQueueWaitTime()));
 
         addTo(this.value, delta);
     }
@@ -150,6 +152,15 @@ public class ProvisioningStatistics {
         sum.setTotalTime(or0(sum.getTotalTime()) + or0(delta.getTotalTime()));
         sum.setMinTime(min(sum.getMinTime(), delta.getMinTime()));
         sum.setMaxTime(max(sum.getMaxTime(), delta.getMaxTime()));
+        if (delta.getTotalQueueWaitTime() != null || delta.getMaxQueueWaitTime() != null) {
+            sum.setTotalQueueWaitTime(or0(sum.getTotalQueueWaitTime()) + or0(delta.getTotalQueueWaitTime()));
+            sum.setMaxQueueWaitTime(max(sum.getMaxQueueWaitTime(), delta.getMaxQueueWaitTime()));
+        }
+    }
+
+    /** Queue wait times are present only if the concurrency limits are used, to keep the statistics concise. */
+    private static Long nullIfZero(long value) {
+        return value != 0 ? value : null;
     }
 
     public static String format(ProvisioningStatisticsType source) {
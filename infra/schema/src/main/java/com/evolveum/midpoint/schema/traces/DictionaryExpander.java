@@ -7,6 +7,8 @@
 
 package com.evolveum.midpoint.schema.traces;
 
+import java.util.function.Function;
+
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismReferenceValue;
 import com.evolveum.midpoint.prism.Visitable;
@@ -37,7 +39,8 @@ public class DictionaryExpander {
     public void expand() {
         long start = System.currentTimeMillis();
         if (tracingOutput != null && tracingOutput.getResult() != null) {
-            expandDictionary(tracingOutput.getResult(), new ExpandingVisitor(tracingOutput.getDictionary()));
+            TraceDictionaryType dictionary = tracingOutput.getDictionary();
+            expandDictionary(tracingOutput.getResult(), new ExpandingVisitor(id -> findEntry(dictionary, id)));
         }
         LOGGER.debug("Dictionary expanded in {} milliseconds", System.currentTimeMillis() - start);
     }
@@ -45,10 +48,10 @@ public class DictionaryExpander {
     @SuppressWarnings("rawtypes")
     private static class ExpandingVisitor implements Visitor {
 
-        private final TraceDictionaryType dictionary;
+        private final Function<String, TraceDictionaryEntryType> entryFinder;
 
-        private ExpandingVisitor(TraceDictionaryType dictionary) {
-            this.dictionary = dictionary;
+        private ExpandingVisitor(Function<String, TraceDictionaryEntryType> entryFinder) {
+            this.entryFinder = entryFinder;
         }
 
         @Override
@@ -57,7 +60,7 @@ public class DictionaryExpander {
                 PrismReferenceValue refVal = (PrismReferenceValue) visitable;
                 if (refVal.getObject() == null && refVal.getOid() != null && refVal.getOid().startsWith(SchemaConstants.TRACE_DICTIONARY_PREFIX)) {
                     String id = refVal.getOid().substring(SchemaConstants.TRACE_DICTIONARY_PREFIX.length());
-                    TraceDictionaryEntryType entry = findEntry(id);
+                    TraceDictionaryEntryType entry = entryFinder.apply(id);
                     if (entry == null) {
                         LOGGER.error("No dictionary entry #{}", id);
                     } else if (entry.getObject() == null) {
@@ -72,16 +75,28 @@ public class DictionaryExpander {
                 }
             }
         }
+    }
 
-        private TraceDictionaryEntryType findEntry(String id) {
-            for (TraceDictionaryEntryType entry : dictionary.getEntry()) {
-                String qualifiedId = entry.getOriginDictionaryId() + ":" + entry.getIdentifier();
-                if (qualifiedId.equals(id)) {
-                    return entry;
-                }
+    private static TraceDictionaryEntryType findEntry(TraceDictionaryType dictionary, String id) {
+        for (TraceDictionaryEntryType entry : dictionary.getEntry()) {
+            if (getQualifiedId(entry).equals(id)) {
+                return entry;
             }
-            return null;
         }
+        return null;
+    }
+
+    static String getQualifiedId(TraceDictionaryEntryType entry) {
+        return entry.getOriginDictionaryId() + ":" + entry.getIdentifier();
+    }
+
+    /**
+     * Expands the references in given result node only, not in its partial results. Used when the trace is read
+     * record by record.
+     */
+    static void expandNode(OperationResultType resultBean, Function<String, TraceDictionaryEntryType> entryFinder) {
+        ExpandingVisitor expandingVisitor = new ExpandingVisitor(entryFinder);
+        resultBean.getTrace().forEach(trace -> trace.asPrismContainerValue().accept(expandingVisitor));
     }
 
     private void expandDictionary(OperationResultType resultBean, ExpandingVisitor expandingVisitor) {
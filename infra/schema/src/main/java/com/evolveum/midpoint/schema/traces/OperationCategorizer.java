@@ -33,13 +33,18 @@ class OperationCategorizer {
     }
 
     private void categorize(OperationResultType result) {
+        categorizeNode(result);
+        result.getPartialResults().forEach(this::categorize);
+    }
+
+    /** Categorizes given result node only, not its partial results. */
+    static void categorizeNode(OperationResultType result) {
         if (result.getOperationKind() == null) {
             result.setOperationKind(determineOperationKind(result));
         }
-        result.getPartialResults().forEach(this::categorize);
     }
 
-    private OperationKindType determineOperationKind(OperationResultType result) {
+    private static OperationKindType determineOperationKind(OperationResultType result) {
         OpType type = OpType.determine(result);
         return type != null ? type.getKind() : null;
     }
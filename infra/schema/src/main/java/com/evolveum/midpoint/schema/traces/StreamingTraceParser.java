@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema.traces;
+
+import static com.evolveum.midpoint.schema.traces.StreamingTraceWriter.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.util.annotation.Experimental;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TraceDictionaryEntryType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TraceDictionaryType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TracingOutputType;
+
+/**
+ * Reads traces written by {@link StreamingTraceWriter}.
+ *
+ * The records can be processed one by one using {@link #parse(InputStream, RecordHandler, boolean)}, without keeping
+ * the whole trace in memory. Unless the raw mode is requested, the references to the dictionary are expanded
+ * and the operations are categorized right when each record is read, just like {@link TraceParser} does it
+ * for the whole trace.
+ *
+ * For the clients that need the whole tree (e.g. {@link OpNodeTreeBuilder}), the complete {@link TracingOutputType}
+ * can be assembled from the records by {@link #parse(InputStream, boolean, String)}. This is used by {@link TraceParser}
+ * automatically.
+ */
+@Experimental
+public class StreamingTraceParser {
+
+    private static final Trace LOGGER = TraceManager.getTrace(StreamingTraceParser.class);
+
+    @NotNull private final PrismContext prismContext;
+
+    public StreamingTraceParser(@NotNull PrismContext prismContext) {
+        this.prismContext = prismContext;
+    }
+
+    /** Returns true if the stream (that must support marking) contains a trace in the streaming format. */
+    public static boolean isStreamingFormat(@NotNull InputStream stream) throws IOException {
+        byte[] expected = MAGIC.getBytes(StandardCharsets.UTF_8);
+        stream.mark(expected.length);
+        try {
+            byte[] actual = stream.readNBytes(expected.length);
+            return Arrays.equals(expected, actual);
+        } finally {
+            stream.reset();
+        }
+    }
+
+    /** Reads the whole trace, assembling the operation result tree. The stream is not closed here. */
+    public TracingOutputType parse(@NotNull InputStream stream, boolean raw, String description)
+            throws IOException, SchemaException {
+        TreeAssembler assembler = new TreeAssembler();
+        parse(stream, assembler, raw);
+        if (assembler.tracingOutput == null) {
+            LOGGER.error("No header in input file '{}'", description);
+            return null;
+        }
+        assembler.tracingOutput.setResult(assembler.root);
+        return assembler.tracingOutput;
+    }
+
+    /**
+     * Reads the trace record by record, passing them to the handler. The stream is not closed here.
+     *
+     * @param raw If false, references to the dictionary are expanded and operation kinds are determined
+     * before the results are passed to the handler.
+     */
+    public void parse(@NotNull InputStream stream, @NotNull RecordHandler handler, boolean raw)
+            throws IOException, SchemaException {
+        RecordHandler effectiveHandler = raw ? handler : new ExpandingHandler(handler);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String first = reader.readLine();
+        if (!MAGIC.equals(first)) {
+            throw new SchemaException("Not a streaming trace: the first line is '" + first + "'");
+        }
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith(HEADER_PREFIX)) {
+                effectiveHandler.onHeader(
+                        parseRecord(line.substring(HEADER_PREFIX.length()), TracingOutputType.class));
+            } else if (line.startsWith(DICTIONARY_ENTRY_PREFIX)) {
+                effectiveHandler.onDictionaryEntry(
+                        parseRecord(line.substring(DICTIONARY_ENTRY_PREFIX.length()), TraceDictionaryEntryType.class));
+            } else if (line.startsWith(RESULT_PREFIX)) {
+                int tab = line.indexOf('\t', RESULT_PREFIX.length());
+                if (tab < 0) {
+                    throw new SchemaException("Malformed result record at line " + lineNumber);
+                }
+                int depth = parseDepth(line.substring(RESULT_PREFIX.length(), tab), lineNumber);
+                effectiveHandler.onResult(depth, parseRecord(line.substring(tab + 1), OperationResultType.class));
+            } else {
+                LOGGER.debug("Ignoring unknown record at line {}", lineNumber);
+            }
+        }
+    }
+
+    private int parseDepth(String text, int lineNumber) throws SchemaException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new SchemaException("Malformed depth '" + text + "' of result record at line " + lineNumber, e);
+        }
+    }
+
+    private <T> T parseRecord(String json, Class<T> type) throws SchemaException {
+        return prismContext.parserFor(json)
+                .json()
+                .compat()
+                .parseRealValue(type);
+    }
+
+    /** Receives the trace records in the order in which they were written. */
+    public interface RecordHandler {
+
+        /** The tracing output without the operation result. The dictionary may be incomplete. */
+        void onHeader(@NotNull TracingOutputType header);
+
+        /** A dictionary entry that is not present in the header. It precedes the results that refer to it. */
+        void onDictionaryEntry(@NotNull TraceDictionaryEntryType entry);
+
+        /**
+         * An operation result node, without its partial results. These are provided later, with the depth
+         * one greater than this node has. The root node has depth of 0.
+         */
+        void onResult(int depth, @NotNull OperationResultType result) throws SchemaException;
+    }
+
+    /** Expands the dictionary references and categorizes the operations, record by record. */
+    private static class ExpandingHandler implements RecordHandler {
+
+        @NotNull private final RecordHandler delegate;
+
+        /** Dictionary entries seen so far, indexed by their qualified identifiers. */
+        @NotNull private final Map<String, TraceDictionaryEntryType> entries = new HashMap<>();
+
+        private ExpandingHandler(@NotNull RecordHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onHeader(@NotNull TracingOutputType header) {
+            TraceDictionaryType dictionary = header.getDictionary();
+            if (dictionary != null) {
+                dictionary.getEntry().forEach(this::addEntry);
+            }
+            delegate.onHeader(header);
+        }
+
+        @Override
+        public void onDictionaryEntry(@NotNull TraceDictionaryEntryType entry) {
+            addEntry(entry);
+            delegate.onDictionaryEntry(entry);
+        }
+
+        private void addEntry(TraceDictionaryEntryType entry) {
+            entries.put(DictionaryExpander.getQualifiedId(entry), entry);
+        }
+
+        @Override
+        public void onResult(int depth, @NotNull OperationResultType result) throws SchemaException {
+            DictionaryExpander.expandNode(result, entries::get);
+            OperationCategorizer.categorizeNode(result);
+            delegate.onResult(depth, result);
+        }
+    }
+
+    /** Assembles the result tree from the pre-order sequence of nodes. */
+    private static class TreeAssembler implements RecordHandler {
+
+        private TracingOutputType tracingOutput;
+        private OperationResultType root;
+
+        /** Current path from the root; the item at index `i` has the depth of `i`. */
+        private final List<OperationResultType> path = new ArrayList<>();
+
+        @Override
+        public void onHeader(@NotNull TracingOutputType header) {
+            tracingOutput = header;
+        }
+
+        @Override
+        public void onDictionaryEntry(@NotNull TraceDictionaryEntryType entry) {
+            if (tracingOutput == null) {
+                return; // reported as missing header later
+            }
+            if (tracingOutput.getDictionary() == null) {
+                tracingOutput.setDictionary(new TraceDictionaryType());
+            }
+            tracingOutput.getDictionary().getEntry().add(entry);
+        }
+
+        @Override
+        public void onResult(int depth, @NotNull OperationResultType result) throws SchemaException {
+            if (depth == 0) {
+                if (root != null) {
+                    throw new SchemaException("More than one root result");
+                }
+                root = result;
+            } else if (depth > path.size()) {
+                throw new SchemaException("Unexpected depth of result " + result.getOperation() + ": " + depth);
+            } else {
+                path.get(depth - 1).getPartialResults().add(result);
+            }
+            path.subList(depth, path.size()).clear();
+            path.add(result);
+        }
+    }
+}
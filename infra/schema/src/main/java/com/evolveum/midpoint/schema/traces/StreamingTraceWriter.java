@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema.traces;
+
+import static com.evolveum.midpoint.util.MiscUtil.argCheck;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.SerializationOptions;
+import com.evolveum.midpoint.schema.SchemaConstantsGenerated;
+import com.evolveum.midpoint.util.annotation.Experimental;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TraceDictionaryEntryType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TraceDictionaryType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TracingOutputType;
+
+/**
+ * Writes traces in the streaming (line-oriented) format, as an alternative to {@link TraceWriter}.
+ *
+ * Instead of serializing the whole {@link TracingOutputType} into a single XML document, the output is written
+ * incrementally, one line per record:
+ *
+ * . {@link #MAGIC} line,
+ * . `H` (header) line: the tracing output without the operation result, i.e. metadata, environment and the dictionary
+ * (or its part known at the time of writing the header),
+ * . `E` (dictionary entry) line for each dictionary entry not present in the header; it precedes the first result
+ * referencing it,
+ * . `R` (result) line for each operation result node, in pre-order: the depth of the node and the node itself
+ * (without its partial results), serialized as compact JSON.
+ *
+ * Objects in the results are already replaced by the references to the trace dictionary, so repeated objects
+ * are stored only once.
+ *
+ * The records can be written one by one via {@link Output}, so the serializable form of the whole operation result
+ * need not be created at all. They can be read back incrementally as well, see {@link StreamingTraceParser}.
+ */
+@Experimental
+public class StreamingTraceWriter {
+
+    /** The first line of the trace file. */
+    public static final String MAGIC = "#midpoint-trace-stream 1";
+
+    static final String HEADER_PREFIX = "H\t";
+    static final String DICTIONARY_ENTRY_PREFIX = "E\t";
+    static final String RESULT_PREFIX = "R\t";
+
+    public static final String ZIP_ENTRY_NAME = "trace.jsonl";
+    public static final String FILE_EXTENSION = ".jsonl";
+
+    @NotNull private final PrismContext prismContext;
+
+    public StreamingTraceWriter(@NotNull PrismContext prismContext) {
+        this.prismContext = prismContext;
+    }
+
+    /**
+     * Writes the complete trace and returns the number of characters written (uncompressed).
+     *
+     * BEWARE: The tracing output is dismantled while being written (operation results are detached from their parents),
+     * so it must not be used afterwards.
+     */
+    public long writeTrace(@NotNull TracingOutputType tracingOutput, @NotNull File file, boolean zip)
+            throws SchemaException, IOException {
+        try (Output output = open(file, zip)) {
+            writeTrace(tracingOutput, output);
+            return output.getCharsWritten();
+        }
+    }
+
+    /** As {@link #writeTrace(TracingOutputType, File, boolean)} but the stream is not closed here. */
+    public long writeTrace(@NotNull TracingOutputType tracingOutput, @NotNull OutputStream out)
+            throws SchemaException, IOException {
+        Output output = new Output(out, false);
+        writeTrace(tracingOutput, output);
+        output.flush();
+        return output.getCharsWritten();
+    }
+
+    private void writeTrace(@NotNull TracingOutputType tracingOutput, @NotNull Output output)
+            throws SchemaException, IOException {
+        OperationResultType rootResult = tracingOutput.getResult();
+        tracingOutput.setResult(null);
+        output.writeHeader(tracingOutput);
+
+        if (rootResult != null) {
+            // Iterative pre-order traversal, as the result trees can be quite deep.
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(new Node(rootResult, 0));
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                List<OperationResultType> children = new ArrayList<>(node.result.getPartialResults());
+                node.result.getPartialResults().clear();
+                output.writeResult(node.depth, node.result);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(new Node(children.get(i), node.depth + 1));
+                }
+            }
+        }
+    }
+
+    /** Opens the file for writing the records one by one. The caller is responsible for closing the output. */
+    public @NotNull Output open(@NotNull File file, boolean zip) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            if (zip) {
+                ZipOutputStream zipOut = new ZipOutputStream(out);
+                zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_NAME));
+                return new Output(zipOut, true);
+            } else {
+                return new Output(out, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    private String serialize(TracingOutputType tracingOutput) throws SchemaException {
+        return toSingleLine(prismContext.jsonSerializer()
+                .options(createSerializationOptions())
+                .serializeRealValue(tracingOutput));
+    }
+
+    private String serialize(TraceDictionaryEntryType entry) throws SchemaException {
+        return toSingleLine(prismContext.jsonSerializer()
+                .options(createSerializationOptions())
+                .serializeRealValue(entry, TraceDictionaryType.F_ENTRY));
+    }
+
+    private String serialize(OperationResultType result) throws SchemaException {
+        return toSingleLine(prismContext.jsonSerializer()
+                .options(createSerializationOptions())
+                .serializeRealValue(result, SchemaConstantsGenerated.C_OPERATION_RESULT));
+    }
+
+    private static SerializationOptions createSerializationOptions() {
+        return SerializationOptions
+                .createSerializeReferenceNames()
+                .escapeInvalidCharacters(true)
+                .serializeUnsupportedTypesAsString(true)
+                .skipWhitespaces(true);
+    }
+
+    /** Line breaks in JSON can occur only as whitespace between the tokens, as they are escaped in strings. */
+    private static String toSingleLine(String json) {
+        return json.replace("\r", "").replace("\n", "");
+    }
+
+    /**
+     * Trace being written record by record. The header must be written first; each dictionary entry must be written
+     * before the first result referencing it; results must be written in pre-order.
+     */
+    public class Output implements Closeable {
+
+        @NotNull private final Writer writer;
+        private final boolean closeStream;
+        private long charsWritten;
+
+        private Output(@NotNull OutputStream out, boolean closeStream) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.closeStream = closeStream;
+            writeLine(MAGIC);
+        }
+
+        /** Writes the tracing output without the operation result. */
+        public void writeHeader(@NotNull TracingOutputType header) throws SchemaException, IOException {
+            argCheck(header.getResult() == null, "Operation result must not be present in the header");
+            writeLine(HEADER_PREFIX + serialize(header));
+        }
+
+        public void writeDictionaryEntry(@NotNull TraceDictionaryEntryType entry) throws SchemaException, IOException {
+            writeLine(DICTIONARY_ENTRY_PREFIX + serialize(entry));
+        }
+
+        /** Writes a single result node. Its partial results are to be written separately, after it. */
+        public void writeResult(int depth, @NotNull OperationResultType result) throws SchemaException, IOException {
+            argCheck(result.getPartialResults().isEmpty(), "Partial results must not be present in %s", result.getOperation());
+            writeLine(RESULT_PREFIX + depth + "\t" + serialize(result));
+        }
+
+        /** Returns the number of characters written so far (uncompressed). */
+        public long getCharsWritten() {
+            return charsWritten;
+        }
+
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closeStream) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        }
+
+        private void writeLine(String line) throws IOException {
+            writer.write(line);
+            writer.write('\n');
+            charsWritten += line.length() + 1;
+        }
+    }
+
+    private record Node(OperationResultType result, int depth) {
+    }
+}
@@ -7,6 +7,7 @@
 
 package com.evolveum.midpoint.schema.traces;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -50,21 +51,26 @@ public class TraceParser {
     }
 
     public TracingOutputType parse(InputStream inputStream, boolean isZip, boolean raw, String description) throws SchemaException, IOException {
-        TracingOutputType wholeTracingOutput = getObject(inputStream, isZip, description);
-        if (!raw && wholeTracingOutput != null) {
-            new DictionaryExpander(wholeTracingOutput).expand();
-            new OperationCategorizer(wholeTracingOutput).categorize();
-        }
-        return wholeTracingOutput;
+        return read(inputStream, isZip, raw, description);
     }
 
+    /** Returns the trace in the raw form, i.e. without expanding the dictionary references. */
     public TracingOutputType getObject(InputStream stream, boolean isZip, String description) throws IOException, SchemaException {
+        return read(stream, isZip, true, description);
+    }
+
+    private TracingOutputType read(InputStream stream, boolean isZip, boolean raw, String description)
+            throws IOException, SchemaException {
         long start = System.currentTimeMillis();
         Object object;
+        boolean streaming;
         if (isZip) {
             try (ZipInputStream zis = new ZipInputStream(stream)) {
                 ZipEntry zipEntry = zis.getNextEntry();
-                if (zipEntry != null) {
+                streaming = zipEntry != null && zipEntry.getName().endsWith(StreamingTraceWriter.FILE_EXTENSION);
+                if (streaming) {
+                    object = new StreamingTraceParser(prismContext).parse(zis, raw, description);
+                } else if (zipEntry != null) {
                     object = prismContext.parserFor(zis).xml().compat().parseRealValue();
                 } else {
                     LOGGER.error("No zip entry in input file '{}'", description);
@@ -72,21 +78,34 @@ public class TraceParser {
                 }
             }
         } else {
-            object = prismContext.parserFor(stream).xml().compat().parseRealValue();
+            InputStream bufferedStream = new BufferedInputStream(stream);
+            streaming = StreamingTraceParser.isStreamingFormat(bufferedStream);
+            if (streaming) {
+                object = new StreamingTraceParser(prismContext).parse(bufferedStream, raw, description);
+            } else {
+                object = prismContext.parserFor(bufferedStream).xml().compat().parseRealValue();
+            }
         }
         stream.close();
         long read = System.currentTimeMillis();
         LOGGER.debug("Read the content of {} in {} milliseconds", description, read - start);
 
+        TracingOutputType tracingOutput;
         if (object instanceof TracingOutputType) {
-            return (TracingOutputType) object;
+            tracingOutput = (TracingOutputType) object;
         } else if (object instanceof OperationResultType) {
-            TracingOutputType rv = new TracingOutputType(prismContext);
-            rv.setResult((OperationResultType) object);
-            return rv;
+            tracingOutput = new TracingOutputType(prismContext);
+            tracingOutput.setResult((OperationResultType) object);
         } else {
             LOGGER.error("Wrong object type in input file '{}': {}", description, object);
             return null;
         }
+
+        // Streaming traces are expanded and categorized while being read, record by record.
+        if (!raw && !streaming) {
+            new DictionaryExpander(tracingOutput).expand();
+            new OperationCategorizer(tracingOutput).categorize();
+        }
+        return tracingOutput;
     }
 }
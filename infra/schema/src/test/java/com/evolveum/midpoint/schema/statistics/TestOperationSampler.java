@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.schema.AbstractSchemaTest;
+import com.evolveum.midpoint.schema.statistics.OperationSampler.OperationSamples;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationSamplesInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationStackSampleType;
+
+/**
+ * Tests {@link OperationSampler} and {@link OperationSamplesInformationUtil}.
+ */
+public class TestOperationSampler extends AbstractSchemaTest {
+
+    private static final long INTERVAL = 5;
+    private static final long TIMEOUT = 10000;
+
+    private static final String OP_OUTER = "com.evolveum.midpoint.model.impl.lens.Clockwork.run";
+    private static final String OP_INNER = "com.evolveum.midpoint.repo.api.RepositoryService.getObject";
+
+    @AfterMethod
+    public void stopSampling() {
+        OperationSampler.stopThreadLocalCollection();
+        OperationSampler.stop();
+    }
+
+    @Test
+    public void test100Sampling() throws Exception {
+        given("sampling is started, and the current thread collects the samples");
+        OperationSampler.start(INTERVAL);
+        OperationSamples samples = OperationSampler.startThreadLocalCollection();
+        assertThat(samples).as("samples").isNotNull();
+
+        when("the thread executes nested operations");
+        var outer = OperationSampler.recordStart(OP_OUTER);
+        var inner = OperationSampler.recordStart(OP_INNER);
+        waitForSamples(samples);
+        OperationSampler.recordEnd(inner);
+        OperationSampler.recordEnd(outer);
+
+        then("the stack is recorded, with package names abbreviated");
+        assertThat(samples.getStacks())
+                .containsKey("c.e.m.m.i.l.Clockwork.run;c.e.m.r.a.RepositoryService.getObject");
+    }
+
+    @Test
+    public void test110DeepStack() throws Exception {
+        given("sampling is started, and the current thread collects the samples");
+        OperationSampler.start(INTERVAL);
+        OperationSamples samples = OperationSampler.startThreadLocalCollection();
+        assertThat(samples).as("samples").isNotNull();
+
+        when("the thread executes operations nested deeper than the limit");
+        var frames = new ArrayList<OperationSampler.Frame>();
+        for (int i = 0; i < OperationSampler.MAX_DEPTH + 5; i++) {
+            frames.add(OperationSampler.recordStart("op" + i));
+        }
+        waitForSamples(samples);
+        OperationSampler.recordEnd(frames.get(0));
+
+        then("only the outermost operations are recorded");
+        assertThat(samples.getStacks()).hasSize(1);
+        String path = samples.getStacks().keySet().iterator().next();
+        String[] operations = path.split(";");
+        assertThat(operations).hasSize(OperationSampler.MAX_DEPTH + 1);
+        assertThat(operations[0]).isEqualTo("op0");
+        assertThat(operations[OperationSampler.MAX_DEPTH - 1]).isEqualTo("op" + (OperationSampler.MAX_DEPTH - 1));
+        assertThat(operations[OperationSampler.MAX_DEPTH]).isEqualTo(OperationSampler.TRUNCATED);
+    }
+
+    @Test
+    public void test120Overflow() {
+        given("samples of more distinct paths than allowed");
+        var samples = new OperationSamples();
+        for (int i = 0; i < OperationSampler.MAX_PATHS + 10; i++) {
+            samples.record("op" + i);
+        }
+
+        then("the samples over the limit are counted under the overflow bucket");
+        Map<String, Long> stacks = samples.getStacks();
+        assertThat(stacks).hasSize(OperationSampler.MAX_PATHS + 1);
+        assertThat(stacks.get(OperationSampler.OTHER_PATHS)).isEqualTo(10L);
+        assertThat(samples.getSampleCount()).isEqualTo(OperationSampler.MAX_PATHS + 10);
+
+        when("a path already recorded is sampled again");
+        samples.record("op0");
+
+        then("it is still counted under its own path");
+        assertThat(samples.getStacks().get("op0")).isEqualTo(2L);
+    }
+
+    @Test
+    public void test130OverflowByLength() {
+        given("samples of long paths");
+        var samples = new OperationSamples();
+        String longPath = "x".repeat(OperationSampler.MAX_TOTAL_PATHS_LENGTH / 2);
+        samples.record(longPath + "1");
+        samples.record(longPath + "2");
+        samples.record("short");
+
+        then("the total length of the paths is limited");
+        Map<String, Long> stacks = samples.getStacks();
+        assertThat(stacks).containsOnlyKeys(longPath + "1", OperationSampler.OTHER_PATHS, "short");
+        assertThat(stacks.get(OperationSampler.OTHER_PATHS)).isEqualTo(1L);
+    }
+
+    @Test
+    public void test140Merging() {
+        given("an aggregate and a part with some paths in common");
+        var aggregate = information(10, Map.of("a", 3L, "b", 2L));
+        var part = information(5, Map.of("b", 1L, "c", 4L));
+
+        when("the part is added to the aggregate");
+        OperationSamplesInformationUtil.addTo(aggregate, part);
+
+        then("the counts are summed");
+        assertThat(aggregate.getSampleCount()).isEqualTo(15L);
+        assertThat(toMap(aggregate)).isEqualTo(Map.of("a", 3L, "b", 3L, "c", 4L));
+
+        and("nothing is changed when adding null");
+        OperationSamplesInformationUtil.addTo(aggregate, null);
+        assertThat(aggregate.getSampleCount()).isEqualTo(15L);
+    }
+
+    @Test
+    public void test150MergingOverflow() {
+        given("a full aggregate");
+        var fullStacks = new HashMap<String, Long>();
+        for (int i = 0; i < OperationSampler.MAX_PATHS; i++) {
+            fullStacks.put("op" + i, 1L);
+        }
+        var aggregate = information(OperationSampler.MAX_PATHS, fullStacks);
+
+        when("parts with new paths are added");
+        OperationSamplesInformationUtil.addTo(aggregate, information(3, Map.of("new1", 2L, "op0", 1L)));
+        OperationSamplesInformationUtil.addTo(aggregate, information(1, Map.of("new2", 1L)));
+
+        then("the new paths are counted under the overflow bucket, the existing ones under their own paths");
+        Map<String, Long> stacks = toMap(aggregate);
+        assertThat(stacks).hasSize(OperationSampler.MAX_PATHS + 1);
+        assertThat(stacks.get(OperationSampler.OTHER_PATHS)).isEqualTo(3L);
+        assertThat(stacks.get("op0")).isEqualTo(2L);
+        assertThat(aggregate.getSampleCount()).isEqualTo(OperationSampler.MAX_PATHS + 4);
+    }
+
+    @Test
+    public void test160Abbreviation() {
+        expectAbbreviation(OP_OUTER, "c.e.m.m.i.l.Clockwork.run");
+        expectAbbreviation("Clockwork.run", "Clockwork.run");
+        expectAbbreviation("someOperation", "someOperation");
+        expectAbbreviation("com.evolveum.Outer$Inner.run", "c.e.Outer$Inner.run");
+        expectAbbreviation("com..x.Op", "c..x.Op");
+    }
+
+    @Test
+    public void test170Format() {
+        given("samples");
+        var information = information(6, Map.of("a;b", 1L, "a", 5L));
+
+        when("they are formatted");
+        String formatted = OperationSamplesInformationUtil.format(information);
+
+        then("the stacks are listed in the collapsed stacks format, sorted by the count");
+        assertThat(formatted).isEqualTo("a 5\na;b 1\n");
+    }
+
+    private void expectAbbreviation(String operation, String expected) {
+        assertThat(OperationSampler.abbreviate(operation)).as("abbreviation of " + operation).isEqualTo(expected);
+    }
+
+    private void waitForSamples(OperationSamples samples) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (samples.getStacks().isEmpty()) {
+            assertThat(System.currentTimeMillis()).as("time waiting for samples").isLessThan(deadline);
+            //noinspection BusyWait
+            Thread.sleep(INTERVAL);
+        }
+    }
+
+    private OperationSamplesInformationType information(long sampleCount, Map<String, Long> stacks) {
+        var information = new OperationSamplesInformationType().sampleCount(sampleCount);
+        stacks.forEach((path, count) -> information.getStack().add(
+                new OperationStackSampleType().path(path).count(count)));
+        return information;
+    }
+
+    private Map<String, Long> toMap(OperationSamplesInformationType information) {
+        List<OperationStackSampleType> stacks = information.getStack();
+        var map = new HashMap<String, Long>();
+        stacks.forEach(stack -> map.put(stack.getPath(), stack.getCount()));
+        return map;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema.traces;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipInputStream;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.schema.AbstractSchemaTest;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.util.ObjectTypeUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Tests writing and parsing traces in the streaming format, see {@link StreamingTraceWriter} and {@link StreamingTraceParser}.
+ */
+public class TestStreamingTrace extends AbstractSchemaTest {
+
+    private static final File TEST_DIR = new File("src/test/resources/traces");
+
+    private static final File TRACE_MODIFY_GIVEN_NAME = new File(TEST_DIR, "trace-modify-given-name.zip");
+
+    /** A trace in the XML format, converted to the streaming one, is read back with the same results and dictionary. */
+    @Test
+    public void test100RoundTrip() throws Exception {
+        PrismContext prismContext = getPrismContext();
+
+        given("a trace in the XML format");
+        TracingOutputType original = new TraceParser(prismContext).parse(TRACE_MODIFY_GIVEN_NAME, true);
+
+        when("it is written in the streaming format and parsed back");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StreamingTraceWriter(prismContext).writeTrace(original.clone(), out);
+        TracingOutputType parsed = new StreamingTraceParser(prismContext)
+                .parse(new ByteArrayInputStream(out.toByteArray()), true, "test100");
+
+        then("the result tree and the dictionary are the same");
+        assertThat(parsed).isNotNull();
+        assertThat(describeTree(parsed.getResult()))
+                .as("result tree")
+                .isNotEmpty()
+                .containsExactlyElementsOf(describeTree(original.getResult()));
+        assertThat(describeDictionary(parsed.getDictionary()))
+                .as("dictionary")
+                .containsExactlyElementsOf(describeDictionary(original.getDictionary()));
+
+        and("the expanded trace yields the same operation nodes as the original one");
+        TracingOutputType originalExpanded = new TraceParser(prismContext).parse(TRACE_MODIFY_GIVEN_NAME);
+        TracingOutputType parsedExpanded = new TraceParser(prismContext)
+                .parse(new ByteArrayInputStream(out.toByteArray()), false, "test100");
+        assertThat(countNodes(new OpNodeTreeBuilder(prismContext).build(parsedExpanded)))
+                .as("number of operation nodes")
+                .isEqualTo(countNodes(new OpNodeTreeBuilder(prismContext).build(originalExpanded)));
+    }
+
+    /**
+     * A trace written record by record (as the tracer does) is read record by record, with the dictionary entries
+     * coming after the header, and the references to them expanded.
+     */
+    @Test
+    public void test200RecordByRecord() throws Exception {
+        PrismContext prismContext = getPrismContext();
+
+        given("a zipped trace written record by record");
+        File file = File.createTempFile("trace-200-", ".zip");
+        file.deleteOnExit();
+        UserType user = new UserType()
+                .oid("d6d4c5c4-31b2-4a5a-9c6b-3e58d52cf1f2")
+                .name("jack");
+        try (StreamingTraceWriter.Output output = new StreamingTraceWriter(prismContext).open(file, true)) {
+            output.writeHeader(new TracingOutputType()
+                    .dictionary(new TraceDictionaryType().identifier(1)));
+            output.writeResult(0, createResult("root"));
+            output.writeDictionaryEntry(new TraceDictionaryEntryType()
+                    .identifier(1)
+                    .originDictionaryId(1)
+                    .object(ObjectTypeUtil.createObjectRefWithFullObject(user)));
+            output.writeResult(1, createResult("child1")
+                    .trace(new FocusLoadedTraceType()
+                            .focusLoadedRef(new ObjectReferenceType()
+                                    .oid(SchemaConstants.TRACE_DICTIONARY_PREFIX + "1:1")
+                                    .type(UserType.COMPLEX_TYPE))));
+            output.writeResult(2, createResult("grandchild"));
+            output.writeResult(1, createResult("child2"));
+        }
+
+        when("it is read record by record");
+        List<String> records = new ArrayList<>();
+        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(file))) {
+            assertThat(zis.getNextEntry()).as("zip entry").isNotNull();
+            new StreamingTraceParser(prismContext).parse(zis, new RecordCollector(records), false);
+        }
+
+        then("the records come in the order in which they were written, with the reference expanded");
+        assertThat(records).containsExactly(
+                "H 1",
+                "E 1:1",
+                "R 0 root",
+                "R 1 child1 jack",
+                "R 2 grandchild",
+                "R 1 child2");
+
+        and("the whole trace can be read as well");
+        TracingOutputType whole = new TraceParser(prismContext).parse(file);
+        assertThat(describeTree(whole.getResult()))
+                .containsExactly("0 root", "1 child1 (1 traces)", "2 grandchild", "1 child2");
+        assertThat(describeDictionary(whole.getDictionary())).containsExactly("1:1 jack");
+        assertThat(getFocusLoadedName(whole.getResult().getPartialResults().get(0))).isEqualTo("jack");
+    }
+
+    /** A result record with a malformed depth is reported as a schema problem, with the line number. */
+    @Test
+    public void test300MalformedDepth() {
+        PrismContext prismContext = getPrismContext();
+
+        given("a streaming trace with a malformed depth of a result record");
+        String trace = StreamingTraceWriter.MAGIC + "\n"
+                + StreamingTraceWriter.RESULT_PREFIX + "x1\t{}\n";
+
+        when("it is parsed, then it fails with the line number reported");
+        assertThatThrownBy(
+                () -> new StreamingTraceParser(prismContext).parse(
+                        new ByteArrayInputStream(trace.getBytes(StandardCharsets.UTF_8)), true, "test300"))
+                .as("exception")
+                .isInstanceOf(SchemaException.class)
+                .hasMessageContaining("'x1'")
+                .hasMessageContaining("line 2")
+                .hasCauseInstanceOf(NumberFormatException.class);
+    }
+
+    private OperationResultType createResult(String operation) {
+        return new OperationResultType()
+                .operation(operation)
+                .status(OperationResultStatusType.SUCCESS);
+    }
+
+    /** Describes the nodes in pre-order, including the number of traces. */
+    private List<String> describeTree(OperationResultType root) {
+        List<String> lines = new ArrayList<>();
+        describeTree(root, 0, lines);
+        return lines;
+    }
+
+    private void describeTree(OperationResultType result, int depth, List<String> lines) {
+        lines.add(depth + " " + result.getOperation()
+                + (result.getTrace().isEmpty() ? "" : " (" + result.getTrace().size() + " traces)"));
+        result.getPartialResults().forEach(child -> describeTree(child, depth + 1, lines));
+    }
+
+    private List<String> describeDictionary(TraceDictionaryType dictionary) {
+        List<String> lines = new ArrayList<>();
+        if (dictionary != null) {
+            for (TraceDictionaryEntryType entry : dictionary.getEntry()) {
+                PrismObject<?> object = entry.getObject().asReferenceValue().getObject();
+                lines.add(DictionaryExpander.getQualifiedId(entry) + " " + object.getName());
+            }
+        }
+        return lines;
+    }
+
+    private int countNodes(List<OpNode> nodes) {
+        int count = 0;
+        for (OpNode node : nodes) {
+            count += 1 + countNodes(node.getChildren());
+        }
+        return count;
+    }
+
+    private static String getFocusLoadedName(OperationResultType result) {
+        for (TraceType trace : result.getTrace()) {
+            if (trace instanceof FocusLoadedTraceType focusLoaded && focusLoaded.getFocusLoadedRef() != null) {
+                PrismObject<?> object = focusLoaded.getFocusLoadedRef().asReferenceValue().getObject();
+                return object != null ? object.getName().getOrig() : null;
+            }
+        }
+        return null;
+    }
+
+    private record RecordCollector(List<String> records) implements StreamingTraceParser.RecordHandler {
+
+        @Override
+        public void onHeader(@NotNull TracingOutputType header) {
+            records.add("H " + header.getDictionary().getIdentifier());
+        }
+
+        @Override
+        public void onDictionaryEntry(@NotNull TraceDictionaryEntryType entry) {
+            records.add("E " + DictionaryExpander.getQualifiedId(entry));
+        }
+
+        @Override
+        public void onResult(int depth, @NotNull OperationResultType result) {
+            String focusName = getFocusLoadedName(result);
+            records.add("R " + depth + " " + result.getOperation() + (focusName != null ? " " + focusName : ""));
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.evolveum.midpoint.authentication.api.util.AuthUtil;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -29,6 +30,8 @@ import com.evolveum.prism.xml.ns._public.types_3.ProtectedStringType;
 @Component("passwordAuthenticationEvaluator")
 public class PasswordAuthenticationEvaluatorImpl extends CredentialsAuthenticationEvaluatorImpl<PasswordType, PasswordAuthenticationContext> {
 
+    @Autowired private VerifiedPasswordCache verifiedPasswordCache;
+
     @Override
     protected void checkEnteredCredentials(ConnectionEnvironment connEnv, PasswordAuthenticationContext authCtx) {
         if (StringUtils.isBlank(authCtx.getUsername())) {
@@ -68,7 +71,16 @@ public class PasswordAuthenticationEvaluatorImpl extends CredentialsAuthenticati
     protected boolean passwordMatches(
             ConnectionEnvironment connEnv, @NotNull MidPointPrincipal principal,
             PasswordType passwordType, PasswordAuthenticationContext authCtx) {
-        return decryptAndMatch(connEnv, principal, passwordType.getValue(), authCtx.getPassword());
+        ProtectedStringType storedValue = passwordType.getValue();
+        String enteredPassword = authCtx.getPassword();
+        if (verifiedPasswordCache.isVerified(principal.getOid(), storedValue, enteredPassword)) {
+            return true;
+        }
+        boolean matches = decryptAndMatch(connEnv, principal, storedValue, enteredPassword);
+        if (matches) {
+            verifiedPasswordCache.recordVerified(principal.getOid(), storedValue, enteredPassword);
+        }
+        return matches;
     }
 
     @Override
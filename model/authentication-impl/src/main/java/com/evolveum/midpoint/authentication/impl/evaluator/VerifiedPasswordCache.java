@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.authentication.impl.evaluator;
+
+import static com.evolveum.midpoint.util.caching.CacheConfiguration.StatisticsLevel.PER_CACHE;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.repo.api.Cache;
+import com.evolveum.midpoint.repo.api.CacheInvalidationEventSpecification;
+import com.evolveum.midpoint.repo.api.CacheRegistry;
+import com.evolveum.midpoint.util.caching.CachePerformanceCollector;
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SingleCacheStateInformationType;
+import com.evolveum.prism.xml.ns._public.types_3.ProtectedStringType;
+
+/**
+ * Remembers successful verifications of hashed passwords, so that clients authenticating with each request
+ * (e.g. REST service accounts using HTTP basic authentication) do not pay for the deliberately slow hash computation
+ * every time.
+ *
+ * For each focus, the last verified stored password value is kept, along with a salted SHA-256 digest of the entered
+ * password (the salt is random, generated on each start). A verification is considered cached only if both the stored
+ * value and the digest of the entered password match. Hence, any change of the stored password makes the cached
+ * verification unusable, even without the invalidation event. Unsuccessful verifications are never cached.
+ *
+ * Encrypted (not hashed) passwords are not cached, as their checking is cheap anyway.
+ */
+@Component
+public class VerifiedPasswordCache implements Cache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(VerifiedPasswordCache.class);
+    private static final Trace LOGGER_CONTENT = TraceManager.getTrace(VerifiedPasswordCache.class.getName() + ".content");
+
+    /** Expired entries are removed when this size is reached; if there are no expired ones, new entries are not stored. */
+    private static final int MAX_SIZE = 10000;
+
+    /** How long is a verification valid (in milliseconds). */
+    private static final long TIME_TO_LIVE = 300_000L;
+
+    private static final Collection<CacheInvalidationEventSpecification> EVENT_SPECIFICATIONS = Set.of(
+            CacheInvalidationEventSpecification.of(
+                    FocusType.class, Set.of(FocusType.F_CREDENTIALS), CacheInvalidationEventSpecification.MODIFY_DELETE));
+
+    @Autowired private CacheRegistry cacheRegistry;
+
+    /** Indexed by focus OID. */
+    private final Map<String, VerifiedPassword> cache = new ConcurrentHashMap<>();
+
+    private final byte[] salt = new byte[32];
+
+    @PostConstruct
+    public void register() {
+        new SecureRandom().nextBytes(salt);
+        cacheRegistry.registerCache(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCache(this);
+    }
+
+    /** Returns `true` if the entered password was already successfully verified against given stored value. */
+    boolean isVerified(@NotNull String focusOid, @NotNull ProtectedStringType storedValue, @NotNull String enteredPassword) {
+        if (!storedValue.isHashed()) {
+            return false;
+        }
+        VerifiedPassword verified = cache.get(focusOid);
+        boolean hit = verified != null
+                && !verified.isExpired(System.currentTimeMillis())
+                && verified.storedValue.equals(storedValue)
+                && MessageDigest.isEqual(verified.enteredDigest, digest(enteredPassword));
+        if (hit) {
+            LOGGER.trace("HIT for {}", focusOid);
+            CachePerformanceCollector.INSTANCE.registerHit(VerifiedPasswordCache.class, FocusType.class, PER_CACHE);
+        } else {
+            LOGGER.trace("MISS for {}", focusOid);
+            CachePerformanceCollector.INSTANCE.registerMiss(VerifiedPasswordCache.class, FocusType.class, PER_CACHE);
+        }
+        return hit;
+    }
+
+    /** Records the successful verification of the entered password against given stored value. */
+    void recordVerified(@NotNull String focusOid, @NotNull ProtectedStringType storedValue, @NotNull String enteredPassword) {
+        if (!storedValue.isHashed()) {
+            return;
+        }
+        if (!hasRoom()) {
+            LOGGER.trace("Cache is full ({} entries), not caching verification for {}", cache.size(), focusOid);
+            return;
+        }
+        cache.put(focusOid,
+                new VerifiedPassword(storedValue.clone(), digest(enteredPassword), System.currentTimeMillis()));
+    }
+
+    private byte[] digest(@NotNull String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new SystemException("Couldn't compute password digest: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean hasRoom() {
+        if (cache.size() < MAX_SIZE) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(verified -> verified.isExpired(now));
+        return cache.size() < MAX_SIZE;
+    }
+
+    @Override
+    public Collection<CacheInvalidationEventSpecification> getEventSpecifications() {
+        return EVENT_SPECIFICATIONS;
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (type == null || oid == null) {
+            cache.clear();
+        } else if (FocusType.class.isAssignableFrom(type)) {
+            cache.remove(oid);
+        }
+    }
+
+    @Override
+    public @NotNull Collection<SingleCacheStateInformationType> getStateInformation() {
+        return Collections.singleton(new SingleCacheStateInformationType()
+                .name(VerifiedPasswordCache.class.getName())
+                .size(cache.size()));
+    }
+
+    @Override
+    public void dumpContent() {
+        if (LOGGER_CONTENT.isInfoEnabled()) {
+            // The values are not dumped, for obvious reasons.
+            cache.forEach((oid, verified) -> LOGGER_CONTENT.info("Cached password verification for: {}", oid));
+        }
+    }
+
+    private record VerifiedPassword(
+            @NotNull ProtectedStringType storedValue, byte @NotNull [] enteredDigest, long verifiedAt) {
+
+        private boolean isExpired(long now) {
+            return now - verifiedAt >= TIME_TO_LIVE;
+        }
+    }
+}
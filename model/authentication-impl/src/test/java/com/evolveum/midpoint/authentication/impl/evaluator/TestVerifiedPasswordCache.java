@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.authentication.impl.evaluator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.tools.testng.AbstractUnitTest;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.DigestMethodType;
+import com.evolveum.prism.xml.ns._public.types_3.HashedDataType;
+import com.evolveum.prism.xml.ns._public.types_3.ProtectedStringType;
+
+/**
+ * Tests {@link VerifiedPasswordCache} alone, i.e. without the password evaluator and the cache invalidation machinery.
+ */
+public class TestVerifiedPasswordCache extends AbstractUnitTest {
+
+    private static final String USER_OID = "c0c010c0-d34d-b33f-f00d-111111110001";
+    private static final String OTHER_USER_OID = "c0c010c0-d34d-b33f-f00d-111111110002";
+    private static final String ROLE_OID = "c0c010c0-d34d-b33f-f00d-222222220001";
+
+    private static final String PASSWORD = "secret";
+
+    @Test
+    public void test100Hit() {
+        given("a recorded verification");
+        var cache = new VerifiedPasswordCache();
+        cache.recordVerified(USER_OID, hashed(1), PASSWORD);
+
+        then("the same password against the same stored value is verified");
+        assertThat(cache.isVerified(USER_OID, hashed(1), PASSWORD)).isTrue();
+
+        and("a different password is not");
+        assertThat(cache.isVerified(USER_OID, hashed(1), "wrong")).isFalse();
+
+        and("neither is the same password of another user");
+        assertThat(cache.isVerified(OTHER_USER_OID, hashed(1), PASSWORD)).isFalse();
+    }
+
+    @Test
+    public void test110EncryptedNotCached() {
+        given("a verification of an encrypted (not hashed) password");
+        var cache = new VerifiedPasswordCache();
+        var encrypted = new ProtectedStringType();
+        encrypted.setClearValue(PASSWORD);
+        cache.recordVerified(USER_OID, encrypted, PASSWORD);
+
+        then("it is not cached");
+        assertThat(cache.isVerified(USER_OID, encrypted, PASSWORD)).isFalse();
+    }
+
+    @Test
+    public void test120PasswordChange() {
+        given("a recorded verification");
+        var cache = new VerifiedPasswordCache();
+        cache.recordVerified(USER_OID, hashed(1), PASSWORD);
+
+        then("the verification is not used after the stored password changes, even without invalidation");
+        assertThat(cache.isVerified(USER_OID, hashed(2), PASSWORD)).isFalse();
+    }
+
+    @Test
+    public void test130UserAndRoleChange() {
+        given("a recorded verification");
+        var cache = new VerifiedPasswordCache();
+        cache.recordVerified(USER_OID, hashed(1), PASSWORD);
+
+        when("a role is changed");
+        cache.invalidate(RoleType.class, ROLE_OID, null);
+
+        then("the verification is still cached, as it does not depend on roles");
+        assertThat(cache.isVerified(USER_OID, hashed(1), PASSWORD)).isTrue();
+
+        when("the credentials of the user are changed");
+        cache.invalidate(UserType.class, USER_OID, null);
+
+        then("the verification is no longer cached");
+        assertThat(cache.isVerified(USER_OID, hashed(1), PASSWORD)).isFalse();
+    }
+
+    /**
+     * The verification against the old password value is recorded only after the password change was processed,
+     * so the invalidation did not remove it. It must not be used for the new value.
+     */
+    @Test
+    public void test140RecordedAfterInvalidation() {
+        given("a password change invalidated the cache");
+        var cache = new VerifiedPasswordCache();
+        cache.invalidate(UserType.class, USER_OID, null);
+
+        when("the verification against the old value is recorded");
+        cache.recordVerified(USER_OID, hashed(1), PASSWORD);
+
+        then("it is not used for the new value");
+        assertThat(cache.isVerified(USER_OID, hashed(2), PASSWORD)).isFalse();
+    }
+
+    /** Two different stored values, distinguished by `seed`. (They are not real hashes, but the cache does not care.) */
+    private ProtectedStringType hashed(int seed) {
+        var hashedData = new HashedDataType();
+        hashedData.setDigestValue(new byte[] { (byte) seed, 1, 2, 3 });
+        var digestMethod = new DigestMethodType();
+        digestMethod.setAlgorithm("http://www.w3.org/2001/04/xmlenc#sha256");
+        digestMethod.setSalt(new byte[] { 4, 5, 6 });
+        hashedData.setDigestMethod(digestMethod);
+        var value = new ProtectedStringType();
+        value.setHashedData(hashedData);
+        return value;
+    }
+}
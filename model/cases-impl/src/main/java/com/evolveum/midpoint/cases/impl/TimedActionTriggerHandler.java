@@ -8,24 +8,32 @@ package com.evolveum.midpoint.cases.impl;
 
 import static java.util.Objects.requireNonNullElse;
 
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
 import static com.evolveum.midpoint.schema.constants.SchemaConstants.MODEL_APPROVAL_OUTCOME_REJECT;
 import static com.evolveum.midpoint.schema.util.ObjectTypeUtil.getExtensionItemRealValue;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import jakarta.annotation.PostConstruct;
 import javax.xml.datatype.Duration;
 import javax.xml.datatype.XMLGregorianCalendar;
 
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import com.evolveum.midpoint.cases.api.events.WorkItemAllocationChangeOperationInfo;
 import com.evolveum.midpoint.cases.api.events.WorkItemOperationSourceInfo;
 import com.evolveum.midpoint.cases.api.request.CompleteWorkItemsRequest;
 import com.evolveum.midpoint.cases.api.request.CompleteWorkItemsRequest.SingleCompletion;
+import com.evolveum.midpoint.cases.api.request.DelegateWorkItemsRequest;
+import com.evolveum.midpoint.cases.api.request.DelegateWorkItemsRequest.SingleDelegation;
 import com.evolveum.midpoint.cases.impl.helpers.CaseExpressionEvaluationHelper;
 import com.evolveum.midpoint.cases.impl.helpers.CaseMiscHelper;
 import com.evolveum.midpoint.cases.impl.helpers.NotificationHelper;
@@ -35,11 +43,11 @@ import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.path.ItemName;
 import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.schema.constants.ExpressionConstants;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.expression.VariablesMap;
 import com.evolveum.midpoint.schema.result.OperationResult;
-import com.evolveum.midpoint.schema.util.WorkItemId;
 import com.evolveum.midpoint.schema.util.cases.ApprovalContextUtil;
 import com.evolveum.midpoint.schema.util.cases.CaseTypeUtil;
 import com.evolveum.midpoint.schema.util.cases.WorkItemTypeUtil;
@@ -66,12 +74,14 @@ public class TimedActionTriggerHandler implements MultipleTriggersHandler {
     private static final String OP_HANDLE = TimedActionTriggerHandler.class.getName() + ".handle";
     private static final String OP_HANDLE_TRIGGER = TimedActionTriggerHandler.class.getName() + ".handleTrigger";
     private static final String OP_HANDLE_COMPLETIONS = TimedActionTriggerHandler.class.getName() + ".handleCompletions";
+    private static final String OP_HANDLE_DELEGATIONS = TimedActionTriggerHandler.class.getName() + ".handleDelegations";
 
     @Autowired private TriggerHandlerRegistry triggerHandlerRegistry;
     @Autowired private WorkItemManager workItemManager;
     @Autowired private NotificationHelper notificationHelper;
     @Autowired private CaseExpressionEvaluationHelper evaluationHelper;
     @Autowired private CaseMiscHelper miscHelper;
+    @Autowired @Qualifier("cacheRepositoryService") private RepositoryService repositoryService;
 
     @PostConstruct
     private void initialize() {
@@ -113,6 +123,14 @@ public class TimedActionTriggerHandler implements MultipleTriggersHandler {
          */
         @NotNull private final List<SingleCompletion> completionActions = new ArrayList<>();
 
+        /**
+         * "Delegate" and "escalate" actions are executed for all the work items (having the same cause) at once,
+         * so that the case is not re-read and modified for each work item separately. This matters e.g. when escalating
+         * many work items whose deadlines are the same.
+         */
+        @NotNull private final Map<WorkItemEventCauseInformationType, List<PostponedDelegation>> delegationActions =
+                new LinkedHashMap<>();
+
         private WorkItemEventCauseInformationType cause;
 
         TriggersExecution(@NotNull CaseType aCase, @NotNull Collection<TriggerType> triggers, @NotNull RunningTask task) {
@@ -133,6 +151,9 @@ public class TimedActionTriggerHandler implements MultipleTriggersHandler {
                     processedTriggers.add(trigger);
                 }
             }
+            if (!delegationActions.isEmpty()) {
+                processDelegationActions(processedTriggers, result);
+            }
             if (!completionActions.isEmpty()) {
                 processCompletionActions(result);
             }
@@ -278,21 +299,22 @@ public class TimedActionTriggerHandler implements MultipleTriggersHandler {
                     @NotNull OperationResult result)
                     throws SecurityViolationException, ObjectNotFoundException, SchemaException,
                     ExpressionEvaluationException, CommunicationException, ConfigurationException {
-                LOGGER.trace("Executing delegation/escalation action: {}", delegateAction);
+                LOGGER.trace("Preparing delegation/escalation action: {}", delegateAction);
                 WorkItemDelegationRequestType request = new WorkItemDelegationRequestType();
                 request.getDelegate().addAll(
                         computeDelegateTo(delegateAction, result));
                 request.setMethod(delegateAction.getDelegationMethod());
-                workItemManager.delegateWorkItem(
-                        WorkItemId.of(workItem),
+                SingleDelegation delegation = new SingleDelegation(
+                        workItem.getId(),
                         request,
                         escalate ?
                                 ApprovalContextUtil.createEscalationLevelInformation(delegateAction) : null,
-                        delegateAction.getDuration(),
-                        ApprovalContextUtil.createCause(delegateAction),
-                        now,
-                        task,
-                        result);
+                        delegateAction.getDuration());
+
+                LOGGER.trace("Postponing delegation: {}", delegation);
+                delegationActions
+                        .computeIfAbsent(ApprovalContextUtil.createCause(delegateAction), k -> new ArrayList<>())
+                        .add(new PostponedDelegation(trigger, delegation));
             }
 
             private List<ObjectReferenceType> computeDelegateTo(DelegateWorkItemActionType delegateAction, OperationResult result)
@@ -314,6 +336,96 @@ public class TimedActionTriggerHandler implements MultipleTriggersHandler {
             }
         }
 
+        /**
+         * Executes postponed delegations, one request per cause. If a request fails, its delegations are retried
+         * one by one, so that a single problematic work item does not block the others. Triggers whose delegations
+         * failed are not considered processed.
+         *
+         * The request may fail after the case was already written to the repository (e.g. when auditing or sending
+         * the notifications), so before retrying, we re-read the case and skip work items that were already delegated
+         * (or escalated) by the failed request. Otherwise, they would be delegated twice.
+         */
+        private void processDelegationActions(List<TriggerType> processedTriggers, OperationResult parentResult) {
+            OperationResult result = parentResult.createSubresult(OP_HANDLE_DELEGATIONS);
+            try {
+                for (var entry : delegationActions.entrySet()) {
+                    WorkItemEventCauseInformationType delegationCause = entry.getKey();
+                    List<PostponedDelegation> delegations = entry.getValue();
+                    LOGGER.trace("Going to process {} delegation action(s) with cause {}", delegations.size(), delegationCause);
+                    long attemptStart = System.currentTimeMillis();
+                    try {
+                        executeDelegations(delegationCause, delegations, result);
+                    } catch (CommonException | RuntimeException e) {
+                        Set<Long> alreadyDelegated;
+                        try {
+                            alreadyDelegated = getWorkItemsDelegatedSince(delegationCause, attemptStart, result);
+                        } catch (CommonException | RuntimeException e1) {
+                            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't re-read {} to check the delegations", e1, aCase);
+                            delegations.forEach(delegation -> recordFailedDelegation(delegation, e, processedTriggers));
+                            continue;
+                        }
+                        LOGGER.debug("Couldn't process {} delegation action(s) at once, trying them one by one, skipping"
+                                + " work items already delegated: {}", delegations.size(), alreadyDelegated, e);
+                        for (PostponedDelegation delegation : delegations) {
+                            if (alreadyDelegated.contains(delegation.delegation().getWorkItemId())) {
+                                continue; // the trigger is processed
+                            }
+                            if (delegations.size() == 1) {
+                                recordFailedDelegation(delegation, e, processedTriggers); // no point in retrying
+                                continue;
+                            }
+                            try {
+                                executeDelegations(delegationCause, List.of(delegation), result);
+                            } catch (CommonException | RuntimeException e1) {
+                                recordFailedDelegation(delegation, e1, processedTriggers);
+                            }
+                        }
+                    }
+                }
+            } catch (Throwable t) {
+                result.recordFatalError(t);
+                throw t;
+            } finally {
+                result.close();
+            }
+        }
+
+        /** IDs of work items delegated (or escalated) with given cause since given time, according to the case history. */
+        private Set<Long> getWorkItemsDelegatedSince(
+                WorkItemEventCauseInformationType delegationCause, long since, OperationResult result)
+                throws ObjectNotFoundException, SchemaException {
+            CaseType currentCase = repositoryService
+                    .getObject(CaseType.class, aCase.getOid(), createReadOnlyCollection(), result)
+                    .asObjectable();
+            Set<Long> workItemIds = new HashSet<>();
+            for (CaseEventType event : currentCase.getEvent()) {
+                if (event instanceof WorkItemDelegationEventType delegationEvent
+                        && delegationEvent.getWorkItemId() != null
+                        && delegationEvent.getTimestamp() != null
+                        && XmlTypeConverter.toMillis(delegationEvent.getTimestamp()) >= since
+                        && delegationCause.equals(delegationEvent.getCause())) {
+                    workItemIds.add(delegationEvent.getWorkItemId());
+                }
+            }
+            return workItemIds;
+        }
+
+        private void executeDelegations(
+                WorkItemEventCauseInformationType delegationCause, List<PostponedDelegation> delegations, OperationResult result)
+                throws SecurityViolationException, ObjectNotFoundException, SchemaException, ExpressionEvaluationException,
+                CommunicationException, ConfigurationException {
+            DelegateWorkItemsRequest request = new DelegateWorkItemsRequest(aCase.getOid(), delegationCause, now);
+            delegations.forEach(d -> request.getDelegations().add(d.delegation()));
+            workItemManager.delegateWorkItems(request, task, result);
+        }
+
+        private void recordFailedDelegation(
+                PostponedDelegation delegation, Exception e, List<TriggerType> processedTriggers) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't delegate/escalate work item {} in {}", e,
+                    delegation.delegation().getWorkItemId(), aCase);
+            processedTriggers.remove(delegation.trigger());
+        }
+
         private void processCompletionActions(OperationResult parentResult) {
             OperationResult result = parentResult.createSubresult(OP_HANDLE_COMPLETIONS);
             try {
@@ -332,6 +444,9 @@ public class TimedActionTriggerHandler implements MultipleTriggersHandler {
         }
     }
 
+    private record PostponedDelegation(@NotNull TriggerType trigger, @NotNull SingleDelegation delegation) {
+    }
+
     private String getChannel(Task opTask) {
         // TODO TODO TODO here we should put the original channel (determined from the root model context!)
         return opTask.getChannel();
@@ -58,6 +58,7 @@ public class WorkItemManager {
     private static final String OPERATION_CLAIM_WORK_ITEM = DOT_INTERFACE + "claimWorkItem";
     private static final String OPERATION_RELEASE_WORK_ITEM = DOT_INTERFACE + "releaseWorkItem";
     private static final String OPERATION_DELEGATE_WORK_ITEM = DOT_INTERFACE + "delegateWorkItem";
+    private static final String OPERATION_DELEGATE_WORK_ITEMS = DOT_INTERFACE + "delegateWorkItems";
 
     public void completeWorkItem(WorkItemId workItemId, @NotNull AbstractWorkItemOutputType output,
             WorkItemEventCauseInformationType causeInformation, Task task, OperationResult parentResult)
@@ -219,4 +220,28 @@ public class WorkItemManager {
             storeTraceIfRequested(tracingRequested, task, result, parentResult);
         }
     }
+
+    /** Delegates (or escalates) given work items of a single case at once. */
+    void delegateWorkItems(@NotNull DelegateWorkItemsRequest request, Task task, OperationResult parentResult)
+            throws ObjectNotFoundException, SecurityViolationException, SchemaException, ExpressionEvaluationException,
+            CommunicationException, ConfigurationException {
+        OperationResultBuilder builder = parentResult.subresult(OPERATION_DELEGATE_WORK_ITEMS)
+                .addParam("caseOid", request.getCaseOid())
+                .addParam("delegations", request.getDelegations().size());
+        boolean tracingRequested = startTracingIfRequested(builder, task, parentResult);
+        OperationResult result = builder.build();
+        try {
+            LOGGER.trace("Delegating {} work item(s) in case {}; cause={}",
+                    request.getDelegations().size(), request.getCaseOid(), request.getCauseInformation());
+            caseEngine.executeRequest(request, task, result);
+        } catch (SecurityViolationException | RuntimeException | ObjectNotFoundException | SchemaException | CommunicationException | ConfigurationException e) {
+            result.recordFatalError("Couldn't delegate/escalate work items in case " + request.getCaseOid() + ": " + e.getMessage(), e);
+            throw e;
+        } catch (ObjectAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            result.computeStatusIfUnknown();
+            storeTraceIfRequested(tracingRequested, task, result, parentResult);
+        }
+    }
 }
@@ -311,6 +311,7 @@ public class AccCertOpenerHelper {
 
         assert norm(campaign.getIteration()) == 1;
 
+        AccCertReviewersCache reviewersCache = new AccCertReviewersCache();
         for (AccessCertificationCaseType aCase : caseList) {
             ContainerDelta<AccessCertificationCaseType> caseDelta = prismContext.deltaFactory().container().createDelta(F_CASE,
                     AccessCertificationCampaignType.class);
@@ -319,7 +320,7 @@ public class AccCertOpenerHelper {
             aCase.setCurrentStageCreateTimestamp(stage.getStartTimestamp());
             aCase.setCurrentStageDeadline(stage.getDeadline());
 
-            List<ObjectReferenceType> reviewers = reviewersHelper.getReviewersForCase(aCase, campaign, reviewerSpec, task, result);
+            List<ObjectReferenceType> reviewers = reviewersHelper.getReviewersForCase(aCase, campaign, reviewerSpec, reviewersCache, task, result);
             aCase.getWorkItem().addAll(createWorkItems(reviewers, 1, 1, aCase));
 
             openingContext.workItemsCreated += aCase.getWorkItem().size();
@@ -431,6 +432,7 @@ public class AccCertOpenerHelper {
                 reviewersHelper.findReviewersSpecification(campaign, stageToBe);
 
         LOGGER.trace("cases: {}, reviewerSpec: {}", caseList.size(), reviewerSpec);
+        AccCertReviewersCache reviewersCache = new AccCertReviewersCache();
         for (AccessCertificationCaseType aCase : caseList) {
             LOGGER.trace("----------------------------------------------------------------------------------------");
             LOGGER.trace("Considering case: {}", aCase);
@@ -447,7 +449,7 @@ public class AccCertOpenerHelper {
                 continue;
             }
 
-            List<ObjectReferenceType> reviewers = reviewersHelper.getReviewersForCase(aCase, campaign, reviewerSpec, task, result);
+            List<ObjectReferenceType> reviewers = reviewersHelper.getReviewersForCase(aCase, campaign, reviewerSpec, reviewersCache, task, result);
             List<AccessCertificationWorkItemType> workItems = createWorkItems(reviewers, stageToBe, iteration, aCase);
             openingContext.workItemsCreated += workItems.size();
             openingContext.casesEnteringStage++;
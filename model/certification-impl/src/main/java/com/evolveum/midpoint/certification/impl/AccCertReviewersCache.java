@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.certification.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
+
+/**
+ * Remembers reviewers derived from individual objects (owners and approvers of roles, members of roles, managers of users)
+ * when reviewers for many cases are determined within a single operation, e.g. when a stage is being opened.
+ * Typically, the same targets (roles, resources) and objects (users) occur in many cases, so there is no need to look
+ * them up over and over.
+ *
+ * The cache must not outlive the operation, as it is never invalidated. It is also bound to a single reviewer
+ * specification. Reviewer expressions are not cached, as they may depend on the whole case.
+ *
+ * It is thread-safe, as cases may be processed by multiple worker threads.
+ */
+public class AccCertReviewersCache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(AccCertReviewersCache.class);
+
+    private final Map<Key, List<ObjectReferenceType>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Returns (immutable) reviewers of given kind for given object, computing them if they are not cached yet.
+     * If the computation fails, nothing is cached.
+     */
+    @NotNull List<ObjectReferenceType> get(@NotNull Kind kind, @Nullable String oid, @NotNull Resolver resolver)
+            throws SchemaException, ObjectNotFoundException {
+        if (oid == null) {
+            return copyOf(resolver.resolve());
+        }
+        Key key = new Key(kind, oid);
+        List<ObjectReferenceType> cached = cache.get(key);
+        if (cached != null) {
+            LOGGER.trace("Cache HIT for {}", key);
+            return cached;
+        }
+        LOGGER.trace("Cache MISS for {}", key);
+        List<ObjectReferenceType> resolved = copyOf(resolver.resolve());
+        cache.put(key, resolved);
+        return resolved;
+    }
+
+    private static List<ObjectReferenceType> copyOf(Collection<ObjectReferenceType> references) {
+        return references != null ? List.copyOf(references) : List.of();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    enum Kind {
+        TARGET_OWNERS, TARGET_APPROVERS, OBJECT_OWNERS, OBJECT_APPROVERS, OBJECT_MANAGERS, MEMBERS
+    }
+
+    @FunctionalInterface
+    interface Resolver {
+        Collection<ObjectReferenceType> resolve() throws SchemaException, ObjectNotFoundException;
+    }
+
+    private record Key(@NotNull Kind kind, @NotNull String oid) {
+    }
+}
@@ -7,6 +7,8 @@
 
 package com.evolveum.midpoint.certification.impl;
 
+import static com.evolveum.midpoint.certification.impl.AccCertReviewersCache.Kind.*;
+
 import com.evolveum.midpoint.task.api.ExpressionEnvironment;
 import com.evolveum.midpoint.repo.common.expression.ExpressionEnvironmentThreadLocalHolder;
 import com.evolveum.midpoint.schema.expression.VariablesMap;
@@ -29,6 +31,7 @@ import com.evolveum.midpoint.util.exception.*;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
@@ -62,25 +65,42 @@ public class AccCertReviewersHelper {
             AccessCertificationReviewerSpecificationType reviewerSpec,
             Task task,
             OperationResult result) throws SchemaException, ObjectNotFoundException {
+        return getReviewersForCase(_case, campaign, reviewerSpec, new AccCertReviewersCache(), task, result);
+    }
+
+    /**
+     * Determines reviewers for given case. The cache is used to avoid repeated lookups of the same objects
+     * when reviewers for many cases are determined; it must be bound to given reviewer specification.
+     */
+    public List<ObjectReferenceType> getReviewersForCase(
+            AccessCertificationCaseType _case,
+            AccessCertificationCampaignType campaign,
+            AccessCertificationReviewerSpecificationType reviewerSpec,
+            @NotNull AccCertReviewersCache cache,
+            Task task,
+            OperationResult result) throws SchemaException, ObjectNotFoundException {
         if (reviewerSpec == null) {
             return Collections.emptyList(); // TODO issue a warning here?
         }
 
         List<ObjectReferenceType> reviewers = new ArrayList<>();
+        String targetOid = _case.getTargetRef() != null ? _case.getTargetRef().getOid() : null;
+        String objectOid = _case.getObjectRef() != null ? _case.getObjectRef().getOid() : null;
         if (Boolean.TRUE.equals(reviewerSpec.isUseTargetOwner())) {
-            cloneAndMerge(reviewers, getTargetObjectOwners(_case, result));
+            cloneAndMerge(reviewers, cache.get(TARGET_OWNERS, targetOid, () -> getTargetObjectOwners(_case, result)));
         }
         if (Boolean.TRUE.equals(reviewerSpec.isUseTargetApprover())) {
-            cloneAndMerge(reviewers, getTargetObjectApprovers(_case, result));
+            cloneAndMerge(reviewers, cache.get(TARGET_APPROVERS, targetOid, () -> getTargetObjectApprovers(_case, result)));
         }
         if (Boolean.TRUE.equals(reviewerSpec.isUseObjectOwner())) {
-            cloneAndMerge(reviewers, getObjectOwners(_case, result));
+            cloneAndMerge(reviewers, cache.get(OBJECT_OWNERS, objectOid, () -> getObjectOwners(_case, result)));
         }
         if (Boolean.TRUE.equals(reviewerSpec.isUseObjectApprover())) {
-            cloneAndMerge(reviewers, getObjectApprovers(_case, result));
+            cloneAndMerge(reviewers, cache.get(OBJECT_APPROVERS, objectOid, () -> getObjectApprovers(_case, result)));
         }
         if (reviewerSpec.getUseObjectManager() != null) {
-            cloneAndMerge(reviewers, getObjectManagers(_case, reviewerSpec.getUseObjectManager(), task, result));
+            cloneAndMerge(reviewers, cache.get(OBJECT_MANAGERS, objectOid,
+                    () -> getObjectManagers(_case, reviewerSpec.getUseObjectManager(), task, result)));
         }
         for (ExpressionType reviewerExpression : reviewerSpec.getReviewerExpression()) {
             VariablesMap variables = new VariablesMap();
@@ -93,18 +113,19 @@ public class AccCertReviewersHelper {
                             reviewerExpression, variables, "reviewer expression", task, result);
             cloneAndMerge(reviewers, refList);
         }
-        resolveRoleReviewers(reviewers, result);
+        resolveRoleReviewers(reviewers, cache, result);
         if (reviewers.isEmpty()) {
             cloneAndMerge(reviewers, reviewerSpec.getDefaultReviewerRef());
         }
         cloneAndMerge(reviewers, reviewerSpec.getAdditionalReviewerRef());
-        resolveRoleReviewers(reviewers, result);
+        resolveRoleReviewers(reviewers, cache, result);
 
         return reviewers;
     }
 
-    private void resolveRoleReviewers(List<ObjectReferenceType> reviewers, OperationResult result)
-            throws SchemaException {
+    private void resolveRoleReviewers(
+            List<ObjectReferenceType> reviewers, AccCertReviewersCache cache, OperationResult result)
+            throws SchemaException, ObjectNotFoundException {
         List<ObjectReferenceType> resolved = new ArrayList<>();
         for (Iterator<ObjectReferenceType> iterator = reviewers.iterator(); iterator.hasNext(); ) {
             ObjectReferenceType reviewer = iterator.next();
@@ -112,12 +133,12 @@ public class AccCertReviewersHelper {
                     || QNameUtil.match(reviewer.getType(), OrgType.COMPLEX_TYPE)
                     || QNameUtil.match(reviewer.getType(), ServiceType.COMPLEX_TYPE)) {
                 iterator.remove();
-                resolved.addAll(getMembers(reviewer, result));
+                resolved.addAll(cache.get(MEMBERS, reviewer.getOid(), () -> getMembers(reviewer, result)));
             }
         }
         for (ObjectReferenceType ref : resolved) {
             if (!containsOid(reviewers, ref.getOid())) {
-                reviewers.add(ref);
+                reviewers.add(ref.clone());
             }
         }
     }
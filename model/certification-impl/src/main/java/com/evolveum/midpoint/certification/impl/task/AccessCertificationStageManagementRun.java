@@ -10,6 +10,7 @@ package com.evolveum.midpoint.certification.impl.task;
 import static com.evolveum.midpoint.certification.api.OutcomeUtils.fromUri;
 import static com.evolveum.midpoint.certification.api.OutcomeUtils.normalizeToNull;
 import static com.evolveum.midpoint.schema.util.CertCampaignTypeUtil.norm;
+import static com.evolveum.midpoint.util.MiscUtil.configCheck;
 import static com.evolveum.midpoint.util.MiscUtil.or0;
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractAccessCertificationDefinitionType.F_LAST_CAMPAIGN_STARTED_TIMESTAMP;
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.AccessCertificationCampaignStateType.IN_REVIEW_STAGE;
@@ -69,6 +70,9 @@ public abstract class AccessCertificationStageManagementRun<
     private AccCertResponseComputationHelper computationHelper;
     private AccCertReviewersHelper reviewersHelper;
 
+    /** Reviewers looked up during this run; shared by all worker threads. Bound to {@link #reviewerSpec}. */
+    private AccCertReviewersCache reviewersCache;
+
     public AccessCertificationStageManagementRun(@NotNull ActivityRunInstantiationContext<WD, AH> context, @NotNull String shortNameCapitalized) {
         super(context, shortNameCapitalized);
     }
@@ -82,6 +86,9 @@ public abstract class AccessCertificationStageManagementRun<
 
     @Override
     public void beforeRun(OperationResult result) throws CommonException, ActivityRunException {
+        // The campaign is updated in afterRun, which must be executed only once.
+        configCheck(!isWorker(), "Stage management activities cannot be distributed to worker tasks; use worker threads");
+
         // HANDLERS
         computationHelper = getActivityHandler().getComputationHelper();
         updateHelper = getActivityHandler().getUpdateHelper();
@@ -96,6 +103,7 @@ public abstract class AccessCertificationStageManagementRun<
 
         stage = createStage();
         reviewerSpec = reviewersHelper.findReviewersSpecification(campaign, stageToBe);
+        reviewersCache = new AccCertReviewersCache();
 
         query = prepareObjectQuery();
 
@@ -104,6 +112,7 @@ public abstract class AccessCertificationStageManagementRun<
 
     @Override
     public void afterRun(OperationResult result) throws CommonException, ActivityRunException {
+        LOGGER.trace("Reviewers cache contained {} entries at the end of the run", reviewersCache.size());
 
         ModificationsToExecute rv = new ModificationsToExecute();
         rv.add(createStageAddDelta(stage));
@@ -308,4 +317,8 @@ public abstract class AccessCertificationStageManagementRun<
     public AccCertReviewersHelper getReviewersHelper() {
         return reviewersHelper;
     }
+
+    public AccCertReviewersCache getReviewersCache() {
+        return reviewersCache;
+    }
 }
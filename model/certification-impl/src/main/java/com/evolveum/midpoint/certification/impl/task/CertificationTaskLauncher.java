@@ -10,6 +10,7 @@ import com.evolveum.midpoint.model.api.ActivitySubmissionOptions;
 import com.evolveum.midpoint.model.api.ModelInteractionService;
 import com.evolveum.midpoint.model.impl.lens.tasks.TaskOperationalDataManager;
 import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.repo.common.SystemObjectCache;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.result.OperationResultStatus;
 import com.evolveum.midpoint.security.api.SecurityContextManager;
@@ -38,6 +39,7 @@ public class CertificationTaskLauncher {
     @Autowired private TaskOperationalDataManager taskOperationalDataManager;
     @Autowired private ModelInteractionService modelInteractionService;
     @Autowired private SecurityContextManager securityContextManager;
+    @Autowired private SystemObjectCache systemObjectCache;
 
     private static final Trace LOGGER = TraceManager.getTrace(CertificationTaskLauncher.class);
 
@@ -61,6 +63,7 @@ public class CertificationTaskLauncher {
         activityDef.beginWork()
                 .beginCertificationStartCampaign()
                 .certificationCampaignRef(campaign.getOid(), AccessCertificationCampaignType.COMPLEX_TYPE);
+        applyStageManagementDistribution(activityDef, parentResult);
 
         startTask(
                 campaign.getOid(),
@@ -76,6 +79,7 @@ public class CertificationTaskLauncher {
         activityDef.beginWork()
                 .beginCertificationOpenNextStage()
                 .certificationCampaignRef(campaign.getOid(), AccessCertificationCampaignType.COMPLEX_TYPE);
+        applyStageManagementDistribution(activityDef, parentResult);
 
         startTask(
                 campaign.getOid(),
@@ -91,6 +95,7 @@ public class CertificationTaskLauncher {
         activityDef.beginWork()
                 .beginCertificationCloseCurrentStage()
                 .certificationCampaignRef(campaign.getOid(), AccessCertificationCampaignType.COMPLEX_TYPE);
+        applyStageManagementDistribution(activityDef, parentResult);
 
         startTask(
                 campaign.getOid(),
@@ -116,6 +121,34 @@ public class CertificationTaskLauncher {
                 SystemObjectsType.ARCHETYPE_CERTIFICATION_REITERATE_CAMPAIGN_TASK.value());
     }
 
+    /**
+     * Sets the distribution (worker threads, buckets, ...) of stage management activities according to the system
+     * configuration. These are the iterative activities processing individual cases or objects.
+     *
+     * Worker tasks are not supported, as each of them would update the campaign (stage, state, triggers) and send
+     * the notifications at its end.
+     */
+    private void applyStageManagementDistribution(ActivityDefinitionType activityDef, OperationResult result) {
+        try {
+            SystemConfigurationType systemConfiguration = systemObjectCache.getSystemConfigurationBean(result);
+            AccessCertificationConfigurationType certConfig =
+                    systemConfiguration != null ? systemConfiguration.getAccessCertification() : null;
+            ActivityDistributionDefinitionType distribution =
+                    certConfig != null ? certConfig.getStageManagementDistribution() : null;
+            if (distribution != null) {
+                ActivityDistributionDefinitionType clone = distribution.clone();
+                if (clone.getWorkers() != null) {
+                    LOGGER.warn("Worker tasks are not supported for certification stage management, ignoring them."
+                            + " Use worker threads instead.");
+                    clone.setWorkers(null);
+                }
+                activityDef.setDistribution(clone);
+            }
+        } catch (SchemaException e) {
+            throw new SystemException("Couldn't get system configuration: " + e.getMessage(), e);
+        }
+    }
+
     private void startTask(
             String campaignOid,
             ActivityDefinitionType activityDef,
@@ -9,6 +9,7 @@ package com.evolveum.midpoint.certification.impl.task.closeCurrentStage;
 
 import static com.evolveum.midpoint.certification.api.OutcomeUtils.toUri;
 import static com.evolveum.midpoint.schema.util.CertCampaignTypeUtil.norm;
+import static com.evolveum.midpoint.util.MiscUtil.configCheck;
 import static com.evolveum.midpoint.util.MiscUtil.or0;
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractWorkItemType.F_CLOSE_TIMESTAMP;
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.AccessCertificationCampaignStateType.REVIEW_STAGE_DONE;
@@ -75,6 +76,9 @@ public final class AccessCertificationCloseCurrentStageRun
 
     @Override
     public void beforeRun(OperationResult result) throws CommonException, ActivityRunException {
+        // The campaign is updated in afterRun, which must be executed only once.
+        configCheck(!isWorker(), "Stage management activities cannot be distributed to worker tasks; use worker threads");
+
         String campaignOid = getWorkDefinition().getCertificationCampaignRef().getOid();
         campaign = getBeans().repositoryService.getObject(AccessCertificationCampaignType.class, campaignOid, null, result).asObjectable();
         outcomesToStopOn = getActivityHandler().getComputationHelper().getOutcomesToStopOn(campaign);
@@ -158,7 +162,7 @@ public final class AccessCertificationCloseCurrentStageRun
                             .asItemDelta());
         }
 
-        getActivityHandler().getUpdateHelper().modifyObjectPreAuthorized(AccessCertificationCampaignType.class, campaign.getOid(), deltas, getRunningTask(), result);
+        getActivityHandler().getUpdateHelper().modifyObjectPreAuthorized(AccessCertificationCampaignType.class, campaign.getOid(), deltas, workerTask, result);
         return true;
     }
 
@@ -54,7 +54,7 @@ public final class AccessCertificationStartCampaignRun
 
     @Override
     public boolean processItem(@NotNull AssignmentHolderType item, @NotNull ItemProcessingRequest<AssignmentHolderType> request, RunningTask workerTask, OperationResult result) throws CommonException {
-        Task task = getRunningTask();
+        Task task = workerTask;
         List<AccessCertificationCaseType> caseList = new ArrayList<>(getCertificationHandler().createCasesForObject(request.getItem().asPrismObject(), getCampaign(), task, result));
 
         Collection<ItemDelta<?, ?>> modifications = new ArrayList<>();
@@ -67,7 +67,8 @@ public final class AccessCertificationStartCampaignRun
             aCase.setCurrentStageDeadline(getStage().getDeadline());
 
 
-            List<ObjectReferenceType> reviewers = getReviewersHelper().getReviewersForCase(aCase, getCampaign(), getReviewerSpec(), task, result);
+            List<ObjectReferenceType> reviewers = getReviewersHelper().getReviewersForCase(
+                    aCase, getCampaign(), getReviewerSpec(), getReviewersCache(), task, result);
             aCase.getWorkItem().addAll(createWorkItems(reviewers, 1, 1, aCase));
 
             AccessCertificationResponseType currentStageOutcome = getComputationHelper().computeOutcomeForStage(aCase, getCampaign(), 1);
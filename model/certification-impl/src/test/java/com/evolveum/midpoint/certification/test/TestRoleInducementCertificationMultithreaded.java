@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.certification.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * As {@link TestRoleInducementCertification}, but the stage management activities (opening and closing the stages)
+ * run in multiple worker threads, as configured by `accessCertification/stageManagementDistribution`.
+ *
+ * The inherited tests check the cases, work items and reviewers. There are more cases for the same object (role COO),
+ * so its owner (the reviewer in the first stage) is taken from the reviewers cache.
+ */
+@ContextConfiguration(locations = { "classpath:ctx-certification-test-main.xml" })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class TestRoleInducementCertificationMultithreaded extends TestRoleInducementCertification {
+
+    private static final int WORKER_THREADS = 3;
+
+    @Override
+    public void initSystem(Task initTask, OperationResult initResult) throws Exception {
+        super.initSystem(initTask, initResult);
+
+        repositoryService.modifyObject(
+                SystemConfigurationType.class,
+                SystemObjectsType.SYSTEM_CONFIGURATION.value(),
+                deltaFor(SystemConfigurationType.class)
+                        .item(SystemConfigurationType.F_ACCESS_CERTIFICATION,
+                                AccessCertificationConfigurationType.F_STAGE_MANAGEMENT_DISTRIBUTION)
+                        .replace(new ActivityDistributionDefinitionType()
+                                .workerThreads(WORKER_THREADS))
+                        .asItemDeltas(),
+                initResult);
+    }
+
+    /** All the stage management tasks were run with the configured worker threads, and successfully. */
+    @Test
+    public void test900StageManagementTasks() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        when("stage management tasks are listed");
+        List<PrismObject<TaskType>> tasks = repositoryService.searchObjects(
+                TaskType.class,
+                prismContext.queryFor(TaskType.class)
+                        .item(TaskType.F_ARCHETYPE_REF)
+                        .ref(SystemObjectsType.ARCHETYPE_CERTIFICATION_START_CAMPAIGN_TASK.value(),
+                                SystemObjectsType.ARCHETYPE_CERTIFICATION_OPEN_NEXT_STAGE_TASK.value(),
+                                SystemObjectsType.ARCHETYPE_CERTIFICATION_CLOSE_CURRENT_STAGE_TASK.value())
+                        .build(),
+                null, result);
+
+        then("there are tasks for opening both stages and closing both stages, all using worker threads");
+        display("tasks", tasks);
+        assertThat(tasks).as("stage management tasks").hasSize(4);
+        for (PrismObject<TaskType> task : tasks) {
+            TaskType taskBean = task.asObjectable();
+            ActivityDistributionDefinitionType distribution = taskBean.getActivity().getDistribution();
+            assertThat(distribution).as("distribution in " + task).isNotNull();
+            assertThat(distribution.getWorkerThreads()).as("worker threads in " + task).isEqualTo(WORKER_THREADS);
+            assertThat(taskBean.getResultStatus()).as("result status of " + task)
+                    .isEqualTo(OperationResultStatusType.SUCCESS);
+        }
+    }
+}
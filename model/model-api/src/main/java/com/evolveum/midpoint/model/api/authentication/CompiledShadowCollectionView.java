@@ -57,6 +57,7 @@ public class CompiledShadowCollectionView extends CompiledObjectCollectionView {
         viewType.setDistinct(getDistinct());
         viewType.setDisableSorting(isDisableSorting());
         viewType.setDisableCounting(isDisableCounting());
+        viewType.setCountLimit(getCountLimit());
         viewType.setSearchBoxConfiguration(getSearchBoxConfiguration());
         viewType.setDisplayOrder(getDisplayOrder());
         viewType.setRefreshInterval(getRefreshInterval());
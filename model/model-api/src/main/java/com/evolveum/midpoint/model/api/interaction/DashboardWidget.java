@@ -27,6 +27,12 @@ public class DashboardWidget {
     private String numberMessage;
     private DashboardWidgetType widget;
 
+    /**
+     * When the data were computed (in millis). Filled-in only for widgets that are cached, see `cacheMaxAge`
+     * in the widget data; the value may be older than the current request.
+     */
+    private Long computedAt;
+
     public DashboardWidget() {
     }
 
@@ -60,6 +66,14 @@ public class DashboardWidget {
         this.widget = widget;
     }
 
+    public Long getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(Long computedAt) {
+        this.computedAt = computedAt;
+    }
+
     public String getLabel(LocalizationService localizationService) {
         if(getDisplay() != null && getDisplay().getLabel() != null) {
             return localizationService.translate(getDisplay().getLabel().toPolyString(), getLocale(), true);
@@ -87,7 +101,8 @@ public class DashboardWidget {
         StringBuilder sb = new StringBuilder();
         sb.append("{widgetIdentifier:").append(widget == null ? null : widget.getIdentifier())
         .append(", numberMessage:").append(numberMessage)
-        .append(", display:").append(display).append("}");
+        .append(", display:").append(display)
+        .append(", computedAt:").append(computedAt).append("}");
         return sb.toString();
     }
 }
@@ -8,4 +8,9 @@ public class ClusterServiceConsts {
     public static final String EVENT_INVALIDATION = "/event/invalidation/";
     public static final String EVENT_TERMINATE_SESSION = "/event/terminateSession/";
     public static final String EVENT_LIST_USER_SESSION = "/event/listUserSession";
+
+    /** Query parameters of {@link #EVENT_INVALIDATION} describing the modification of the object (if known). */
+    public static final String PARAM_MODIFIED_ITEM = "modifiedItem";
+    public static final String PARAM_VERSION_BEFORE = "versionBefore";
+    public static final String PARAM_VERSION_AFTER = "versionAfter";
 }
@@ -12,7 +12,9 @@ import com.evolveum.midpoint.model.api.ModelInteractionService;
 import com.evolveum.midpoint.model.api.ModelService;
 import com.evolveum.midpoint.model.common.archetypes.ArchetypeManager;
 import com.evolveum.midpoint.model.common.expression.ExpressionProfileManager;
+import com.evolveum.midpoint.model.common.expression.evaluator.caching.GlobalAssociationSearchExpressionEvaluatorCache;
 import com.evolveum.midpoint.model.common.expression.functions.FunctionLibraryManager;
+import com.evolveum.midpoint.model.common.mapping.MappingOutputCache;
 import com.evolveum.midpoint.model.common.mapping.metadata.MetadataMappingEvaluator;
 import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.crypto.Protector;
@@ -71,4 +73,6 @@ public class ModelCommonBeans {
     @Autowired public ArchetypeManager archetypeManager;
     @Autowired public ExpressionProfileManager expressionProfileManager;
     @Autowired public FunctionLibraryManager functionLibraryManager;
+    @Autowired public GlobalAssociationSearchExpressionEvaluatorCache globalAssociationSearchExpressionEvaluatorCache;
+    @Autowired public MappingOutputCache mappingOutputCache;
 }
@@ -305,20 +305,23 @@ public abstract class AbstractSearchExpressionEvaluator<
             List<V> cachedResult = cache.getSearchResult(targetTypeClass, queries, searchStrategy, eeCtx);
             if (cachedResult != null) {
                 cacheInfo.logHit(targetTypeClass, queries);
-                // TODO consider freezing/cloning objects in the cache or more shallow cloning here;
-                //  but it's not crucial, as this kind of cache is not used globally (only as a thread-local one),
-                //  nor probably the amount of data cached is quite low
+                // TODO consider more shallow cloning here; values coming from the global (node-wide) tier are frozen,
+                //  but the ones found by this thread are not; anyway, the amount of data cached is probably quite low
                 return CloneUtil.cloneCollectionMembers(cachedResult);
             }
 
             cacheInfo.logMiss(targetTypeClass, queries);
-            var freshResult = executeSearch(queries, searchStrategy, createOnDemandRetry, newValueDeltas);
-            if (!freshResult.isEmpty()) {
-                // we don't want to cache negative results (e.g. if used with focal objects it might mean that they would
-                // be attempted to create multiple times)
-                cache.putSearchResult(targetTypeClass, queries, searchStrategy, eeCtx, freshResult);
+            try {
+                var freshResult = executeSearch(queries, searchStrategy, createOnDemandRetry, newValueDeltas);
+                if (!freshResult.isEmpty()) {
+                    // we don't want to cache negative results (e.g. if used with focal objects it might mean that they would
+                    // be attempted to create multiple times)
+                    cache.putSearchResult(targetTypeClass, queries, searchStrategy, eeCtx, freshResult);
+                }
+                return ObjectFound.unwrap(freshResult);
+            } finally {
+                cache.searchFinished(targetTypeClass, queries, searchStrategy, eeCtx);
             }
-            return ObjectFound.unwrap(freshResult);
         }
 
         private ObjectSearchStrategyType getSearchStrategy() {
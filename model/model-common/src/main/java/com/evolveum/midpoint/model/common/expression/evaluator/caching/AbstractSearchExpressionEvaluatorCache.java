@@ -77,6 +77,11 @@ public abstract class AbstractSearchExpressionEvaluatorCache<
         if (result != null) {
             return result.getResultingList();
         }
+        QR sharedResult = getSharedSearchResult(key);
+        if (sharedResult != null) {
+            cachedSearches.put(key, sharedResult); // to avoid going to the shared tier for this key again
+            return sharedResult.getResultingList();
+        }
         return null;
     }
 
@@ -86,9 +91,38 @@ public abstract class AbstractSearchExpressionEvaluatorCache<
             ObjectSearchStrategyType searchStrategy,
             ExpressionEvaluationContext params,
             Collection<? extends ObjectFound<O, V>> objectsFound) {
-        cachedSearches.put(
-                createKey(type, queries, searchStrategy, params),
-                createQueryResult(objectsFound));
+        QK key = createKey(type, queries, searchStrategy, params);
+        QR result = createQueryResult(objectsFound);
+        cachedSearches.put(key, result);
+        putSharedSearchResult(key, result);
+    }
+
+    /**
+     * To be called when the search executed after {@link #getSearchResult} returned nothing is over, whether successfully
+     * or not, and whether its result was stored or not.
+     */
+    public void searchFinished(
+            Class<O> type,
+            Collection<ObjectQuery> queries,
+            ObjectSearchStrategyType searchStrategy,
+            ExpressionEvaluationContext eeCtx) {
+        sharedSearchFinished(createKey(type, queries, searchStrategy, eeCtx));
+    }
+
+    /**
+     * Returns the result from a shared (e.g. node-wide) cache tier, if there's any. The result must not be modified.
+     * Called when this cache does not contain the result, i.e. typically just before the search is executed.
+     */
+    protected QR getSharedSearchResult(@NotNull QK key) {
+        return null;
+    }
+
+    /** Stores the result into a shared (e.g. node-wide) cache tier, if there's any. */
+    protected void putSharedSearchResult(@NotNull QK key, @NotNull QR result) {
+    }
+
+    /** Releases anything the shared tier keeps for the search being executed, see {@link #searchFinished}. */
+    protected void sharedSearchFinished(@NotNull QK key) {
     }
 
     abstract protected @NotNull QK createKey(
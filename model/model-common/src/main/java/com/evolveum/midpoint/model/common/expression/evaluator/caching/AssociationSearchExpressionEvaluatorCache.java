@@ -7,6 +7,7 @@
 
 package com.evolveum.midpoint.model.common.expression.evaluator.caching;
 
+import com.evolveum.midpoint.model.common.ModelCommonBeans;
 import com.evolveum.midpoint.model.common.expression.evaluator.AbstractSearchExpressionEvaluator.ObjectFound;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
@@ -37,6 +38,12 @@ public class AssociationSearchExpressionEvaluatorCache
     private static final ConcurrentHashMap<Thread, AssociationSearchExpressionEvaluatorCache> CACHE_INSTANCES =
             new ConcurrentHashMap<>();
 
+    /**
+     * Invalidation sequence numbers of the global cache at the start of the searches that are being executed.
+     * Used to avoid storing results that may have been invalidated during the search.
+     */
+    private final Map<AssociationSearchQueryKey, Long> searchStartInvalidationSequences = new ConcurrentHashMap<>();
+
     public static AssociationSearchExpressionEvaluatorCache getCache() {
         return CACHE_INSTANCES.get(Thread.currentThread());
     }
@@ -64,6 +71,39 @@ public class AssociationSearchExpressionEvaluatorCache
         return new AssociationSearchQueryResult(objectsFound);
     }
 
+    @Override
+    protected AssociationSearchQueryResult getSharedSearchResult(@NotNull AssociationSearchQueryKey key) {
+        var globalCache = getGlobalCache();
+        if (globalCache == null) {
+            return null;
+        }
+        var sharedResult = globalCache.get(key);
+        if (sharedResult == null) {
+            // The search is going to be executed. Remembering the state of the global cache before that.
+            searchStartInvalidationSequences.put(key, globalCache.getInvalidationSequence());
+        }
+        return sharedResult;
+    }
+
+    @Override
+    protected void putSharedSearchResult(@NotNull AssociationSearchQueryKey key, @NotNull AssociationSearchQueryResult result) {
+        var globalCache = getGlobalCache();
+        Long searchStartInvalidationSequence = searchStartInvalidationSequences.remove(key);
+        if (globalCache != null && searchStartInvalidationSequence != null) {
+            globalCache.put(key, result, searchStartInvalidationSequence);
+        }
+    }
+
+    @Override
+    protected void sharedSearchFinished(@NotNull AssociationSearchQueryKey key) {
+        searchStartInvalidationSequences.remove(key);
+    }
+
+    private static GlobalAssociationSearchExpressionEvaluatorCache getGlobalCache() {
+        var beans = ModelCommonBeans.get();
+        return beans != null ? beans.globalAssociationSearchExpressionEvaluatorCache : null;
+    }
+
     // shadow may be null
     public void invalidate(PrismObject<ResourceType> resource, PrismObject<? extends ShadowType> shadow) {
         LOGGER.trace("Invalidating cache for resource = {}, shadow kind = {}",
@@ -96,15 +136,6 @@ public class AssociationSearchExpressionEvaluatorCache
             String resourceOid,
             ShadowKindType kind) {
         AssociationSearchQueryResult result = entry.getValue();
-        if (result.getResourceOid() == null) {
-            return true; // shouldn't occur
-        }
-        if (!result.getResourceOid().equals(resourceOid)) {
-            return false;
-        }
-        if (kind == null || result.getKind() == null) {
-            return true;
-        }
-        return result.getKind().equals(kind);
+        return AssociationSearchQueryResult.matches(result.getResourceOid(), result.getKind(), resourceOid, kind);
     }
 }
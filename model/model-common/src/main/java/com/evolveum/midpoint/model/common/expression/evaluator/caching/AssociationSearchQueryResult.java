@@ -7,11 +7,13 @@
 
 package com.evolveum.midpoint.model.common.expression.evaluator.caching;
 
-import java.util.Collection;
+import java.util.*;
 
 import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import com.evolveum.midpoint.model.common.expression.evaluator.AbstractSearchExpressionEvaluator.ObjectFound;
+import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.schema.processor.ShadowAssociationValue;
 import com.evolveum.midpoint.schema.util.ShadowUtil;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowKindType;
@@ -22,6 +24,9 @@ public class AssociationSearchQueryResult extends QueryResult<ShadowAssociationV
     private final String resourceOid;
     private final ShadowKindType kind;
 
+    /** OIDs of the shadows found; used for the invalidation of the global cache. */
+    private final Set<String> shadowOids;
+
     AssociationSearchQueryResult(
             Collection<? extends ObjectFound<ShadowType, ShadowAssociationValue>> objectsFound) {
         super(objectsFound);
@@ -33,6 +38,32 @@ public class AssociationSearchQueryResult extends QueryResult<ShadowAssociationV
 
         resourceOid = ShadowUtil.getResourceOid(shadow);
         kind = shadow.getKind();
+
+        shadowOids = new HashSet<>();
+        for (var objectFound : objectsFound) {
+            String oid = objectFound.sourceObject().getOid();
+            if (oid != null) {
+                shadowOids.add(oid);
+            }
+        }
+    }
+
+    /** For copies, and for tests. */
+    @VisibleForTesting
+    AssociationSearchQueryResult(
+            List<ShadowAssociationValue> values, String resourceOid, ShadowKindType kind, Set<String> shadowOids) {
+        super(values);
+        this.resourceOid = resourceOid;
+        this.kind = kind;
+        this.shadowOids = shadowOids;
+    }
+
+    /** Returns a copy with cloned and frozen values, suitable for sharing among threads. */
+    AssociationSearchQueryResult toFrozenCopy() {
+        List<ShadowAssociationValue> values = CloneUtil.cloneCollectionMembers(getResultingList());
+        values.forEach(ShadowAssociationValue::freeze);
+        return new AssociationSearchQueryResult(
+                Collections.unmodifiableList(values), resourceOid, kind, Collections.unmodifiableSet(new HashSet<>(shadowOids)));
     }
 
     public String getResourceOid() {
@@ -42,4 +73,22 @@ public class AssociationSearchQueryResult extends QueryResult<ShadowAssociationV
     public ShadowKindType getKind() {
         return kind;
     }
+
+    public Set<String> getShadowOids() {
+        return shadowOids;
+    }
+
+    /** Should a result for given resource and kind be invalidated when an object of `changedKind` on `changedResourceOid` changes? */
+    static boolean matches(String resourceOid, ShadowKindType kind, String changedResourceOid, ShadowKindType changedKind) {
+        if (resourceOid == null) {
+            return true; // shouldn't occur
+        }
+        if (!resourceOid.equals(changedResourceOid)) {
+            return false;
+        }
+        if (changedKind == null || kind == null) {
+            return true;
+        }
+        return kind.equals(changedKind);
+    }
 }
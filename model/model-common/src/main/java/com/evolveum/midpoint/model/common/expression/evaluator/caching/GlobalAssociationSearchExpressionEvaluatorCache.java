@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.common.expression.evaluator.caching;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.repo.api.Cache;
+import com.evolveum.midpoint.repo.api.CacheRegistry;
+import com.evolveum.midpoint.schema.cache.CacheConfigurationManager;
+import com.evolveum.midpoint.schema.cache.CacheType;
+import com.evolveum.midpoint.util.caching.CacheConfiguration;
+import com.evolveum.midpoint.util.caching.CacheConfiguration.CacheObjectTypeConfiguration;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Node-wide tier of {@link AssociationSearchExpressionEvaluatorCache}. It is consulted when the thread-local cache
+ * does not have the result, so that the same association target searches are not repeated by different threads and tasks.
+ *
+ * It is disabled unless {@link CacheType#GLOBAL_ASSOCIATION_TARGET_SEARCH_EVALUATOR_CACHE} is configured (for shadows).
+ * The entries are bounded by the configured `maxSize` (new entries are not stored when the cache is full) and `timeToLive`
+ * (default is {@link #DEFAULT_TIME_TO_LIVE} seconds).
+ *
+ * Invalidation follows the rules of the thread-local cache: resource object changes and resource operations invalidate
+ * the entries for the respective resource and shadow kind (see `GlobalAssociationSearchExpressionCacheInvalidator`
+ * in model-impl). In addition, entries are invalidated by the cache dispatcher, i.e. on repository changes of the shadows
+ * they contain, and of their resources. Changes on other cluster nodes that are not propagated clusterwide are covered
+ * only by the time to live.
+ *
+ * Values are stored as frozen clones, as they are shared among threads. Clients get them cloned, as with the local cache.
+ * Results found here are copied into the thread-local cache, so each thread goes here at most once for each key.
+ *
+ * A result is not stored if its resource or any of its shadows was invalidated while it was being searched for,
+ * so that results computed from outdated data do not outlive the invalidation. To that end, each invalidation gets a number
+ * from {@link #invalidationSequence}, and the number of the last invalidation is remembered for each resource and shadow.
+ * Entries are indexed by resource and shadow OIDs, so an invalidation does not need to go through the whole cache.
+ */
+@Component
+public class GlobalAssociationSearchExpressionEvaluatorCache implements Cache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(GlobalAssociationSearchExpressionEvaluatorCache.class);
+    private static final Trace LOGGER_CONTENT =
+            TraceManager.getTrace(GlobalAssociationSearchExpressionEvaluatorCache.class.getName() + ".content");
+
+    private static final int DEFAULT_TIME_TO_LIVE = 60;
+
+    /**
+     * How many shadow invalidations we remember. When exceeded, they are forgotten, and treated as an invalidation
+     * of the whole cache (for the searches being executed).
+     */
+    private static final int MAX_SHADOW_INVALIDATIONS = 10000;
+
+    @Autowired private CacheRegistry cacheRegistry;
+    @Autowired private CacheConfigurationManager cacheConfigurationManager;
+
+    private final Map<AssociationSearchQueryKey, CachedResult> cache = new ConcurrentHashMap<>();
+
+    /** Keys of the entries, indexed by the resource OID. */
+    private final Map<String, Set<AssociationSearchQueryKey>> keysByResource = new ConcurrentHashMap<>();
+
+    /** Keys of the entries, indexed by the OIDs of the shadows they contain. */
+    private final Map<String, Set<AssociationSearchQueryKey>> keysByShadow = new ConcurrentHashMap<>();
+
+    /** Incremented at the start of each invalidation. Searches remember its value when they start. */
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    /** Sequence number of the last invalidation of the whole cache. */
+    private volatile long lastFullInvalidation;
+
+    /** Sequence numbers of the last invalidations of individual resources. */
+    private final Map<String, Long> lastResourceInvalidations = new ConcurrentHashMap<>();
+
+    /** Sequence numbers of the last invalidations of individual shadows. Bounded by {@link #MAX_SHADOW_INVALIDATIONS}. */
+    private final Map<String, Long> lastShadowInvalidations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCache(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCache(this);
+    }
+
+    /** Returns the cached result (with frozen values), or `null` if there is none. */
+    @Nullable AssociationSearchQueryResult get(@NotNull AssociationSearchQueryKey key) {
+        CachedResult cached = cache.get(key);
+        if (cached == null || getSettings() == null) {
+            return null;
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            removeEntry(key, cached);
+            return null;
+        }
+        return cached.result;
+    }
+
+    /** To be obtained before the search whose result is to be stored later, see {@link #put}. */
+    long getInvalidationSequence() {
+        return invalidationSequence.get();
+    }
+
+    /**
+     * Stores the result, unless its resource or shadows were invalidated since the search started, i.e. since
+     * the invalidation sequence was `searchStart`.
+     */
+    void put(
+            @NotNull AssociationSearchQueryKey key,
+            @NotNull AssociationSearchQueryResult result,
+            long searchStart) {
+        Settings settings = getSettings();
+        if (settings == null) {
+            return;
+        }
+        if (result.getResourceOid() == null) {
+            return; // shouldn't occur; such results could not be invalidated selectively
+        }
+        if (isInvalidatedSince(result, searchStart)) {
+            LOGGER.trace("Cache was invalidated during the search, not storing {}", key);
+            return;
+        }
+        if (settings.maxSize() != null && cache.size() >= settings.maxSize()) {
+            removeExpired();
+            if (cache.size() >= settings.maxSize()) {
+                LOGGER.trace("Cache is full ({} entries), not storing {}", cache.size(), key);
+                return;
+            }
+        }
+        CachedResult cached = new CachedResult(result.toFrozenCopy(), System.currentTimeMillis() + settings.timeToLive());
+        CachedResult previous = cache.put(key, cached);
+        if (previous != null) {
+            removeFromIndices(key, previous);
+        }
+        addToIndex(keysByResource, cached.result.getResourceOid(), key);
+        cached.result.getShadowOids().forEach(shadowOid -> addToIndex(keysByShadow, shadowOid, key));
+        if (isInvalidatedSince(cached.result, searchStart)) {
+            // An invalidation was running concurrently; it might have missed the entry we've just stored.
+            removeEntry(key, cached);
+        }
+    }
+
+    private boolean isInvalidatedSince(@NotNull AssociationSearchQueryResult result, long searchStart) {
+        if (lastFullInvalidation > searchStart
+                || lastResourceInvalidations.getOrDefault(result.getResourceOid(), 0L) > searchStart) {
+            return true;
+        }
+        for (String shadowOid : result.getShadowOids()) {
+            if (lastShadowInvalidations.getOrDefault(shadowOid, 0L) > searchStart) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns `null` if the cache is disabled. */
+    @VisibleForTesting
+    @Nullable Settings getSettings() {
+        CacheConfiguration configuration =
+                cacheConfigurationManager.getConfiguration(CacheType.GLOBAL_ASSOCIATION_TARGET_SEARCH_EVALUATOR_CACHE);
+        if (configuration == null || Integer.valueOf(0).equals(configuration.getMaxSize())) {
+            return null;
+        }
+        CacheObjectTypeConfiguration shadowConfiguration = configuration.getForObjectType(ShadowType.class);
+        if (shadowConfiguration == null) {
+            return null;
+        }
+        Integer timeToLive = shadowConfiguration.getEffectiveTimeToLive();
+        return new Settings(
+                configuration.getMaxSize(),
+                (timeToLive != null ? timeToLive : DEFAULT_TIME_TO_LIVE) * 1000L);
+    }
+
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        cache.forEach((key, cached) -> {
+            if (cached.isExpired(now)) {
+                removeEntry(key, cached);
+            }
+        });
+    }
+
+    private void removeEntry(@NotNull AssociationSearchQueryKey key, @NotNull CachedResult cached) {
+        cache.remove(key, cached);
+        removeFromIndices(key, cached);
+    }
+
+    private void removeFromIndices(@NotNull AssociationSearchQueryKey key, @NotNull CachedResult cached) {
+        removeFromIndex(keysByResource, cached.result.getResourceOid(), key);
+        cached.result.getShadowOids().forEach(shadowOid -> removeFromIndex(keysByShadow, shadowOid, key));
+    }
+
+    private static void addToIndex(
+            Map<String, Set<AssociationSearchQueryKey>> index, String oid, AssociationSearchQueryKey key) {
+        index.compute(oid, (k, keys) -> {
+            Set<AssociationSearchQueryKey> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            updated.add(key);
+            return updated;
+        });
+    }
+
+    /** Removes the key from the index, unless there is a (newer) entry for the key. */
+    private void removeFromIndex(
+            Map<String, Set<AssociationSearchQueryKey>> index, String oid, AssociationSearchQueryKey key) {
+        index.computeIfPresent(oid, (k, keys) -> {
+            if (!cache.containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /** Invalidates entries related to given resource (and shadow kind), just like the thread-local cache does. */
+    public void invalidate(PrismObject<ResourceType> resource, PrismObject<? extends ShadowType> shadow) {
+        if (resource == null || resource.getOid() == null) { // shouldn't occur
+            LOGGER.debug("No resource - invalidating all the cache");
+            invalidateAll();
+            return;
+        }
+        ShadowKindType kind = shadow != null ? shadow.asObjectable().getKind() : null;
+        LOGGER.trace("Invalidating cache for resource = {}, shadow kind = {}", resource, kind);
+        invalidateResource(resource.getOid(), kind);
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (type == null) {
+            invalidateAll();
+        } else if (ResourceType.class.isAssignableFrom(type)) {
+            if (oid != null) {
+                invalidateResource(oid, null);
+            } else {
+                invalidateAll();
+            }
+        } else if (ShadowType.class.isAssignableFrom(type)) {
+            // Shadows being created are covered by resource operation and change notifications.
+            if (oid != null) {
+                invalidateShadow(oid);
+            } else {
+                invalidateAll();
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        lastFullInvalidation = invalidationSequence.incrementAndGet();
+        lastResourceInvalidations.clear();
+        lastShadowInvalidations.clear();
+        cache.clear();
+        keysByResource.clear();
+        keysByShadow.clear();
+    }
+
+    private void invalidateResource(@NotNull String resourceOid, @Nullable ShadowKindType kind) {
+        lastResourceInvalidations.put(resourceOid, invalidationSequence.incrementAndGet());
+        for (AssociationSearchQueryKey key : getIndexedKeys(keysByResource, resourceOid)) {
+            CachedResult cached = cache.get(key);
+            if (cached != null
+                    && AssociationSearchQueryResult.matches(
+                            cached.result.getResourceOid(), cached.result.getKind(), resourceOid, kind)) {
+                removeEntry(key, cached);
+            }
+        }
+    }
+
+    private void invalidateShadow(@NotNull String shadowOid) {
+        long sequence = invalidationSequence.incrementAndGet();
+        if (lastShadowInvalidations.size() >= MAX_SHADOW_INVALIDATIONS) {
+            // The searches running now will not store their results; the entries are kept.
+            lastFullInvalidation = sequence;
+            lastShadowInvalidations.clear();
+        } else {
+            lastShadowInvalidations.put(shadowOid, sequence);
+        }
+        for (AssociationSearchQueryKey key : getIndexedKeys(keysByShadow, shadowOid)) {
+            CachedResult cached = cache.get(key);
+            if (cached != null) {
+                removeEntry(key, cached);
+            }
+        }
+    }
+
+    private static @NotNull List<AssociationSearchQueryKey> getIndexedKeys(
+            Map<String, Set<AssociationSearchQueryKey>> index, String oid) {
+        Set<AssociationSearchQueryKey> keys = index.get(oid);
+        return keys != null ? List.copyOf(keys) : List.of();
+    }
+
+    @Override
+    public @NotNull Collection<SingleCacheStateInformationType> getStateInformation() {
+        return Collections.singleton(new SingleCacheStateInformationType()
+                .name(GlobalAssociationSearchExpressionEvaluatorCache.class.getName())
+                .size(cache.size()));
+    }
+
+    @Override
+    public void dumpContent() {
+        if (LOGGER_CONTENT.isInfoEnabled()) {
+            cache.forEach((k, v) -> LOGGER_CONTENT.info("Cached association search: {}: {}", k, v));
+        }
+    }
+
+    /** Effective configuration: `timeToLive` is in milliseconds. */
+    record Settings(@Nullable Integer maxSize, long timeToLive) {
+    }
+
+    private record CachedResult(@NotNull AssociationSearchQueryResult result, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -15,13 +15,18 @@ import com.evolveum.midpoint.prism.PrismValue;
 
 public class QueryResult<V extends PrismValue> {
 
-    private final Collection<? extends ObjectFound<?, V>> resultingList;
+    private final List<V> resultingList;
 
     public QueryResult(Collection<? extends ObjectFound<?, V>> resultingList) {
+        this(ObjectFound.unwrap(resultingList));
+    }
+
+    /** For results that are not created from the search, e.g. those copied from a shared cache tier. */
+    protected QueryResult(List<V> resultingList) {
         this.resultingList = resultingList;
     }
 
     public List<V> getResultingList() {
-        return ObjectFound.unwrap(resultingList);
+        return resultingList;
     }
 }
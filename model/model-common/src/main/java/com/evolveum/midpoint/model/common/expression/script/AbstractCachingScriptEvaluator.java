@@ -51,6 +51,12 @@ public abstract class AbstractCachingScriptEvaluator<I, C> extends AbstractScrip
         return evaluateScript(compiledScript, context);
     }
 
+    @Override
+    public void precompile(@NotNull String codeString, @NotNull ScriptExpressionEvaluationContext context)
+            throws ExpressionEvaluationException, SecurityViolationException {
+        getCompiledScript(codeString, context);
+    }
+
     private C getCompiledScript(String codeString, ScriptExpressionEvaluationContext context)
             throws ExpressionEvaluationException, SecurityViolationException {
         C cachedCompiledScript = scriptCache.getCode(context.getExpressionProfile(), codeString);
@@ -26,6 +26,19 @@ public interface ScriptEvaluator {
             throws ExpressionEvaluationException, ObjectNotFoundException, ExpressionSyntaxException, CommunicationException,
             ConfigurationException, SecurityViolationException;
 
+    /**
+     * Compiles given script (if the evaluator supports compilation) and stores the compiled form for later evaluations.
+     * Only {@link ScriptExpressionEvaluationContext#getExpressionProfile()},
+     * {@link ScriptExpressionEvaluationContext#getScriptExpressionProfile()} and
+     * {@link ScriptExpressionEvaluationContext#getContextDescription()} need to be set up.
+     *
+     * Used to warm up the evaluators, so that the first evaluations are not slowed down by the compilation.
+     */
+    default void precompile(@NotNull String codeString, @NotNull ScriptExpressionEvaluationContext context)
+            throws ExpressionEvaluationException, SecurityViolationException {
+        // nothing to compile by default
+    }
+
     /**
      * Returns human readable name of the language that this evaluator supports
      */
@@ -177,6 +177,23 @@ public class ScriptExpression {
         }
     }
 
+    /**
+     * Compiles the script (if supported by the evaluator), so that its first evaluation does not need to do that.
+     * No variables nor functions are needed for this.
+     */
+    public void precompile(String contextDescription) throws ExpressionEvaluationException, SecurityViolationException {
+        String codeString = scriptBean.getCode();
+        if (codeString == null) {
+            throw new ExpressionEvaluationException("No script code in " + contextDescription);
+        }
+        ScriptExpressionEvaluationContext context = new ScriptExpressionEvaluationContext();
+        context.setScriptBean(scriptBean);
+        context.setExpressionProfile(expressionProfile);
+        context.setScriptExpressionProfile(scriptExpressionProfile);
+        context.setContextDescription(contextDescription);
+        evaluator.precompile(codeString, context);
+    }
+
     private void traceExpressionSuccess(ScriptExpressionEvaluationContext context, Object returnValue) {
         if (!isTrace()) {
             return;
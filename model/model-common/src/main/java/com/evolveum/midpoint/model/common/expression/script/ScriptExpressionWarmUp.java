@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.common.expression.script;
+
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.xml.bind.JAXBElement;
+
+import org.apache.commons.configuration2.Configuration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.common.configuration.api.MidpointConfiguration;
+import com.evolveum.midpoint.model.common.expression.ExpressionProfileManager;
+import com.evolveum.midpoint.prism.JaxbVisitable;
+import com.evolveum.midpoint.prism.JaxbVisitor;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+import com.evolveum.midpoint.prism.Visitable;
+import com.evolveum.midpoint.prism.Visitor;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.expression.ExpressionProfile;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Compiles script expressions found in the configuration objects (object templates, resources, abstract roles,
+ * system configuration) in advance, so that their first evaluations - e.g. in the first minutes after the node start -
+ * are not slowed down by the compilation. The compiled scripts are stored in the {@link ScriptCache} of respective evaluators.
+ *
+ * Scripts are compiled in parallel, using the expression profiles determined for the objects that contain them.
+ * Compilation failures are reported as warnings, so that broken scripts are visible right after the start,
+ * not only when they are first evaluated.
+ *
+ * Expressions nested in other beans (e.g. conditions of mappings in evaluators) are considered as well; the ones embedded
+ * in not-yet-parsed search filters are not. Scripts that are missed are simply compiled on first use, as before.
+ *
+ * The warm-up of all the objects runs on startup. After that, imported objects are warmed up individually
+ * (see {@link #warmUpAfterImport(Class, String)}); imports arriving while such a run is in progress are processed
+ * by that run, so there is at most one of them at any time. Each run uses its own pool of threads that is shut down
+ * when the run finishes.
+ *
+ * Configured in `midpoint.scriptWarmUp` section of `config.xml`: `mode` is one of `disabled`, `background` (the default),
+ * and `wait` (the start of the node waits for the warm-up); `threads` is the number of compiling threads.
+ * The configuration is read once, when the component is created; invalid values are reported and replaced by the defaults.
+ */
+@Component
+public class ScriptExpressionWarmUp {
+
+    private static final Trace LOGGER = TraceManager.getTrace(ScriptExpressionWarmUp.class);
+
+    private static final String OP_WARM_UP = ScriptExpressionWarmUp.class.getName() + ".warmUp";
+    private static final String OP_PRECOMPILE = ScriptExpressionWarmUp.class.getName() + ".precompile";
+
+    private static final String CONFIG_MODE = "mode";
+    private static final String CONFIG_THREADS = "threads";
+
+    private static final List<Class<? extends ObjectType>> TYPES_TO_WARM_UP = List.of(
+            SystemConfigurationType.class, ObjectTemplateType.class, ResourceType.class, AbstractRoleType.class);
+
+    @Autowired private MidpointConfiguration midpointConfiguration;
+    @Autowired @Qualifier("cacheRepositoryService") private RepositoryService repositoryService;
+    @Autowired private ScriptExpressionFactory scriptExpressionFactory;
+    @Autowired private ExpressionProfileManager expressionProfileManager;
+
+    private final ThreadFactory threadFactory = new WarmUpThreadFactory();
+
+    /** Pools of the runs that are not finished yet; to be shut down when the node stops. */
+    private final Set<ExecutorService> runningExecutors = ConcurrentHashMap.newKeySet();
+
+    /** Validated configuration. */
+    private Settings settings;
+
+    /** Imports before the startup warm-up (i.e. the initial ones) need no warm-up of their own. */
+    private volatile boolean startupWarmUpStarted;
+
+    /** Objects imported but not warmed up yet. Guarded by itself. */
+    private final Set<ObjectKey> importedObjects = new LinkedHashSet<>();
+
+    /**
+     * Whether a run for imported objects is in progress. If so, it processes {@link #importedObjects} added meanwhile
+     * before it finishes. Guarded by {@link #importedObjects}.
+     */
+    private boolean importWarmUpRunning;
+
+    public enum Mode {
+        DISABLED, BACKGROUND, WAIT
+    }
+
+    @PostConstruct
+    public void initialize() {
+        settings = readSettings();
+    }
+
+    /**
+     * Starts the warm-up according to the configuration, either waiting for it to finish, or letting it run
+     * in the background.
+     */
+    public void warmUpOnStartup() {
+        startupWarmUpStarted = true;
+        if (settings.mode() == Mode.DISABLED) {
+            return;
+        }
+        Future<?> future = warmUp(settings.threads());
+        if (settings.mode() == Mode.WAIT) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Script warm-up failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Compiles the scripts of a newly imported object in the background, unless the warm-up is disabled.
+     * Scripts that are already compiled are taken from the cache.
+     */
+    public void warmUpAfterImport(@NotNull Class<? extends ObjectType> type, @NotNull String oid) {
+        if (!startupWarmUpStarted
+                || settings.mode() == Mode.DISABLED
+                || TYPES_TO_WARM_UP.stream().noneMatch(t -> t.isAssignableFrom(type))) {
+            return;
+        }
+        synchronized (importedObjects) {
+            importedObjects.add(new ObjectKey(type, oid));
+            if (importWarmUpRunning) {
+                return; // the running warm-up will take care of the object
+            }
+            importWarmUpRunning = true;
+        }
+        runInBackground(settings.threads(), this::warmUpImportedObjects);
+    }
+
+    private @NotNull WarmUpResult warmUpImportedObjects(ExecutorService executor) {
+        WarmUpResult total = new WarmUpResult(0, 0);
+        try {
+            while (true) {
+                List<ObjectKey> objects;
+                synchronized (importedObjects) {
+                    if (importedObjects.isEmpty()) {
+                        importWarmUpRunning = false;
+                        return total;
+                    }
+                    objects = new ArrayList<>(importedObjects);
+                    importedObjects.clear();
+                }
+                total = total.add(doWarmUp(executor, objects));
+            }
+        } catch (Throwable t) {
+            synchronized (importedObjects) {
+                importWarmUpRunning = false;
+            }
+            throw t;
+        }
+    }
+
+    private @NotNull Settings readSettings() {
+        Configuration config = midpointConfiguration.getConfiguration(MidpointConfiguration.SCRIPT_WARM_UP_CONFIGURATION);
+        Mode mode = Mode.BACKGROUND;
+        String modeString = config.getString(CONFIG_MODE, null);
+        if (modeString != null) {
+            try {
+                mode = Mode.valueOf(modeString.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOGGER.error("Invalid script warm-up mode '{}', using '{}'. Supported values are: {}",
+                        modeString, mode.name().toLowerCase(), Arrays.toString(Mode.values()).toLowerCase());
+            }
+        }
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        String threadsString = config.getString(CONFIG_THREADS, null);
+        if (threadsString != null) {
+            try {
+                int configuredThreads = Integer.parseInt(threadsString.trim());
+                if (configuredThreads < 1) {
+                    throw new NumberFormatException("must be positive");
+                }
+                threads = configuredThreads;
+            } catch (NumberFormatException e) {
+                LOGGER.error("Invalid number of script warm-up threads '{}' ({}), using {}", threadsString, e.getMessage(), threads);
+            }
+        }
+        LOGGER.debug("Script warm-up mode: {}, threads: {}", mode, threads);
+        return new Settings(mode, threads);
+    }
+
+    /**
+     * Compiles all the scripts in the background, using a pool of `threads` compiling threads created for this run.
+     * The run is coordinated by a separate thread, so no shared pool is blocked while waiting for the compilations.
+     */
+    public @NotNull Future<WarmUpResult> warmUp(int threads) {
+        return runInBackground(threads, executor -> doWarmUp(executor, null));
+    }
+
+    private @NotNull Future<WarmUpResult> runInBackground(int threads, Function<ExecutorService, WarmUpResult> body) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+        runningExecutors.add(executor);
+        FutureTask<WarmUpResult> run = new FutureTask<>(() -> {
+            try {
+                return body.apply(executor);
+            } finally {
+                executor.shutdown();
+                runningExecutors.remove(executor);
+            }
+        });
+        threadFactory.newThread(run).start();
+        return run;
+    }
+
+    /** Warms up given objects, or all objects of {@link #TYPES_TO_WARM_UP} if `objects` is `null`. */
+    private @NotNull WarmUpResult doWarmUp(ExecutorService executor, @Nullable Collection<ObjectKey> objects) {
+        long start = System.currentTimeMillis();
+        OperationResult result = new OperationResult(OP_WARM_UP);
+        Set<ScriptKey> seen = ConcurrentHashMap.newKeySet();
+        List<Future<Boolean>> compilations = new ArrayList<>();
+        if (objects == null) {
+            for (Class<? extends ObjectType> type : TYPES_TO_WARM_UP) {
+                try {
+                    repositoryService.searchObjectsIterative(
+                            type, null,
+                            (object, lResult) -> {
+                                submitCompilations(object, seen, compilations, executor, lResult);
+                                return true;
+                            },
+                            createReadOnlyCollection(), false, result);
+                } catch (Exception e) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't search for {} to warm up scripts", e, type.getSimpleName());
+                }
+            }
+        } else {
+            for (ObjectKey key : objects) {
+                try {
+                    var object = repositoryService.getObject(key.type(), key.oid(), createReadOnlyCollection(), result);
+                    submitCompilations(object, seen, compilations, executor, result);
+                } catch (ObjectNotFoundException e) {
+                    LOGGER.debug("Object {} to warm up scripts in was not found, ignoring it", key);
+                } catch (Exception e) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't get {} to warm up scripts", e, key);
+                }
+            }
+        }
+        int failed = 0;
+        for (Future<Boolean> compilation : compilations) {
+            try {
+                if (!compilation.get()) {
+                    failed++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | CancellationException e) {
+                failed++;
+            }
+        }
+        WarmUpResult warmUpResult = new WarmUpResult(compilations.size() - failed, failed);
+        LOGGER.info("Script warm-up {} finished in {} ms: {} script(s) compiled, {} failed",
+                objects == null ? "of all objects" : "of " + objects.size() + " imported object(s)",
+                System.currentTimeMillis() - start, warmUpResult.compiled(), warmUpResult.failed());
+        return warmUpResult;
+    }
+
+    private void submitCompilations(
+            PrismObject<? extends ObjectType> object, Set<ScriptKey> seen, List<Future<Boolean>> compilations,
+            ExecutorService executor, OperationResult result) {
+        ExpressionProfile profile;
+        Collection<ScriptExpressionEvaluatorType> scripts;
+        try {
+            profile = expressionProfileManager.determineExpressionProfile(object, result);
+            scripts = collectScripts(object);
+        } catch (Exception e) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't find scripts to warm up in {}", e, object);
+            return;
+        }
+        for (ScriptExpressionEvaluatorType script : scripts) {
+            if (script.getCode() != null
+                    && seen.add(new ScriptKey(script.getLanguage(), profile.getIdentifier(), script.getCode()))) {
+                compilations.add(
+                        executor.submit(() -> precompile(script, profile, "script in " + object)));
+            }
+        }
+    }
+
+    /** Returns all script evaluators in the object, including the ones nested in other expressions. */
+    @VisibleForTesting
+    static @NotNull Collection<ScriptExpressionEvaluatorType> collectScripts(@NotNull PrismObject<? extends ObjectType> object) {
+        ScriptCollector collector = new ScriptCollector();
+        object.accept(collector);
+        return collector.scripts;
+    }
+
+    /** Returns `false` if the compilation failed. */
+    private boolean precompile(ScriptExpressionEvaluatorType script, ExpressionProfile profile, String contextDescription) {
+        OperationResult result = new OperationResult(OP_PRECOMPILE);
+        try {
+            scriptExpressionFactory
+                    .createScriptExpression(script, null, profile, contextDescription, result)
+                    .precompile(contextDescription);
+            return true;
+        } catch (CommonException | RuntimeException e) {
+            LOGGER.warn("Couldn't precompile {}: {}", contextDescription, e.getMessage());
+            LOGGER.debug("Script compilation failure details", e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runningExecutors.forEach(ExecutorService::shutdownNow);
+        runningExecutors.clear();
+    }
+
+    private record Settings(@NotNull Mode mode, int threads) {
+    }
+
+    /** Numbers of the scripts compiled successfully and unsuccessfully (including the ones found in the cache). */
+    public record WarmUpResult(int compiled, int failed) {
+
+        WarmUpResult add(WarmUpResult other) {
+            return new WarmUpResult(compiled + other.compiled, failed + other.failed);
+        }
+    }
+
+    private record ObjectKey(@NotNull Class<? extends ObjectType> type, @NotNull String oid) {
+    }
+
+    private record ScriptKey(String language, String profileId, @NotNull String code) {
+    }
+
+    /** Walks through prism items as well as through JAXB beans in their values, like the one in {@code CryptoUtil}. */
+    private static class ScriptCollector implements Visitor, JaxbVisitor {
+
+        private final Set<ScriptExpressionEvaluatorType> scripts = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        @Override
+        public void visit(JaxbVisitable visitable) {
+            if (visitable instanceof ScriptExpressionEvaluatorType script) {
+                scripts.add(script);
+                return;
+            }
+            if (visitable instanceof ExpressionType expression) {
+                // Evaluators are wrapped in JAXB elements, so we unwrap them explicitly.
+                for (JAXBElement<?> evaluator : expression.getExpressionEvaluator()) {
+                    if (evaluator.getValue() instanceof JaxbVisitable evaluatorBean) {
+                        evaluatorBean.accept(this);
+                    }
+                }
+            }
+            JaxbVisitable.visitPrismStructure(visitable, this);
+        }
+
+        @Override
+        public void visit(Visitable visitable) {
+            if (visitable instanceof PrismPropertyValue<?> value
+                    && value.getRealValue() instanceof JaxbVisitable realValue) {
+                realValue.accept(this);
+            }
+        }
+    }
+
+    private static class WarmUpThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "script-warm-up-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
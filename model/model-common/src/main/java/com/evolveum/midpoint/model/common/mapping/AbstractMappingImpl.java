@@ -1452,7 +1452,17 @@ public abstract class AbstractMappingImpl<V extends PrismValue, D extends ItemDe
             mappingPreExpression.mappingPreExpression(context, result);
         }
 
-        outputTriple = expression.evaluate(context, result);
+        MappingOutputCache.Key cacheKey = createOutputCacheKey();
+        PrismValueDeltaSetTriple<V> cachedTriple =
+                cacheKey != null ? ModelCommonBeans.get().mappingOutputCache.get(task, cacheKey) : null;
+        if (cachedTriple != null) {
+            outputTriple = cachedTriple;
+        } else {
+            outputTriple = expression.evaluate(context, result);
+            if (cacheKey != null && outputTriple != null) {
+                ModelCommonBeans.get().mappingOutputCache.put(task, cacheKey, outputTriple);
+            }
+        }
 
         pushChangesRequested = determinePushChangesRequested();
         pushChanges = pushChangesRequested && sourcesChanged();
@@ -1486,6 +1496,37 @@ public abstract class AbstractMappingImpl<V extends PrismValue, D extends ItemDe
         }
     }
 
+    /**
+     * Returns the key for {@link MappingOutputCache}, or `null` if the output of this mapping evaluation
+     * cannot be memoized.
+     */
+    private MappingOutputCache.Key createOutputCacheKey() {
+        if (!isTrue(mappingBean.isDeterministic())
+                || mappingPreExpression != null
+                || variableProducer != null
+                || valueMetadataComputer != null) {
+            return null;
+        }
+        // The value policy supplier is present for all focus mappings; the policy is used only by "generate" evaluator,
+        // and these are excluded when the bean identity is determined.
+        MappingOutputCache.MappingIdentity beanIdentity =
+                ModelCommonBeans.get().mappingOutputCache.getMappingIdentity(mappingBean);
+        if (beanIdentity == null) {
+            return null;
+        }
+        List<Source<?, ?>> allSources = new ArrayList<>(sources);
+        if (defaultSource != null) {
+            allSources.add(defaultSource);
+        }
+        D outputDefinition = getOutputDefinition();
+        Object mappingIdentity = Arrays.asList(
+                beanIdentity,
+                outputDefinition != null ? outputDefinition.getItemName() : null,
+                outputDefinition != null ? outputDefinition.getTypeName() : null,
+                getExpressionProfile().getIdentifier());
+        return MappingOutputCache.createKey(mappingIdentity, allSources, conditionResultOld, conditionResultNew);
+    }
+
     private void setupValueMetadataComputer(OperationResult result) throws CommunicationException,
             ObjectNotFoundException, SchemaException, SecurityViolationException, ConfigurationException, ExpressionEvaluationException {
         valueMetadataComputer = createValueMetadataComputer(result);
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.common.mapping;
+
+import static com.evolveum.midpoint.util.caching.CacheConfiguration.StatisticsLevel.PER_CACHE;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.MapMaker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.xml.bind.JAXBElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.prism.Item;
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+import com.evolveum.midpoint.prism.PrismValue;
+import com.evolveum.midpoint.prism.delta.PrismValueDeltaSetTriple;
+import com.evolveum.midpoint.repo.api.Cache;
+import com.evolveum.midpoint.repo.api.CacheInvalidationEventSpecification;
+import com.evolveum.midpoint.repo.api.CacheRegistry;
+import com.evolveum.midpoint.repo.common.expression.Source;
+import com.evolveum.midpoint.task.api.RunningTask;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.util.caching.CachePerformanceCollector;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractMappingType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ExpressionType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.GenerateExpressionEvaluatorType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SingleCacheStateInformationType;
+
+/**
+ * Remembers output triples of mappings marked as `deterministic`, so that mappings with repeating inputs
+ * (e.g. department to org lookups, country to locale conversions) do not need to be evaluated for each object
+ * processed by a task.
+ *
+ * The cache is per (root) task, as only running tasks are expected to process many objects. The key consists
+ * of the mapping identity, output definition, expression profile, condition results, and source values.
+ * Other variables are not part of the key: this is what `deterministic` means. Only mappings with property-valued
+ * sources, no value metadata computation, no `generate` evaluator, and no custom pre-expression processing are memoized.
+ *
+ * The mapping identity is assigned to each mapping bean instance once, see {@link #getMappingIdentity(AbstractMappingType)},
+ * so that the expression is not hashed and compared on each evaluation. Only immutable beans (e.g. from cached object
+ * templates or resources) get one, as a mutable bean could be changed while its identity stays the same.
+ *
+ * The entries are bounded in number (per task) as well as in time ({@link #TIME_TO_LIVE}), because the mappings may
+ * look up the repository data. Triples are stored and provided cloned, as the callers modify them.
+ */
+@Component
+public class MappingOutputCache implements Cache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(MappingOutputCache.class);
+    private static final Trace LOGGER_CONTENT = TraceManager.getTrace(MappingOutputCache.class.getName() + ".content");
+
+    /** Maximum number of entries for a single task; new entries are not stored when reached (and no expired ones exist). */
+    private static final int MAX_ENTRIES_PER_TASK = 10000;
+
+    /** Maximum number of tasks having their entries; the least recently used one is discarded when exceeded. */
+    private static final int MAX_TASKS = 20;
+
+    /** How long is an entry valid (in milliseconds). */
+    private static final long TIME_TO_LIVE = 300_000L;
+
+    @Autowired private CacheRegistry cacheRegistry;
+
+    /** Indexed by root task OID. */
+    private final Map<String, TaskEntries> taskEntriesMap = new ConcurrentHashMap<>();
+
+    /** Identities of mapping beans. The (weak) keys are compared by their identity. */
+    private final Map<AbstractMappingType, MappingIdentity> mappingIdentities = new MapMaker().weakKeys().makeMap();
+
+    private final AtomicLong mappingIdentityCounter = new AtomicLong();
+
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCache(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCache(this);
+    }
+
+    /** Returns a clone of the cached output triple, or `null` if there's none. */
+    <V extends PrismValue> @Nullable PrismValueDeltaSetTriple<V> get(@NotNull Task task, @NotNull Key key) {
+        TaskEntries taskEntries = getTaskEntries(task, false);
+        CachedOutput cached = taskEntries != null ? taskEntries.entries.get(key) : null;
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            LOGGER.trace("HIT for {}", key);
+            CachePerformanceCollector.INSTANCE.registerHit(MappingOutputCache.class, AbstractMappingType.class, PER_CACHE);
+            //noinspection unchecked
+            return (PrismValueDeltaSetTriple<V>) cached.triple.clone();
+        } else {
+            LOGGER.trace("MISS for {}", key);
+            CachePerformanceCollector.INSTANCE.registerMiss(MappingOutputCache.class, AbstractMappingType.class, PER_CACHE);
+            return null;
+        }
+    }
+
+    void put(@NotNull Task task, @NotNull Key key, @NotNull PrismValueDeltaSetTriple<?> triple) {
+        TaskEntries taskEntries = getTaskEntries(task, true);
+        if (taskEntries == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (taskEntries.entries.size() >= MAX_ENTRIES_PER_TASK) {
+            taskEntries.entries.values().removeIf(cached -> cached.isExpired(now));
+            if (taskEntries.entries.size() >= MAX_ENTRIES_PER_TASK) {
+                LOGGER.trace("Cache is full for task {}, not storing {}", task, key);
+                return;
+            }
+        }
+        taskEntries.entries.put(key, new CachedOutput(triple.clone(), now + TIME_TO_LIVE));
+    }
+
+    private @Nullable TaskEntries getTaskEntries(@NotNull Task task, boolean create) {
+        if (!(task instanceof RunningTask runningTask)) {
+            return null; // Only running tasks are supported, see the class javadoc.
+        }
+        String rootTaskOid = runningTask.getRootTaskOid();
+        TaskEntries taskEntries;
+        if (create) {
+            taskEntries = taskEntriesMap.computeIfAbsent(rootTaskOid, oid -> new TaskEntries());
+            if (taskEntriesMap.size() > MAX_TASKS) {
+                removeLeastRecentlyUsedTask();
+            }
+        } else {
+            taskEntries = taskEntriesMap.get(rootTaskOid);
+        }
+        if (taskEntries != null) {
+            taskEntries.lastUsed = System.currentTimeMillis();
+        }
+        return taskEntries;
+    }
+
+    private void removeLeastRecentlyUsedTask() {
+        taskEntriesMap.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                .ifPresent(e -> taskEntriesMap.remove(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Returns the identity of the mapping bean, or `null` if the bean is not eligible for memoization:
+     * either it is mutable, or it generates values (which is not deterministic).
+     */
+    @Nullable MappingIdentity getMappingIdentity(@NotNull AbstractMappingType mappingBean) {
+        if (!mappingBean.asPrismContainerValue().isImmutable()) {
+            return null;
+        }
+        MappingIdentity identity = mappingIdentities.computeIfAbsent(
+                mappingBean,
+                bean -> hasGenerateEvaluator(bean.getExpression()) ?
+                        MappingIdentity.NONE : new MappingIdentity(mappingIdentityCounter.incrementAndGet()));
+        return identity != MappingIdentity.NONE ? identity : null;
+    }
+
+    private static boolean hasGenerateEvaluator(@Nullable ExpressionType expression) {
+        if (expression == null) {
+            return false;
+        }
+        for (JAXBElement<?> evaluator : expression.getExpressionEvaluator()) {
+            if (evaluator.getValue() instanceof GenerateExpressionEvaluatorType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the key for given mapping evaluation, or returns `null` if the evaluation cannot be memoized
+     * because of non-property sources.
+     */
+    static @Nullable Key createKey(
+            @NotNull Object mappingIdentity, @NotNull Collection<Source<?, ?>> sources,
+            boolean conditionResultOld, boolean conditionResultNew) {
+        List<Object> sourceValues = new ArrayList<>();
+        for (Source<?, ?> source : sources) {
+            List<Object> oldValues = getRealValues(source.getItemOld());
+            List<Object> newValues = getRealValues(source.getItemNew());
+            if (oldValues == null || newValues == null) {
+                return null;
+            }
+            sourceValues.add(source.getName());
+            sourceValues.add(oldValues);
+            sourceValues.add(newValues);
+        }
+        return new Key(mappingIdentity, sourceValues, conditionResultOld, conditionResultNew);
+    }
+
+    /** Returns `null` if there are non-property values. */
+    private static @Nullable List<Object> getRealValues(@Nullable Item<?, ?> item) {
+        if (item == null) {
+            return List.of();
+        }
+        List<Object> realValues = new ArrayList<>();
+        for (PrismValue value : item.getValues()) {
+            if (!(value instanceof PrismPropertyValue<?> propertyValue)) {
+                return null;
+            }
+            realValues.add(propertyValue.getRealValue());
+        }
+        return realValues;
+    }
+
+    @Override
+    public @NotNull Collection<CacheInvalidationEventSpecification> getEventSpecifications() {
+        return List.of(); // only explicit invalidation of all the caches is supported, see the class javadoc
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (type == null) {
+            taskEntriesMap.clear();
+        }
+    }
+
+    @Override
+    public @NotNull Collection<SingleCacheStateInformationType> getStateInformation() {
+        SingleCacheStateInformationType info = new SingleCacheStateInformationType()
+                .name(MappingOutputCache.class.getName())
+                .size(taskEntriesMap.size());
+        int entries = 0;
+        for (TaskEntries taskEntries : taskEntriesMap.values()) {
+            entries += taskEntries.entries.size();
+        }
+        info.setSecondarySize(entries);
+        return Collections.singleton(info);
+    }
+
+    @Override
+    public void dumpContent() {
+        if (LOGGER_CONTENT.isInfoEnabled()) {
+            // The values (both sources and outputs) are not logged, as they may be sensitive.
+            taskEntriesMap.forEach((taskOid, taskEntries) -> {
+                LOGGER_CONTENT.info("Cached mapping outputs [{}]: {} entries", taskOid, taskEntries.entries.size());
+                taskEntries.entries.forEach((key, cached) ->
+                        LOGGER_CONTENT.info("Cached mapping output [{}]: {}: plus {}, zero {}, minus {} value(s)",
+                                taskOid, key, cached.triple.getPlusSet().size(), cached.triple.getZeroSet().size(),
+                                cached.triple.getMinusSet().size()));
+            });
+        }
+    }
+
+    /** Identity of a mapping bean instance. */
+    record MappingIdentity(long id) {
+
+        /** Marks beans that are not eligible for memoization. */
+        private static final MappingIdentity NONE = new MappingIdentity(0);
+    }
+
+    /**
+     * The mapping identity should contain everything (besides sources and condition results) that determines
+     * the mapping output. The source values are not shown by {@link #toString()}, as they may be sensitive.
+     */
+    record Key(
+            @NotNull Object mappingIdentity,
+            @NotNull List<Object> sourceValues,
+            boolean conditionResultOld,
+            boolean conditionResultNew) {
+
+        @Override
+        public String toString() {
+            return "Key[" + mappingIdentity + ", " + sourceValues.size() / 3 + " source(s), condition: "
+                    + conditionResultOld + "/" + conditionResultNew + "]";
+        }
+    }
+
+    private record CachedOutput(@NotNull PrismValueDeltaSetTriple<?> triple, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private static class TaskEntries {
+        private final Map<Key, CachedOutput> entries = new ConcurrentHashMap<>();
+        private volatile long lastUsed;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.model.common.expression.evaluator.caching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.model.common.AbstractModelCommonTest;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Tests {@link GlobalAssociationSearchExpressionEvaluatorCache} alone, i.e. without the search expression evaluator
+ * and the cache configuration.
+ */
+public class TestGlobalAssociationSearchExpressionEvaluatorCache extends AbstractModelCommonTest {
+
+    private static final String RESOURCE_1_OID = "4ba6c3c1-5f3c-4a5e-8d5a-000000000001";
+    private static final String RESOURCE_2_OID = "4ba6c3c1-5f3c-4a5e-8d5a-000000000002";
+    private static final String SHADOW_1_OID = "4ba6c3c1-5f3c-4a5e-8d5a-100000000001";
+    private static final String SHADOW_2_OID = "4ba6c3c1-5f3c-4a5e-8d5a-100000000002";
+
+    @BeforeClass
+    public void setup() throws Exception {
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @Test
+    public void test100Hit() {
+        given("a cached result");
+        var cache = createCache();
+        put(cache, key("groups"), result(RESOURCE_1_OID, ShadowKindType.ENTITLEMENT, SHADOW_1_OID));
+
+        then("it is found for the same key");
+        assertThat(cache.get(key("groups"))).as("cached result").isNotNull();
+
+        and("not for another key");
+        assertThat(cache.get(key("roles"))).as("cached result for other key").isNull();
+    }
+
+    @Test
+    public void test110Invalidation() {
+        given("results for two kinds on the first resource, and one for the second resource");
+        var cache = createCache();
+        put(cache, key("groups"), result(RESOURCE_1_OID, ShadowKindType.ENTITLEMENT, SHADOW_1_OID));
+        put(cache, key("accounts"), result(RESOURCE_1_OID, ShadowKindType.ACCOUNT, SHADOW_2_OID));
+        put(cache, key("other"), result(RESOURCE_2_OID, ShadowKindType.ENTITLEMENT));
+
+        when("an entitlement on the first resource is changed");
+        cache.invalidate(
+                new ResourceType().oid(RESOURCE_1_OID).asPrismObject(),
+                new ShadowType().kind(ShadowKindType.ENTITLEMENT).asPrismObject());
+
+        then("only the entitlement result for the first resource is invalidated");
+        assertThat(cache.get(key("groups"))).as("groups").isNull();
+        assertThat(cache.get(key("accounts"))).as("accounts").isNotNull();
+        assertThat(cache.get(key("other"))).as("other").isNotNull();
+
+        when("a shadow found by the search is changed in the repository");
+        cache.invalidate(ShadowType.class, SHADOW_2_OID, null);
+
+        then("the result containing it is invalidated");
+        assertThat(cache.get(key("accounts"))).as("accounts").isNull();
+        assertThat(cache.get(key("other"))).as("other").isNotNull();
+
+        when("the second resource is changed in the repository");
+        cache.invalidate(ResourceType.class, RESOURCE_2_OID, null);
+
+        then("its result is invalidated");
+        assertThat(cache.get(key("other"))).as("other").isNull();
+        assertThat(cache.getStateInformation().iterator().next().getSize()).as("cache size").isZero();
+    }
+
+    /** Results invalidated during their search are not stored, while the others are. */
+    @Test
+    public void test120InvalidationDuringSearch() {
+        given("searches that start");
+        var cache = createCache();
+        long searchStart = cache.getInvalidationSequence();
+
+        when("the second resource and the first shadow are changed during the searches");
+        cache.invalidate(ResourceType.class, RESOURCE_2_OID, null);
+        cache.invalidate(ShadowType.class, SHADOW_1_OID, null);
+
+        and("the results are stored");
+        cache.put(key("unaffected"), result(RESOURCE_1_OID, ShadowKindType.ENTITLEMENT, SHADOW_2_OID), searchStart);
+        cache.put(key("shadow-changed"), result(RESOURCE_1_OID, ShadowKindType.ENTITLEMENT, SHADOW_1_OID), searchStart);
+        cache.put(key("resource-changed"), result(RESOURCE_2_OID, ShadowKindType.ENTITLEMENT), searchStart);
+
+        then("only the result not affected by the invalidations is cached");
+        assertThat(cache.get(key("unaffected"))).as("unaffected").isNotNull();
+        assertThat(cache.get(key("shadow-changed"))).as("shadow-changed").isNull();
+        assertThat(cache.get(key("resource-changed"))).as("resource-changed").isNull();
+
+        when("the whole cache is invalidated during another search");
+        long nextSearchStart = cache.getInvalidationSequence();
+        cache.invalidate(null, null, null);
+        cache.put(key("after-full"), result(RESOURCE_1_OID, ShadowKindType.ENTITLEMENT), nextSearchStart);
+
+        then("its result is not cached");
+        assertThat(cache.get(key("after-full"))).as("after-full").isNull();
+        assertThat(cache.get(key("unaffected"))).as("unaffected").isNull();
+    }
+
+    private @NotNull GlobalAssociationSearchExpressionEvaluatorCache createCache() {
+        return new GlobalAssociationSearchExpressionEvaluatorCache() {
+            @Override
+            Settings getSettings() {
+                return new Settings(100, 60000);
+            }
+        };
+    }
+
+    private void put(
+            GlobalAssociationSearchExpressionEvaluatorCache cache,
+            AssociationSearchQueryKey key,
+            AssociationSearchQueryResult result) {
+        cache.put(key, result, cache.getInvalidationSequence());
+    }
+
+    private @NotNull AssociationSearchQueryKey key(String intent) {
+        var query = PrismContext.get().queryFor(ShadowType.class)
+                .item(ShadowType.F_INTENT).eq(intent)
+                .build();
+        return new AssociationSearchQueryKey(ShadowType.class, List.of(query), ObjectSearchStrategyType.IN_REPOSITORY, null);
+    }
+
+    private @NotNull AssociationSearchQueryResult result(String resourceOid, ShadowKindType kind, String... shadowOids) {
+        return new AssociationSearchQueryResult(List.of(), resourceOid, kind, Set.of(shadowOids));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.model.common.expression.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.model.common.AbstractModelCommonTest;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ScriptExpressionEvaluatorType;
+
+/**
+ * Tests finding the scripts to be compiled by {@link ScriptExpressionWarmUp}.
+ */
+public class TestScriptExpressionWarmUp extends AbstractModelCommonTest {
+
+    private static final File TEST_DIR = new File("src/test/resources/expression/warm-up");
+
+    private static final File OBJECT_TEMPLATE_NESTED_SCRIPTS_FILE = new File(TEST_DIR, "object-template-nested-scripts.xml");
+
+    @BeforeClass
+    public void setup() throws Exception {
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    /** Scripts nested in evaluators and in mapping targets must be found, not only the top-level ones. */
+    @Test
+    public void test100CollectNestedScripts() throws Exception {
+        given("an object template with top-level and nested scripts");
+        PrismObject<ObjectTemplateType> template = PrismTestUtil.parseObject(OBJECT_TEMPLATE_NESTED_SCRIPTS_FILE);
+
+        when("scripts are collected");
+        Collection<ScriptExpressionEvaluatorType> scripts = ScriptExpressionWarmUp.collectScripts(template);
+
+        then("all scripts are found, each once");
+        assertThat(scripts)
+                .extracting(ScriptExpressionEvaluatorType::getCode)
+                .containsExactlyInAnyOrder("'top-level'", "'in populate item'", "'in set condition'");
+    }
+}
@@ -6,6 +6,11 @@
  */
 package com.evolveum.midpoint.model.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import jakarta.annotation.PostConstruct;
 import jakarta.ws.rs.core.Response;
 
@@ -19,8 +24,14 @@ import org.springframework.stereotype.Component;
 
 import com.evolveum.midpoint.CacheInvalidationContext;
 import com.evolveum.midpoint.authentication.api.config.NodeAuthenticationToken;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.delta.ItemDelta;
+import com.evolveum.midpoint.prism.path.ItemName;
 import com.evolveum.midpoint.repo.api.CacheDispatcher;
 import com.evolveum.midpoint.repo.api.CacheListener;
+import com.evolveum.midpoint.repo.api.ModifyObjectResult;
+import com.evolveum.midpoint.repo.api.RemoteCacheInvalidationDetails;
+import com.evolveum.midpoint.repo.cache.invalidation.RepositoryCacheInvalidationDetails;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.task.api.ClusterExecutionHelper;
@@ -59,8 +70,10 @@ public class ClusterCacheListener implements CacheListener {
 
         // Regular cache invalidation can be skipped for nodes not checking in. Cache entries will expire on such nodes
         // eventually. (We can revisit this design decision if needed.)
+        Map<String, List<String>> queryParameters = oid != null ? getModificationParameters(context) : Map.of();
         clusterExecutionHelper.execute((client, node, result1) -> {
             client.path(getInvalidationRestPath(type, oid));
+            queryParameters.forEach((name, values) -> client.query(name, values.toArray()));
             var response = client.post(null);
             var statusInfo = response.getStatusInfo();
             if (statusInfo.getFamily() != Response.Status.Family.SUCCESSFUL) {
@@ -90,6 +103,40 @@ public class ClusterCacheListener implements CacheListener {
         return sb.toString();
     }
 
+    /**
+     * Describes the modification (if this invalidation is caused by one), so that the caches on other nodes can decide
+     * whether they are affected. See {@link RemoteCacheInvalidationDetails}.
+     */
+    private @NotNull Map<String, List<String>> getModificationParameters(CacheInvalidationContext context) {
+        if (context == null
+                || !(context.getDetails() instanceof RepositoryCacheInvalidationDetails details)
+                || !(details.getResult() instanceof ModifyObjectResult<?> modifyResult)
+                || modifyResult.isOverwrite()) {
+            return Map.of();
+        }
+        List<String> modifiedItems = new ArrayList<>();
+        for (ItemDelta<?, ?> modification : modifyResult.getModifications()) {
+            ItemName firstName = modification.getPath().firstToNameOrNull();
+            if (firstName == null) {
+                return Map.of();
+            }
+            if (!modifiedItems.contains(firstName.getLocalPart())) {
+                modifiedItems.add(firstName.getLocalPart());
+            }
+        }
+        Map<String, List<String>> parameters = new HashMap<>();
+        parameters.put(ClusterServiceConsts.PARAM_MODIFIED_ITEM, modifiedItems);
+        addVersion(parameters, ClusterServiceConsts.PARAM_VERSION_BEFORE, modifyResult.getObjectBefore());
+        addVersion(parameters, ClusterServiceConsts.PARAM_VERSION_AFTER, modifyResult.getObjectAfter());
+        return parameters;
+    }
+
+    private void addVersion(Map<String, List<String>> parameters, String name, PrismObject<?> object) {
+        if (object != null && object.getVersion() != null) {
+            parameters.put(name, List.of(object.getVersion()));
+        }
+    }
+
     private <O extends ObjectType> boolean canExecute(Class<O> type, String oid, boolean clusterwide, CacheInvalidationContext context) {
         if (!clusterwide) {
             LOGGER.trace("Ignoring invalidate() call for type {} (oid={}) because clusterwide=false", type, oid);
@@ -40,6 +40,7 @@ import com.evolveum.midpoint.model.impl.correlation.CorrelationCaseManager;
 import com.evolveum.midpoint.model.impl.correlation.CorrelationServiceImpl;
 import com.evolveum.midpoint.model.impl.correlator.CorrelatorFactoryRegistryImpl;
 import com.evolveum.midpoint.model.impl.lens.*;
+import com.evolveum.midpoint.model.impl.lens.assignments.RoleClosureCache;
 import com.evolveum.midpoint.model.impl.lens.identities.IdentitiesManager;
 import com.evolveum.midpoint.model.impl.lens.indexing.IndexingManager;
 import com.evolveum.midpoint.model.impl.lens.projector.Projector;
@@ -148,6 +149,7 @@ public class ModelBeans {
     @Autowired public SynchronizationActionFactory synchronizationActionFactory;
     @Autowired public ProjectionContextKeyFactory projectionContextKeyFactory;
     @Autowired public ArchetypeManager archetypeManager;
+    @Autowired public RoleClosureCache roleClosureCache;
     @Autowired public ExpressionProfileManager expressionProfileManager;
     @Autowired public AuditHelper auditHelper;
     @Autowired public ModelController modelController;
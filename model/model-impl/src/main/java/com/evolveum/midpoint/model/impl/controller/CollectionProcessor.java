@@ -663,6 +663,10 @@ public class CollectionProcessor {
         if (newDisableCounting != null && (existingView.isDisableCounting() == null || replaceIfExist)) {
             existingView.setDisableCounting(newDisableCounting);
         }
+        Integer newCountLimit = objectListViewType.getCountLimit();
+        if (newCountLimit != null && (existingView.getCountLimit() == null || replaceIfExist)) {
+            existingView.setCountLimit(newCountLimit);
+        }
     }
 
     private void compileDisplayOrder(CompiledObjectCollectionView existingView, GuiObjectListViewType objectListViewType, boolean replaceIfExist) {
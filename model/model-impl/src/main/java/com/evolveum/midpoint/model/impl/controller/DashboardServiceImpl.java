@@ -9,6 +9,7 @@ package com.evolveum.midpoint.model.impl.controller;
 import static com.evolveum.midpoint.model.api.util.DashboardUtils.*;
 
 import java.util.*;
+import javax.xml.datatype.Duration;
 
 import com.evolveum.midpoint.model.api.ModelAuditService;
 
@@ -40,6 +41,7 @@ import com.evolveum.midpoint.schema.expression.VariablesMap;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.util.MiscSchemaUtil;
 import com.evolveum.midpoint.schema.util.ObjectQueryUtil;
+import com.evolveum.midpoint.security.api.SecurityUtil;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.task.api.TaskManager;
 import com.evolveum.midpoint.util.QNameUtil;
@@ -70,10 +72,30 @@ public class DashboardServiceImpl implements DashboardService {
     @Autowired private ExpressionFactory expressionFactory;
     @Autowired private ModelObjectResolver objectResolver;
     @Autowired private SchemaService schemaService;
+    @Autowired private DashboardWidgetDataCache widgetDataCache;
 
     @Override
     public DashboardWidget createWidgetData(DashboardWidgetType widget, boolean useDisplaySource, Task task, OperationResult result)
             throws CommonException {
+        DashboardWidgetDataType widgetData = widget != null ? widget.getData() : null;
+        Duration cacheMaxAge = widgetData != null ? widgetData.getCacheMaxAge() : null;
+        if (cacheMaxAge == null) {
+            return computeWidgetData(widget, useDisplaySource, task, result);
+        }
+        DashboardWidgetDataCache.WidgetKey key = DashboardWidgetDataCache.createKey(
+                widget, useDisplaySource, SecurityUtil.getPrincipalIfExists());
+        if (key == null) {
+            LOGGER.trace("Widget {} cannot be cached (not in a stored dashboard, or no principal), computing it directly",
+                    widget.getIdentifier());
+            return computeWidgetData(widget, useDisplaySource, task, result);
+        }
+        return widgetDataCache.get(
+                key, cacheMaxAge.getTimeInMillis(new Date()),
+                () -> computeWidgetData(widget, useDisplaySource, task, result));
+    }
+
+    private @NotNull DashboardWidget computeWidgetData(
+            DashboardWidgetType widget, boolean useDisplaySource, Task task, OperationResult result) throws CommonException {
         DashboardWidget data = createEmptyWidgetData(widget);
         getNumberMessage(widget, data, useDisplaySource, task, result);
         LOGGER.debug("Widget Data: {}", data);
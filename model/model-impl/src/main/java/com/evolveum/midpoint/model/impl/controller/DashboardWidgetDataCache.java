@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.controller;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.model.api.interaction.DashboardWidget;
+import com.evolveum.midpoint.prism.Objectable;
+import com.evolveum.midpoint.repo.api.Cache;
+import com.evolveum.midpoint.repo.api.CacheRegistry;
+import com.evolveum.midpoint.schema.util.ObjectTypeUtil;
+import com.evolveum.midpoint.security.api.Authorization;
+import com.evolveum.midpoint.security.api.MidPointPrincipal;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.DashboardType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.DashboardWidgetType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.DisplayType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SingleCacheStateInformationType;
+
+/**
+ * Node-wide cache of computed dashboard widget data, for widgets that have `cacheMaxAge` set.
+ *
+ * The values are kept per dashboard OID, widget identifier, and the effective authorizations of the user the data are
+ * computed for. By default, the user itself is a part of the key as well, because the data can depend on the user
+ * not only through the authorizations, but also e.g. through authorizations relative to the user (`self`, `owner`,
+ * `orgRelation`) or through collection filters referring to the user. Widgets with `cacheShared` set do not depend
+ * on the user in this way; their data are shared by all users with the same authorizations.
+ * Keying on the authorizations also means that the values computed before the user's authorizations changed
+ * are not used afterwards.
+ *
+ * For each such key at most one computation runs at a time. Concurrent requests (e.g. from multiple browser tabs,
+ * or page reloads) either wait for the computation, or - if there is an older value - get that older value immediately.
+ * After the value expires, only the first request pays for the recomputation.
+ *
+ * As the data can depend on practically anything (that is the purpose of dashboards), they are not invalidated
+ * on object changes; only on explicit invalidation of everything, or of the dashboard (e.g. when its widgets change).
+ * The staleness is controlled by `cacheMaxAge` and is visible to the users, see {@link DashboardWidget#getComputedAt()}.
+ */
+@Component
+public class DashboardWidgetDataCache implements Cache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(DashboardWidgetDataCache.class);
+    private static final Trace LOGGER_CONTENT = TraceManager.getTrace(DashboardWidgetDataCache.class.getName() + ".content");
+
+    /** Expired entries are removed when this size is reached; if there are no expired ones, new entries are not stored. */
+    private static final int MAX_SIZE = 10000;
+
+    @Autowired private CacheRegistry cacheRegistry;
+
+    private final Map<WidgetKey, CachedWidget> cache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCache(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCache(this);
+    }
+
+    /**
+     * Creates the cache key for given widget, or returns `null` if the widget cannot be cached: if it is not a part
+     * of a stored dashboard, if it cannot be identified within it, or if there is no user to compute the data for.
+     */
+    static @Nullable WidgetKey createKey(
+            @NotNull DashboardWidgetType widget, boolean useDisplaySource, @Nullable MidPointPrincipal principal) {
+        Objectable parent = ObjectTypeUtil.getParentObject(widget);
+        String dashboardOid = parent instanceof DashboardType ? parent.getOid() : null;
+        String widgetIdentifier = widget.getIdentifier() != null ? widget.getIdentifier()
+                : widget.getId() != null ? "#" + widget.getId() : null;
+        if (dashboardOid == null || widgetIdentifier == null || principal == null) {
+            return null;
+        }
+        boolean shared = widget.getData() != null && Boolean.TRUE.equals(widget.getData().isCacheShared());
+        return new WidgetKey(
+                dashboardOid, widgetIdentifier, useDisplaySource,
+                shared ? null : principal.getOid(),
+                Set.copyOf(principal.getAuthorities()));
+    }
+
+    /**
+     * Returns the data for given widget, either from the cache (if not older than `maxAge`), or computed
+     * by the `computation`. The returned object is a private copy of the caller.
+     */
+    @NotNull DashboardWidget get(
+            @NotNull WidgetKey key, long maxAge, @NotNull WidgetComputation computation) throws CommonException {
+        CachedWidget entry = cache.get(key);
+        if (entry == null) {
+            if (!hasRoom()) {
+                LOGGER.trace("Cache is full ({} entries), computing {} without caching", cache.size(), key);
+                return computeUncached(computation);
+            }
+            entry = cache.computeIfAbsent(key, k -> new CachedWidget());
+        }
+
+        CompletableFuture<DashboardWidget> future;
+        boolean computeHere;
+        synchronized (entry) {
+            if (entry.value != null && !entry.isOlderThan(maxAge, System.currentTimeMillis())) {
+                LOGGER.trace("Returning cached value for {}", key);
+                return copy(entry.value);
+            }
+            if (entry.running != null) {
+                if (entry.value != null) {
+                    LOGGER.trace("Returning stale value for {}, as it is being recomputed by another thread", key);
+                    return copy(entry.value);
+                }
+                future = entry.running;
+                computeHere = false;
+            } else {
+                future = entry.running = new CompletableFuture<>();
+                computeHere = true;
+            }
+        }
+
+        if (computeHere) {
+            return computeAndStore(key, entry, future, computation);
+        } else {
+            return waitFor(key, future, computation);
+        }
+    }
+
+    private @NotNull DashboardWidget computeAndStore(
+            WidgetKey key, CachedWidget entry, CompletableFuture<DashboardWidget> future, WidgetComputation computation)
+            throws CommonException {
+        DashboardWidget computed;
+        try {
+            LOGGER.trace("Computing value for {}", key);
+            computed = computation.compute();
+            computed.setComputedAt(System.currentTimeMillis());
+        } catch (CommonException | RuntimeException e) {
+            synchronized (entry) {
+                entry.running = null;
+            }
+            // The waiting threads will compute the value themselves; they can have different results (e.g. authorizations).
+            future.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (entry) {
+            entry.value = computed;
+            entry.running = null;
+        }
+        future.complete(computed);
+        return copy(computed);
+    }
+
+    private @NotNull DashboardWidget waitFor(
+            WidgetKey key, CompletableFuture<DashboardWidget> future, WidgetComputation computation)
+            throws CommonException {
+        LOGGER.trace("Waiting for the computation of {} by another thread", key);
+        try {
+            return copy(future.get());
+        } catch (ExecutionException e) {
+            LOGGER.debug("Computation of {} by another thread failed, computing it here: {}", key, e.getMessage());
+            return computeUncached(computation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.debug("Interrupted while waiting for the computation of {}, computing it here", key);
+            return computeUncached(computation);
+        }
+    }
+
+    private @NotNull DashboardWidget computeUncached(WidgetComputation computation) throws CommonException {
+        DashboardWidget computed = computation.compute();
+        computed.setComputedAt(System.currentTimeMillis());
+        return computed;
+    }
+
+    private boolean hasRoom() {
+        if (cache.size() < MAX_SIZE) {
+            return true;
+        }
+        // We do not know the max age of the entries here, so we remove the ones that are not being computed right now.
+        // The widgets being actively displayed will be re-added soon.
+        cache.values().removeIf(CachedWidget::isIdle);
+        return cache.size() < MAX_SIZE;
+    }
+
+    /** The cached value must not be touched by the clients, as it is shared. */
+    private static @NotNull DashboardWidget copy(@NotNull DashboardWidget cached) {
+        DashboardWidgetType widget = cached.getWidget();
+        DisplayType display = cached.getDisplay();
+        DashboardWidget copy = new DashboardWidget(
+                widget != null ? widget.clone() : null,
+                display != null ? display.clone() : null,
+                cached.getNumberMessage());
+        copy.setComputedAt(cached.getComputedAt());
+        return copy;
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (type == null || oid == null && DashboardType.class.isAssignableFrom(type)) {
+            cache.clear();
+        } else if (DashboardType.class.isAssignableFrom(type)) {
+            // The widget definitions might have changed.
+            cache.keySet().removeIf(key -> oid.equals(key.dashboardOid()));
+        }
+    }
+
+    @Override
+    public @NotNull Collection<SingleCacheStateInformationType> getStateInformation() {
+        return Collections.singleton(new SingleCacheStateInformationType()
+                .name(DashboardWidgetDataCache.class.getName())
+                .size(cache.size()));
+    }
+
+    @Override
+    public void dumpContent() {
+        if (LOGGER_CONTENT.isInfoEnabled()) {
+            cache.forEach((k, v) -> LOGGER_CONTENT.info("Cached dashboard widget: {}: {}", k, v));
+        }
+    }
+
+    /** Computes the widget data. */
+    @FunctionalInterface
+    interface WidgetComputation {
+        @NotNull DashboardWidget compute() throws CommonException;
+    }
+
+    /**
+     * The authorizations are compared by value, so users with equal authorizations share the value (if `userOid` is `null`).
+     *
+     * @param userOid `null` if the value is shared among users with the same authorizations
+     */
+    record WidgetKey(
+            @NotNull String dashboardOid, @NotNull String widgetIdentifier, boolean useDisplaySource,
+            @Nullable String userOid, @NotNull Set<Authorization> authorizations) {
+
+        @Override
+        public String toString() {
+            return "widget '" + widgetIdentifier + "' in " + dashboardOid + (useDisplaySource ? " (display source)" : "")
+                    + (userOid != null ? " for user " + userOid : " (shared)")
+                    + " with " + authorizations.size() + " authorization(s)";
+        }
+    }
+
+    private static class CachedWidget {
+
+        /** The last computed value. Guarded by `this`. */
+        private DashboardWidget value;
+
+        /** The computation that is running right now (if any). Guarded by `this`. */
+        private CompletableFuture<DashboardWidget> running;
+
+        synchronized boolean isIdle() {
+            return running == null;
+        }
+
+        boolean isOlderThan(long maxAge, long now) {
+            Long computedAt = value.getComputedAt();
+            return computedAt == null || now - computedAt >= maxAge;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return value + (running != null ? " (being recomputed)" : "");
+        }
+    }
+}
@@ -9,6 +9,7 @@ package com.evolveum.midpoint.model.impl.correlation;
 
 import static com.evolveum.midpoint.prism.PrismObject.asObjectable;
 import static com.evolveum.midpoint.prism.Referencable.getOid;
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
 import static com.evolveum.midpoint.util.MiscUtil.stateCheck;
 
 import java.util.Collection;
@@ -356,9 +357,10 @@ public class CorrelationServiceImpl implements CorrelationService {
             throws SchemaException, ExpressionEvaluationException, CommunicationException, SecurityViolationException,
             ConfigurationException, ObjectNotFoundException {
         String resourceOid = ShadowUtil.getResourceOidRequired(shadow);
+        // The resource is used for the policy, pre-mappings and the correlation itself; nothing here modifies it.
         ResourceType resource =
                 beans.provisioningService
-                        .getObject(ResourceType.class, resourceOid, null, task, result)
+                        .getObject(ResourceType.class, resourceOid, createReadOnlyCollection(), task, result)
                         .asObjectable();
 
         ShadowKindType kind = shadow.getKind();
@@ -35,6 +35,7 @@ import com.evolveum.midpoint.common.validator.EventResult;
 import com.evolveum.midpoint.common.validator.LegacyValidator;
 import com.evolveum.midpoint.model.api.ModelExecuteOptions;
 import com.evolveum.midpoint.model.api.ModelService;
+import com.evolveum.midpoint.model.common.expression.script.ScriptExpressionWarmUp;
 import com.evolveum.midpoint.model.impl.migrator.Migrator;
 import com.evolveum.midpoint.model.impl.util.ModelImplUtils;
 import com.evolveum.midpoint.prism.*;
@@ -82,6 +83,7 @@ public class ObjectImporter {
     @Autowired private ModelService modelService;
     @Autowired private Clock clock;
     @Autowired private Migrator migrator;
+    @Autowired private ScriptExpressionWarmUp scriptExpressionWarmUp;
 
     // this method is responsible for computing the operation result!
     public void importObjects(InputStream input, String language, ImportOptionsType options, Task task, OperationResult parentResult) {
@@ -430,6 +432,8 @@ public class ObjectImporter {
             if (object.canRepresent(ResourceType.COMPLEX_TYPE) && isTrue(importOptions.isFetchResourceSchema())) {
                 modelService.testResource(oidOfAddedObject, task, result);
             }
+            // The object may contain new scripts; this is a no-op for the initial import
+            scriptExpressionWarmUp.warmUpAfterImport(object.getCompileTimeClass(), oidOfAddedObject);
         }
     }
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.lens;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.model.common.expression.evaluator.caching.GlobalAssociationSearchExpressionEvaluatorCache;
+import com.evolveum.midpoint.provisioning.api.*;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
+
+/**
+ * Invalidates {@link GlobalAssociationSearchExpressionEvaluatorCache} on resource object changes and resource operations.
+ *
+ * Unlike {@link AssociationSearchExpressionCacheInvalidator} that is registered only while a thread-local cache exists,
+ * this one is registered for the whole lifetime of the node, as the global cache outlives the clockwork runs.
+ */
+@Component
+class GlobalAssociationSearchExpressionCacheInvalidator implements ResourceOperationListener, ResourceObjectChangeListener {
+
+    @Autowired private EventDispatcher eventDispatcher;
+    @Autowired private GlobalAssociationSearchExpressionEvaluatorCache cache;
+
+    @PostConstruct
+    public void register() {
+        eventDispatcher.registerListener((ResourceObjectChangeListener) this);
+        eventDispatcher.registerListener((ResourceOperationListener) this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        eventDispatcher.unregisterListener((ResourceObjectChangeListener) this);
+        eventDispatcher.unregisterListener((ResourceOperationListener) this);
+    }
+
+    @Override
+    public void notifyChange(@NotNull ResourceObjectShadowChangeDescription change, Task task, OperationResult parentResult) {
+        cache.invalidate(change.getResource(), change.getShadowedResourceObject());
+    }
+
+    @Override
+    public void notifySuccess(@NotNull ResourceOperationDescription operationDescription, Task task, OperationResult parentResult) {
+        notifyAny(operationDescription);
+    }
+
+    // as in the thread-local invalidator, we process also failures and in-progress events
+
+    @Override
+    public void notifyFailure(@NotNull ResourceOperationDescription operationDescription, Task task, OperationResult parentResult) {
+        notifyAny(operationDescription);
+    }
+
+    @Override
+    public void notifyInProgress(@NotNull ResourceOperationDescription operationDescription, Task task, OperationResult parentResult) {
+        notifyAny(operationDescription);
+    }
+
+    private void notifyAny(ResourceOperationDescription operationDescription) {
+        cache.invalidate(operationDescription.getResource(), operationDescription.getCurrentShadow());
+    }
+
+    @Override
+    public String getName() {
+        return "GlobalAssociationSearchExpressionEvaluatorCache invalidator";
+    }
+}
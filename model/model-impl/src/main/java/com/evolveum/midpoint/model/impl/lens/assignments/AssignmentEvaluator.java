@@ -96,7 +96,7 @@ public class AssignmentEvaluator<AH extends AssignmentHolderType> {
         now = builder.now;
         loginMode = builder.loginMode;
         systemConfiguration = builder.systemConfiguration;
-        evaluatedAssignmentTargetCache = new EvaluatedAssignmentTargetCache();
+        evaluatedAssignmentTargetCache = new EvaluatedAssignmentTargetCache(ModelBeans.get().roleClosureCache);
         memberOfEngine = new MemberOfEngine();
 
         LensFocusContext<AH> focusContext = lensContext.getFocusContext();
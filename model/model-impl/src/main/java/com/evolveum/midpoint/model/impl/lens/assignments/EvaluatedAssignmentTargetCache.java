@@ -17,6 +17,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractRoleType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.IdempotenceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.xml.namespace.QName;
@@ -39,7 +40,11 @@ class EvaluatedAssignmentTargetCache implements DebugDumpable {
     // This is indexed by OID, relation and order
     private final DeltaTriple<Map<OrderKey, AssignmentTargetEvaluationInformation>> processedOrderKeys;
 
-    EvaluatedAssignmentTargetCache() {
+    /** Used to determine the idempotence of roles with {@link IdempotenceType#AUTOMATIC} setting. */
+    @NotNull private final RoleClosureCache roleClosureCache;
+
+    EvaluatedAssignmentTargetCache(@NotNull RoleClosureCache roleClosureCache) {
+        this.roleClosureCache = roleClosureCache;
         processedOrderKeys = new DeltaTriple<>(HashMap::new);
         processedKeys = new DeltaTriple<>(HashMap::new);
     }
@@ -85,8 +90,22 @@ class EvaluatedAssignmentTargetCache implements DebugDumpable {
     }
 
     private boolean isCacheable(AbstractRoleType target) {
-        IdempotenceType idempotence = target.getIdempotence();
-        return idempotence != null && idempotence != IdempotenceType.NONE;
+        return getIdempotence(target) != IdempotenceType.NONE;
+    }
+
+    /**
+     * Roles with {@link IdempotenceType#AUTOMATIC} idempotence are considered to be conservatively idempotent
+     * if their closures are static (see {@link RoleClosureCache}), and not idempotent otherwise.
+     */
+    @NotNull IdempotenceType getIdempotence(AbstractRoleType target) {
+        IdempotenceType configured = target.getIdempotence();
+        if (configured == null) {
+            return IdempotenceType.NONE;
+        } else if (configured == IdempotenceType.AUTOMATIC) {
+            return roleClosureCache.isStatic(target) ? IdempotenceType.CONSERVATIVE : IdempotenceType.NONE;
+        } else {
+            return configured;
+        }
     }
 
     boolean canSkip(AssignmentPathSegmentImpl segment, PlusMinusZero mode) {
@@ -94,8 +113,8 @@ class EvaluatedAssignmentTargetCache implements DebugDumpable {
         if (!(target instanceof AbstractRoleType)) {
             return false;
         }
-        IdempotenceType idempotence = ((AbstractRoleType)target).getIdempotence();
-        if (idempotence == null || idempotence == IdempotenceType.NONE) {
+        IdempotenceType idempotence = getIdempotence((AbstractRoleType) target);
+        if (idempotence == IdempotenceType.NONE) {
             return false;
         }
         if (idempotence == IdempotenceType.CONSERVATIVE && !segment.isMatchingOrder) {
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.lens.assignments;
+
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.xml.bind.JAXBElement;
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+import com.evolveum.midpoint.repo.api.Cache;
+import com.evolveum.midpoint.repo.api.CacheRegistry;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.constants.ExpressionConstants;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+import com.evolveum.prism.xml.ns._public.types_3.ItemPathType;
+
+/**
+ * Node-wide cache of the static analysis of role closures. A closure of an abstract role is the role itself plus everything
+ * it induces or has assigned (i.e. meta-roles), transitively.
+ *
+ * A closure is _static_ if its evaluation does not depend on the assignment path through which the role was reached,
+ * nor on the focus or the time:
+ *
+ * . there are no conditions on the roles, nor on their assignments and inducements,
+ * . the roles, assignments, and inducements have no activation and no lifecycle state other than `active`,
+ * . no inducements are limited by focus type, nor by order (other than the default order of 1) or order constraints,
+ * . no expressions refer to the assignment path variables, like `assignmentPath` or `immediateRole`,
+ * . all targets are abstract roles referenced by OID (no filters, no delegations to users),
+ * . there are no cycles.
+ *
+ * Roles that opt for {@link IdempotenceType#AUTOMATIC} idempotence are treated as conservatively idempotent if their
+ * closures are static, see {@link EvaluatedAssignmentTargetCache}.
+ *
+ * Only the result of the analysis is cached. The evaluated closures themselves (constructions, policy rules, membership
+ * references) are not shared among focuses, as their evaluation is bound to the focus-specific assignment evaluation.
+ *
+ * Entries are keyed by role OID and checked against the role version. As a closure depends on other roles as well,
+ * the whole cache is cleared when any abstract role changes anywhere in the cluster.
+ */
+@Component
+public class RoleClosureCache implements Cache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(RoleClosureCache.class);
+    private static final Trace LOGGER_CONTENT = TraceManager.getTrace(RoleClosureCache.class.getName() + ".content");
+
+    private static final String OP_GET_ABSTRACT_ROLE = RoleClosureCache.class.getName() + ".getAbstractRole";
+
+    /** Variables whose values depend on the assignment path through which a role is evaluated. */
+    private static final Pattern PATH_VARIABLES_PATTERN = Pattern.compile("\\b(" + String.join("|",
+            ExpressionConstants.VAR_ASSIGNMENT,
+            ExpressionConstants.VAR_ASSIGNMENT_PATH,
+            ExpressionConstants.VAR_IMMEDIATE_ASSIGNMENT,
+            ExpressionConstants.VAR_THIS_ASSIGNMENT,
+            ExpressionConstants.VAR_FOCUS_ASSIGNMENT,
+            ExpressionConstants.VAR_IMMEDIATE_ROLE,
+            ExpressionConstants.VAR_SOURCE,
+            ExpressionConstants.VAR_ASSIGNMENT_EVALUATOR,
+            ExpressionConstants.VAR_EVALUATED_ASSIGNMENT) + ")\\b");
+
+    @Autowired private CacheRegistry cacheRegistry;
+    @Autowired @Qualifier("cacheRepositoryService") private RepositoryService cacheRepositoryService;
+
+    /** Indexed by role OID. */
+    private final Map<String, CachedClosure> cache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCache(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCache(this);
+    }
+
+    /** Returns `true` if the closure of given role is static (see the class javadoc). */
+    boolean isStatic(@NotNull AbstractRoleType role) {
+        return isStatic(role, new HashSet<>());
+    }
+
+    private boolean isStatic(@NotNull AbstractRoleType role, @NotNull Set<String> visiting) {
+        String oid = role.getOid();
+        if (oid == null) {
+            return false;
+        }
+        CachedClosure cached = cache.get(oid);
+        if (cached != null && Objects.equals(cached.version, role.getVersion())) {
+            return cached.isStatic;
+        }
+        if (!visiting.add(oid)) {
+            LOGGER.trace("Cycle detected at {}, the closure is not static", role);
+            return false;
+        }
+        boolean computed = computeIsStatic(role, visiting);
+        visiting.remove(oid);
+        cache.put(oid, new CachedClosure(role.getVersion(), computed));
+        LOGGER.trace("Closure of {} is static: {}", role, computed);
+        return computed;
+    }
+
+    private boolean computeIsStatic(@NotNull AbstractRoleType role, @NotNull Set<String> visiting) {
+        String reason = getLocalNonStaticReason(role);
+        if (reason != null) {
+            LOGGER.trace("Closure of {} is not static: {}", role, reason);
+            return false;
+        }
+        List<ObjectReferenceType> targetRefs = new ArrayList<>();
+        for (AssignmentType assignment : role.getAssignment()) {
+            addIfNotNull(targetRefs, assignment.getTargetRef());
+        }
+        for (AssignmentType inducement : role.getInducement()) {
+            addIfNotNull(targetRefs, inducement.getTargetRef());
+        }
+        if (role instanceof ArchetypeType archetype) {
+            addIfNotNull(targetRefs, archetype.getSuperArchetypeRef());
+        }
+        for (ObjectReferenceType targetRef : targetRefs) {
+            if (targetRef.getOid() == null) {
+                return false;
+            }
+            AbstractRoleType target = getAbstractRole(targetRef.getOid());
+            if (target == null || !isStatic(target, visiting)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the reason why the role itself (not considering its targets) makes the closure non-static,
+     * or `null` if there is none.
+     */
+    static @Nullable String getLocalNonStaticReason(@NotNull AbstractRoleType role) {
+        if (role.getCondition() != null) {
+            return "role condition";
+        }
+        if (isTimeOrStateDependent(role.getActivation(), role.getLifecycleState())) {
+            return "role activation or lifecycle state";
+        }
+        for (AssignmentType assignment : role.getAssignment()) {
+            String reason = getNonStaticReason(assignment);
+            if (reason != null) {
+                return "assignment " + assignment.getId() + ": " + reason;
+            }
+        }
+        for (AssignmentType inducement : role.getInducement()) {
+            String reason = getNonStaticReason(inducement);
+            if (reason != null) {
+                return "inducement " + inducement.getId() + ": " + reason;
+            }
+        }
+        if (hasPathDependentExpression(role)) {
+            return "expression referring to the assignment path";
+        }
+        return null;
+    }
+
+    private static @Nullable String getNonStaticReason(@NotNull AssignmentType assignment) {
+        if (assignment.getCondition() != null) {
+            return "condition";
+        }
+        if (isTimeOrStateDependent(assignment.getActivation(), assignment.getLifecycleState())) {
+            return "activation or lifecycle state";
+        }
+        if (assignment.getFocusType() != null) {
+            return "focus type";
+        }
+        if ((assignment.getOrder() != null && assignment.getOrder() != 1) || !assignment.getOrderConstraint().isEmpty()) {
+            return "order or order constraint";
+        }
+        return null;
+    }
+
+    private static boolean isTimeOrStateDependent(ActivationType activation, String lifecycleState) {
+        return activation != null && !activation.asPrismContainerValue().isEmpty()
+                || lifecycleState != null && !SchemaConstants.LIFECYCLE_ACTIVE.equals(lifecycleState);
+    }
+
+    /** Looks for the path variables in scripts, in path expressions, and in mapping sources (conservatively, as strings). */
+    private static boolean hasPathDependentExpression(@NotNull AbstractRoleType role) {
+        MutableBoolean found = new MutableBoolean();
+        role.asPrismObject().accept(visitable -> {
+            if (visitable instanceof PrismPropertyValue<?> value) {
+                Object realValue = value.getRealValue();
+                if (realValue instanceof ExpressionType expression && isPathDependent(expression)
+                        || realValue instanceof ItemPathType path && isPathDependent(path.toString())) {
+                    found.setTrue();
+                }
+            }
+        });
+        return found.booleanValue();
+    }
+
+    private static boolean isPathDependent(@NotNull ExpressionType expression) {
+        for (ExpressionVariableDefinitionType variable : expression.getVariable()) {
+            if (variable.getPath() != null && isPathDependent(variable.getPath().toString())) {
+                return true;
+            }
+        }
+        for (JAXBElement<?> evaluator : expression.getExpressionEvaluator()) {
+            Object evaluatorValue = evaluator.getValue();
+            if (evaluatorValue instanceof ScriptExpressionEvaluatorType script && isPathDependent(script.getCode())
+                    || evaluatorValue instanceof ItemPathType path && isPathDependent(path.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPathDependent(String text) {
+        return text != null && PATH_VARIABLES_PATTERN.matcher(text).find();
+    }
+
+    private static void addIfNotNull(@NotNull List<ObjectReferenceType> targetRefs, ObjectReferenceType targetRef) {
+        if (targetRef != null) {
+            targetRefs.add(targetRef);
+        }
+    }
+
+    private AbstractRoleType getAbstractRole(@NotNull String oid) {
+        // Detached result: a missing target is not an error here, it just makes the closure non-static.
+        OperationResult result = new OperationResult(OP_GET_ABSTRACT_ROLE);
+        try {
+            ObjectType object = cacheRepositoryService
+                    .getObject(ObjectType.class, oid, createReadOnlyCollection(), result)
+                    .asObjectable();
+            return object instanceof AbstractRoleType abstractRole ? abstractRole : null;
+        } catch (ObjectNotFoundException | SchemaException e) {
+            LOGGER.debug("Couldn't get {}, considering the closure not static: {}", oid, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (type == null || AbstractRoleType.class.isAssignableFrom(type)) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public @NotNull Collection<SingleCacheStateInformationType> getStateInformation() {
+        return Collections.singleton(new SingleCacheStateInformationType()
+                .name(RoleClosureCache.class.getName())
+                .size(cache.size()));
+    }
+
+    @Override
+    public void dumpContent() {
+        if (LOGGER_CONTENT.isInfoEnabled()) {
+            cache.forEach((k, v) -> LOGGER_CONTENT.info("Cached role closure: {}: {}", k, v));
+        }
+    }
+
+    private record CachedClosure(String version, boolean isStatic) {
+    }
+}
@@ -227,7 +227,7 @@ public class AssignmentHolderProcessor implements ProjectorProcessor {
                 }
             }
 
-            iterationHelper.incrementIterationCounter();
+            iterationHelper.incrementIterationCounter(task, result);
             iterationHelper.restoreContext();
         }
 
@@ -7,11 +7,15 @@
 package com.evolveum.midpoint.model.impl.lens.projector.focus;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import com.evolveum.midpoint.model.impl.lens.LensContext;
 import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.PrismObject;
@@ -21,6 +25,8 @@ import com.evolveum.midpoint.prism.PrismValue;
 import com.evolveum.midpoint.prism.PrismValueCollectionsUtil;
 import com.evolveum.midpoint.prism.delta.ItemDelta;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.polystring.PolyStringNormalizer;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.schema.cache.CacheConfigurationManager;
@@ -204,6 +210,62 @@ public class FocusConstraintsChecker<AH extends AssignmentHolderType> {
         return match;
     }
 
+    /**
+     * Determines which of the candidate names are already used by objects other than the one with given OID.
+     * All candidates are checked by a single repository query. The names are compared in the same way as in
+     * {@link #check(PrismObject, OperationResult)}, i.e. using both orig and norm values.
+     *
+     * @return The conflicting candidates.
+     */
+    public @NotNull Set<String> findConflictingNames(@NotNull Class<AH> objectClass, @Nullable String oid,
+            @NotNull Collection<String> candidates, OperationResult parentResult) throws SchemaException {
+        OperationResult result = parentResult.subresult(FocusConstraintsChecker.class.getName() + ".findConflictingNames")
+                .setMinor()
+                .addArbitraryObjectCollectionAsParam("candidates", candidates)
+                .build();
+        try {
+            PolyStringNormalizer normalizer = prismContext.getDefaultPolyStringNormalizer();
+            List<PrismPropertyValue<PolyString>> values = candidates.stream()
+                    .map(candidate -> prismContext.itemFactory().createPropertyValue(
+                            new PolyString(candidate, normalizer.normalize(candidate))))
+                    .toList();
+            ObjectQuery query = prismContext.queryFor(objectClass)
+                        .item(ObjectType.F_NAME)
+                        .eq(values)
+                        .matchingOrig()
+                    .or()
+                        .item(ObjectType.F_NAME)
+                        .eq(values)
+                        .matchingNorm()
+                    .build();
+            List<PrismObject<AH>> foundObjects =
+                    repositoryService.searchObjects(objectClass, query, createReadOnlyCollection(), result);
+            Set<String> conflicting = new HashSet<>();
+            for (PrismObject<AH> foundObject : foundObjects) {
+                if (oid != null && oid.equals(foundObject.getOid())) {
+                    continue;
+                }
+                PolyStringType foundName = foundObject.asObjectable().getName();
+                for (PrismPropertyValue<PolyString> value : values) {
+                    PolyString candidate = value.getValue();
+                    if (foundName != null
+                            && (candidate.getOrig().equals(foundName.getOrig())
+                            || candidate.getNorm().equals(normalizer.normalize(foundName.getOrig())))) {
+                        conflicting.add(candidate.getOrig());
+                    }
+                }
+            }
+            LOGGER.trace("Probed {} candidate name(s) of {}, found {} conflicting: {}",
+                    candidates.size(), objectClass.getSimpleName(), conflicting.size(), conflicting);
+            return conflicting;
+        } catch (Throwable t) {
+            result.recordFatalError(t);
+            throw t;
+        } finally {
+            result.computeStatusIfUnknown();
+        }
+    }
+
     private void message(String message) {
         if (!messageBuilder.isEmpty()) {
             messageBuilder.append(", ");
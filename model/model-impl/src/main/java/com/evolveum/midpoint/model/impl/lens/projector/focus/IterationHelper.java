@@ -8,6 +8,11 @@
 package com.evolveum.midpoint.model.impl.lens.projector.focus;
 
 import static com.evolveum.midpoint.prism.polystring.PolyString.getOrig;
+import static com.evolveum.midpoint.util.MiscUtil.or0;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -98,6 +103,11 @@ class IterationHelper<AH extends AssignmentHolderType> {
      */
     private SingleLocalizableMessage humanReadableReason;
 
+    /**
+     * Name that was found to be conflicting in the current iteration. Used for probing the following iterations.
+     */
+    private String conflictingName;
+
     /**
      * Initial element state (before iteration).
      */
@@ -126,6 +136,7 @@ class IterationHelper<AH extends AssignmentHolderType> {
     void onIterationStart(Task task, OperationResult result) throws CommunicationException, ObjectNotFoundException,
             SchemaException, SecurityViolationException, ConfigurationException, ExpressionEvaluationException {
         reIterationReason = null;
+        conflictingName = null;
         initializeIterationSpecificationIfNeeded();
         variablesPreIteration = null;
         computeIterationTokenIfNeeded(task, result);
@@ -249,6 +260,7 @@ class IterationHelper<AH extends AssignmentHolderType> {
                     checker.getConflictingObject(), iteration, maxIterations);
             reIterationReason = checker.getMessages();
             humanReadableReason = checker.getLocalizableMessage();
+            conflictingName = getOrig(objectNew.asObjectable().getName());
             return false;
         }
     }
@@ -285,12 +297,74 @@ class IterationHelper<AH extends AssignmentHolderType> {
         }
     }
 
-    void incrementIterationCounter() throws ObjectAlreadyExistsException {
-        iteration++;
-        iterationToken = null;
+    void incrementIterationCounter(Task task, OperationResult result)
+            throws ObjectAlreadyExistsException, SchemaException, ObjectNotFoundException, ExpressionEvaluationException,
+            CommunicationException, ConfigurationException, SecurityViolationException {
+        if (!skipIterationsWithConflictingNames(task, result)) {
+            iteration++;
+            iterationToken = null;
+        }
         LensUtil.checkMaxIterations(iteration, maxIterations, reIterationReason, humanReadableReason);
     }
 
+    /**
+     * If uniqueness probing is configured and the current iteration failed because of a name conflict, checks the names
+     * expected in the following iterations using a single query, and moves directly to the first iteration with a free name.
+     * This avoids running the projector for each of the iterations whose name is known to be taken.
+     *
+     * The expected names are derived from the conflicting one, assuming it consists of a base value followed by
+     * the iteration token (like `jsmith1`, `jsmith2`, ...). If it does not end with the current token, nothing is skipped.
+     * The same applies to an empty token (usually in iteration 0), as any name ends with it, so it tells nothing
+     * about the base value. The name computed in the chosen iteration is checked in the usual way anyway.
+     *
+     * @return true if the iteration counter was moved
+     */
+    private boolean skipIterationsWithConflictingNames(Task task, OperationResult result)
+            throws SchemaException, ObjectNotFoundException, ExpressionEvaluationException, CommunicationException,
+            ConfigurationException, SecurityViolationException {
+        int probeSize = iterationSpecification != null ? or0(iterationSpecification.getUniquenessProbeSize()) : 0;
+        int lastIteration = Math.min(iteration + probeSize, maxIterations);
+        if (lastIteration <= iteration
+                || conflictingName == null
+                || iterationToken == null
+                || iterationToken.isEmpty()
+                || !conflictingName.endsWith(iterationToken)) {
+            return false;
+        }
+        String base = conflictingName.substring(0, conflictingName.length() - iterationToken.length());
+        createVariablesPreIterationIfNeeded();
+        Map<Integer, String> tokens = new LinkedHashMap<>();
+        for (int i = iteration + 1; i <= lastIteration; i++) {
+            tokens.put(i, LensUtil.formatIterationToken(
+                    focusContext,
+                    iterationSpecification,
+                    i,
+                    assignmentHolderProcessor.getExpressionFactory(),
+                    variablesPreIteration,
+                    task,
+                    result));
+        }
+        Set<String> conflictingNames = createChecker(context).findConflictingNames(
+                focusContext.getObjectTypeClass(),
+                focusContext.getOid(),
+                tokens.values().stream().map(token -> base + token).toList(),
+                result);
+        for (Map.Entry<Integer, String> entry : tokens.entrySet()) {
+            if (!conflictingNames.contains(base + entry.getValue())) {
+                LOGGER.debug("Skipping to iteration {}, token '{}' for {} because the names in preceding iterations are taken",
+                        entry.getKey(), entry.getValue(), focusContext.getHumanReadableName());
+                iteration = entry.getKey();
+                iterationToken = entry.getValue();
+                return true;
+            }
+        }
+        LOGGER.debug("Skipping iterations up to {} for {} because all their names are taken",
+                lastIteration, focusContext.getHumanReadableName());
+        iteration = lastIteration + 1;
+        iterationToken = null;
+        return true;
+    }
+
     boolean didResetOnRenameOccur() {
         if (iteration != 0 && RESET_ON_RENAME && !wasResetIterationCounter && willResetIterationCounter()) {
             // Make sure this happens only the very first time during the first recompute.
@@ -21,6 +21,7 @@ import com.evolveum.midpoint.model.api.BulkAction;
 import com.evolveum.midpoint.model.api.BulkActionExecutionOptions;
 import com.evolveum.midpoint.model.api.ModelService;
 import com.evolveum.midpoint.model.common.expression.ExpressionProfileManager;
+import com.evolveum.midpoint.model.impl.scripting.actions.SearchExecutor;
 import com.evolveum.midpoint.model.impl.scripting.expressions.FilterContentEvaluator;
 import com.evolveum.midpoint.model.impl.scripting.expressions.SelectEvaluator;
 import com.evolveum.midpoint.prism.Containerable;
@@ -160,12 +161,48 @@ public class BulkActionsExecutor {
             ExpressionPipelineType pipeline, PipelineData data, ExecutionContext context, OperationResult result)
             throws SchemaException, ConfigurationException, ObjectNotFoundException, CommunicationException,
             SecurityViolationException, ExpressionEvaluationException, PolicyViolationException, ObjectAlreadyExistsException {
-        for (JAXBElement<? extends ScriptingExpressionType> expressionType : pipeline.getScriptingExpression()) {
-            data = execute(expressionType, data, context, result);
+        List<JAXBElement<? extends ScriptingExpressionType>> expressions = pipeline.getScriptingExpression();
+        for (int i = 0; i < expressions.size(); i++) {
+            ScriptingExpressionType expression = expressions.get(i).getValue();
+            if (context.isStreaming()
+                    && i < expressions.size() - 1
+                    && expression instanceof SearchExpressionType search
+                    && search.getScriptingExpression() == null) {
+                // The rest of the pipeline is executed for each object found, so the objects are not collected.
+                ExpressionPipelineType downstream = new ExpressionPipelineType();
+                downstream.getScriptingExpression().addAll(expressions.subList(i + 1, expressions.size()));
+                return executeStreamingSearch(search, downstream, data, context, result);
+            }
+            data = execute(expression, data, context, result);
         }
         return data;
     }
 
+    /** Counterpart of {@link #execute(ScriptingExpressionType, PipelineData, ExecutionContext, OperationResult)} for searches. */
+    private PipelineData executeStreamingSearch(
+            SearchExpressionType search, ExpressionPipelineType downstream, PipelineData input, ExecutionContext context,
+            OperationResult parentResult)
+            throws SchemaException, ConfigurationException, ObjectNotFoundException, CommunicationException,
+            SecurityViolationException, ExpressionEvaluationException, PolicyViolationException, ObjectAlreadyExistsException {
+        context.checkTaskStop();
+        OperationResult globalResult = parentResult.createMinorSubresult(DOT_CLASS + "evaluate");
+        try {
+            LOGGER.debug("Executing action {} in streaming mode", getActionType(search));
+            var executor = (SearchExecutor) actionExecutorRegistry.getExecutor(search);
+            executor.checkExecutionAllowed(context, globalResult);
+            PipelineData output = executor.executeStreaming(search, downstream, input, context, globalResult);
+            globalResult.computeStatusIfUnknown();
+            globalResult.setSummarizeSuccesses(true);
+            globalResult.summarize();
+            return output;
+        } catch (Throwable t) {
+            globalResult.recordException(t);
+            throw t;
+        } finally {
+            globalResult.close();
+        }
+    }
+
     private PipelineData executeSequence(
             ExpressionSequenceType sequence, PipelineData input, ExecutionContext context, OperationResult result)
             throws SchemaException, ConfigurationException, ObjectNotFoundException, CommunicationException,
@@ -86,6 +86,11 @@ public class ExecutionContext {
         return options != null && Boolean.TRUE.equals(options.isHideOperationResults());
     }
 
+    /** Whether the objects found by searches should be pushed through the rest of the pipeline one by one. */
+    public boolean isStreaming() {
+        return options != null && Boolean.TRUE.equals(options.isStreaming());
+    }
+
     public PipelineData getGlobalVariable(String name) {
         return globalVariables.get(name);
     }
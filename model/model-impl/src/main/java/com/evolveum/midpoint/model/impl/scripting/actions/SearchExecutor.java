@@ -21,7 +21,6 @@ import com.evolveum.midpoint.xml.ns._public.model.scripting_3.SearchExpressionTy
 
 import jakarta.annotation.PostConstruct;
 import jakarta.xml.bind.JAXBElement;
-import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.jetbrains.annotations.NotNull;
@@ -80,7 +79,30 @@ public class SearchExecutor extends BaseActionExecutor {
             PolicyViolationException, CommunicationException, ConfigurationException, ExpressionEvaluationException {
 
         var searchBean = (SearchExpressionType) action;
-        return executeInternal(searchBean, input, context, globalResult);
+        JAXBElement<?> childExpression = searchBean.getScriptingExpression();
+        return executeInternal(
+                searchBean,
+                childExpression != null ? (ScriptingExpressionType) childExpression.getValue() : null,
+                isAggregateOutput(searchBean, context),
+                input, context, globalResult);
+    }
+
+    /**
+     * Executes the search, passing each object found to the `downstream` expression (typically, the rest of the pipeline
+     * the search is part of). The output of the downstream expression is not collected, so the objects do not need
+     * to be kept in memory. Used in the streaming mode, see {@link ExecutionContext#isStreaming()}.
+     */
+    public PipelineData executeStreaming(
+            @NotNull SearchExpressionType action, @NotNull ScriptingExpressionType downstream,
+            PipelineData input, ExecutionContext context, OperationResult globalResult)
+            throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException, SecurityViolationException,
+            PolicyViolationException, CommunicationException, ConfigurationException, ExpressionEvaluationException {
+        return executeInternal(action, downstream, false, input, context, globalResult);
+    }
+
+    private boolean isAggregateOutput(SearchExpressionType action, ExecutionContext context) {
+        Boolean aggregateOutput = action.isAggregateOutput();
+        return aggregateOutput != null ? aggregateOutput : !context.isStreaming();
     }
 
     @Override
@@ -90,7 +112,8 @@ public class SearchExecutor extends BaseActionExecutor {
     }
 
     private <T extends ObjectType> PipelineData executeInternal(
-            SearchExpressionType action, PipelineData input, ExecutionContext context, OperationResult globalResult)
+            SearchExpressionType action, ScriptingExpressionType childExpression, boolean aggregateOutput,
+            PipelineData input, ExecutionContext context, OperationResult globalResult)
             throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException, SecurityViolationException,
             PolicyViolationException, CommunicationException, ConfigurationException, ExpressionEvaluationException {
 
@@ -146,16 +169,15 @@ public class SearchExecutor extends BaseActionExecutor {
             ResultHandler<T> handler = (object, parentResult) -> {
                 context.checkTaskStop();
                 atLeastOne.setValue(true);
-                if (action.getScriptingExpression() != null) {
+                if (childExpression != null) {
                     if (variableName != null) {
                         // TODO
                     }
-                    JAXBElement<?> childExpression = action.getScriptingExpression();
                     try {
                         PipelineData searchResult = bulkActionsExecutor.execute(
-                                (ScriptingExpressionType) childExpression.getValue(),
+                                childExpression,
                                 PipelineData.create(object.getValue(), item.getVariables()), context, globalResult);
-                        if (!BooleanUtils.isFalse(action.isAggregateOutput())) {
+                        if (aggregateOutput) {
                             outputData.addAllFrom(searchResult);
                         }
                         globalResult.setSummarizeSuccesses(true);
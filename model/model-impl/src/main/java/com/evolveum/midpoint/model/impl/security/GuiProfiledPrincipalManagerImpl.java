@@ -51,6 +51,7 @@ import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.api.CacheDispatcher;
 import com.evolveum.midpoint.repo.api.CacheInvalidationEventSpecification;
 import com.evolveum.midpoint.repo.api.CacheListener;
+import com.evolveum.midpoint.repo.api.ModifyObjectResult;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.schema.SearchResultList;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
@@ -108,6 +109,8 @@ public class GuiProfiledPrincipalManagerImpl
 
     @Autowired
     private CacheDispatcher cacheDispatcher;
+    @Autowired
+    private PrincipalCache principalCache;
 
     // registry is not available e.g. during tests
     @Autowired(required = false)
@@ -203,8 +206,21 @@ public class GuiProfiledPrincipalManagerImpl
             LifecycleStateModelType lifecycleModel = getLifecycleModel(focus, systemConfiguration);
 
             focusComputer.recompute(focus, lifecycleModel);
+
+            PrincipalCache.Key cacheKey = principalCache.createKey(focus.asObjectable(), authorizationTransformer, options);
+            long cacheEpoch = principalCache.getInvalidationEpoch();
+            if (cacheKey != null) {
+                GuiProfiledPrincipal cached = principalCache.get(cacheKey, focus.asObjectable());
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
             GuiProfiledPrincipal principal = new GuiProfiledPrincipal(focus.asObjectable());
-            initializePrincipalFromAssignments(principal, systemConfiguration, authorizationTransformer, options);
+            boolean success = initializePrincipalFromAssignments(principal, systemConfiguration, authorizationTransformer, options);
+            if (cacheKey != null && success) {
+                principalCache.put(cacheKey, principal, cacheEpoch);
+            }
             return principal;
         } finally {
             securityContextManager.clearTemporaryPrincipalOid();
@@ -325,7 +341,8 @@ public class GuiProfiledPrincipalManagerImpl
         return list.get(0);
     }
 
-    private void initializePrincipalFromAssignments(
+    /** Returns `false` if there was an error, i.e. the principal may be incomplete. */
+    private boolean initializePrincipalFromAssignments(
             GuiProfiledPrincipal principal,
             PrismObject<SystemConfigurationType> systemConfiguration,
             AuthorizationTransformer authorizationTransformer,
@@ -334,18 +351,25 @@ public class GuiProfiledPrincipalManagerImpl
         OperationResult result = task.getResult();
         try {
             guiProfileCompiler.compileFocusProfile(principal, systemConfiguration, authorizationTransformer, options, task, result);
+            return true;
         } catch (Throwable e) {
             // Do not let any error stop processing here. This code is used during user login. An error here can stop login procedure. We do not
             // want that. E.g. wrong adminGuiConfig may prohibit login on administrator, therefore ruining any chance of fixing the situation.
             LOGGER.error("Error compiling user profile for {}: {}", principal, e.getMessage(), e);
             // Do NOT re-throw the exception here. Just go on.
+            return false;
         }
     }
 
     private void save(MidPointPrincipal person, Collection<? extends ItemDelta<?, ?>> itemDeltas,
             OperationResult result) throws ObjectNotFoundException, SchemaException, ObjectAlreadyExistsException {
         LOGGER.trace("Updating user {} with deltas:\n{}", person.getFocus(), DebugUtil.debugDumpLazily(itemDeltas));
-        repositoryService.modifyObject(FocusType.class, person.getFocus().getOid(), itemDeltas, result);
+        FocusType focus = person.getFocus();
+        ModifyObjectResult<FocusType> modifyResult =
+                repositoryService.modifyObject(FocusType.class, focus.getOid(), itemDeltas, result);
+        PrismObject<FocusType> focusAfter = modifyResult.getObjectAfter();
+        principalCache.focusBehaviorUpdated(
+                focus.getOid(), focus.getVersion(), itemDeltas, focusAfter != null ? focusAfter.getVersion() : null);
     }
 
     private FocusType getUserByOid(String oid, Class<? extends FocusType> clazz, OperationResult result) throws ObjectNotFoundException, SchemaException {
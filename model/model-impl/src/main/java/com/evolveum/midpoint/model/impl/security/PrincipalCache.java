@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.security;
+
+import static com.evolveum.midpoint.util.caching.CacheConfiguration.StatisticsLevel.PER_CACHE;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.authentication.api.AuthenticationChannel;
+import com.evolveum.midpoint.authentication.api.config.MidpointAuthentication;
+import com.evolveum.midpoint.authentication.api.util.AuthUtil;
+import com.evolveum.midpoint.model.api.authentication.GuiProfiledPrincipal;
+import com.evolveum.midpoint.prism.delta.ItemDelta;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.repo.api.Cache;
+import com.evolveum.midpoint.repo.api.CacheInvalidationEventSpecification;
+import com.evolveum.midpoint.repo.api.CacheRegistry;
+import com.evolveum.midpoint.repo.api.ModifyObjectResult;
+import com.evolveum.midpoint.repo.api.RemoteCacheInvalidationDetails;
+import com.evolveum.midpoint.repo.cache.invalidation.RepositoryCacheInvalidationDetails;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.security.api.AuthorizationTransformer;
+import com.evolveum.midpoint.security.api.ProfileCompilerOptions;
+import com.evolveum.midpoint.util.caching.CachePerformanceCollector;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Node-wide cache of principals (with their authorizations) for stateless REST authentication.
+ *
+ * Without it, each REST request re-evaluates all the assignments of the authenticated focus, which is by far
+ * the most expensive part of the request for accounts that make many small requests (e.g. service accounts).
+ *
+ * Entries are keyed by focus OID (and the relevant compilation options), and checked against the version
+ * of the focus that was just fetched from the repository. A version change caused only by the recording
+ * of authentication behavior (i.e. by the authentication itself) does not invalidate the entry, see
+ * {@link #focusBehaviorUpdated(String, String, Collection, String)}.
+ *
+ * The principal depends also on the roles (and other foci, in the case of delegations) the focus has, so the entries
+ * are invalidated when any of these changes anywhere in the cluster (except for the behavior updates mentioned above;
+ * for remote ones, see {@link RemoteCacheInvalidationDetails}). The roles can bring in authorizations also indirectly,
+ * e.g. via higher-order inducements of meta-roles that are not among the `roleMembershipRef` values; hence a change
+ * of any abstract role invalidates everything, as do changes of the system configuration or security policies.
+ * Changes that cannot be tracked this way (e.g. time-dependent conditions in roles) are covered by the limited
+ * time-to-live of the entries.
+ *
+ * An invalidation may come while a principal is being compiled, i.e. before it is put into the cache. Such a principal
+ * could be compiled from outdated roles, so it is not stored: the callers obtain the invalidation epoch before
+ * the compilation, and {@link #put(Key, GuiProfiledPrincipal, long)} stores the principal only if no invalidation
+ * (except for behavior updates) came since then.
+ *
+ * Only principals compiled without GUI configuration, without authorization transformation, and for the REST channel
+ * are cached. The cached principal is never returned directly, only its clones with the fresh focus object.
+ */
+@Component
+public class PrincipalCache implements Cache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(PrincipalCache.class);
+    private static final Trace LOGGER_CONTENT = TraceManager.getTrace(PrincipalCache.class.getName() + ".content");
+
+    /** Expired entries are removed when this size is reached; if there are no expired ones, new entries are not stored. */
+    private static final int MAX_SIZE = 10000;
+
+    /** How long is a cached principal valid (in milliseconds). */
+    private static final long TIME_TO_LIVE = 60_000L;
+
+    /** Paths of the focus that are updated by the authentication itself, and do not influence the principal. */
+    private static final Set<ItemPath> BEHAVIOR_PATHS = Set.of(FocusType.F_BEHAVIOR);
+
+    private static final Collection<CacheInvalidationEventSpecification> EVENT_SPECIFICATIONS = ImmutableSet.of(
+            CacheInvalidationEventSpecification.of(FocusType.class, CacheInvalidationEventSpecification.MODIFY_DELETE),
+            CacheInvalidationEventSpecification.of(SystemConfigurationType.class, CacheInvalidationEventSpecification.ALL_CHANGES),
+            CacheInvalidationEventSpecification.of(SecurityPolicyType.class, CacheInvalidationEventSpecification.ALL_CHANGES));
+
+    @Autowired private CacheRegistry cacheRegistry;
+
+    private final Map<Key, CachedPrincipal> cache = new ConcurrentHashMap<>();
+
+    /** Incremented by each invalidation, before the entries are removed. */
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCache(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCache(this);
+    }
+
+    /**
+     * Returns the key under which the principal for given focus can be cached, or `null` if it cannot be cached
+     * in the current situation.
+     */
+    @Nullable Key createKey(
+            @NotNull FocusType focus,
+            @Nullable AuthorizationTransformer authorizationTransformer,
+            @Nullable ProfileCompilerOptions options) {
+        if (focus.getOid() == null || focus.getVersion() == null
+                || authorizationTransformer != null
+                || options == null
+                || options.isCompileGuiAdminConfiguration()
+                || options.isRunAsRunner()) {
+            return null;
+        }
+        MidpointAuthentication authentication = AuthUtil.getMidpointAuthenticationNotRequired();
+        AuthenticationChannel channel = authentication != null ? authentication.getAuthenticationChannel() : null;
+        if (channel == null || !SchemaConstants.CHANNEL_REST_URI.equals(channel.getChannelId())) {
+            return null;
+        }
+        if (options.isTryReusingSecurityPolicy() && AuthUtil.getMidpointPrincipal() != null) {
+            // The security policy would be taken from the current principal, so it is not determined by the focus.
+            return null;
+        }
+        return new Key(focus.getOid(), options.isCollectAuthorization(), options.isLocateSecurityPolicy());
+    }
+
+    /**
+     * Returns a copy of the cached principal for given (fresh) focus, if there is a valid one.
+     * The focus should be already recomputed.
+     */
+    @Nullable GuiProfiledPrincipal get(@NotNull Key key, @NotNull FocusType focus) {
+        CachedPrincipal cached = cache.get(key);
+        GuiProfiledPrincipal principal;
+        if (cached == null) {
+            LOGGER.trace("MISS(not cached) for {}", key);
+            principal = null;
+        } else if (!cached.version.equals(focus.getVersion())) {
+            LOGGER.trace("MISS(wrong version) for {} (req={}, actual={})", key, focus.getVersion(), cached.version);
+            cache.remove(key, cached);
+            principal = null;
+        } else if (cached.isExpired(System.currentTimeMillis())) {
+            LOGGER.trace("MISS(expired) for {}", key);
+            cache.remove(key, cached);
+            principal = null;
+        } else {
+            LOGGER.trace("HIT for {} (v{})", key, cached.version);
+            principal = cached.principal.clone();
+            principal.setOrReplaceFocus(focus);
+        }
+
+        if (principal != null) {
+            CachePerformanceCollector.INSTANCE.registerHit(PrincipalCache.class, FocusType.class, PER_CACHE);
+        } else {
+            CachePerformanceCollector.INSTANCE.registerMiss(PrincipalCache.class, FocusType.class, PER_CACHE);
+        }
+        return principal;
+    }
+
+    /** To be obtained before the principal is compiled, and then passed to {@link #put(Key, GuiProfiledPrincipal, long)}. */
+    long getInvalidationEpoch() {
+        return invalidationEpoch.get();
+    }
+
+    /**
+     * Stores the freshly compiled principal, unless there was an invalidation since the `epoch` was obtained.
+     * The principal must not be modified by the caller afterwards.
+     */
+    void put(@NotNull Key key, @NotNull GuiProfiledPrincipal principal, long epoch) {
+        if (invalidationEpoch.get() != epoch) {
+            LOGGER.trace("Not caching {}, as the cache was invalidated during its compilation", key);
+            return;
+        }
+        if (!hasRoom()) {
+            LOGGER.trace("Cache is full ({} entries), not caching {}", cache.size(), key);
+            return;
+        }
+        FocusType focus = principal.getFocus();
+        CachedPrincipal cached = new CachedPrincipal(principal.clone(), focus.getVersion(), getDependencies(focus));
+        cache.put(key, cached);
+        if (invalidationEpoch.get() != epoch) {
+            // The invalidation may have missed the entry just stored.
+            LOGGER.trace("Removing {}, as the cache was invalidated while storing it", key);
+            cache.remove(key, cached);
+        }
+    }
+
+    private static @NotNull Set<String> getDependencies(@NotNull FocusType focus) {
+        Set<String> dependencies = new HashSet<>();
+        dependencies.add(focus.getOid());
+        addTargetOids(dependencies, focus.getRoleMembershipRef());
+        addTargetOids(dependencies, focus.getDelegatedRef());
+        addTargetOids(dependencies, focus.getArchetypeRef());
+        return dependencies;
+    }
+
+    private static void addTargetOids(@NotNull Set<String> oids, @NotNull Collection<ObjectReferenceType> refs) {
+        for (ObjectReferenceType ref : refs) {
+            if (ref.getOid() != null) {
+                oids.add(ref.getOid());
+            }
+        }
+    }
+
+    /**
+     * Called when the focus was modified by the authentication itself (e.g. recording the last successful login).
+     * If the modifications do not influence the principal, the cached principal is moved to the new version of the focus,
+     * so the next request of the same focus can use it.
+     */
+    void focusBehaviorUpdated(
+            @NotNull String oid, @Nullable String oldVersion,
+            @NotNull Collection<? extends ItemDelta<?, ?>> modifications, @Nullable String newVersion) {
+        focusVersionChanged(oid, oldVersion, isBehaviorOnly(modifications), newVersion);
+    }
+
+    private void focusVersionChanged(
+            @NotNull String oid, @Nullable String oldVersion, boolean onlyBehavior, @Nullable String newVersion) {
+        if (oldVersion == null || newVersion == null || oldVersion.equals(newVersion)) {
+            return;
+        }
+        cache.forEach((key, cached) -> {
+            if (key.oid.equals(oid)) {
+                if (onlyBehavior && cached.version.equals(oldVersion)) {
+                    LOGGER.trace("Moving {} from version {} to {}", key, oldVersion, newVersion);
+                    cache.replace(key, cached, cached.withVersion(newVersion));
+                } else {
+                    cache.remove(key, cached);
+                }
+            }
+        });
+    }
+
+    private static boolean isBehaviorOnly(@NotNull Collection<? extends ItemDelta<?, ?>> modifications) {
+        return modifications.stream().allMatch(
+                modification -> BEHAVIOR_PATHS.stream().anyMatch(path -> modification.getPath().startsWith(path)));
+    }
+
+    private boolean hasRoom() {
+        if (cache.size() < MAX_SIZE) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(cached -> cached.isExpired(now));
+        return cache.size() < MAX_SIZE;
+    }
+
+    @Override
+    public Collection<CacheInvalidationEventSpecification> getEventSpecifications() {
+        return EVENT_SPECIFICATIONS;
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (type == null
+                || oid == null
+                || SystemConfigurationType.class.isAssignableFrom(type)
+                || SecurityPolicyType.class.isAssignableFrom(type)) {
+            LOGGER.trace("Invalidating the whole cache because of {}:{}", type, oid);
+            invalidationEpoch.incrementAndGet();
+            cache.clear();
+        } else if (FocusType.class.isAssignableFrom(type)) {
+            if (isLocalBehaviorUpdate(context)) {
+                // The principal of this focus (if cached) is handled by focusBehaviorUpdated; other ones are not affected.
+                LOGGER.trace("Ignoring behavior update of {}:{}", type, oid);
+            } else if (context != null && context.getDetails() instanceof RemoteCacheInvalidationDetails details
+                    && isBehaviorOnly(details)) {
+                // Other principals are not affected. If the versions are not known, the entry is dropped on the next get.
+                LOGGER.trace("Processing remote behavior update of {}:{}", type, oid);
+                focusVersionChanged(oid, details.versionBefore(), true, details.versionAfter());
+            } else if (type.isAssignableFrom(AbstractRoleType.class) || AbstractRoleType.class.isAssignableFrom(type)) {
+                LOGGER.trace("Invalidating the whole cache because of a role change {}:{}", type, oid);
+                invalidationEpoch.incrementAndGet();
+                cache.clear();
+            } else {
+                LOGGER.trace("Invalidating principals depending on {}:{}", type, oid);
+                invalidationEpoch.incrementAndGet();
+                cache.values().removeIf(cached -> cached.dependencies.contains(oid));
+            }
+        }
+    }
+
+    private static boolean isLocalBehaviorUpdate(CacheInvalidationContext context) {
+        return context != null
+                && context.getDetails() instanceof RepositoryCacheInvalidationDetails details
+                && details.getResult() instanceof ModifyObjectResult<?> modifyResult
+                && !modifyResult.isOverwrite()
+                && isBehaviorOnly(modifyResult.getModifications());
+    }
+
+    private static boolean isBehaviorOnly(@NotNull RemoteCacheInvalidationDetails details) {
+        return !details.modifiedItems().isEmpty()
+                && BEHAVIOR_PATHS.stream()
+                        .map(path -> path.firstToName().getLocalPart())
+                        .collect(Collectors.toSet())
+                        .containsAll(details.modifiedItems());
+    }
+
+    @Override
+    public @NotNull Collection<SingleCacheStateInformationType> getStateInformation() {
+        return Collections.singleton(new SingleCacheStateInformationType()
+                .name(PrincipalCache.class.getName())
+                .size(cache.size()));
+    }
+
+    @Override
+    public void dumpContent() {
+        if (LOGGER_CONTENT.isInfoEnabled()) {
+            cache.forEach((k, v) -> LOGGER_CONTENT.info("Cached principal: {}: {}", k, v));
+        }
+    }
+
+    /** Options that are not part of the key must be checked in {@link #createKey(FocusType, AuthorizationTransformer, ProfileCompilerOptions)}. */
+    record Key(@NotNull String oid, boolean collectAuthorization, boolean locateSecurityPolicy) {
+    }
+
+    /** The principal is never returned to the clients; its focus is replaced in each copy. */
+    private record CachedPrincipal(
+            @NotNull GuiProfiledPrincipal principal,
+            @NotNull String version,
+            @NotNull Set<String> dependencies,
+            long createdAt) {
+
+        private CachedPrincipal(@NotNull GuiProfiledPrincipal principal, @NotNull String version, @NotNull Set<String> dependencies) {
+            this(principal, version, dependencies, System.currentTimeMillis());
+        }
+
+        private CachedPrincipal withVersion(@NotNull String newVersion) {
+            return new CachedPrincipal(principal, newVersion, dependencies, createdAt);
+        }
+
+        private boolean isExpired(long now) {
+            return now - createdAt >= TIME_TO_LIVE;
+        }
+
+        @Override
+        public String toString() {
+            return principal.getName() + " (v" + version + ", " + principal.getAuthorities().size() + " authorizations, "
+                    + "depends on " + dependencies.size() + " objects)";
+        }
+    }
+}
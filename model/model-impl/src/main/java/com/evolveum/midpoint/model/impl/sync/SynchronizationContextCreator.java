@@ -8,6 +8,7 @@
 package com.evolveum.midpoint.model.impl.sync;
 
 import static com.evolveum.midpoint.model.impl.ResourceObjectProcessingContextImpl.ResourceObjectProcessingContextBuilder.aResourceObjectProcessingContext;
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
 
 import com.evolveum.midpoint.provisioning.api.ResourceObjectClassification;
 import com.evolveum.midpoint.schema.processor.*;
@@ -120,14 +121,18 @@ class SynchronizationContextCreator {
      * Checks whether the source resource is not in maintenance mode.
      * (Throws an exception if it is.)
      *
-     * Side-effect: updates the resource prism object (if it was changed).
+     * Returns the current version of the resource, which is then used for the whole processing of the change:
+     * the processing context, the synchronization policy, and (via the synchronization context) the projection context
+     * in the clockwork. It is obtained as read-only, like in `SyncTaskHelper` or `LensUtil.getResourceReadOnly`,
+     * so it is shared with the provisioning cache instead of being cloned for each change. Nothing in the processing
+     * modifies it; and the provisioning returns it with the parsed schema already attached.
      */
     private @NotNull ResourceType checkNotInMaintenance(ResourceType resource, Task task, OperationResult result)
             throws SchemaException, ExpressionEvaluationException, CommunicationException, SecurityViolationException,
             ConfigurationException, ObjectNotFoundException {
         if (!SynchronizationContext.isSkipMaintenanceCheck()) {
             resource = beans.provisioningService
-                    .getObject(ResourceType.class, resource.getOid(), null, task, result)
+                    .getObject(ResourceType.class, resource.getOid(), createReadOnlyCollection(), task, result)
                     .asObjectable();
             ResourceTypeUtil.checkNotInMaintenance(resource);
         }
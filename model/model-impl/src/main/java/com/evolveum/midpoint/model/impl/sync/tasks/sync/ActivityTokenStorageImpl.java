@@ -78,7 +78,7 @@ public class ActivityTokenStorageImpl implements LiveSyncTokenStorage {
         // TODO remove token from task if exists
     }
 
-    private static <T> @NotNull PrismPropertyDefinition<T> createDefinition(@NotNull T realValue) {
+    static <T> @NotNull PrismPropertyDefinition<T> createDefinition(@NotNull T realValue) {
         QName type = XsdTypeMapper.toXsdType(realValue.getClass());
 
         PrismPropertyDefinition<T> propDef =
@@ -12,6 +12,7 @@ import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.provisioning.api.*;
 import com.evolveum.midpoint.repo.common.activity.run.*;
 import com.evolveum.midpoint.repo.common.activity.run.processing.ItemProcessingRequest;
+import com.evolveum.midpoint.schema.ResourceOperationCoordinates;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationConstants;
 import com.evolveum.midpoint.schema.result.OperationResultStatus;
@@ -20,6 +21,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import com.evolveum.midpoint.model.impl.ModelBeans;
 import com.evolveum.midpoint.model.impl.sync.tasks.SyncItemProcessingRequest;
@@ -36,8 +38,13 @@ import static com.evolveum.midpoint.repo.common.activity.run.ErrorHandlingStrate
 
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.ActivityEventLoggingOptionType.NONE;
 
+import static com.evolveum.midpoint.util.MiscUtil.configNonNull;
+import static com.evolveum.midpoint.util.MiscUtil.stateCheck;
+
 import static org.apache.commons.lang3.BooleanUtils.isNotFalse;
 
+import java.util.List;
+
 public final class LiveSyncActivityRun
         extends PlainIterativeActivityRun
         <LiveSyncEvent,
@@ -120,7 +127,19 @@ public final class LiveSyncActivityRun
         };
 
         LiveSyncOptions options = createLiveSyncOptions();
-        ActivityTokenStorageImpl tokenStorage = new ActivityTokenStorageImpl(this);
+
+        ResourceOperationCoordinates coords;
+        LiveSyncTokenStorage tokenStorage;
+        LiveSyncWorkDefinition.Partition partition = determinePartition();
+        if (partition != null) {
+            LOGGER.trace("Synchronizing {}", partition);
+            coords = ResourceOperationCoordinates.ofObjectClass(
+                    processingScope.getResourceOid(), partition.objectClassName());
+            tokenStorage = new PartitionTokenStorageImpl(this, partition, getWorkDefinition().getPartitions(), opResult);
+        } else {
+            coords = processingScope.getCoords();
+            tokenStorage = new ActivityTokenStorageImpl(this);
+        }
 
         ProvisioningOperationContext context = new ProvisioningOperationContext();
         // todo set request identifier
@@ -128,7 +147,7 @@ public final class LiveSyncActivityRun
         ModelImplUtils.clearRequestee(getRunningTask());
         getModelBeans().provisioningService
                 .synchronize(
-                        processingScope.getCoords(),
+                        coords,
                         options,
                         tokenStorage,
                         handler,
@@ -137,6 +156,40 @@ public final class LiveSyncActivityRun
                         opResult);
     }
 
+    /**
+     * Returns the partition to be synchronized in the current bucket (if the live sync is partitioned).
+     * Each partition is synchronized in its own bucket, as the processing coordinator cannot be reused
+     * after all events from the resource were submitted.
+     */
+    private @Nullable LiveSyncWorkDefinition.Partition determinePartition() throws ConfigurationException {
+        LiveSyncWorkDefinition def = getWorkDefinition();
+        if (!def.isPartitioned()) {
+            return null;
+        }
+        AbstractWorkBucketContentType content = bucket != null ? bucket.getContent() : null;
+        if (content instanceof StringValueWorkBucketContentType stringValueContent
+                && stringValueContent.getValue().size() == 1) {
+            String name = stringValueContent.getValue().get(0);
+            return configNonNull(def.findPartition(name), () -> "No live sync partition named '" + name + "'");
+        }
+        throw new ConfigurationException("Partitioned live sync requires buckets with a single partition each "
+                + "(use implicit work segmentation); got bucket content: " + content);
+    }
+
+    /** There is one bucket per partition. */
+    @Override
+    public AbstractWorkSegmentationType resolveImplicitSegmentation(@NotNull ImplicitWorkSegmentationType segmentation) {
+        List<LiveSyncWorkDefinition.Partition> partitions = getWorkDefinition().getPartitions();
+        stateCheck(!partitions.isEmpty(), "Implicit work segmentation is supported only for partitioned live sync");
+        ExplicitWorkSegmentationType explicit = new ExplicitWorkSegmentationType();
+        for (LiveSyncWorkDefinition.Partition partition : partitions) {
+            explicit.getContent().add(
+                    new StringValueWorkBucketContentType()
+                            .value(partition.name()));
+        }
+        return explicit;
+    }
+
     @NotNull
     private LiveSyncOptions createLiveSyncOptions() {
         LiveSyncWorkDefinition def = activity.getWorkDefinition();
@@ -7,15 +7,27 @@
 
 package com.evolveum.midpoint.model.impl.sync.tasks.sync;
 
+import static com.evolveum.midpoint.util.MiscUtil.configCheck;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.xml.namespace.QName;
+
 import com.evolveum.midpoint.model.impl.sync.tasks.ResourceSetTaskWorkDefinition;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import com.evolveum.midpoint.repo.common.activity.definition.AbstractWorkDefinition;
 import com.evolveum.midpoint.repo.common.activity.definition.ResourceObjectSetSpecificationProvider;
 import com.evolveum.midpoint.repo.common.activity.definition.WorkDefinitionFactory;
 import com.evolveum.midpoint.schema.util.task.work.ResourceObjectSetUtil;
 import com.evolveum.midpoint.util.DebugUtil;
+import com.evolveum.midpoint.util.exception.ConfigurationException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ActivityDefinitionType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.LiveSyncPartitionDefinitionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.LiveSyncWorkDefinitionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceObjectSetType;
 
@@ -24,14 +36,49 @@ public class LiveSyncWorkDefinition extends ResourceSetTaskWorkDefinition implem
     private final Integer batchSize;
     private final boolean updateLiveSyncTokenInDryRun;
     private final boolean updateLiveSyncTokenInPreviewMode;
+    @NotNull private final List<Partition> partitions = new ArrayList<>();
 
-    LiveSyncWorkDefinition(@NotNull WorkDefinitionFactory.WorkDefinitionInfo info) {
+    LiveSyncWorkDefinition(@NotNull WorkDefinitionFactory.WorkDefinitionInfo info) throws ConfigurationException {
         super(info);
         var typedDefinition = (LiveSyncWorkDefinitionType) info.getBean();
         batchSize = typedDefinition.getBatchSize();
         updateLiveSyncTokenInPreviewMode = Boolean.TRUE.equals(typedDefinition.isUpdateLiveSyncTokenInPreviewMode());
         ResourceObjectSetUtil.removeQuery(getResourceObjectSetSpecification());
         updateLiveSyncTokenInDryRun = Boolean.TRUE.equals(typedDefinition.isUpdateLiveSyncTokenInDryRun());
+        parsePartitions(typedDefinition.getPartition());
+        if (isPartitioned()) {
+            // The object class, kind and intent would be ignored, as the partitions determine what is synchronized.
+            ResourceObjectSetType resourceObjects = getResourceObjectSetSpecification();
+            configCheck(resourceObjects.getObjectclass() == null
+                            && resourceObjects.getKind() == null
+                            && resourceObjects.getIntent() == null,
+                    "Partitioned live sync cannot restrict resource objects by object class, kind, or intent: %s",
+                    resourceObjects);
+        }
+    }
+
+    private void parsePartitions(List<LiveSyncPartitionDefinitionType> partitionBeans) throws ConfigurationException {
+        Set<String> names = new HashSet<>();
+        for (LiveSyncPartitionDefinitionType partitionBean : partitionBeans) {
+            String name = partitionBean.getName();
+            QName objectClassName = partitionBean.getObjectclass();
+            configCheck(name != null, "Live sync partition without a name: %s", partitionBean);
+            configCheck(names.add(name), "Duplicate live sync partition name: %s", name);
+            configCheck(objectClassName != null, "No object class for live sync partition %s", name);
+            // The ID is used to identify the partition state in the work state; name is stored there for checking.
+            partitions.add(new Partition(partitions.size() + 1, name, objectClassName));
+        }
+    }
+
+    /** Each partition is processed in its own bucket, so the buckets must be configured. */
+    @Override
+    protected void checkActivityDefinition(@NotNull ActivityDefinitionType activityDefinitionBean)
+            throws ConfigurationException {
+        if (isPartitioned()) {
+            var distribution = activityDefinitionBean.getDistribution();
+            configCheck(distribution != null && distribution.getBuckets() != null,
+                    "Partitioned live sync requires buckets with a single partition each (use implicit work segmentation)");
+        }
     }
 
     Integer getBatchSize() {
@@ -46,11 +93,31 @@ public class LiveSyncWorkDefinition extends ResourceSetTaskWorkDefinition implem
         return updateLiveSyncTokenInPreviewMode;
     }
 
+    @NotNull List<Partition> getPartitions() {
+        return partitions;
+    }
+
+    boolean isPartitioned() {
+        return !partitions.isEmpty();
+    }
+
+    @Nullable Partition findPartition(String name) {
+        return partitions.stream()
+                .filter(partition -> partition.name().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
     @Override
     protected void debugDumpContent(StringBuilder sb, int indent) {
         DebugUtil.debugDumpWithLabelLn(sb, "resourceObjects", getResourceObjectSetSpecification(), indent+1);
         DebugUtil.debugDumpWithLabelLn(sb, "batchSize", batchSize, indent+1);
         DebugUtil.debugDumpWithLabelLn(sb, "updateLiveSyncTokenInDryRun", updateLiveSyncTokenInDryRun, indent+1);
-        DebugUtil.debugDumpWithLabel(sb, "updateLiveSyncTokenInPreviewMode", updateLiveSyncTokenInPreviewMode, indent+1);
+        DebugUtil.debugDumpWithLabelLn(sb, "updateLiveSyncTokenInPreviewMode", updateLiveSyncTokenInPreviewMode, indent+1);
+        DebugUtil.debugDumpWithLabel(sb, "partitions", String.valueOf(partitions), indent+1);
+    }
+
+    /** A partition of the live sync, with its own token. The ID is derived from the position in the definition. */
+    record Partition(long id, @NotNull String name, @NotNull QName objectClassName) {
     }
 }
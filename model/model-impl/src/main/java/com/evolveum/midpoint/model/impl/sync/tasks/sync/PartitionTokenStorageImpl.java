@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.sync.tasks.sync;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismPropertyDefinition;
+import com.evolveum.midpoint.prism.path.ItemName;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.provisioning.api.LiveSyncToken;
+import com.evolveum.midpoint.provisioning.api.LiveSyncTokenStorage;
+import com.evolveum.midpoint.repo.common.activity.run.AbstractActivityRun;
+import com.evolveum.midpoint.repo.common.activity.run.state.ActivityState;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.util.SchemaDebugUtil;
+import com.evolveum.midpoint.util.exception.ObjectAlreadyExistsException;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.LiveSyncPartitionWorkStateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.LiveSyncWorkStateType;
+
+/**
+ * Stores the token of a single live sync partition.
+ *
+ * The token is kept in `partition` work state item, in the container value with the ID of the partition.
+ * For distributed activities, the state of the coordinator task is used, because the partition (bucket) can be
+ * processed by a different worker next time. Workers never update the same partition concurrently, as the partition
+ * is processed within a single bucket.
+ *
+ * A partition without its own state starts from the token of the unpartitioned live sync, if there is one.
+ * This is to avoid losing changes when an existing live sync task is partitioned: no token would mean "start now".
+ * When all the partitions have their own state, the unpartitioned token is removed, so that it is not used
+ * for partitions added (or renamed) later; they start "now", like a new live sync.
+ */
+class PartitionTokenStorageImpl implements LiveSyncTokenStorage {
+
+    private static final Trace LOGGER = TraceManager.getTrace(PartitionTokenStorageImpl.class);
+
+    @NotNull private final LiveSyncWorkDefinition.Partition partition;
+
+    /** All the partitions of the live sync; needed to find out whether the unpartitioned token is still needed. */
+    @NotNull private final List<LiveSyncWorkDefinition.Partition> allPartitions;
+
+    /** Activity state where the partition state is stored. Obtained fresh when this object is created. */
+    @NotNull private final ActivityState stateHolder;
+
+    @NotNull private final ItemPath partitionPath;
+
+    PartitionTokenStorageImpl(
+            @NotNull AbstractActivityRun<?, ?, ?> activityRun,
+            @NotNull LiveSyncWorkDefinition.Partition partition,
+            @NotNull List<LiveSyncWorkDefinition.Partition> allPartitions,
+            @NotNull OperationResult result) throws SchemaException, ObjectNotFoundException {
+        this.partition = partition;
+        this.allPartitions = allPartitions;
+        this.partitionPath = ItemPath.create(LiveSyncWorkStateType.F_PARTITION, partition.id());
+        if (activityRun.isWorker()) {
+            this.stateHolder = activityRun.getActivityState()
+                    .getCurrentActivityStateInParentTask(true, LiveSyncWorkStateType.COMPLEX_TYPE, result);
+        } else {
+            this.stateHolder = activityRun.getActivityState();
+        }
+    }
+
+    @Override
+    public LiveSyncToken getToken() {
+        if (!isPartitionStatePresent()) {
+            Object unpartitionedTokenValue =
+                    stateHolder.getWorkStatePropertyRealValue(LiveSyncWorkStateType.F_TOKEN, Object.class);
+            LOGGER.trace("No stored state for {}, using the token of unpartitioned live sync (if any): {}",
+                    partition, SchemaDebugUtil.prettyPrintLazily(unpartitionedTokenValue));
+            return unpartitionedTokenValue != null ? LiveSyncToken.of(unpartitionedTokenValue) : null;
+        }
+        Object tokenValue = stateHolder.getWorkStatePropertyRealValue(
+                partitionPath.append(LiveSyncPartitionWorkStateType.F_TOKEN), Object.class);
+        LOGGER.trace("Token for {}: {}", partition, SchemaDebugUtil.prettyPrintLazily(tokenValue));
+        return tokenValue != null ? LiveSyncToken.of(tokenValue) : null;
+    }
+
+    /** The name is checked to avoid using a token of other partition, e.g. if the partitions were re-ordered. */
+    private boolean isPartitionStatePresent() {
+        return isPartitionStatePresent(partition);
+    }
+
+    private boolean isPartitionStatePresent(LiveSyncWorkDefinition.Partition partition) {
+        return partition.name().equals(getStoredName(partition));
+    }
+
+    private String getStoredName() {
+        return getStoredName(partition);
+    }
+
+    private String getStoredName(LiveSyncWorkDefinition.Partition partition) {
+        return stateHolder.getWorkStatePropertyRealValue(
+                ItemPath.create(LiveSyncWorkStateType.F_PARTITION, partition.id(), LiveSyncPartitionWorkStateType.F_NAME),
+                String.class);
+    }
+
+    @Override
+    public void setToken(LiveSyncToken token, OperationResult result)
+            throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        if (stateHolder.getWorkStateItemRealValueClone(partitionPath, LiveSyncPartitionWorkStateType.class) == null) {
+            stateHolder.addWorkStateItemRealValues(
+                    LiveSyncWorkStateType.F_PARTITION,
+                    new LiveSyncPartitionWorkStateType()
+                            .id(partition.id())
+                            .name(partition.name()));
+        } else if (!isPartitionStatePresent()) {
+            LOGGER.debug("Replacing state of partition '{}' by the state of {}", getStoredName(), partition);
+            stateHolder.setWorkStateItemRealValues(
+                    partitionPath.append(LiveSyncPartitionWorkStateType.F_NAME),
+                    getStaticDefinition(LiveSyncPartitionWorkStateType.F_NAME),
+                    partition.name());
+        }
+        ItemPath tokenPath = partitionPath.append(LiveSyncPartitionWorkStateType.F_TOKEN);
+        if (token != null) {
+            Object tokenValue = token.getValue();
+            stateHolder.setWorkStateItemRealValues(
+                    tokenPath, ActivityTokenStorageImpl.createDefinition(tokenValue), tokenValue);
+        } else {
+            stateHolder.setWorkStateItemRealValues(
+                    tokenPath, getStaticDefinition(LiveSyncPartitionWorkStateType.F_TOKEN));
+        }
+        stateHolder.flushPendingTaskModifications(result);
+        removeUnpartitionedTokenIfNotNeeded(result);
+    }
+
+    /**
+     * Removes the token of the unpartitioned live sync after all the partitions got their own state.
+     *
+     * The state of other partitions may be slightly outdated when running in a worker; then the token is kept
+     * and removed later. Keeping it longer is harmless, as it is used only by partitions without their own state.
+     */
+    private void removeUnpartitionedTokenIfNotNeeded(OperationResult result)
+            throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        if (stateHolder.getWorkStatePropertyRealValue(LiveSyncWorkStateType.F_TOKEN, Object.class) == null
+                || !allPartitions.stream().allMatch(this::isPartitionStatePresent)) {
+            return;
+        }
+        LOGGER.debug("All partitions have their own state, removing the token of unpartitioned live sync");
+        stateHolder.setWorkStateItemRealValues(LiveSyncWorkStateType.F_TOKEN);
+        stateHolder.flushPendingTaskModifications(result);
+    }
+
+    /** Explicit definitions are provided, as the item paths contain container value IDs. */
+    private static @NotNull PrismPropertyDefinition<?> getStaticDefinition(@NotNull ItemName itemName) {
+        return requireNonNull(
+                PrismContext.get().getSchemaRegistry()
+                        .findContainerDefinitionByCompileTimeClass(LiveSyncPartitionWorkStateType.class)
+                        .findPropertyDefinition(itemName),
+                () -> "No definition of " + itemName);
+    }
+}
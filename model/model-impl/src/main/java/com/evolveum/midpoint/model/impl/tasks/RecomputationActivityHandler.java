@@ -6,25 +6,34 @@
  */
 package com.evolveum.midpoint.model.impl.tasks;
 
+import static java.util.Objects.requireNonNull;
+
 import static com.evolveum.midpoint.model.api.ModelExecuteOptions.fromModelExecutionOptionsType;
 
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.stereotype.Component;
 
 import com.evolveum.midpoint.model.api.ModelExecuteOptions;
 import com.evolveum.midpoint.model.impl.lens.LensContext;
 import com.evolveum.midpoint.model.impl.tasks.simple.SimpleActivityHandler;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.repo.common.activity.definition.AbstractWorkDefinition;
 import com.evolveum.midpoint.repo.common.activity.definition.ObjectSetSpecificationProvider;
 import com.evolveum.midpoint.repo.common.activity.definition.WorkDefinitionFactory;
 import com.evolveum.midpoint.repo.common.activity.definition.WorkDefinitionFactory.WorkDefinitionSupplier;
+import com.evolveum.midpoint.repo.common.activity.run.state.ActivityState;
+import com.evolveum.midpoint.repo.common.activity.run.state.ActivityStateDefinition;
 import com.evolveum.midpoint.repo.common.activity.run.ActivityReportingCharacteristics;
+import com.evolveum.midpoint.repo.common.activity.run.ActivityRunException;
 import com.evolveum.midpoint.repo.common.activity.run.ActivityRunInstantiationContext;
 import com.evolveum.midpoint.repo.common.activity.run.SearchBasedActivityRun;
 import com.evolveum.midpoint.repo.common.activity.run.processing.ItemProcessingRequest;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.util.task.ActivityItemProcessingStatisticsUtil;
 import com.evolveum.midpoint.schema.util.task.work.ObjectSetUtil;
 import com.evolveum.midpoint.task.api.RunningTask;
 import com.evolveum.midpoint.util.DebugUtil;
@@ -72,6 +81,14 @@ public class RecomputationActivityHandler
         return MyRun::new;
     }
 
+    @Override
+    public @NotNull ActivityStateDefinition<?> getRootActivityStateDefinition() {
+        return new ActivityStateDefinition<>(
+                RecomputationWorkStateType.COMPLEX_TYPE,
+                ActivityStatePersistenceType.PERPETUAL_EXCEPT_STATISTICS
+        );
+    }
+
     @Override
     public String getDefaultArchetypeOid() {
         return SystemObjectsType.ARCHETYPE_RECOMPUTATION_TASK.value();
@@ -88,7 +105,25 @@ public class RecomputationActivityHandler
     }
 
     static final class MyRun extends
-            SearchBasedActivityRun<ObjectType, MyWorkDefinition, RecomputationActivityHandler, AbstractActivityWorkStateType> {
+            SearchBasedActivityRun<ObjectType, MyWorkDefinition, RecomputationActivityHandler, RecomputationWorkStateType> {
+
+        /** Present only in the incremental mode. */
+        private RecomputationInputsChecker inputsChecker;
+
+        /** Whether to record the reasons for recomputing or skipping objects (incremental mode only). */
+        private boolean explain;
+
+        /**
+         * Where the timestamps driving the incremental mode are kept: the coordinator task for worker tasks,
+         * this task otherwise. Present only in the incremental mode.
+         */
+        private ActivityState timestampsHolder;
+
+        /**
+         * The start of the current activity realization (not of this run, which may be a resumed one).
+         * Becomes the reference time for the next realization, if this one finishes without errors.
+         */
+        private XMLGregorianCalendar realizationStartTimestamp;
 
         MyRun(@NotNull ActivityRunInstantiationContext<MyWorkDefinition, RecomputationActivityHandler> context,
                 String shortName) {
@@ -103,14 +138,125 @@ public class RecomputationActivityHandler
         }
 
         @Override
-        public void beforeRun(OperationResult result) {
+        public void beforeRun(OperationResult result) throws CommonException, ActivityRunException {
             ensureNoDryRun();
+            IncrementalRecomputationType incremental = getWorkDefinition().getIncremental();
+            if (incremental == null) {
+                return;
+            }
+            explain = Boolean.TRUE.equals(incremental.isExplain());
+            if (isWorker()) {
+                timestampsHolder = getActivityState().getCurrentActivityStateInParentTask(
+                        true, RecomputationWorkStateType.COMPLEX_TYPE, result);
+            } else {
+                timestampsHolder = getActivityState();
+            }
+            realizationStartTimestamp = requireNonNull(
+                    getActivityState().getRealizationStartTimestamp(), "no realization start timestamp");
+            advanceReferenceTimeIfPossible(result);
+            XMLGregorianCalendar referenceTime = determineReferenceTime(incremental, realizationStartTimestamp);
+            if (referenceTime == null) {
+                LOGGER.debug("Incremental recomputation: no reference time (first run?), recomputing all objects");
+                return;
+            }
+            LOGGER.debug("Incremental recomputation: skipping objects with inputs unchanged since {}", referenceTime);
+            inputsChecker = new RecomputationInputsChecker(
+                    getActivityHandler().repositoryService,
+                    XmlTypeConverter.toMillis(referenceTime),
+                    XmlTypeConverter.toMillis(realizationStartTimestamp));
+            inputsChecker.initialize(result);
+        }
+
+        /**
+         * Moves the reference time to the start of the previous realization, if that one finished without errors.
+         *
+         * This is done lazily, in the first run of the following realization, because only then we know the previous
+         * realization is complete: a new realization is not started until the previous one completes. This works
+         * regardless of how the previous realization was executed, i.e. in how many runs (suspensions and resumptions)
+         * and in how many worker tasks. Concurrently starting workers may do this at the same time, but they write
+         * the same values.
+         */
+        private void advanceReferenceTimeIfPossible(OperationResult result) throws CommonException, ActivityRunException {
+            XMLGregorianCalendar previousRealizationStart = timestampsHolder.getWorkStatePropertyRealValue(
+                    RecomputationWorkStateType.F_PENDING_REALIZATION_START_TIMESTAMP, XMLGregorianCalendar.class);
+            if (realizationStartTimestamp.equals(previousRealizationStart)) {
+                return; // Already done in this realization (by an earlier run or by other worker).
+            }
+            if (previousRealizationStart != null) {
+                XMLGregorianCalendar failedRealizationStart = timestampsHolder.getWorkStatePropertyRealValue(
+                        RecomputationWorkStateType.F_FAILED_REALIZATION_START_TIMESTAMP, XMLGregorianCalendar.class);
+                if (previousRealizationStart.equals(failedRealizationStart)) {
+                    LOGGER.debug("Previous realization (started {}) had errors, keeping the reference time",
+                            previousRealizationStart);
+                } else {
+                    timestampsHolder.setWorkStateItemRealValues(
+                            RecomputationWorkStateType.F_LAST_SUCCESSFUL_RUN_START_TIMESTAMP, previousRealizationStart);
+                }
+            }
+            timestampsHolder.setWorkStateItemRealValues(
+                    RecomputationWorkStateType.F_PENDING_REALIZATION_START_TIMESTAMP, realizationStartTimestamp);
+            timestampsHolder.flushPendingTaskModificationsChecked(result);
+        }
+
+        /**
+         * The start of the last successful realization has precedence; explicitly configured values are used only if there
+         * was no such realization yet. Returns `null` if all objects should be recomputed.
+         */
+        private @Nullable XMLGregorianCalendar determineReferenceTime(
+                @NotNull IncrementalRecomputationType incremental, @NotNull XMLGregorianCalendar now) {
+            XMLGregorianCalendar lastSuccessfulRunStart = getActivityState().getWorkStatePropertyRealValue(
+                    RecomputationWorkStateType.F_LAST_SUCCESSFUL_RUN_START_TIMESTAMP, XMLGregorianCalendar.class);
+            if (lastSuccessfulRunStart != null) {
+                return lastSuccessfulRunStart;
+            } else if (incremental.getChangedSince() != null) {
+                return incremental.getChangedSince();
+            } else if (incremental.getChangedWithin() != null) {
+                return XmlTypeConverter.addDuration(now, incremental.getChangedWithin().negate());
+            } else {
+                return null;
+            }
+        }
+
+        @Override
+        public void afterRun(OperationResult result) throws CommonException, ActivityRunException {
+            if (realizationStartTimestamp == null) {
+                return; // not incremental
+            }
+            /*
+             * The reference time may be moved forward only if all the objects were processed successfully. Otherwise,
+             * the objects that were not (correctly) recomputed in this realization could be skipped in the next one.
+             * The persisted statistics are used, as they cover also the runs before the task was suspended.
+             */
+            int errors = ActivityItemProcessingStatisticsUtil.getErrorsShallow(
+                    getActivityState().getLiveStatistics().getLiveItemProcessing().getValueCopy());
+            if (errors > 0) {
+                LOGGER.debug("{} error(s) in this realization, the reference time will not be moved forward", errors);
+                timestampsHolder.setWorkStateItemRealValues(
+                        RecomputationWorkStateType.F_FAILED_REALIZATION_START_TIMESTAMP, realizationStartTimestamp);
+                timestampsHolder.flushPendingTaskModificationsChecked(result);
+            }
         }
 
         @Override
         public boolean processItem(@NotNull ObjectType object,
                 @NotNull ItemProcessingRequest<ObjectType> request, RunningTask workerTask, OperationResult result)
                 throws CommonException {
+            if (inputsChecker != null) {
+                String reason = inputsChecker.getRecomputationReason(object, result);
+                if (reason == null) {
+                    LOGGER.trace("Skipping recomputation of {}: no inputs changed", object);
+                    if (explain) {
+                        result.recordNotApplicable("Recomputation inputs have not changed");
+                    } else {
+                        result.recordNotApplicable();
+                    }
+                    return true;
+                }
+                LOGGER.trace("Recomputing {} because {}", object, reason);
+                if (explain) {
+                    result.addContext("recomputationReason", reason);
+                }
+            }
             getActivityHandler().modelController.executeRecompute(
                     object.asPrismObject(), getWorkDefinition().getExecutionOptions(), workerTask, result);
             LOGGER.trace("Recomputation of object {}: {}", object, result.getStatus());
@@ -122,6 +268,7 @@ public class RecomputationActivityHandler
 
         @NotNull private final ObjectSetType objects;
         @NotNull private final ModelExecuteOptions executionOptions;
+        @Nullable private final IncrementalRecomputationType incremental;
 
         MyWorkDefinition(@NotNull WorkDefinitionFactory.WorkDefinitionInfo info) {
             super(info);
@@ -131,6 +278,7 @@ public class RecomputationActivityHandler
             executionOptions = java.util.Objects.requireNonNullElseGet(
                     fromModelExecutionOptionsType(typedDefinition.getExecutionOptions()),
                     () -> ModelExecuteOptions.create().reconcile()); // Default for compatibility reasons
+            incremental = typedDefinition.getIncremental();
         }
 
         @Override
@@ -142,10 +290,15 @@ public class RecomputationActivityHandler
             return executionOptions;
         }
 
+        @Nullable IncrementalRecomputationType getIncremental() {
+            return incremental;
+        }
+
         @Override
         protected void debugDumpContent(StringBuilder sb, int indent) {
             DebugUtil.debugDumpWithLabelLn(sb, "objects", objects, indent+1);
-            DebugUtil.debugDumpWithLabel(sb, "executionOptions", String.valueOf(executionOptions), indent+1);
+            DebugUtil.debugDumpWithLabelLn(sb, "executionOptions", String.valueOf(executionOptions), indent+1);
+            DebugUtil.debugDumpWithLabel(sb, "incremental", incremental, indent+1);
         }
     }
 }
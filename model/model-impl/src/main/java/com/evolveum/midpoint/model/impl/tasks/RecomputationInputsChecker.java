@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.tasks;
+
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.util.ValueMetadataTypeUtil;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Decides whether an object has to be recomputed in the incremental mode of {@link RecomputationActivityHandler}.
+ *
+ * The decision is based on the last change timestamps of the object and of its recomputation inputs: the targets
+ * of its assignments and its archetypes (including whatever these targets induce or have assigned, i.e. meta-roles),
+ * and "global" inputs, i.e. the system configuration and objects listed in {@link #GLOBAL_INPUT_TYPES}. If any of these was changed
+ * after the reference time, or if a validity boundary of the object or of any of its assignments was crossed since then,
+ * the object is recomputed.
+ *
+ * We are conservative here: missing timestamps, missing objects, and cycles in the role graph all lead to recomputation.
+ * However, inputs that are reached only via expressions (e.g. managers, members of the object's orgs, or objects
+ * looked up by a mapping) are not tracked. Changes in them are not detected.
+ *
+ * Effective change timestamps of assignment targets are memoized for the whole activity run. This class is thread-safe.
+ */
+class RecomputationInputsChecker {
+
+    private static final Trace LOGGER = TraceManager.getTrace(RecomputationInputsChecker.class);
+
+    /** Used for objects that must be considered as changed, e.g., those with no metadata or those not found. */
+    private static final long ALWAYS_CHANGED = Long.MAX_VALUE;
+
+    /**
+     * Objects that can influence the recomputation of any object. Any change in them leads to the recomputation of all objects.
+     * Their numbers are expected to be reasonably small.
+     */
+    private static final List<GlobalInputType> GLOBAL_INPUT_TYPES = List.of(
+            new GlobalInputType(ObjectTemplateType.class, "object template"),
+            new GlobalInputType(ResourceType.class, "resource"),
+            new GlobalInputType(SchemaType.class, "schema"),
+            new GlobalInputType(LookupTableType.class, "lookup table"),
+            new GlobalInputType(MarkType.class, "mark"),
+            new GlobalInputType(PolicyType.class, "policy"),
+            new GlobalInputType(ValuePolicyType.class, "value policy"),
+            new GlobalInputType(SecurityPolicyType.class, "security policy"),
+            new GlobalInputType(FunctionLibraryType.class, "function library"));
+
+    @NotNull private final RepositoryService repositoryService;
+
+    /** Objects changed after this time (in millis) are considered changed. */
+    private final long referenceTime;
+
+    /** The time of the start of the activity realization (in millis). */
+    private final long now;
+
+    /** The reason why all objects have to be recomputed, e.g. because some global input has changed. Null if there's none. */
+    private String globalReason;
+
+    /**
+     * Maximal last change timestamp of an assignment target and of everything it induces or has assigned, transitively.
+     * Indexed by OID.
+     */
+    @NotNull private final Map<String, Long> effectiveChangeTimestamps = new ConcurrentHashMap<>();
+
+    RecomputationInputsChecker(@NotNull RepositoryService repositoryService, long referenceTime, long now) {
+        this.repositoryService = repositoryService;
+        this.referenceTime = referenceTime;
+        this.now = now;
+    }
+
+    /** Checks the global inputs. Should be called once, before objects are processed. */
+    void initialize(OperationResult result) throws SchemaException {
+        globalReason = determineGlobalReason(result);
+        if (globalReason != null) {
+            LOGGER.info("All objects will be recomputed, because {}", globalReason);
+        }
+    }
+
+    private String determineGlobalReason(OperationResult result) throws SchemaException {
+        try {
+            var systemConfiguration = repositoryService.getObject(
+                    SystemConfigurationType.class, SystemObjectsType.SYSTEM_CONFIGURATION.value(),
+                    createReadOnlyCollection(), result);
+            if (isChanged(getLastChangeTimestamp(systemConfiguration.asObjectable()))) {
+                return "system configuration has changed";
+            }
+        } catch (ObjectNotFoundException e) {
+            LOGGER.debug("No system configuration, continuing without it");
+        }
+        for (GlobalInputType globalInputType : GLOBAL_INPUT_TYPES) {
+            String changed = findChanged(globalInputType.type(), result);
+            if (changed != null) {
+                return globalInputType.label() + " " + changed + " has changed";
+            }
+        }
+        return null;
+    }
+
+    private <O extends ObjectType> String findChanged(Class<O> type, OperationResult result) throws SchemaException {
+        for (PrismObject<O> object : repositoryService.searchObjects(type, null, createReadOnlyCollection(), result)) {
+            if (isChanged(getLastChangeTimestamp(object.asObjectable()))) {
+                return object.toString();
+            }
+        }
+        return null;
+    }
+
+    /** Returns the reason why the object has to be recomputed, or `null` if it can be skipped. */
+    @Nullable String getRecomputationReason(@NotNull ObjectType object, OperationResult result) throws SchemaException {
+        if (globalReason != null) {
+            return globalReason;
+        }
+        if (!(object instanceof AssignmentHolderType assignmentHolder)) {
+            return "not an assignment holder";
+        }
+        if (isChanged(getLastChangeTimestamp(object))) {
+            return "the object itself has changed";
+        }
+        if (assignmentHolder instanceof FocusType focus && isValidityBoundaryCrossed(focus.getActivation())) {
+            return "a validity boundary of the object was crossed";
+        }
+        for (AssignmentType assignment : assignmentHolder.getAssignment()) {
+            if (isValidityBoundaryCrossed(assignment.getActivation())) {
+                return "a validity boundary of assignment " + assignment.getId() + " was crossed";
+            }
+            ObjectReferenceType targetRef = assignment.getTargetRef();
+            if (targetRef == null) {
+                continue;
+            }
+            String targetOid = targetRef.getOid();
+            if (targetOid == null) {
+                return "assignment " + assignment.getId() + " has a dynamically resolved target";
+            }
+            if (isChanged(getEffectiveChangeTimestamp(targetOid, new HashSet<>(), result))) {
+                return "assignment target " + targetOid + " (or something it induces) has changed";
+            }
+        }
+        for (ObjectReferenceType archetypeRef : assignmentHolder.getArchetypeRef()) {
+            String archetypeOid = getOid(archetypeRef);
+            if (archetypeOid != null && isChanged(getEffectiveChangeTimestamp(archetypeOid, new HashSet<>(), result))) {
+                return "archetype " + archetypeOid + " (or something it induces) has changed";
+            }
+        }
+        return null;
+    }
+
+    private long getEffectiveChangeTimestamp(@NotNull String oid, @NotNull Set<String> visiting, OperationResult result)
+            throws SchemaException {
+        Long cached = effectiveChangeTimestamps.get(oid);
+        if (cached != null) {
+            return cached;
+        }
+        if (!visiting.add(oid)) {
+            LOGGER.trace("Cycle detected at {}, considering it changed", oid);
+            return ALWAYS_CHANGED;
+        }
+        long computed = computeEffectiveChangeTimestamp(oid, visiting, result);
+        visiting.remove(oid);
+        effectiveChangeTimestamps.put(oid, computed);
+        return computed;
+    }
+
+    private long computeEffectiveChangeTimestamp(@NotNull String oid, @NotNull Set<String> visiting, OperationResult result)
+            throws SchemaException {
+        AssignmentHolderType target;
+        try {
+            target = repositoryService
+                    .getObject(AssignmentHolderType.class, oid, createReadOnlyCollection(), result)
+                    .asObjectable();
+        } catch (ObjectNotFoundException e) {
+            LOGGER.trace("Target {} was not found, considering it changed", oid);
+            return ALWAYS_CHANGED;
+        }
+        long max = getLastChangeTimestamp(target);
+        List<AssignmentType> assignmentsAndInducements = new ArrayList<>(target.getAssignment());
+        if (target instanceof AbstractRoleType abstractRole) {
+            assignmentsAndInducements.addAll(abstractRole.getInducement());
+        }
+        for (AssignmentType assignment : assignmentsAndInducements) {
+            if (max == ALWAYS_CHANGED) {
+                return max;
+            }
+            String nextOid = getOid(assignment.getTargetRef());
+            if (nextOid != null) {
+                max = Math.max(max, getEffectiveChangeTimestamp(nextOid, visiting, result));
+            }
+        }
+        for (ObjectReferenceType archetypeRef : target.getArchetypeRef()) {
+            String archetypeOid = getOid(archetypeRef);
+            if (archetypeOid != null) {
+                max = Math.max(max, getEffectiveChangeTimestamp(archetypeOid, visiting, result));
+            }
+        }
+        return max;
+    }
+
+    private boolean isValidityBoundaryCrossed(ActivationType activation) {
+        return activation != null
+                && (isBoundaryCrossed(activation.getValidFrom()) || isBoundaryCrossed(activation.getValidTo()));
+    }
+
+    private boolean isBoundaryCrossed(XMLGregorianCalendar boundary) {
+        if (boundary == null) {
+            return false;
+        }
+        long millis = XmlTypeConverter.toMillis(boundary);
+        return millis > referenceTime && millis <= now;
+    }
+
+    private boolean isChanged(long lastChangeTimestamp) {
+        return lastChangeTimestamp > referenceTime;
+    }
+
+    private static long getLastChangeTimestamp(@NotNull ObjectType object) {
+        XMLGregorianCalendar timestamp = ValueMetadataTypeUtil.getLastChangeTimestamp(object);
+        return timestamp != null ? XmlTypeConverter.toMillis(timestamp) : ALWAYS_CHANGED;
+    }
+
+    private static String getOid(ObjectReferenceType ref) {
+        return ref != null ? ref.getOid() : null;
+    }
+
+    private record GlobalInputType(@NotNull Class<? extends ObjectType> type, @NotNull String label) {
+    }
+}
@@ -82,6 +82,32 @@ public class TriggerScanItemProcessor {
         LOGGER.trace("Firing triggers for {} ({} triggers)", object, triggerCValues.size());
         Set<String> handlersExecuted = new HashSet<>();
         List<TriggerType> triggers = getSortedTriggers(triggerCValues);
+        // Processed triggers are not removed one by one, but collected and removed by a single repository operation
+        // before the next handler is executed (and at the end). This is important when many due triggers accumulate
+        // on the same object (e.g. recompute triggers after a large policy change): idempotent handlers are executed
+        // only once, and we don't want to pay for N repository updates either. Handlers still see the object without
+        // the triggers processed before them, as it was when the triggers were removed individually.
+        TriggersToRemove triggersToRemove = new TriggersToRemove(object, workerTask, triggerContainer.getDefinition());
+        try {
+            fireTriggers(object, triggers, handlersExecuted, triggersToRemove, workerTask, result);
+        } catch (RuntimeException | Error e) {
+            try {
+                triggersToRemove.flush();
+            } catch (RuntimeException | Error e2) {
+                e.addSuppressed(e2);
+            }
+            throw e;
+        }
+        triggersToRemove.flush();
+    }
+
+    private void fireTriggers(
+            @NotNull PrismObject<? extends ObjectType> object,
+            @NotNull List<TriggerType> triggers,
+            @NotNull Set<String> handlersExecuted,
+            @NotNull TriggersToRemove triggersToRemove,
+            RunningTask workerTask,
+            OperationResult result) {
         while (!triggers.isEmpty()) {
             TriggerType trigger = triggers.get(0);
             triggers.remove(0);
@@ -139,13 +165,14 @@ public class TriggerScanItemProcessor {
                 try {
                     Collection<TriggerType> processedTriggers;
                     if (!handler.isIdempotent() || !handlersExecuted.contains(handlerUri)) {
+                        triggersToRemove.flush();
                         processedTriggers = ((MultipleTriggersHandler) handler)
                                 .handle(object, compatibleTriggers, workerTask, result);
                         handlersExecuted.add(handlerUri);
                     } else {
                         processedTriggers = compatibleTriggers;
                     }
-                    removeTriggers(object, processedTriggers, workerTask, triggerContainer.getDefinition());
+                    triggersToRemove.addAll(processedTriggers);
                 } catch (Throwable e) {
                     LOGGER.error("Multiple triggers handler {} executed on {} thrown an error: {} -- it will be retried", handler,
                             object, e.getMessage(), e);
@@ -155,10 +182,11 @@ public class TriggerScanItemProcessor {
                 try {
                     InternalMonitor.recordCount(InternalCounters.TRIGGER_FIRED_COUNT);
                     if (!handler.isIdempotent() || !handlersExecuted.contains(handlerUri)) {
+                        triggersToRemove.flush();
                         ((SingleTriggerHandler) handler).handle(object, trigger, workerTask, result);
                         handlersExecuted.add(handlerUri);
                     }
-                    removeTriggers(object, Collections.singleton(trigger), workerTask, triggerContainer.getDefinition());
+                    triggersToRemove.addAll(List.of(trigger));
                 } catch (Throwable e) {
                     // Properly handle everything that the handler spits out. We do not want this task to die.
                     LOGGER.error("Trigger handler {} executed on {} thrown an error: {} -- it will be retried", handler,
@@ -210,4 +238,34 @@ public class TriggerScanItemProcessor {
             throw t;
         }
     }
+
+    /** Triggers that were processed but not removed from the repository yet. */
+    private class TriggersToRemove {
+
+        @NotNull private final PrismObject<? extends ObjectType> object;
+        @NotNull private final Task task;
+        @NotNull private final PrismContainerDefinition<TriggerType> triggerContainerDef;
+        @NotNull private final List<TriggerType> triggers = new ArrayList<>();
+
+        TriggersToRemove(
+                @NotNull PrismObject<? extends ObjectType> object,
+                @NotNull Task task,
+                @NotNull PrismContainerDefinition<TriggerType> triggerContainerDef) {
+            this.object = object;
+            this.task = task;
+            this.triggerContainerDef = triggerContainerDef;
+        }
+
+        void addAll(Collection<TriggerType> processedTriggers) {
+            triggers.addAll(processedTriggers);
+        }
+
+        void flush() {
+            if (!triggers.isEmpty()) {
+                List<TriggerType> toRemove = new ArrayList<>(triggers);
+                triggers.clear();
+                removeTriggers(object, toRemove, task, triggerContainerDef);
+            }
+        }
+    }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.model.api.interaction.DashboardWidget;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.security.api.Authorization;
+import com.evolveum.midpoint.security.api.MidPointPrincipal;
+import com.evolveum.midpoint.tools.testng.AbstractUnitTest;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Tests {@link DashboardWidgetDataCache} alone, i.e. without the dashboard service and the widget computation.
+ */
+public class TestDashboardWidgetDataCache extends AbstractUnitTest {
+
+    private static final String DASHBOARD_OID = "d8a4c5f0-6a0e-4d3b-9b1e-000000000001";
+    private static final String USER_1_OID = "d8a4c5f0-6a0e-4d3b-9b1e-100000000001";
+    private static final String USER_2_OID = "d8a4c5f0-6a0e-4d3b-9b1e-100000000002";
+
+    private static final String ACTION_READ = "http://midpoint.evolveum.com/xml/ns/public/security/authorization-model-3#read";
+    private static final String ACTION_SEARCH = "http://midpoint.evolveum.com/xml/ns/public/security/authorization-model-3#search";
+
+    private static final long MAX_AGE = 60000;
+
+    @BeforeClass
+    public void initPrismContextIfNeeded() throws SchemaException, IOException, SAXException {
+        if (PrismContext.get() == null) {
+            PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+        }
+    }
+
+    @Test
+    public void test100NotSharedByDefault() throws CommonException {
+        given("a widget without cacheShared, and two users with the same authorizations");
+        var cache = new DashboardWidgetDataCache();
+        var widget = widget(false);
+        var computation = new CountingComputation();
+
+        when("the widget is requested by both users, twice");
+        get(cache, widget, principal(USER_1_OID, ACTION_READ), computation);
+        get(cache, widget, principal(USER_1_OID, ACTION_READ), computation);
+        get(cache, widget, principal(USER_2_OID, ACTION_READ), computation);
+        get(cache, widget, principal(USER_2_OID, ACTION_READ), computation);
+
+        then("it is computed once per user");
+        assertThat(computation.count.get()).as("computations").isEqualTo(2);
+    }
+
+    @Test
+    public void test110SharedAmongEqualAuthorizations() throws CommonException {
+        given("a shared widget, and two users with the same authorizations");
+        var cache = new DashboardWidgetDataCache();
+        var widget = widget(true);
+        var computation = new CountingComputation();
+
+        when("the widget is requested by both users");
+        var first = get(cache, widget, principal(USER_1_OID, ACTION_READ), computation);
+        var second = get(cache, widget, principal(USER_2_OID, ACTION_READ), computation);
+
+        then("it is computed only once, and both users get the same data");
+        assertThat(computation.count.get()).as("computations").isEqualTo(1);
+        assertThat(second.getNumberMessage()).isEqualTo(first.getNumberMessage());
+        assertThat(second).as("private copy").isNotSameAs(first);
+    }
+
+    @Test
+    public void test120SeparatedByAuthorizations() throws CommonException {
+        given("a shared widget");
+        var cache = new DashboardWidgetDataCache();
+        var widget = widget(true);
+        var computation = new CountingComputation();
+
+        when("the widget is requested by users with different authorizations");
+        var first = get(cache, widget, principal(USER_1_OID, ACTION_READ), computation);
+        var second = get(cache, widget, principal(USER_2_OID, ACTION_READ, ACTION_SEARCH), computation);
+
+        then("the data are computed for each of them");
+        assertThat(computation.count.get()).as("computations").isEqualTo(2);
+        assertThat(second.getNumberMessage()).isNotEqualTo(first.getNumberMessage());
+
+        when("the authorizations of the first user change");
+        get(cache, widget(false), principal(USER_1_OID, ACTION_SEARCH), computation);
+
+        then("the value computed under the previous authorizations is not used");
+        assertThat(computation.count.get()).as("computations").isEqualTo(3);
+    }
+
+    @Test
+    public void test130Expiry() throws Exception {
+        given("a cached value");
+        var cache = new DashboardWidgetDataCache();
+        var widget = widget(false);
+        var principal = principal(USER_1_OID, ACTION_READ);
+        var computation = new CountingComputation();
+        var first = get(cache, widget, principal, computation);
+
+        when("it is requested with a max age it is older than");
+        Thread.sleep(10);
+        var key = DashboardWidgetDataCache.createKey(widget, false, principal);
+        assertThat(key).isNotNull();
+        var second = cache.get(key, 5, computation);
+
+        then("it is recomputed");
+        assertThat(computation.count.get()).as("computations").isEqualTo(2);
+        assertThat(second.getComputedAt()).isGreaterThan(first.getComputedAt());
+
+        and("the new value is used for the next requests");
+        get(cache, widget, principal, computation);
+        assertThat(computation.count.get()).as("computations").isEqualTo(2);
+    }
+
+    @Test
+    public void test140NotCacheable() {
+        when("the key for a widget outside a stored dashboard is requested");
+        var key = DashboardWidgetDataCache.createKey(
+                new DashboardWidgetType().identifier("standalone"), false, principal(USER_1_OID, ACTION_READ));
+
+        then("there is none");
+        assertThat(key).isNull();
+
+        when("the key for an anonymous request is requested");
+        var anonymousKey = DashboardWidgetDataCache.createKey(widget(false), false, null);
+
+        then("there is none");
+        assertThat(anonymousKey).isNull();
+    }
+
+    private DashboardWidget get(
+            DashboardWidgetDataCache cache, DashboardWidgetType widget, MidPointPrincipal principal,
+            CountingComputation computation) throws CommonException {
+        var key = DashboardWidgetDataCache.createKey(widget, false, principal);
+        assertThat(key).as("cache key").isNotNull();
+        return cache.get(key, MAX_AGE, computation);
+    }
+
+    /** Returns a widget that is a part of a (fresh copy of the) dashboard. */
+    private @NotNull DashboardWidgetType widget(boolean shared) {
+        var dashboard = new DashboardType()
+                .oid(DASHBOARD_OID)
+                .name("dashboard")
+                .widget(new DashboardWidgetType()
+                        .identifier("users")
+                        .data(new DashboardWidgetDataType()
+                                .cacheMaxAge(XmlTypeConverter.createDuration("PT1M"))
+                                .cacheShared(shared)));
+        return dashboard.getWidget().get(0);
+    }
+
+    private @NotNull MidPointPrincipal principal(String userOid, String... actions) {
+        var principal = MidPointPrincipal.create(new UserType().oid(userOid).name(userOid));
+        for (String action : actions) {
+            principal.addAuthorization(
+                    Authorization.create(new AuthorizationType().action(action), "role"));
+        }
+        return principal;
+    }
+
+    /** Returns the number of the computation as the data, so that different computations can be told apart. */
+    private static class CountingComputation implements DashboardWidgetDataCache.WidgetComputation {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public @NotNull DashboardWidget compute() {
+            return new DashboardWidget(null, null, String.valueOf(count.incrementAndGet()));
+        }
+    }
+}
@@ -11,6 +11,8 @@ import static com.evolveum.midpoint.xml.ns._public.common.common_3.CorrelationSi
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
+
 import java.io.File;
 import java.util.Arrays;
 import java.util.List;
@@ -206,6 +208,40 @@ public class TestExpressionCorrelator extends AbstractInternalModelIntegrationTe
         displayValue("case", prismContext.xmlSerializer().serialize(aCase.asPrismObject()));
     }
 
+    /**
+     * The correlation code returns X. The resource used for the correlation is the read-only (frozen) one
+     * shared with the provisioning cache; it must not be modified by the correlation.
+     */
+    @Test
+    public void test150OwnerXWithReadOnlyResource() throws Exception {
+        given();
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+
+        String accountName = getTestNameShort();
+        DummyAccount account = DUMMY_RESOURCE_SOURCE.controller.addAccount(accountName);
+        account.addAttributeValue(ATTR_CORRELATION_CODE, ownersCode(USER_X));
+
+        PrismObject<ResourceType> resourceBefore = getReadOnlyResource(task, result);
+        assertThat(resourceBefore.isImmutable()).as("resource is immutable").isTrue();
+
+        when();
+        CompleteCorrelationResult correlationResult = correlateAccount(accountName, task, result);
+
+        then();
+        assertCorrelationResult(correlationResult, EXISTING_OWNER, USER_X.oid);
+        assertNoCorrelationCase(accountName, task, result);
+
+        PrismObject<ResourceType> resourceAfter = getReadOnlyResource(task, result);
+        assertThat(resourceAfter.getVersion()).as("resource version").isEqualTo(resourceBefore.getVersion());
+        assertThat(resourceAfter.isImmutable()).as("resource is immutable").isTrue();
+    }
+
+    private PrismObject<ResourceType> getReadOnlyResource(Task task, OperationResult result) throws CommonException {
+        return provisioningService.getObject(
+                ResourceType.class, DUMMY_RESOURCE_SOURCE.oid, createReadOnlyCollection(), task, result);
+    }
+
     private CaseType assertCorrelationCase(String accountName, Task task, OperationResult result) throws CommonException {
         ShadowType shadow = getAccountByName(accountName, task, result);
         CaseType correlationCase = correlationCaseManager.findCorrelationCase(shadow, false, result);
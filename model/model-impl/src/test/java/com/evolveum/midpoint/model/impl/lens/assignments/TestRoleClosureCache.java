@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.lens.assignments;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.model.impl.AbstractInternalModelIntegrationTest;
+import com.evolveum.midpoint.prism.crypto.EncryptionException;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Tests the static closure analysis in {@link RoleClosureCache} and its use for {@link IdempotenceType#AUTOMATIC} roles.
+ *
+ * Each test creates its own roles, so the tests are independent of each other.
+ */
+@ContextConfiguration(locations = { "classpath:ctx-model-test-main.xml" })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class TestRoleClosureCache extends AbstractInternalModelIntegrationTest {
+
+    @Autowired private RoleClosureCache roleClosureCache;
+
+    /** Role inducing a role that has a meta-role, all without any conditions: static. */
+    @Test
+    public void test100StaticClosure() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a simple three-level hierarchy");
+        String metaOid = addRole(new RoleType().name("meta-100"), result);
+        String leafOid = addRole(
+                new RoleType().name("leaf-100")
+                        .assignment(new AssignmentType().targetRef(metaOid, RoleType.COMPLEX_TYPE)),
+                result);
+        String topOid = addRole(
+                new RoleType().name("top-100")
+                        .inducement(new AssignmentType().targetRef(leafOid, RoleType.COMPLEX_TYPE)),
+                result);
+
+        expect("the closure is static");
+        assertStatic(topOid, true, result);
+    }
+
+    @Test
+    public void test110RoleCondition() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a role with a condition");
+        String oid = addRole(
+                new RoleType().name("role-110")
+                        .condition(new MappingType().expression(new ExpressionType())),
+                result);
+
+        expect("the closure is not static");
+        assertStatic(oid, false, result);
+    }
+
+    @Test
+    public void test120InducementOrder() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a meta-role with a higher-order inducement");
+        String targetOid = addRole(new RoleType().name("target-120"), result);
+        String oid = addRole(
+                new RoleType().name("meta-120")
+                        .inducement(new AssignmentType()
+                                .targetRef(targetOid, RoleType.COMPLEX_TYPE)
+                                .order(2)),
+                result);
+
+        expect("the closure is not static");
+        assertStatic(oid, false, result);
+    }
+
+    @Test
+    public void test130InducementOrderConstraint() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a role with an inducement having an order constraint");
+        String targetOid = addRole(new RoleType().name("target-130"), result);
+        String oid = addRole(
+                new RoleType().name("role-130")
+                        .inducement(new AssignmentType()
+                                .targetRef(targetOid, RoleType.COMPLEX_TYPE)
+                                .orderConstraint(new OrderConstraintsType().order(1))),
+                result);
+
+        expect("the closure is not static");
+        assertStatic(oid, false, result);
+    }
+
+    @Test
+    public void test140InducementFocusType() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a role with an inducement limited to users");
+        String targetOid = addRole(new RoleType().name("target-140"), result);
+        String oid = addRole(
+                new RoleType().name("role-140")
+                        .inducement(new AssignmentType()
+                                .targetRef(targetOid, RoleType.COMPLEX_TYPE)
+                                .focusType(UserType.COMPLEX_TYPE)),
+                result);
+
+        expect("the closure is not static");
+        assertStatic(oid, false, result);
+    }
+
+    @Test
+    public void test150InducementValidity() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a role with a time-limited inducement");
+        String targetOid = addRole(new RoleType().name("target-150"), result);
+        XMLGregorianCalendar validTo = XmlTypeConverter.createXMLGregorianCalendar("2030-01-01T00:00:00Z");
+        String oid = addRole(
+                new RoleType().name("role-150")
+                        .inducement(new AssignmentType()
+                                .targetRef(targetOid, RoleType.COMPLEX_TYPE)
+                                .activation(new ActivationType().validTo(validTo))),
+                result);
+
+        expect("the closure is not static");
+        assertStatic(oid, false, result);
+    }
+
+    @Test
+    public void test160RoleActivation() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a role with explicit administrative status");
+        String oid = addRole(
+                new RoleType().name("role-160")
+                        .activation(new ActivationType().administrativeStatus(ActivationStatusType.DISABLED)),
+                result);
+
+        expect("the closure is not static");
+        assertStatic(oid, false, result);
+    }
+
+    @Test
+    public void test170LifecycleState() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("an active role inducing a draft role, and a role with draft inducement");
+        String draftOid = addRole(new RoleType().name("draft-170").lifecycleState("draft"), result);
+        String parentOid = addRole(
+                new RoleType().name("parent-170")
+                        .lifecycleState("active")
+                        .inducement(new AssignmentType().targetRef(draftOid, RoleType.COMPLEX_TYPE)),
+                result);
+        String targetOid = addRole(new RoleType().name("target-170"), result);
+        String draftInducementOid = addRole(
+                new RoleType().name("role-170")
+                        .inducement(new AssignmentType()
+                                .targetRef(targetOid, RoleType.COMPLEX_TYPE)
+                                .lifecycleState("draft")),
+                result);
+
+        expect("their closures are not static");
+        assertStatic(draftOid, false, result);
+        assertStatic(parentOid, false, result);
+        assertStatic(draftInducementOid, false, result);
+    }
+
+    @Test
+    public void test180PathDependentExpression() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a role with a focus mapping referring to the immediate role, and one with a path-independent mapping");
+        String dependentOid = addRole(
+                new RoleType().name("dependent-180")
+                        .inducement(new AssignmentType()
+                                .focusMappings(new MappingsType()
+                                        .mapping(scriptMapping("immediateRole?.name?.orig")))),
+                result);
+        String independentOid = addRole(
+                new RoleType().name("independent-180")
+                        .inducement(new AssignmentType()
+                                .focusMappings(new MappingsType()
+                                        .mapping(scriptMapping("'constant'")))),
+                result);
+
+        expect("only the latter closure is static");
+        assertStatic(dependentOid, false, result);
+        assertStatic(independentOid, true, result);
+    }
+
+    @Test
+    public void test190NonStaticTargetAndCycle() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("a role inducing a conditional role, and two roles inducing each other");
+        String conditionalOid = addRole(
+                new RoleType().name("conditional-190")
+                        .condition(new MappingType().expression(new ExpressionType())),
+                result);
+        String parentOid = addRole(
+                new RoleType().name("parent-190")
+                        .inducement(new AssignmentType().targetRef(conditionalOid, RoleType.COMPLEX_TYPE)),
+                result);
+        String cycleAOid = "6bd1ddc4-7ac7-4c47-8d33-c8e5a2b0ef6a";
+        String cycleBOid = addRole(
+                new RoleType().name("cycle-b-190")
+                        .inducement(new AssignmentType().targetRef(cycleAOid, RoleType.COMPLEX_TYPE)),
+                result);
+        addRole(
+                new RoleType().oid(cycleAOid).name("cycle-a-190")
+                        .inducement(new AssignmentType().targetRef(cycleBOid, RoleType.COMPLEX_TYPE)),
+                result);
+
+        expect("the closures are not static");
+        assertStatic(parentOid, false, result);
+        assertStatic(cycleAOid, false, result);
+    }
+
+    /** Idempotence must be explicitly requested: a static closure alone does not make a role idempotent. */
+    @Test
+    public void test200AutomaticIdempotenceIsOptIn() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        given("static roles with no and with automatic idempotence, and a non-static role with automatic idempotence");
+        String defaultOid = addRole(new RoleType().name("default-200"), result);
+        String automaticOid = addRole(
+                new RoleType().name("automatic-200").idempotence(IdempotenceType.AUTOMATIC), result);
+        String automaticConditionalOid = addRole(
+                new RoleType().name("automatic-conditional-200")
+                        .idempotence(IdempotenceType.AUTOMATIC)
+                        .condition(new MappingType().expression(new ExpressionType())),
+                result);
+
+        when("idempotence is determined");
+        var targetCache = new EvaluatedAssignmentTargetCache(roleClosureCache);
+
+        then("only the static role with automatic idempotence is treated as conservative");
+        assertThat(targetCache.getIdempotence(getRole(defaultOid, result))).isEqualTo(IdempotenceType.NONE);
+        assertThat(targetCache.getIdempotence(getRole(automaticOid, result))).isEqualTo(IdempotenceType.CONSERVATIVE);
+        assertThat(targetCache.getIdempotence(getRole(automaticConditionalOid, result))).isEqualTo(IdempotenceType.NONE);
+    }
+
+    private String addRole(RoleType role, OperationResult result) throws CommonException, EncryptionException {
+        repoAddObject(role.asPrismObject(), result);
+        return role.getOid();
+    }
+
+    private RoleType getRole(String oid, OperationResult result) throws CommonException {
+        return repositoryService
+                .getObject(RoleType.class, oid, createReadOnlyCollection(), result)
+                .asObjectable();
+    }
+
+    private void assertStatic(String oid, boolean expected, OperationResult result) throws CommonException {
+        assertThat(roleClosureCache.isStatic(getRole(oid, result)))
+                .as("closure of " + oid + " is static")
+                .isEqualTo(expected);
+    }
+
+    private MappingType scriptMapping(String code) {
+        ExpressionType expression = new ExpressionType();
+        expression.getExpressionEvaluator().add(
+                new ObjectFactory().createScript(new ScriptExpressionEvaluatorType().code(code)));
+        return new MappingType()
+                .expression(expression)
+                .target(new VariableBindingDefinitionType().path(UserType.F_DESCRIPTION.toBean()));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.impl.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.model.api.authentication.GuiProfiledPrincipal;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.tools.testng.AbstractUnitTest;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SystemConfigurationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+
+/**
+ * Tests {@link PrincipalCache} alone, i.e. without the principal compilation and the cache invalidation machinery.
+ */
+public class TestPrincipalCache extends AbstractUnitTest {
+
+    private static final String USER_OID = "c0c010c0-d34d-b33f-f00d-111111110001";
+    private static final String OTHER_USER_OID = "c0c010c0-d34d-b33f-f00d-111111110002";
+    private static final String ROLE_OID = "c0c010c0-d34d-b33f-f00d-222222220001";
+    private static final String OTHER_ROLE_OID = "c0c010c0-d34d-b33f-f00d-222222220002";
+
+    private static final PrincipalCache.Key KEY = new PrincipalCache.Key(USER_OID, true, true);
+
+    @BeforeClass
+    public void initPrismContextIfNeeded() throws SchemaException, IOException, SAXException {
+        if (PrismContext.get() == null) {
+            PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+        }
+    }
+
+    @Test
+    public void test100HitAndVersionCheck() {
+        given("a cached principal");
+        var cache = new PrincipalCache();
+        putPrincipal(cache);
+
+        when("the principal is requested for the same version of the user");
+        GuiProfiledPrincipal principal = cache.get(KEY, user("1"));
+
+        then("a copy with the fresh user is returned");
+        assertThat(principal).as("cached principal").isNotNull();
+        assertThat(principal.getFocus().getVersion()).isEqualTo("1");
+
+        when("the principal is requested for a different version of the user");
+        GuiProfiledPrincipal principalForOtherVersion = cache.get(KEY, user("2"));
+
+        then("nothing is returned");
+        assertThat(principalForOtherVersion).as("principal for other version").isNull();
+    }
+
+    @Test
+    public void test110UserChange() {
+        given("a cached principal");
+        var cache = new PrincipalCache();
+        putPrincipal(cache);
+
+        when("another user is changed");
+        cache.invalidate(UserType.class, OTHER_USER_OID, null);
+
+        then("the principal is still cached");
+        assertThat(cache.get(KEY, user("1"))).as("cached principal").isNotNull();
+
+        when("the user itself is changed");
+        cache.invalidate(UserType.class, USER_OID, null);
+
+        then("the principal is no longer cached");
+        assertThat(cache.get(KEY, user("1"))).as("cached principal").isNull();
+    }
+
+    @Test
+    public void test120RoleChange() {
+        given("a cached principal");
+        var cache = new PrincipalCache();
+        putPrincipal(cache);
+
+        when("a role the user does not have is changed");
+        cache.invalidate(RoleType.class, OTHER_ROLE_OID, null);
+
+        then("the principal is no longer cached, as the role may be induced indirectly");
+        assertThat(cache.get(KEY, user("1"))).as("cached principal").isNull();
+    }
+
+    @Test
+    public void test130SystemConfigurationChange() {
+        given("a cached principal");
+        var cache = new PrincipalCache();
+        putPrincipal(cache);
+
+        when("the system configuration is changed");
+        cache.invalidate(SystemConfigurationType.class, "00000000-0000-0000-0000-000000000001", null);
+
+        then("the principal is no longer cached");
+        assertThat(cache.get(KEY, user("1"))).as("cached principal").isNull();
+    }
+
+    @Test
+    public void test140InvalidationDuringCompilation() {
+        given("a principal that starts being compiled");
+        var cache = new PrincipalCache();
+        long epoch = cache.getInvalidationEpoch();
+
+        when("a role is changed during the compilation, and then the principal is stored");
+        cache.invalidate(RoleType.class, ROLE_OID, null);
+        cache.put(KEY, new GuiProfiledPrincipal(user("1")), epoch);
+
+        then("the (possibly outdated) principal is not cached");
+        assertThat(cache.get(KEY, user("1"))).as("cached principal").isNull();
+
+        when("the principal is compiled again, without any invalidation");
+        putPrincipal(cache);
+
+        then("it is cached");
+        assertThat(cache.get(KEY, user("1"))).as("cached principal").isNotNull();
+    }
+
+    private void putPrincipal(PrincipalCache cache) {
+        long epoch = cache.getInvalidationEpoch();
+        cache.put(KEY, new GuiProfiledPrincipal(user("1")), epoch);
+    }
+
+    private UserType user(String version) {
+        return new UserType()
+                .oid(USER_OID)
+                .version(version)
+                .name("jack")
+                .roleMembershipRef(ROLE_OID, RoleType.COMPLEX_TYPE);
+    }
+}
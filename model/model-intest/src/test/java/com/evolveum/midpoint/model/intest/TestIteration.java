@@ -15,6 +15,8 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.evolveum.midpoint.schema.internals.InternalsConfig;
 import com.evolveum.midpoint.test.DummyTestResource;
@@ -172,6 +174,12 @@ public class TestIteration extends AbstractInitializedModelIntegrationTest {
     private static final TestObject<ObjectTemplateType> USER_TEMPLATE_ITERATION_BUT_CONSTANT_NAME = TestObject.file(
             TEST_DIR, "user-template-iteration-but-constant-name.xml", "2ebfbbf4-e680-455d-a64f-a49d779a4a53");
 
+    private static final TestObject<ObjectTemplateType> USER_TEMPLATE_ITERATION_PROBING = TestObject.file(
+            TEST_DIR, "user-template-iteration-probing.xml", "5b0d1c25-7f37-4d0f-9d4b-2f4a1d0f6c31");
+
+    /** Iterations in which the pre-iteration condition of {@link #USER_TEMPLATE_ITERATION_PROBING} was evaluated. */
+    public static final Set<Integer> PRE_ITERATION_CONDITION_ITERATIONS = ConcurrentHashMap.newKeySet();
+
     private String jupiterUserOid;
 
     private String iterationTokenDiplomatico;
@@ -215,6 +223,7 @@ public class TestIteration extends AbstractInitializedModelIntegrationTest {
         ROLE_CS_101.init(this, initTask, initResult);
 
         USER_TEMPLATE_ITERATION_BUT_CONSTANT_NAME.init(this, initTask, initResult);
+        USER_TEMPLATE_ITERATION_PROBING.init(this, initTask, initResult);
     }
 
     /**
@@ -2322,4 +2331,43 @@ public class TestIteration extends AbstractInitializedModelIntegrationTest {
             setDefaultUserTemplate(null);
         }
     }
+
+    /**
+     * Names of the following iterations are probed at once (two at a time), so the iterations whose names are taken
+     * are skipped without being processed.
+     *
+     * The probing starts only after the conflict in iteration 1: the empty token of iteration 0 does not tell
+     * which part of the name is the base value.
+     */
+    @Test
+    public void test930ProbingNamesOfFollowingIterations() throws Exception {
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+
+        given("users 'prober' to 'prober3'");
+        for (String name : List.of("prober", "prober1", "prober2", "prober3")) {
+            addObject(new UserType().name(name).asPrismObject(), task, result);
+        }
+        PRE_ITERATION_CONDITION_ITERATIONS.clear();
+
+        setDefaultUserTemplate(USER_TEMPLATE_ITERATION_PROBING.oid);
+        try {
+            when("user with family name 'Prober' is added");
+            addObject(new UserType().familyName("Prober").asPrismObject(), task, result);
+
+            then("the user gets the first free name");
+            assertSuccess(result);
+            UserType user = assertUserAfterByUsername("prober4").getObjectable();
+            assertThat(user.getIteration()).as("iteration").isEqualTo(4);
+            assertThat(user.getIterationToken()).as("iteration token").isEqualTo("4");
+
+            and("the iterations with known conflicting names were skipped");
+            displayValue("iterations", PRE_ITERATION_CONDITION_ITERATIONS);
+            assertThat(PRE_ITERATION_CONDITION_ITERATIONS)
+                    .as("iterations with pre-iteration condition evaluated")
+                    .containsExactlyInAnyOrder(0, 1, 4);
+        } finally {
+            setDefaultUserTemplate(null);
+        }
+    }
 }
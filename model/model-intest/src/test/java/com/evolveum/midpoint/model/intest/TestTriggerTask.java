@@ -12,6 +12,7 @@ import static org.testng.AssertJUnit.*;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.xml.datatype.XMLGregorianCalendar;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,8 +32,11 @@ import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.util.task.ActivityPath;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.test.IntegrationTestTools;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ConflictResolutionActionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TriggerType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 
 /**
@@ -629,4 +633,140 @@ public class TestTriggerTask extends AbstractInitializedModelIntegrationTest {
     }
 
     // trigger scanner task is suspended here; and handler is set to a delay of one day (reset will clear that)
+
+    /**
+     * Processed triggers are removed in batches. Checks that a handler does not see the triggers processed
+     * by the previous handler(s) in the repository.
+     */
+    @Test
+    public void test220TriggersRemovedBeforeNextHandler() throws Exception {
+        given();
+
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+        testTriggerHandler.reset();
+        testMultipleTriggersHandler.reset();
+
+        XMLGregorianCalendar startCal = clock.currentTimeXMLGregorianCalendar();
+        XMLGregorianCalendar startCalPlus5ms = XmlTypeConverter.addMillis(startCal, 5);
+        replaceTriggers(USER_JACK_OID, List.of(startCal), MockMultipleTriggersHandler.HANDLER_URI);
+        addTrigger(USER_JACK_OID, startCalPlus5ms, MockTriggerHandler.HANDLER_URI);
+
+        AtomicReference<List<TriggerType>> triggersSeen = new AtomicReference<>();
+        testTriggerHandler.setInvocationObserver(
+                () -> triggersSeen.set(getRepoTriggers(USER_JACK_OID)));
+
+        when();
+
+        taskManager.resumeTasks(singleton(TASK_TRIGGER_SCANNER_OID), result);
+        IntegrationTestTools.waitFor("Waiting for triggers to be processed",
+                () -> testTriggerHandler.getInvocationCount() > 0 && getRepoTriggers(USER_JACK_OID).isEmpty(),
+                60000);
+        taskManager.suspendTasks(singleton(TASK_TRIGGER_SCANNER_OID), 20000L, result);
+
+        then();
+
+        assertEquals("Multiple triggers handler was called wrong number of times",
+                1, testMultipleTriggersHandler.getInvocationCount());
+        assertEquals("Trigger was called wrong number of times", 1, testTriggerHandler.getInvocationCount());
+        assertNotNull("Trigger handler did not observe the repository", triggersSeen.get());
+        assertEquals("Wrong # of triggers seen by the second handler (the first one should be removed)",
+                1, triggersSeen.get().size());
+        assertEquals("Wrong trigger seen by the second handler",
+                MockTriggerHandler.HANDLER_URI, triggersSeen.get().get(0).getHandlerUri());
+    }
+
+    /**
+     * The second handler fails. The trigger processed by the first handler must be removed nevertheless,
+     * and the failed trigger must be kept.
+     */
+    @Test
+    public void test230SecondHandlerFails() throws Exception {
+        given();
+
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+        testTriggerHandler.reset();
+        testMultipleTriggersHandler.reset();
+
+        XMLGregorianCalendar startCal = clock.currentTimeXMLGregorianCalendar();
+        XMLGregorianCalendar startCalPlus5ms = XmlTypeConverter.addMillis(startCal, 5);
+        replaceTriggers(USER_JACK_OID, List.of(startCal), MockTriggerHandler.HANDLER_URI);
+        addTrigger(USER_JACK_OID, startCalPlus5ms, MockMultipleTriggersHandler.HANDLER_URI);
+
+        testMultipleTriggersHandler.setFailOnNextInvocation(true);
+
+        when();
+
+        taskManager.resumeTasks(singleton(TASK_TRIGGER_SCANNER_OID), result);
+        IntegrationTestTools.waitFor("Waiting for triggers to be processed",
+                () -> testMultipleTriggersHandler.getInvocationCount() > 0 && getRepoTriggers(USER_JACK_OID).size() == 1,
+                60000);
+        taskManager.suspendTasks(singleton(TASK_TRIGGER_SCANNER_OID), 20000L, result);
+
+        then();
+
+        assertEquals("Trigger was called wrong number of times", 1, testTriggerHandler.getInvocationCount());
+        PrismObject<UserType> jackAfter = getUser(USER_JACK_OID);
+        display("jack after", jackAfter);
+        assertEquals("Wrong # of triggers on jack", 1, jackAfter.asObjectable().getTrigger().size());
+        assertTrigger(jackAfter, MockMultipleTriggersHandler.HANDLER_URI, startCalPlus5ms, 1L);
+    }
+
+    /**
+     * Three triggers of an idempotent handler: the handler is executed once, and all the triggers are removed
+     * by a single repository modification (i.e. the object version is incremented by one).
+     */
+    @Test
+    public void test240SeveralTriggersRemovedAtOnce() throws Exception {
+        given();
+
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+        testTriggerHandler.reset();
+        testTriggerHandler.setIdempotent(true);
+
+        try {
+            XMLGregorianCalendar startCal = clock.currentTimeXMLGregorianCalendar();
+            replaceTriggers(USER_JACK_OID,
+                    List.of(startCal, XmlTypeConverter.addMillis(startCal, 5), XmlTypeConverter.addMillis(startCal, 10)),
+                    MockTriggerHandler.HANDLER_URI);
+            int versionBefore = getRepoVersion(USER_JACK_OID);
+
+            when();
+
+            taskManager.resumeTasks(singleton(TASK_TRIGGER_SCANNER_OID), result);
+            IntegrationTestTools.waitFor("Waiting for triggers to be processed",
+                    () -> testTriggerHandler.getInvocationCount() > 0 && getRepoTriggers(USER_JACK_OID).isEmpty(),
+                    60000);
+            taskManager.suspendTasks(singleton(TASK_TRIGGER_SCANNER_OID), 20000L, result);
+
+            then();
+
+            assertEquals("Trigger was called wrong number of times", 1, testTriggerHandler.getInvocationCount());
+            assertNoTrigger(UserType.class, USER_JACK_OID);
+            assertEquals("Wrong # of modifications of jack (triggers should be removed at once)",
+                    versionBefore + 1, getRepoVersion(USER_JACK_OID));
+        } finally {
+            testTriggerHandler.setIdempotent(false);
+        }
+    }
+
+    private int getRepoVersion(String oid) throws CommonException {
+        return Integer.parseInt(
+                repositoryService
+                        .getObject(UserType.class, oid, null, new OperationResult("getRepoVersion"))
+                        .getVersion());
+    }
+
+    private List<TriggerType> getRepoTriggers(String oid) {
+        try {
+            return repositoryService
+                    .getObject(UserType.class, oid, null, new OperationResult("getRepoTriggers"))
+                    .asObjectable()
+                    .getTrigger();
+        } catch (CommonException e) {
+            throw new SystemException(e);
+        }
+    }
 }
@@ -13,6 +13,7 @@ import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.test.TestObject;
 import com.evolveum.midpoint.test.util.MidPointTestConstants;
 import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
 
 import org.springframework.test.annotation.DirtiesContext;
@@ -21,6 +22,8 @@ import org.springframework.test.context.ContextConfiguration;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 
 /**
  *  Tests model.notifyChange using real AMQP messages.
@@ -47,6 +50,8 @@ public class TestAsyncUpdateUcf extends AbstractInitializedModelIntegrationTest
     public static final String GROUPER_GROUP_INTENT = "group";
 
     private static final TestObject<TaskType> TASK_ASYNC_UPDATE = TestObject.file(TEST_DIR, "task-async-update.xml", "02c3f13d-e3e4-40c8-8a39-50013859f0f6");
+    private static final TestObject<TaskType> TASK_ASYNC_UPDATE_MULTITHREADED =
+            TestObject.file(TEST_DIR, "task-async-update-multithreaded.xml", "4e1cd2a4-9a77-4c0b-8a47-2f8f5f1b6a3c");
 
     private static final File CHANGE_100 = new File(TEST_DIR, "change-100-banderson-add.xml");
     private static final File CHANGE_110 = new File(TEST_DIR, "change-110-alumni-add.xml");
@@ -58,6 +63,8 @@ public class TestAsyncUpdateUcf extends AbstractInitializedModelIntegrationTest
     private static final File CHANGE_230 = new File(TEST_DIR, "change-230-jlewis685-identifiers-only.xml");
     private static final File CHANGE_300 = new File(TEST_DIR, "change-300-banderson-delete.xml");
     private static final File CHANGE_310 = new File(TEST_DIR, "change-310-staff-delete.xml");
+    private static final File CHANGE_400_TEMPLATE_ACCOUNT_ADD = new File(TEST_DIR, "change-400-template-account-add.xml");
+    private static final File CHANGE_400_TEMPLATE_GROUP_MODIFY = new File(TEST_DIR, "change-400-template-group-modify.xml");
 
     @Override
     public void initSystem(Task initTask, OperationResult initResult) throws Exception {
@@ -66,6 +73,7 @@ public class TestAsyncUpdateUcf extends AbstractInitializedModelIntegrationTest
         importAndGetObjectFromFile(ResourceType.class, RESOURCE_GROUPER_FILE, RESOURCE_GROUPER_OID, initTask, initResult);
 
         addObject(TASK_ASYNC_UPDATE, initTask, initResult);
+        addObject(TASK_ASYNC_UPDATE_MULTITHREADED, initTask, initResult);
     }
 
     @Test
@@ -397,4 +405,72 @@ public class TestAsyncUpdateUcf extends AbstractInitializedModelIntegrationTest
 
         assertNoObjectByName(OrgType.class, STAFF_NAME, task, result);
     }
+
+    /**
+     * Changes of several accounts, interleaved, processed by multiple worker threads. The changes of each account
+     * must be applied in the order of their arrival, otherwise the final group membership would be wrong.
+     */
+    @Test
+    public void test400ChangesOfSameAccountsInParallel() throws Exception {
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+
+        given("messages for three accounts, interleaved; each account's group is changed from grp-0 to grp-2");
+        String[] names = { "par1", "par2", "par3" };
+        MockAsyncUpdateSource.INSTANCE.reset();
+        for (String name : names) {
+            prepareChange(CHANGE_400_TEMPLATE_ACCOUNT_ADD, name, null, "grp-0");
+        }
+        for (String name : names) {
+            prepareChange(CHANGE_400_TEMPLATE_GROUP_MODIFY, name, "add", "grp-1");
+        }
+        for (String name : names) {
+            prepareChange(CHANGE_400_TEMPLATE_GROUP_MODIFY, name, "delete", "grp-0");
+        }
+        for (String name : names) {
+            prepareChange(CHANGE_400_TEMPLATE_GROUP_MODIFY, name, "add", "grp-2");
+        }
+        for (String name : names) {
+            prepareChange(CHANGE_400_TEMPLATE_GROUP_MODIFY, name, "delete", "grp-1");
+        }
+
+        when("the messages are processed by the multithreaded task");
+        rerunTask(TASK_ASYNC_UPDATE_MULTITHREADED.oid, result);
+
+        then("all the changes are applied in order");
+        result.computeStatus();
+        TestUtil.assertSuccess(result);
+
+        assertTask(TASK_ASYNC_UPDATE_MULTITHREADED.oid, "after")
+                .display()
+                .rootActivityState()
+                    .itemProcessingStatistics()
+                        .display()
+                        .assertTotalCounts(15, 0);
+
+        for (String name : names) {
+            assertUserAfterByUsername(name)
+                    .links()
+                        .singleLive()
+                            .resolveTarget()
+                                .display()
+                                .assertResource(RESOURCE_GROUPER_OID)
+                            .end()
+                        .end()
+                    .end()
+                    .assertOrganizationalUnits("grp-2");
+        }
+    }
+
+    private void prepareChange(File template, String name, String modificationType, String group)
+            throws IOException, SchemaException {
+        String text = Files.readString(template.toPath())
+                .replace("#name#", name)
+                .replace("#group#", group);
+        if (modificationType != null) {
+            text = text.replace("#modificationType#", modificationType);
+        }
+        MockAsyncUpdateSource.INSTANCE.prepareMessage(
+                prismContext.parserFor(text).xml().parseRealValue(UcfChangeType.class));
+    }
 }
@@ -6,8 +6,11 @@
  */
 package com.evolveum.midpoint.model.intest.mapping;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.evolveum.midpoint.model.intest.AbstractInitializedModelIntegrationTest;
 import org.springframework.test.annotation.DirtiesContext;
@@ -24,6 +27,8 @@ import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.test.DummyTestResource;
 import com.evolveum.midpoint.test.TestObject;
+import com.evolveum.midpoint.test.TestTask;
+import com.evolveum.midpoint.util.exception.CommonException;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
@@ -93,6 +98,17 @@ public class TestMappingAdvanced extends AbstractEmptyModelIntegrationTest {
     private static final String MAGNUS = "magnus";
     private static final String VLADIMIR = "vladimir";
 
+    // deterministic mappings
+    private static final TestObject<ObjectTemplateType> USER_TEMPLATE_DETERMINISTIC =
+            TestObject.file(TEST_DIR, "user-template-deterministic.xml", "3c0f6b0e-1f5e-4b8e-9d1c-7b6f5e4a2d11");
+    private static final TestTask TASK_RECOMPUTE_DETERMINISTIC =
+            TestTask.file(TEST_DIR, "task-recompute-deterministic.xml", "9e7d4c1a-5b2f-4f0e-8a63-2d1c0b9f8e47");
+
+    /** Incremented by the mapping in {@link #USER_TEMPLATE_DETERMINISTIC}, i.e. only when it is really evaluated. */
+    public static final AtomicInteger DETERMINISTIC_MAPPING_EVALUATIONS = new AtomicInteger();
+
+    private final String[] deterministicUserOids = new String[4];
+
     @Override
     public void initSystem(Task initTask, OperationResult initResult) throws Exception {
         super.initSystem(initTask, initResult);
@@ -120,6 +136,18 @@ public class TestMappingAdvanced extends AbstractEmptyModelIntegrationTest {
         repoAdd(USER_MAGNUS, initResult);
         repoAdd(USER_VLADIMIR, initResult);
         repoAdd(ROLE_RANGES, initResult);
+
+        // "Deterministic mappings" scenario
+
+        repoAdd(USER_TEMPLATE_DETERMINISTIC, initResult);
+        for (int i = 0; i < deterministicUserOids.length; i++) {
+            UserType user = new UserType()
+                    .name("deterministic-" + i)
+                    .subtype("deterministic")
+                    .costCenter(i < 2 ? "cc1" : "cc2");
+            deterministicUserOids[i] = repositoryService.addObject(user.asPrismObject(), null, initResult);
+        }
+        TASK_RECOMPUTE_DETERMINISTIC.init(this, initTask, initResult);
     }
 
     @Override
@@ -440,6 +468,64 @@ public class TestMappingAdvanced extends AbstractEmptyModelIntegrationTest {
                 .assertMembers();
     }
 
+    /**
+     * Four users with two distinct cost centers are recomputed. The deterministic mapping should be evaluated
+     * only once for each cost center, and the output should be re-used for the other users.
+     */
+    @Test
+    public void test400RecomputeUsersWithDeterministicMapping() throws Exception {
+        given();
+        OperationResult result = getTestOperationResult();
+        DETERMINISTIC_MAPPING_EVALUATIONS.set(0);
+
+        when();
+        TASK_RECOMPUTE_DETERMINISTIC.rerun(result);
+
+        then();
+        TASK_RECOMPUTE_DETERMINISTIC.assertAfter()
+                .assertSuccess();
+        assertDeterministicUserTitles("Member of cc1", "Member of cc1", "Member of cc2", "Member of cc2");
+        assertThat(DETERMINISTIC_MAPPING_EVALUATIONS.get())
+                .as("number of mapping evaluations (cache misses)")
+                .isEqualTo(2);
+    }
+
+    /**
+     * The same task is run again, with one user having a new cost center. Only that one should lead to an evaluation,
+     * as the outputs for the other ones are still remembered.
+     */
+    @Test
+    public void test410RecomputeUsersWithDeterministicMappingAgain() throws Exception {
+        given();
+        OperationResult result = getTestOperationResult();
+        repositoryService.modifyObject(
+                UserType.class,
+                deterministicUserOids[3],
+                deltaFor(UserType.class)
+                        .item(UserType.F_COST_CENTER).replace("cc3")
+                        .asItemDeltas(),
+                result);
+        DETERMINISTIC_MAPPING_EVALUATIONS.set(0);
+
+        when();
+        TASK_RECOMPUTE_DETERMINISTIC.rerun(result);
+
+        then();
+        TASK_RECOMPUTE_DETERMINISTIC.assertAfter()
+                .assertSuccess();
+        assertDeterministicUserTitles("Member of cc1", "Member of cc1", "Member of cc2", "Member of cc3");
+        assertThat(DETERMINISTIC_MAPPING_EVALUATIONS.get())
+                .as("number of mapping evaluations (cache misses)")
+                .isEqualTo(1);
+    }
+
+    private void assertDeterministicUserTitles(String... expectedTitles) throws CommonException {
+        for (int i = 0; i < deterministicUserOids.length; i++) {
+            assertUserAfter(deterministicUserOids[i])
+                    .assertTitle(expectedTitles[i]);
+        }
+    }
+
     private AssignmentType getAssignment(File file) throws IOException, SchemaException {
         return prismContext.parserFor(file).parseRealValue();
     }
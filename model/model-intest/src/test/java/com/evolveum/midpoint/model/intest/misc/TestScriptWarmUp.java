@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.model.intest.misc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.model.common.expression.script.ScriptExpressionWarmUp;
+import com.evolveum.midpoint.model.common.expression.script.ScriptExpressionWarmUp.WarmUpResult;
+import com.evolveum.midpoint.model.intest.AbstractEmptyModelIntegrationTest;
+import com.evolveum.midpoint.schema.internals.InternalCounters;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.test.TestObject;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+
+/**
+ * Tests {@link ScriptExpressionWarmUp}, i.e. the compilation of scripts in configuration objects in advance.
+ */
+@ContextConfiguration(locations = { "classpath:ctx-model-intest-test-main.xml" })
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class TestScriptWarmUp extends AbstractEmptyModelIntegrationTest {
+
+    private static final File TEST_DIR = new File("src/test/resources/misc/script-warm-up");
+
+    /** Contains one valid and one broken script. */
+    private static final TestObject<RoleType> ROLE_SCRIPTED =
+            TestObject.file(TEST_DIR, "role-scripted.xml", "4f0c3e2a-8d52-4d1e-9a57-6f1d2a9b3c01");
+
+    @Autowired private ScriptExpressionWarmUp scriptExpressionWarmUp;
+
+    @Override
+    public void initSystem(Task initTask, OperationResult initResult) throws Exception {
+        super.initSystem(initTask, initResult);
+        repoAdd(ROLE_SCRIPTED, initResult);
+    }
+
+    /** Scripts of abstract roles are compiled and cached; broken ones are counted as failed. */
+    @Test
+    public void test100WarmUp() throws Exception {
+        when("the warm-up runs");
+        WarmUpResult first = scriptExpressionWarmUp.warmUp(2).get();
+
+        then("the valid script is compiled and the broken one failed");
+        displayValue("first run", first);
+        assertThat(first.compiled()).as("compiled scripts").isGreaterThanOrEqualTo(1);
+        assertThat(first.failed()).as("failed scripts").isGreaterThanOrEqualTo(1);
+
+        when("the warm-up runs again");
+        rememberCounter(InternalCounters.SCRIPT_COMPILE_COUNT);
+        WarmUpResult second = scriptExpressionWarmUp.warmUp(2).get();
+
+        then("the compiled scripts are taken from the script cache, only the broken ones are compiled again");
+        displayValue("second run", second);
+        assertThat(second).as("second run").isEqualTo(first);
+        assertCounterIncrement(InternalCounters.SCRIPT_COMPILE_COUNT, second.failed());
+    }
+}
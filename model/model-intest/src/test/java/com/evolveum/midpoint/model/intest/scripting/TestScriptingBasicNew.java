@@ -20,7 +20,9 @@ import com.evolveum.midpoint.util.DebugUtil;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
 import com.evolveum.midpoint.xml.ns._public.model.scripting_3.ExecuteScriptType;
+import com.evolveum.midpoint.xml.ns._public.model.scripting_3.ScriptingExpressionEvaluationOptionsType;
 import com.evolveum.midpoint.xml.ns._public.model.scripting_3.ScriptingExpressionType;
+import com.evolveum.midpoint.xml.ns._public.model.scripting_3.SearchExpressionType;
 
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
@@ -47,6 +49,11 @@ public class TestScriptingBasicNew extends AbstractBasicScriptingTest {
     private static final File UNASSIGN_ALL_FROM_JACK_FILE = new File(TEST_DIR, "unassign-all-from-jack.xml");
     private static final File EXECUTE_CUSTOM_DELTA = new File(TEST_DIR, "execute-custom-delta.xml");
 
+    private static final File EXECUTE_FOR_WHOLE_INPUT_FILE = new File(TEST_DIR, "execute-for-whole-input.xml");
+    private static final File SEARCH_FOR_USERS_WITH_EMBEDDED_EXECUTE_FILE =
+            new File(TEST_DIR, "search-for-users-with-embedded-execute.xml");
+    private static final File SEARCH_FOR_USERS_IN_PIPELINE_FILE = new File(TEST_DIR, "search-for-users-in-pipeline.xml");
+
     private static final TestObject<TaskType> TASK_DELETE_SHADOWS_MULTINODE = TestObject.file(TEST_DIR, "task-delete-shadows-multinode.xml", "931e34be-5cf0-46c6-8cc1-90812a66d5cb");
 
     @Override
@@ -191,6 +198,88 @@ public class TestScriptingBasicNew extends AbstractBasicScriptingTest {
                 .assertNone();
     }
 
+    /**
+     * In the streaming mode, the rest of the pipeline is executed for each object found separately.
+     * Hence, a "whole input" action sees a single object at a time; and the output is not collected.
+     */
+    @Test
+    public void test700WholeInputActionInStreamingMode() throws Exception {
+        given("a pipeline with a whole-input action");
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+        ExecuteScriptType executeScript = parseExecuteScript(EXECUTE_FOR_WHOLE_INPUT_FILE);
+
+        when("it is executed in the standard mode");
+        ExecutionContext output = evaluateExpression(executeScript, task, result);
+
+        then("the action is executed once for both users, and they are in the output");
+        dumpOutput(output, result);
+        assertSuccess(result);
+        assertEquals("Wrong # of output items", 2, output.getFinalOutput().getData().size());
+        assertUserAfter(USER_JACK_OID).assertDescription("batch of 2");
+        assertUserAfter(USER_BARBOSSA_OID).assertDescription("batch of 2");
+
+        when("it is executed in the streaming mode");
+        OperationResult result2 = createOperationResult();
+        ExecutionContext output2 = evaluateExpression(streaming(executeScript), task, result2);
+
+        then("the action is executed for each user separately, and there is no output");
+        dumpOutput(output2, result2);
+        assertSuccess(result2);
+        assertThat(output2.getFinalOutput().getData()).as("output data").isEmpty();
+        assertUserAfter(USER_JACK_OID).assertDescription("batch of 1");
+        assertUserAfter(USER_BARBOSSA_OID).assertDescription("batch of 1");
+    }
+
+    /** In the streaming mode, the output of a search with an embedded expression is collected only if requested. */
+    @Test
+    public void test710EmbeddedExpressionInStreamingMode() throws Exception {
+        given("a search with an embedded expression");
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+        ExecuteScriptType executeScript = parseExecuteScript(SEARCH_FOR_USERS_WITH_EMBEDDED_EXECUTE_FILE);
+
+        when("it is executed in the streaming mode");
+        ExecutionContext output = evaluateExpression(streaming(executeScript), task, result);
+
+        then("there is no output");
+        dumpOutput(output, result);
+        assertSuccess(result);
+        assertThat(output.getFinalOutput().getData()).as("output data").isEmpty();
+
+        when("it is executed in the streaming mode with the output aggregation explicitly turned on");
+        ((SearchExpressionType) executeScript.getScriptingExpression().getValue()).setAggregateOutput(true);
+        OperationResult result2 = createOperationResult();
+        ExecutionContext output2 = evaluateExpression(streaming(executeScript), task, result2);
+
+        then("both users are in the output");
+        dumpOutput(output2, result2);
+        assertSuccess(result2);
+        assertEquals("Wrong # of output items", 2, output2.getFinalOutput().getData().size());
+    }
+
+    /** A search at the end of a pipeline has no downstream expressions, so its output is collected even when streaming. */
+    @Test
+    public void test720SearchAtPipelineEndInStreamingMode() throws Exception {
+        given("a pipeline consisting of a single search");
+        Task task = getTestTask();
+        OperationResult result = task.getResult();
+        ExecuteScriptType executeScript = parseExecuteScript(SEARCH_FOR_USERS_IN_PIPELINE_FILE);
+
+        when("it is executed in the streaming mode");
+        ExecutionContext output = evaluateExpression(streaming(executeScript), task, result);
+
+        then("both users are in the output");
+        dumpOutput(output, result);
+        assertSuccess(result);
+        assertEquals("Wrong # of output items", 2, output.getFinalOutput().getData().size());
+    }
+
+    private ExecuteScriptType streaming(ExecuteScriptType executeScript) {
+        return executeScript.clone()
+                .options(new ScriptingExpressionEvaluationOptionsType().streaming(true));
+    }
+
     @Test
     public void test900ExecuteCustomDelta() throws Exception {
         given();
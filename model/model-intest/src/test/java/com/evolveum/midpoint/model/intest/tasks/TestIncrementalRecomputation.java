@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.model.intest.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.model.intest.AbstractEmptyModelIntegrationTest;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.task.api.TaskManager;
+import com.evolveum.midpoint.test.TestObject;
+import com.evolveum.midpoint.test.TestTask;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Tests the incremental mode of the recomputation activity, namely how the reference time is moved forward
+ * when the activity realization is suspended and resumed, and when there are errors.
+ *
+ * The task has two buckets: users with names starting with `a` and the ones starting with `b`.
+ */
+@ContextConfiguration(locations = { "classpath:ctx-model-intest-test-main.xml" })
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class TestIncrementalRecomputation extends AbstractEmptyModelIntegrationTest {
+
+    private static final File TEST_DIR = new File("src/test/resources/tasks/incremental-recomputation");
+
+    private static final String SUBTYPE_INCREMENTAL = "incremental";
+
+    private static final TestObject<ObjectTemplateType> TEMPLATE_INCREMENTAL = TestObject.file(
+            TEST_DIR, "template-incremental.xml", "37ec3107-0b25-4fb2-bd7b-ed4c85361571");
+    private static final TestObject<ArchetypeType> ARCHETYPE_INCREMENTAL = TestObject.file(
+            TEST_DIR, "archetype-incremental.xml", "73a45891-415b-491e-8000-037d5ce71696");
+    private static final TestTask TASK_RECOMPUTE_INCREMENTAL = new TestTask(
+            TEST_DIR, "task-recompute-incremental.xml", "456dc74d-8692-4511-9c51-72bb9328b969");
+
+    private static final String[] USER_NAMES = { "a1", "a2", "b1", "b2", "b3" };
+
+    private static final long RELEASE_TIMEOUT = 60000;
+
+    /** Recomputation of the user with this name is blocked (once) until {@link #RECOMPUTATION_RELEASED} is counted down. */
+    private static volatile String blockedUserName;
+    private static final CountDownLatch RECOMPUTATION_BLOCKED = new CountDownLatch(1);
+    private static final CountDownLatch RECOMPUTATION_RELEASED = new CountDownLatch(1);
+
+    /** Recomputation of the user with this name fails. */
+    private static volatile String failingUserName;
+
+    private final Map<String, String> userOids = new HashMap<>();
+
+    /** Called from the template mapping, i.e. whenever a user is recomputed. */
+    @SuppressWarnings("unused")
+    public static void onRecomputation(String name, String description) throws InterruptedException {
+        if (name.equals(failingUserName)) {
+            throw new IllegalStateException("Recomputation of " + name + " fails on purpose");
+        }
+        if (name.equals(blockedUserName)) {
+            blockedUserName = null;
+            RECOMPUTATION_BLOCKED.countDown();
+            if (!RECOMPUTATION_RELEASED.await(RELEASE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Recomputation of " + name + " was not released in time");
+            }
+        }
+    }
+
+    @Override
+    public void initSystem(Task initTask, OperationResult initResult) throws Exception {
+        super.initSystem(initTask, initResult);
+
+        initTestObjects(initTask, initResult,
+                TEMPLATE_INCREMENTAL,
+                ARCHETYPE_INCREMENTAL);
+
+        for (String name : USER_NAMES) {
+            UserType user = new UserType()
+                    .name(name)
+                    .subtype(SUBTYPE_INCREMENTAL)
+                    .beginAssignment()
+                        .targetRef(ARCHETYPE_INCREMENTAL.oid, ArchetypeType.COMPLEX_TYPE)
+                    .end();
+            userOids.put(name, addObject(user, initTask, initResult));
+        }
+
+        TASK_RECOMPUTE_INCREMENTAL.init(this, initTask, initResult);
+    }
+
+    /** There is no reference time yet, so all users are recomputed. */
+    @Test
+    public void test100FirstRealization() throws Exception {
+        OperationResult result = getTestOperationResult();
+
+        when("the first realization runs");
+        TASK_RECOMPUTE_INCREMENTAL.rerun(result);
+
+        then("all users are recomputed");
+        assertRecomputedAndSkipped(5, 0);
+    }
+
+    /**
+     * The realization is suspended while processing the second bucket, and then resumed. A user from the first bucket
+     * (already processed) is modified in the meanwhile. It must be recomputed in the next realization, because
+     * the reference time is the start of the realization, not the time of its resumption.
+     */
+    @Test
+    public void test110SuspendedAndResumedRealization() throws Exception {
+        Task task = getTestTask();
+        OperationResult result = getTestOperationResult();
+
+        given("b3 is modified, so it will be recomputed (and blocked) in the second bucket");
+        modifyUserReplace(userOids.get("b3"), UserType.F_DESCRIPTION, task, result, "modified before the 2nd realization");
+        blockedUserName = "b3";
+
+        when("the second realization starts and gets blocked in the second bucket");
+        TASK_RECOMPUTE_INCREMENTAL.restart(result);
+        assertThat(RECOMPUTATION_BLOCKED.await(RELEASE_TIMEOUT, TimeUnit.MILLISECONDS))
+                .as("recomputation of b3 was blocked")
+                .isTrue();
+
+        and("a1 (from the already processed bucket) is modified, and the task is suspended");
+        modifyUserReplace(userOids.get("a1"), UserType.F_DESCRIPTION, task, result, "modified while suspended");
+        taskManager.suspendTask(TASK_RECOMPUTE_INCREMENTAL.oid, TaskManager.DO_NOT_WAIT, result);
+        RECOMPUTATION_RELEASED.countDown();
+        waitForTaskCloseOrSuspend(TASK_RECOMPUTE_INCREMENTAL.oid, RELEASE_TIMEOUT);
+
+        and("the task is resumed, finishing the realization");
+        TASK_RECOMPUTE_INCREMENTAL.resumeAndWaitForFinish(result);
+
+        then("the second realization is complete");
+        TASK_RECOMPUTE_INCREMENTAL.assertAfter()
+                .assertClosed()
+                .assertSuccess();
+
+        when("the third realization runs");
+        TASK_RECOMPUTE_INCREMENTAL.rerun(result);
+
+        then("a1, modified after the start of the second realization, is recomputed");
+        assertRecomputedAndSkipped(1, 4);
+    }
+
+    /** A realization with errors does not move the reference time forward. */
+    @Test
+    public void test120RealizationWithErrors() throws Exception {
+        Task task = getTestTask();
+        OperationResult result = getTestOperationResult();
+
+        given("b1 and b2 are modified, and the recomputation of b2 will fail");
+        modifyUserReplace(userOids.get("b1"), UserType.F_DESCRIPTION, task, result, "modified before the 4th realization");
+        modifyUserReplace(userOids.get("b2"), UserType.F_DESCRIPTION, task, result, "modified before the 4th realization");
+        failingUserName = "b2";
+
+        when("the fourth realization runs");
+        TASK_RECOMPUTE_INCREMENTAL.rerunErrorsOk(result);
+
+        then("b1 is recomputed, b2 fails");
+        // @formatter:off
+        TASK_RECOMPUTE_INCREMENTAL.assertAfter()
+                .rootActivityState()
+                    .itemProcessingStatistics()
+                        .display()
+                        .assertTotalCounts(1, 1, 3)
+                    .end()
+                .end();
+        // @formatter:on
+
+        when("the fifth realization runs, with no errors");
+        failingUserName = null;
+        TASK_RECOMPUTE_INCREMENTAL.rerun(result);
+
+        then("both b1 and b2 are recomputed, as the reference time was not moved");
+        assertRecomputedAndSkipped(2, 3);
+
+        when("the sixth realization runs");
+        TASK_RECOMPUTE_INCREMENTAL.rerun(result);
+
+        then("nothing is recomputed, as the reference time was moved to the start of the fifth realization");
+        assertRecomputedAndSkipped(0, 5);
+    }
+
+    private void assertRecomputedAndSkipped(int recomputed, int skipped) throws Exception {
+        // @formatter:off
+        TASK_RECOMPUTE_INCREMENTAL.assertAfter()
+                .assertClosed()
+                .assertSuccess()
+                .rootActivityState()
+                    .itemProcessingStatistics()
+                        .display()
+                        .assertTotalCounts(recomputed, 0, skipped)
+                    .end()
+                .end();
+        // @formatter:on
+    }
+}
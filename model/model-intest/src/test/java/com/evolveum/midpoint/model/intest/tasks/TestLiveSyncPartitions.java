@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.model.intest.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import com.evolveum.icf.dummy.resource.DummyAccount;
+import com.evolveum.icf.dummy.resource.DummyGroup;
+import com.evolveum.icf.dummy.resource.DummySyncStyle;
+import com.evolveum.midpoint.model.intest.AbstractEmptyModelIntegrationTest;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.test.DummyTestResource;
+import com.evolveum.midpoint.test.TestTask;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+
+/**
+ * Tests partitioned live synchronization, i.e. live sync with a separate token for each object class.
+ *
+ * Partitions (`accounts` and `groups`) are processed in buckets created by implicit work segmentation,
+ * both in a single task and in worker tasks.
+ */
+@ContextConfiguration(locations = { "classpath:ctx-model-intest-test-main.xml" })
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class TestLiveSyncPartitions extends AbstractEmptyModelIntegrationTest {
+
+    private static final File TEST_DIR = new File("src/test/resources/tasks/livesync-partitions");
+
+    private static final String PARTITION_ACCOUNTS = "accounts";
+    private static final String PARTITION_GROUPS = "groups";
+
+    private static final int TIMEOUT = 60000;
+
+    private static final DummyTestResource RESOURCE_DUMMY_PARTITIONS = new DummyTestResource(
+            TEST_DIR, "resource-dummy-partitions.xml", "32ba8ba7-f9e1-4991-bb30-48aa3029664a", "partitions",
+            c -> c.setSyncStyle(DummySyncStyle.DUMB));
+
+    private static final TestTask TASK_PARTITIONED = new TestTask(
+            TEST_DIR, "task-partitioned.xml", "669b524e-a00d-4203-8198-5146cfd7d859");
+    private static final TestTask TASK_PARTITIONED_WORKERS = new TestTask(
+            TEST_DIR, "task-partitioned-workers.xml", "207918bb-66cf-4e35-8427-c74f4505edf1");
+    private static final TestTask TASK_UNPARTITIONED = new TestTask(
+            TEST_DIR, "task-unpartitioned.xml", "eca7e584-f76c-445d-8124-0f6caa6a8d15");
+    private static final TestTask TASK_PARTITIONED_NO_BUCKETS = new TestTask(
+            TEST_DIR, "task-partitioned-no-buckets.xml", "0e26d370-0ff3-407b-abb4-f00034417d6f");
+    private static final TestTask TASK_PARTITIONED_WITH_KIND = new TestTask(
+            TEST_DIR, "task-partitioned-with-kind.xml", "cb703d0d-40f3-4c8e-a9e4-fc10a87f77de");
+
+    @Override
+    public void initSystem(Task initTask, OperationResult initResult) throws Exception {
+        super.initSystem(initTask, initResult);
+
+        RESOURCE_DUMMY_PARTITIONS.initAndTest(this, initTask, initResult);
+        initTestObjects(initTask, initResult,
+                TASK_PARTITIONED,
+                TASK_PARTITIONED_WORKERS,
+                TASK_UNPARTITIONED,
+                TASK_PARTITIONED_NO_BUCKETS,
+                TASK_PARTITIONED_WITH_KIND);
+    }
+
+    /** The first run stores the current token for each partition, in the state of the task itself. */
+    @Test
+    public void test100FirstRun() throws Exception {
+        var result = getTestOperationResult();
+
+        given("an account and a group existing before the first run");
+        addAccount("acc100");
+        addGroup("grp100");
+
+        when("the partitioned task is run for the first time");
+        TASK_PARTITIONED.rerun(result);
+
+        then("each partition has its own token, no objects are synchronized");
+        TASK_PARTITIONED.assertAfter()
+                .assertSuccess();
+        var workState = getWorkState(TASK_PARTITIONED.oid, result);
+        assertPartitions(workState, PARTITION_ACCOUNTS, PARTITION_GROUPS);
+        assertThat(workState.getToken()).as("unpartitioned token").isNull();
+        assertNoUserByUsername("acc100");
+        assertNoObjectByName(RoleType.class, "grp100", getTestTask(), result);
+    }
+
+    /** Changes of both object classes are synchronized, each partition tracking its own token. */
+    @Test
+    public void test110Changes() throws Exception {
+        var result = getTestOperationResult();
+        var tokensBefore = getTokens(getWorkState(TASK_PARTITIONED.oid, result));
+
+        given("a new account and a new group");
+        addAccount("acc110");
+        addGroup("grp110");
+
+        when("the partitioned task is run");
+        TASK_PARTITIONED.rerun(result);
+
+        then("both objects are synchronized, and both tokens are moved");
+        TASK_PARTITIONED.assertAfter()
+                .assertSuccess();
+        assertUserByUsername("acc110", "after");
+        assertRoleByName("grp110", "after");
+        var tokensAfter = getTokens(getWorkState(TASK_PARTITIONED.oid, result));
+        assertThat(tokensAfter.get(PARTITION_ACCOUNTS)).as("accounts token")
+                .isNotNull()
+                .isNotEqualTo(tokensBefore.get(PARTITION_ACCOUNTS));
+        assertThat(tokensAfter.get(PARTITION_GROUPS)).as("groups token")
+                .isNotNull()
+                .isNotEqualTo(tokensBefore.get(PARTITION_GROUPS));
+    }
+
+    /** With workers, the tokens are stored in the coordinator task, as the next run may process a partition elsewhere. */
+    @Test
+    public void test200FirstRunWithWorkers() throws Exception {
+        var result = getTestOperationResult();
+
+        when("the partitioned task with workers is run for the first time");
+        runTaskTreeAndWaitForFinish(TASK_PARTITIONED_WORKERS.oid, TIMEOUT);
+
+        then("each partition has its own token, stored in the coordinator task");
+        assertPartitions(getWorkState(TASK_PARTITIONED_WORKERS.oid, result), PARTITION_ACCOUNTS, PARTITION_GROUPS);
+        assertNoPartitionsInWorkers(TASK_PARTITIONED_WORKERS.oid, result);
+    }
+
+    @Test
+    public void test210ChangesWithWorkers() throws Exception {
+        var result = getTestOperationResult();
+
+        given("a new account and a new group");
+        addAccount("acc210");
+        addGroup("grp210");
+
+        when("the partitioned task with workers is run");
+        runTaskTreeAndWaitForFinish(TASK_PARTITIONED_WORKERS.oid, TIMEOUT);
+
+        then("both objects are synchronized, the tokens are still in the coordinator task");
+        assertUserByUsername("acc210", "after");
+        assertRoleByName("grp210", "after");
+        var workState = getWorkState(TASK_PARTITIONED_WORKERS.oid, result);
+        assertPartitions(workState, PARTITION_ACCOUNTS, PARTITION_GROUPS);
+        assertThat(getTokens(workState).values()).as("tokens").doesNotContainNull();
+        assertNoPartitionsInWorkers(TASK_PARTITIONED_WORKERS.oid, result);
+    }
+
+    /**
+     * An existing live sync task is partitioned. The partitions start from the unpartitioned token, so no changes
+     * are lost. When all partitions have their own tokens, the unpartitioned one is removed.
+     */
+    @Test
+    public void test300Seeding() throws Exception {
+        var task = getTestTask();
+        var result = task.getResult();
+
+        given("an unpartitioned task that was run");
+        TASK_UNPARTITIONED.rerun(result);
+        assertThat(getWorkState(TASK_UNPARTITIONED.oid, result).getToken()).as("unpartitioned token").isNotNull();
+
+        and("an account and a group were created afterwards");
+        addAccount("acc300");
+        addGroup("grp300");
+
+        and("the task is partitioned");
+        executeChanges(
+                deltaFor(TaskType.class)
+                        .item(getResourceObjectsPath().append(ResourceObjectSetType.F_KIND)).replace()
+                        .item(getResourceObjectsPath().append(ResourceObjectSetType.F_INTENT)).replace()
+                        .item(getPartitionPath()).replace(
+                                partition(PARTITION_ACCOUNTS, "AccountObjectClass"),
+                                partition(PARTITION_GROUPS, "GroupObjectClass"))
+                        .item(TaskType.F_ACTIVITY, ActivityDefinitionType.F_DISTRIBUTION).replace(
+                                new ActivityDistributionDefinitionType()
+                                        .buckets(new BucketsDefinitionType()
+                                                .implicitSegmentation(new ImplicitWorkSegmentationType())))
+                        .asObjectDelta(TASK_UNPARTITIONED.oid),
+                null, task, result);
+
+        when("the task is run");
+        TASK_UNPARTITIONED.rerun(result);
+
+        then("the changes made before partitioning are synchronized in both partitions");
+        TASK_UNPARTITIONED.assertAfter()
+                .assertSuccess();
+        assertUserByUsername("acc300", "after");
+        assertRoleByName("grp300", "after");
+
+        and("the unpartitioned token is removed, as all partitions have their own tokens");
+        var workState = getWorkState(TASK_UNPARTITIONED.oid, result);
+        assertPartitions(workState, PARTITION_ACCOUNTS, PARTITION_GROUPS);
+        assertThat(workState.getToken()).as("unpartitioned token").isNull();
+    }
+
+    /**
+     * The partitions are reordered. Their states are bound to the position, so the name check must prevent
+     * using the token of the other partition. The reordered partitions start anew.
+     */
+    @Test
+    public void test310Reordering() throws Exception {
+        var task = getTestTask();
+        var result = task.getResult();
+
+        given("an account created before the partitions are reordered");
+        addAccount("acc310");
+
+        and("the partitions are reordered");
+        executeChanges(
+                deltaFor(TaskType.class)
+                        .item(getPartitionPath()).replace(
+                                partition(PARTITION_GROUPS, "GroupObjectClass"),
+                                partition(PARTITION_ACCOUNTS, "AccountObjectClass"))
+                        .asObjectDelta(TASK_UNPARTITIONED.oid),
+                null, task, result);
+
+        when("the task is run");
+        TASK_UNPARTITIONED.rerun(result);
+
+        then("the partition states are replaced, starting from the current state of the resource");
+        TASK_UNPARTITIONED.assertAfter()
+                .assertSuccess();
+        var workState = getWorkState(TASK_UNPARTITIONED.oid, result);
+        assertPartitions(workState, PARTITION_GROUPS, PARTITION_ACCOUNTS);
+        assertThat(getTokens(workState).values()).as("tokens").doesNotContainNull();
+        assertNoUserByUsername("acc310");
+
+        when("an account is created and the task is run again");
+        addAccount("acc311");
+        TASK_UNPARTITIONED.rerun(result);
+
+        then("it is synchronized using the new token");
+        assertUserByUsername("acc311", "after");
+    }
+
+    /** Partitioned live sync without buckets is rejected, as the partitions would not be processed separately. */
+    @Test
+    public void test400NoBuckets() throws Exception {
+        var result = getTestOperationResult();
+
+        when("the partitioned task without buckets is run");
+        TASK_PARTITIONED_NO_BUCKETS.rerunErrorsOk(result);
+
+        then("it fails");
+        TASK_PARTITIONED_NO_BUCKETS.assertAfter()
+                .assertFatalError()
+                .assertResultMessageContains("requires buckets");
+    }
+
+    /** Partitioned live sync restricting the kind is rejected, as the kind would be ignored. */
+    @Test
+    public void test410KindWithPartitions() throws Exception {
+        var result = getTestOperationResult();
+
+        when("the partitioned task restricting the kind is run");
+        TASK_PARTITIONED_WITH_KIND.rerunErrorsOk(result);
+
+        then("it fails");
+        TASK_PARTITIONED_WITH_KIND.assertAfter()
+                .assertFatalError()
+                .assertResultMessageContains("cannot restrict resource objects");
+    }
+
+    private void addAccount(String name) throws Exception {
+        RESOURCE_DUMMY_PARTITIONS.getDummyResource().addAccount(new DummyAccount(name));
+    }
+
+    private void addGroup(String name) throws Exception {
+        RESOURCE_DUMMY_PARTITIONS.getDummyResource().addGroup(new DummyGroup(name));
+    }
+
+    private static @NotNull ItemPath getResourceObjectsPath() {
+        return ItemPath.create(
+                TaskType.F_ACTIVITY, ActivityDefinitionType.F_WORK, WorkDefinitionsType.F_LIVE_SYNCHRONIZATION,
+                LiveSyncWorkDefinitionType.F_RESOURCE_OBJECTS);
+    }
+
+    private static @NotNull ItemPath getPartitionPath() {
+        return ItemPath.create(
+                TaskType.F_ACTIVITY, ActivityDefinitionType.F_WORK, WorkDefinitionsType.F_LIVE_SYNCHRONIZATION,
+                LiveSyncWorkDefinitionType.F_PARTITION);
+    }
+
+    private static @NotNull LiveSyncPartitionDefinitionType partition(String name, String objectClassLocalName) {
+        return new LiveSyncPartitionDefinitionType()
+                .name(name)
+                .objectclass(new QName(SchemaConstants.NS_RI, objectClassLocalName));
+    }
+
+    /** Returns the work state of the root activity, as stored in the repository. */
+    private LiveSyncWorkStateType getWorkState(String taskOid, OperationResult result) throws CommonException {
+        TaskType task = repositoryService.getObject(TaskType.class, taskOid, null, result).asObjectable();
+        TaskActivityStateType activityState = task.getActivityState();
+        if (activityState == null || activityState.getActivity() == null) {
+            return null;
+        }
+        return (LiveSyncWorkStateType) activityState.getActivity().getWorkState();
+    }
+
+    private void assertPartitions(LiveSyncWorkStateType workState, String... expectedNamesInOrder) {
+        assertThat(workState).as("work state").isNotNull();
+        displayValue("partitions", workState.getPartition());
+        List<LiveSyncPartitionWorkStateType> partitions = workState.getPartition();
+        assertThat(partitions).as("partitions").hasSize(expectedNamesInOrder.length);
+        for (int i = 0; i < expectedNamesInOrder.length; i++) {
+            long id = i + 1;
+            var partition = partitions.stream()
+                    .filter(p -> p.getId() == id)
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError("No state for partition #" + id));
+            assertThat(partition.getName()).as("name of partition #" + id).isEqualTo(expectedNamesInOrder[i]);
+            assertThat(partition.getToken()).as("token of partition #" + id).isNotNull();
+        }
+    }
+
+    private Map<String, Object> getTokens(LiveSyncWorkStateType workState) {
+        Map<String, Object> tokens = new HashMap<>();
+        workState.getPartition().forEach(p -> tokens.put(p.getName(), p.getToken()));
+        return tokens;
+    }
+
+    private void assertNoPartitionsInWorkers(String coordinatorOid, OperationResult result) throws CommonException {
+        List<? extends Task> workers = taskManager.getTaskPlain(coordinatorOid, result).listSubtasks(true, result);
+        assertThat(workers).as("workers").isNotEmpty();
+        for (Task worker : workers) {
+            TaskActivityStateType activityState = worker.getActivitiesStateOrClone();
+            AbstractActivityWorkStateType workState = activityState != null && activityState.getActivity() != null ?
+                    activityState.getActivity().getWorkState() : null;
+            if (workState instanceof LiveSyncWorkStateType liveSyncWorkState) {
+                assertThat(liveSyncWorkState.getPartition()).as("partitions in " + worker).isEmpty();
+                assertThat(liveSyncWorkState.getToken()).as("token in " + worker).isNull();
+            }
+        }
+    }
+}
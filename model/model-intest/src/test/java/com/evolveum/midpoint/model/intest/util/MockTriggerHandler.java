@@ -36,6 +36,7 @@ public class MockTriggerHandler implements SingleTriggerHandler {
     private long delay;
     private boolean failOnNextInvocation;
     private boolean idempotent;
+    private Runnable invocationObserver;
 
     public PrismObject<?> getLastObject() {
         return lastObject;
@@ -66,6 +67,9 @@ public class MockTriggerHandler implements SingleTriggerHandler {
             @NotNull RunningTask task, @NotNull OperationResult result) {
         IntegrationTestTools.display("Mock trigger handler called with " + object);
         lastObject = object.clone();
+        if (invocationObserver != null) {
+            invocationObserver.run();
+        }
         invocationCount.incrementAndGet();
         MiscUtil.sleepWatchfully(System.currentTimeMillis() + delay, 500, task::canRun);
         if (failOnNextInvocation) {
@@ -78,6 +82,12 @@ public class MockTriggerHandler implements SingleTriggerHandler {
         invocationCount.set(0);
         delay = 0;
         failOnNextInvocation = false;
+        invocationObserver = null;
+    }
+
+    /** The observer is called at the beginning of each invocation, e.g. to check the repository state at that moment. */
+    public void setInvocationObserver(Runnable invocationObserver) {
+        this.invocationObserver = invocationObserver;
     }
 
     @Override
@@ -11,6 +11,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import com.evolveum.midpoint.authentication.api.config.MidpointAuthentication;
 import com.evolveum.midpoint.authentication.api.util.AuthUtil;
@@ -35,6 +36,7 @@ import com.evolveum.midpoint.model.api.authentication.GuiProfiledPrincipalManage
 import com.evolveum.midpoint.model.api.util.ClusterServiceConsts;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.repo.api.CacheDispatcher;
+import com.evolveum.midpoint.repo.api.RemoteCacheInvalidationDetails;
 import com.evolveum.midpoint.schema.DefinitionProcessingOption;
 import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.SelectorOptions;
@@ -105,6 +107,18 @@ public class ClusterRestController extends AbstractRestController {
     public ResponseEntity<?> executeClusterCacheInvalidationEvent(
             @PathVariable("type") String type,
             @PathVariable("oid") String oid) {
+        return executeClusterCacheInvalidationEvent(type, oid, null, null, null);
+    }
+
+    /** Modification parameters are sent only for object modifications, see {@link RemoteCacheInvalidationDetails}. */
+    @PostMapping(value = ClusterServiceConsts.EVENT_INVALIDATION + "{type}/{oid}",
+            params = ClusterServiceConsts.PARAM_MODIFIED_ITEM)
+    public ResponseEntity<?> executeClusterCacheInvalidationEvent(
+            @PathVariable("type") String type,
+            @PathVariable("oid") String oid,
+            @RequestParam(ClusterServiceConsts.PARAM_MODIFIED_ITEM) List<String> modifiedItems,
+            @RequestParam(value = ClusterServiceConsts.PARAM_VERSION_BEFORE, required = false) String versionBefore,
+            @RequestParam(value = ClusterServiceConsts.PARAM_VERSION_AFTER, required = false) String versionAfter) {
         Task task = initRequest();
         OperationResult result = createSubresult(task, OPERATION_EXECUTE_CLUSTER_CACHE_INVALIDATION_EVENT);
 
@@ -115,7 +129,10 @@ public class ClusterRestController extends AbstractRestController {
             Class<? extends ObjectType> clazz = type != null ? ObjectTypes.getClassFromRestType(type) : null;
 
             // clusterwide is false: we got this from another node so we don't need to redistribute it
-            cacheDispatcher.dispatchInvalidation(clazz, oid, false, new CacheInvalidationContext(true, null));
+            RemoteCacheInvalidationDetails details = modifiedItems != null
+                    ? new RemoteCacheInvalidationDetails(Set.copyOf(modifiedItems), versionBefore, versionAfter)
+                    : null;
+            cacheDispatcher.dispatchInvalidation(clazz, oid, false, new CacheInvalidationContext(true, details));
 
             result.recordSuccess();
             response = createResponse(HttpStatus.OK, result);
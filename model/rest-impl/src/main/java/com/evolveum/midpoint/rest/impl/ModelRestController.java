@@ -10,12 +10,14 @@ import static org.springframework.http.ResponseEntity.status;
 
 import static com.evolveum.midpoint.security.api.RestAuthorizationAction.*;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import javax.xml.namespace.QName;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
@@ -30,10 +32,12 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.evolveum.midpoint.model.api.*;
 import com.evolveum.midpoint.model.impl.ModelCrudService;
 import com.evolveum.midpoint.model.impl.scripting.PipelineData;
+import com.evolveum.midpoint.prism.PrismConstants;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.delta.ItemDelta;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.path.ItemPathCollectionsUtil;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.schema.DefinitionProcessingOption;
 import com.evolveum.midpoint.schema.DeltaConvertor;
@@ -45,6 +49,7 @@ import com.evolveum.midpoint.schema.constants.MidPointConstants;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
 import com.evolveum.midpoint.schema.expression.VariablesMap;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.util.ObjectQueryUtil;
 import com.evolveum.midpoint.schema.util.WorkItemId;
 import com.evolveum.midpoint.security.api.RestHandlerMethod;
 import com.evolveum.midpoint.security.api.SecurityUtil;
@@ -662,6 +667,127 @@ public class ModelRestController extends AbstractRestController {
         return response;
     }
 
+    /**
+     * Searches for objects and writes them to the response as they are found, without keeping them all in memory.
+     * See {@link StreamingSearchResultWriter} for the output format.
+     *
+     * If `maxSize` is specified and there are more objects, a `pagingCookie` is returned. It can be passed to the next call
+     * (with the same query) to get the following objects. The continuation is based on object OIDs (the objects are returned
+     * in the OID order), so it cannot be combined with ordering or offset in the query.
+     */
+    @RestHandlerMethod(authorization = SEARCH_OBJECTS)
+    @PostMapping(value = "/{type}/search/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> searchObjectsStreaming(
+            @PathVariable("type") String type,
+            @RequestParam(value = "options", required = false) List<String> options,
+            @RequestParam(value = "include", required = false) List<String> include,
+            @RequestParam(value = "exclude", required = false) List<String> exclude,
+            @RequestParam(value = "resolveNames", required = false) List<String> resolveNames,
+            @RequestParam(value = "maxSize", required = false) Integer maxSize,
+            @RequestParam(value = "pagingCookie", required = false) String pagingCookie,
+            @RequestBody(required = false) QueryType queryType,
+            HttpServletResponse httpResponse) {
+
+        Task task = initRequest();
+        OperationResult result = task.getResult().createSubresult("searchObjectsStreaming");
+
+        Class<? extends ObjectType> clazz = ObjectTypes.getClassFromRestType(type);
+        StreamingSearchResultWriter writer = new StreamingSearchResultWriter(httpResponse, prismContext);
+        ResponseEntity<?> response;
+        try {
+            ObjectQuery query = createStreamingSearchQuery(clazz, queryType, maxSize, pagingCookie);
+            Collection<SelectorOptions<GetOperationOptions>> searchOptions = GetOperationOptions.fromRestOptions(options, include,
+                    exclude, resolveNames, DefinitionProcessingOption.ONLY_IF_EXISTS, prismContext);
+            streamSearchResults(clazz, query, searchOptions, exclude, maxSize, writer, task, result);
+            response = null; // already written
+        } catch (Exception ex) {
+            if (writer.isStarted()) {
+                // Too late to send the error response; the error was reported in the output.
+                LoggingUtils.logUnexpectedException(logger, "Couldn't finish streaming search results", ex);
+                result.recordFatalError(ex);
+                response = null;
+            } else {
+                response = handleException(result, ex);
+            }
+        }
+
+        result.computeStatus();
+        finishRequest(task, result);
+        return response;
+    }
+
+    private ObjectQuery createStreamingSearchQuery(
+            Class<? extends ObjectType> clazz, QueryType queryType, Integer maxSize, String pagingCookie)
+            throws SchemaException {
+        ObjectQuery query = queryType != null ?
+                prismContext.getQueryConverter().createObjectQuery(clazz, queryType) :
+                prismContext.queryFactory().createQuery();
+        if (maxSize == null && pagingCookie == null) {
+            return query;
+        }
+        if (maxSize != null && maxSize <= 0) {
+            throw new IllegalArgumentException("'maxSize' must be positive: " + maxSize);
+        }
+        ObjectPaging paging = query.getPaging();
+        if (paging != null && (paging.hasOrdering() || paging.getOffset() != null || paging.getMaxSize() != null)) {
+            throw new IllegalArgumentException(
+                    "Paging in the query cannot be combined with 'maxSize' and 'pagingCookie' parameters");
+        }
+        // The maxSize is not put into the query: objects skipped by the model (e.g. because of authorizations)
+        // would make the page look like the last one. We stop the iteration ourselves instead.
+        if (pagingCookie != null) {
+            query.setFilter(
+                    ObjectQueryUtil.filterAndImmutable(
+                            query.getFilter(),
+                            prismContext.queryFor(clazz)
+                                    .item(PrismConstants.T_ID).gt(pagingCookie)
+                                    .buildFilter()));
+        }
+        return query;
+    }
+
+    private <T extends ObjectType> void streamSearchResults(
+            Class<T> clazz, ObjectQuery query, Collection<SelectorOptions<GetOperationOptions>> searchOptions,
+            List<String> exclude, Integer maxSize, StreamingSearchResultWriter writer, Task task, OperationResult result)
+            throws CommonException, IOException {
+        String[] lastOid = new String[1];
+        boolean[] hasMore = new boolean[1];
+        try {
+            modelService.searchObjectsIterative(clazz, query,
+                    (object, lResult) -> {
+                        if (maxSize != null && writer.getObjectsWritten() >= maxSize) {
+                            hasMore[0] = true;
+                            return false;
+                        }
+                        try {
+                            removeExcludes(object, exclude); // temporary measure until fixed in repo
+                            writer.writeObject(object);
+                            lastOid[0] = object.getOid();
+                            return true;
+                        } catch (IOException | SchemaException e) {
+                            throw new TunnelException(e);
+                        }
+                    }, searchOptions, task, result);
+        } catch (TunnelException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException; // Probably the client went away. Nothing more can be written.
+            } else if (writer.isStarted()) {
+                writer.writeEnd(null, e.getCause().getMessage());
+                throw e;
+            } else {
+                throw (SchemaException) e.getCause();
+            }
+        } catch (CommonException | RuntimeException e) {
+            if (writer.isStarted()) {
+                writer.writeEnd(null, e.getMessage());
+            }
+            throw e;
+        }
+
+        // The cookie is the OID of the last object returned, as the next page is selected by the OID (see above).
+        writer.writeEnd(hasMore[0] ? lastOid[0] : null, null);
+    }
+
     private void removeExcludes(PrismObject<? extends ObjectType> object, List<String> exclude)
             throws SchemaException {
         object.getValue().removePaths(
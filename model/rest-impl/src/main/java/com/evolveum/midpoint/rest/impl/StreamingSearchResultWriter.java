@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.rest.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismSerializer;
+import com.evolveum.midpoint.prism.SerializationOptions;
+import com.evolveum.midpoint.util.exception.SchemaException;
+
+/**
+ * Writes search results to the HTTP response one by one, as they are found, so they do not need to be kept in memory.
+ *
+ * The output is a JSON document like this:
+ *
+ * [source,json]
+ * ----
+ * {
+ *   "objects" : [
+ *     { "user" : { ... } },
+ *     { "user" : { ... } }
+ *   ],
+ *   "pagingCookie" : "...",
+ *   "error" : "..."
+ * }
+ * ----
+ *
+ * The objects are serialized in the same way as by {@link MidpointJsonHttpMessageConverter}. The `pagingCookie` is present
+ * only if there may be more objects to be returned; `error` only if the search failed after the output has started
+ * (as the HTTP status cannot be changed at that time).
+ *
+ * The response is not touched until the first object (or the end) is written. So, if the search fails before that,
+ * the usual error response can be sent instead.
+ */
+class StreamingSearchResultWriter {
+
+    @NotNull private final HttpServletResponse response;
+    @NotNull private final PrismSerializer<String> serializer;
+
+    /** Created when the output starts. */
+    private Writer writer;
+
+    private int objectsWritten;
+
+    StreamingSearchResultWriter(@NotNull HttpServletResponse response, @NotNull PrismContext prismContext) {
+        this.response = response;
+        this.serializer = prismContext.jsonSerializer()
+                .options(SerializationOptions.createSerializeReferenceNames());
+    }
+
+    boolean isStarted() {
+        return writer != null;
+    }
+
+    private void startIfNeeded() throws IOException {
+        if (writer == null) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+            writer.write("{\n\"objects\" : [\n");
+        }
+    }
+
+    void writeObject(@NotNull PrismObject<?> object) throws IOException, SchemaException {
+        String serialized = serializer.serialize(object);
+        startIfNeeded();
+        if (objectsWritten > 0) {
+            writer.write(",\n");
+        }
+        writer.write(serialized);
+        objectsWritten++;
+    }
+
+    int getObjectsWritten() {
+        return objectsWritten;
+    }
+
+    void writeEnd(@Nullable String pagingCookie, @Nullable String error) throws IOException {
+        startIfNeeded();
+        writer.write("\n]");
+        if (pagingCookie != null) {
+            writer.write(",\n\"pagingCookie\" : ");
+            writeString(pagingCookie);
+        }
+        if (error != null) {
+            writer.write(",\n\"error\" : ");
+            writeString(error);
+        }
+        writer.write("\n}\n");
+        writer.flush();
+    }
+
+    private void writeString(@NotNull String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
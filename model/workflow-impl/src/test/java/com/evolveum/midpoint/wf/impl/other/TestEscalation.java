@@ -6,14 +6,17 @@
  */
 package com.evolveum.midpoint.wf.impl.other;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
 
 import java.io.File;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
@@ -29,6 +32,7 @@ import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.util.cases.ApprovalUtils;
 import com.evolveum.midpoint.schema.util.cases.CaseTypeUtil;
 import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.test.DummyAuditEventListener;
 import com.evolveum.midpoint.util.DebugUtil;
 import com.evolveum.midpoint.wf.impl.AbstractWfTestPolicy;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
@@ -50,6 +54,9 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
  * 2. After 3 days, the escalation level 1 is entered, with a single assignee added to each of the two work items.
  * New deadline is 5 days.
  * 3. After those 5 days, automated rejection takes place.
+ *
+ * *For tests 3xx*, we assign *E2* role again, and check that the escalation is not applied twice when it fails
+ * after the case was updated.
  */
 @ContextConfiguration(locations = { "classpath:ctx-workflow-test-main.xml" })
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
@@ -78,6 +85,10 @@ public class TestEscalation extends AbstractWfTestPolicy {
     private static final File USER_BOBEK_FILE = new File(TEST_ESCALATION_RESOURCE_DIR, "user-bobek.xml");
     private static final String USER_BOBEK_OID = "53b49582-de4b-4306-a135-41f46e64cbcc";
 
+    /** Delegates added at escalation of the work items of `bob` and `bobek`, respectively (see `role-e2`). */
+    private static final String BOB_ESCALATION_DELEGATE_OID = "00000001-d34d-b33f-f00d-ad1000000001";
+    private static final String BOBEK_ESCALATION_DELEGATE_OID = "00000001-d34d-b33f-f00d-ad1000000002";
+
     private String approvalCaseOid;
 
     @Override
@@ -326,6 +337,9 @@ public class TestEscalation extends AbstractWfTestPolicy {
 
     /**
      * After 3 days, the work items should be escalated.
+     *
+     * Both escalations have the same cause, so they are executed in a single request. Each work item must get
+     * its own delegate, and must be escalated exactly once.
      */
     @Test
     public void test210CheckEscalationAfter3Days() throws Exception {
@@ -360,14 +374,31 @@ public class TestEscalation extends AbstractWfTestPolicy {
                     .forOriginalAssignee(USER_BOB_OID)
                         .assertNotClosed()
                         .assertEscalationLevelNumber(1)
+                        .assertAssignees(USER_BOB_OID, BOB_ESCALATION_DELEGATE_OID)
                     .end()
                     .forOriginalAssignee(USER_BOBEK_OID)
                         .assertNotClosed()
                         .assertEscalationLevelNumber(1)
+                        .assertAssignees(USER_BOBEK_OID, BOBEK_ESCALATION_DELEGATE_OID)
                     .end()
                 .getWorkItems();
         // @formatter:on
 
+        CaseType approvalCase = getCase(approvalCaseOid);
+        Map<Long, WorkItemEscalationEventType> escalationEventMap = new HashMap<>();
+        for (CaseEventType event : approvalCase.getEvent()) {
+            if (event instanceof WorkItemEscalationEventType escalationEvent) {
+                assertNotNull("No cause in " + escalationEvent, escalationEvent.getCause());
+                assertEquals("Wrong cause type in " + escalationEvent,
+                        WorkItemEventCauseTypeType.TIMED_ACTION, escalationEvent.getCause().getType());
+                assertEquals("Wrong cause name in " + escalationEvent, "auto-escalate", escalationEvent.getCause().getName());
+                assertNull("Work item escalated twice: " + escalationEvent,
+                        escalationEventMap.put(escalationEvent.getWorkItemId(), escalationEvent));
+            }
+        }
+        displayValue("escalation event map", escalationEventMap);
+        assertEquals("Wrong # of work item escalation events in case history", 2, escalationEventMap.size());
+
         var iterator = workItems.iterator();
         CaseWorkItemType first = iterator.next();
         CaseWorkItemType second = iterator.next();
@@ -450,6 +481,99 @@ public class TestEscalation extends AbstractWfTestPolicy {
         }
     }
 
+    /**
+     * We create another E2 case, to test the escalation when the processing fails after the case was updated.
+     */
+    @Test
+    public void test300CreateAnotherE2ApprovalCase() throws Exception {
+        given();
+        login(userAdministrator);
+
+        Task task = getTestTask();
+        OperationResult result = getTestOperationResult();
+
+        clock.resetOverride();
+
+        when();
+        assignRole(USER_JACK.oid, ROLE_E2_OID, task, result);
+
+        then();
+        List<CaseWorkItemType> workItems = getWorkItems(task, result);
+        displayWorkItems("Work items", workItems);
+
+        approvalCaseOid = CaseTypeUtil.getCaseRequired(workItems.get(0)).getOid();
+
+        // @formatter:off
+        assertCase(approvalCaseOid, "after")
+                .display()
+                .assertOpen()
+                .triggers()
+                    .assertTriggers(2)
+                .end();
+        // @formatter:on
+    }
+
+    /**
+     * Both escalations are executed in a single request that fails on auditing, i.e. after the case was written
+     * to the repository. When retrying the escalations one by one, the already escalated work items must be skipped.
+     */
+    @Test
+    public void test310EscalationFailingAfterCommit() throws Exception {
+        given("the first work item audit record fails");
+        login(userAdministrator);
+
+        dummyAuditService.clear();
+        AtomicBoolean failed = new AtomicBoolean();
+        DummyAuditEventListener failingListener = record -> {
+            if (record.getEventType() == AuditEventType.WORK_ITEM && failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Simulated audit failure");
+            }
+        };
+        dummyAuditService.addEventListener(failingListener);
+
+        clock.resetOverride();
+        clock.overrideDuration("P3DT1H");
+
+        try {
+            when("the escalation deadline is reached");
+            waitForTaskNextRun(TASK_TRIGGER_SCANNER_OID, 20000, true);
+        } finally {
+            dummyAuditService.removeEventListener(failingListener);
+        }
+
+        then("the failure occurred, but each work item is escalated exactly once");
+        assertThat(failed).as("audit failure injected").isTrue();
+
+        // @formatter:off
+        assertCase(approvalCaseOid, "after")
+                .display()
+                .assertOpen()
+                .triggers()
+                    // only the auto-rejections are left; escalations are processed
+                    .assertTriggers(2)
+                .end()
+                .workItems()
+                    .forOriginalAssignee(USER_BOB_OID)
+                        .assertEscalationLevelNumber(1)
+                        .assertAssignees(USER_BOB_OID, BOB_ESCALATION_DELEGATE_OID)
+                    .end()
+                    .forOriginalAssignee(USER_BOBEK_OID)
+                        .assertEscalationLevelNumber(1)
+                        .assertAssignees(USER_BOBEK_OID, BOBEK_ESCALATION_DELEGATE_OID)
+                    .end()
+                .end();
+        // @formatter:on
+
+        Map<Long, WorkItemEscalationEventType> escalationEventMap = new HashMap<>();
+        for (CaseEventType event : getCase(approvalCaseOid).getEvent()) {
+            if (event instanceof WorkItemEscalationEventType escalationEvent) {
+                assertNull("Work item escalated twice: " + escalationEvent,
+                        escalationEventMap.put(escalationEvent.getWorkItemId(), escalationEvent));
+            }
+        }
+        assertEquals("Wrong # of work item escalation events in case history", 2, escalationEventMap.size());
+    }
+
     private void assertContains(Message notification, String text) {
         if (!notification.getBody().contains(text)) {
             fail("No '" + text + "' in " + notification);
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl.resources;
+
+import java.util.Collection;
+import java.util.Collections;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.repo.api.Cache;
+import com.evolveum.midpoint.repo.api.CacheRegistry;
+import com.evolveum.midpoint.repo.api.DeleteObjectResult;
+import com.evolveum.midpoint.repo.api.ModifyObjectResult;
+import com.evolveum.midpoint.repo.api.RemoteCacheInvalidationDetails;
+import com.evolveum.midpoint.repo.cache.invalidation.RepositoryCacheInvalidationDetails;
+import com.evolveum.midpoint.schema.processor.NativeResourceSchemaCache;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SingleCacheStateInformationType;
+
+/**
+ * Adapter from {@link NativeResourceSchemaCache} (living in the schema module, without access to the cache registry)
+ * to {@link Cache}.
+ *
+ * The cached schemas are checked against the schema identity on each use, so they need not be invalidated when
+ * the resource changes. We only drop the parsed schema (to free the memory) when the resource is deleted or its schema
+ * is modified, as far as we know it. Other modifications - including the ones coming from other nodes, whose details
+ * are not known - keep the schema cached.
+ */
+@Component
+public class NativeResourceSchemaCacheAdapter implements Cache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(NativeResourceSchemaCacheAdapter.class);
+
+    @Autowired private CacheRegistry cacheRegistry;
+
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCache(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCache(this);
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (type == null || type.isAssignableFrom(ResourceType.class)) {
+            if (oid == null) {
+                LOGGER.trace("Invalidating all native schemas");
+                NativeResourceSchemaCache.invalidateAll();
+            } else if (isDeletionOrSchemaModification(context)) {
+                LOGGER.trace("Invalidating native schema of {}", oid);
+                NativeResourceSchemaCache.invalidate(oid);
+            }
+        }
+    }
+
+    private static boolean isDeletionOrSchemaModification(CacheInvalidationContext context) {
+        var details = context != null ? context.getDetails() : null;
+        if (details instanceof RemoteCacheInvalidationDetails remoteDetails) {
+            return remoteDetails.modifiedItems().contains(ResourceType.F_SCHEMA.getLocalPart());
+        } else if (details instanceof RepositoryCacheInvalidationDetails localDetails) {
+            var operationResult = localDetails.getResult();
+            if (operationResult instanceof DeleteObjectResult) {
+                return true;
+            } else if (operationResult instanceof ModifyObjectResult<?> modifyResult) {
+                return modifyResult.isOverwrite()
+                        || modifyResult.getModifications().stream()
+                        .anyMatch(modification -> ResourceType.F_SCHEMA.isSubPathOrEquivalent(modification.getPath()));
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public @NotNull Collection<SingleCacheStateInformationType> getStateInformation() {
+        return Collections.singleton(
+                new SingleCacheStateInformationType()
+                        .name(NativeResourceSchemaCache.class.getName())
+                        .size(NativeResourceSchemaCache.size()));
+    }
+
+    @Override
+    public void dumpContent() {
+        // The schemas are too large to be dumped.
+    }
+}
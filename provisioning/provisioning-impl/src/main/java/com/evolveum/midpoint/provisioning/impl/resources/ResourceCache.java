@@ -12,6 +12,7 @@ import com.evolveum.midpoint.repo.api.Cache;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.repo.api.CacheRegistry;
 import com.evolveum.midpoint.schema.internals.InternalMonitor;
+import com.evolveum.midpoint.schema.processor.NativeResourceSchemaCache;
 import com.evolveum.midpoint.schema.processor.ResourceSchemaFactory;
 import com.evolveum.midpoint.schema.processor.ResourceSchemaRegistry;
 import com.evolveum.midpoint.schema.result.OperationResult;
@@ -53,6 +54,10 @@ import static com.evolveum.midpoint.util.caching.CacheConfiguration.StatisticsLe
  * The cache deals with concrete resources, i.e. _not_ the abstract ones. So, when an abstract resource is invalidated,
  * all concrete ones that inherit from it should be invalidated as well.
  *
+ * The reads are not synchronized, as the cached objects are immutable. The parsed native schemas are shared
+ * among all the instances of the same resource version by {@link NativeResourceSchemaCache}, so re-caching a resource
+ * (e.g. after a version mismatch or an invalidation) does not require parsing the schema again.
+ *
  * @author Radovan Semancik
  */
 @Component
@@ -79,7 +84,7 @@ public class ResourceCache implements Cache {
      * Note that prism objects in this map are always not null and immutable.
      * And they must remain immutable after getting them from the cache.
      *
-     * As for ConcurrentHashMap: Although we use synchronization whenever possible, let's be extra cautious here.
+     * Modifications are synchronized (on `this`), reads are not. Hence the ConcurrentHashMap.
      */
     private final Map<String, PrismObject<ResourceType>> cache = new ConcurrentHashMap<>();
 
@@ -144,8 +149,11 @@ public class ResourceCache implements Cache {
 
     /**
      * Gets a resource if it has specified version. If it has not, purges it from the cache (even if it exists there).
+     *
+     * Not synchronized: the cached objects are immutable, and the purging is done only if the object was not replaced
+     * in the meanwhile.
      */
-    synchronized PrismObject<ResourceType> get(@NotNull String oid, String requestedVersion, boolean readOnly) {
+    PrismObject<ResourceType> get(@NotNull String oid, String requestedVersion, boolean readOnly) {
         InternalMonitor.getResourceCacheStats().recordRequest();
 
         PrismObject<ResourceType> resourceToReturn;
@@ -157,7 +165,7 @@ public class ResourceCache implements Cache {
             LOGGER.debug("MISS(wrong version) for {} (req={}, actual={})", oid, requestedVersion, cachedResource.getVersion());
             LOGGER.trace("Cached resource version {} does not match requested resource version {}, purging from cache",
                     cachedResource.getVersion(), requestedVersion);
-            invalidateSingle(oid);
+            invalidateSingleIfCached(oid, cachedResource);
             resourceToReturn = null;
         } else if (readOnly) {
             cachedResource.checkImmutable();
@@ -198,14 +206,14 @@ public class ResourceCache implements Cache {
         }
     }
 
-    private synchronized boolean contains(@NotNull String oid) {
+    private boolean contains(@NotNull String oid) {
         return cache.containsKey(oid);
     }
 
     /**
      * Returns currently cached version. FOR DIAGNOSTICS ONLY.
      */
-    synchronized String getVersion(String oid) {
+    String getVersion(String oid) {
         if (oid == null) {
             return null;
         }
@@ -236,6 +244,15 @@ public class ResourceCache implements Cache {
         descendants.forEach(this::invalidateSingle);
     }
 
+    /** Invalidates the resource (and its descendants) only if the cache still contains given object. */
+    private synchronized void invalidateSingleIfCached(@NotNull String oid, @NotNull PrismObject<ResourceType> expected) {
+        if (cache.get(oid) == expected) {
+            invalidateSingle(oid);
+        } else {
+            LOGGER.trace("Not invalidating {}, as it was replaced in the meanwhile", oid);
+        }
+    }
+
     /**
      * Removes the specific resource from {@link #cache} and {@link #dependencyMap}). Not touching the descendants.
      * Must be guarded by `this` (caller's responsibility).
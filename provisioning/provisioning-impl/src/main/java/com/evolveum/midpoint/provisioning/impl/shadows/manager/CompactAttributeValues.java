@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl.shadows.manager;
+
+import java.util.*;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+
+/**
+ * Compact, unordered set of real values of a simple attribute.
+ *
+ * Values are kept as plain real values (byte arrays are wrapped to get value semantics), without prism value wrappers,
+ * definitions, or metadata. It is used instead of the expected prism property when checking whether a cached attribute
+ * is up-to-date: the prism property is materialized only if the values differ, i.e. when a delta has to be computed.
+ * This matters for objects with large multi-valued attributes, like groups with many members.
+ *
+ * No copy of the repository shadow is created: its values are only looked up in this set.
+ */
+class CompactAttributeValues {
+
+    @NotNull private final Set<Object> values;
+
+    private CompactAttributeValues(@NotNull Set<Object> values) {
+        this.values = values;
+    }
+
+    static @NotNull CompactAttributeValues of(@NotNull Collection<?> realValues) {
+        Set<Object> values = new HashSet<>(realValues.size() * 4 / 3 + 1);
+        for (Object realValue : realValues) {
+            values.add(toCompactValue(realValue));
+        }
+        return new CompactAttributeValues(values);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns `true` if the property has exactly these values, in any order. Duplicate or `null` values in the property
+     * lead to `false`; in that case the caller should use the prism-based comparison.
+     */
+    boolean matches(@NotNull PrismProperty<?> property) {
+        if (property.size() != values.size()) {
+            return false;
+        }
+        Set<Object> matched = new HashSet<>(values.size() * 4 / 3 + 1);
+        for (PrismPropertyValue<?> value : property.getValues()) {
+            Object compactValue = toCompactValue(value.getRealValue());
+            if (compactValue == null || !values.contains(compactValue) || !matched.add(compactValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Converts the values back to real values (in no particular order). Byte arrays are returned as they are. */
+    @NotNull List<Object> toRealValues() {
+        List<Object> realValues = new ArrayList<>(values.size());
+        for (Object value : values) {
+            realValues.add(value instanceof Bytes bytes ? bytes.value() : value);
+        }
+        return realValues;
+    }
+
+    private static Object toCompactValue(Object realValue) {
+        return realValue instanceof byte[] bytes ? new Bytes(bytes) : realValue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompactAttributeValues other && values.equals(other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CompactAttributeValues" + values;
+    }
+
+    /** Byte array with value-based `equals` and `hashCode`. */
+    private record Bytes(byte[] value) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Bytes other && Arrays.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + value.length + " bytes)";
+        }
+    }
+}
@@ -390,6 +390,12 @@ class ShadowDeltaComputerAbsolute {
             return;
         }
 
+        // The expected prism property is materialized only if the values differ.
+        if (CompactAttributeValues.of(expectedRepoPropRealValues).matches(oldRepoProp)) {
+            LOGGER.trace("Not updating property {} because it is up-to-date in repo (compact check)", attrDef.getItemName());
+            return;
+        }
+
         PrismProperty<N> expectedRepoAttr = expectedRepoPropDef.instantiateFromUniqueRealValues(expectedRepoPropRealValues);
         //noinspection unchecked
         PropertyDelta<N> repoAttrDelta = ((PrismProperty<N>) oldRepoProp).diff(expectedRepoAttr);
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl.async.update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import jakarta.jms.*;
+import javax.naming.InitialContext;
+
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.provisioning.ucf.api.ListeningActivity;
+import com.evolveum.midpoint.provisioning.ucf.impl.builtin.async.update.AsyncUpdateConnectorInstance;
+import com.evolveum.midpoint.provisioning.ucf.impl.builtin.async.update.ConnectorConfiguration;
+import com.evolveum.midpoint.provisioning.ucf.impl.builtin.async.update.sources.JmsAsyncUpdateSource;
+import com.evolveum.midpoint.schema.AcknowledgementSink;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.tools.testng.AbstractUnitTest;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AsyncUpdateErrorHandlingActionType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AsyncUpdateMessageType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AsyncUpdateSourcesType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.JmsSourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.JmsTextMessageType;
+
+/**
+ * Tests acknowledgements and redeliveries of {@link JmsAsyncUpdateSource} against an embedded Artemis broker.
+ *
+ * The messages are acknowledged from other threads than the one receiving them, as the worker threads
+ * of the async update activity do.
+ */
+public class TestJmsAsyncUpdateSource extends AbstractUnitTest {
+
+    private static final String CONNECTION_FACTORY = "invmConnectionFactory";
+    private static final String QUEUE = "AsyncUpdateQueue";
+
+    /** How long we wait for a message that should come. */
+    private static final long RECEIVE_TIMEOUT = 10_000L;
+
+    /** How long we wait to be sure that no message comes. */
+    private static final long QUIET_PERIOD = 1_000L;
+
+    private EmbeddedActiveMQ embeddedBroker;
+    private Connection producerConnection;
+    private Session producerSession;
+    private MessageProducer producer;
+
+    private final BlockingQueue<ReceivedMessage> receivedMessages = new LinkedBlockingQueue<>();
+
+    @BeforeClass
+    public void startBroker() throws Exception {
+        embeddedBroker = new EmbeddedActiveMQ();
+        embeddedBroker.start();
+
+        InitialContext ic = new InitialContext();
+        ConnectionFactory cf = (ConnectionFactory) ic.lookup(CONNECTION_FACTORY);
+        producerConnection = cf.createConnection();
+        producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        producer = producerSession.createProducer((Queue) ic.lookup(QUEUE));
+    }
+
+    @AfterClass
+    public void stopBroker() throws Exception {
+        if (producerConnection != null) {
+            producerConnection.close();
+        }
+        if (embeddedBroker != null) {
+            embeddedBroker.stop();
+        }
+    }
+
+    /** Messages acknowledged in reverse order must not be acknowledged until the oldest one is processed. */
+    @Test
+    public void test100OutOfOrderAcknowledgements() throws Exception {
+        given("three messages and a source");
+        send("m1", "m2", "m3");
+        JmsAsyncUpdateSource source = createSource(AsyncUpdateErrorHandlingActionType.STOP_PROCESSING);
+
+        when("the two newer messages are acknowledged from another thread, and the listening is stopped");
+        ListeningActivity activity = source.startListening(this::onMessage);
+        List<ReceivedMessage> received = receive(3);
+        acknowledgeInOtherThread(received.get(2), true);
+        acknowledgeInOtherThread(received.get(1), true);
+        Thread.sleep(QUIET_PERIOD);
+        activity.stop();
+
+        then("the messages were received in order, and all of them are redelivered");
+        assertThat(texts(received)).containsExactly("m1", "m2", "m3");
+        ListeningActivity activity2 = source.startListening(this::onMessage);
+        List<ReceivedMessage> redelivered = receive(3);
+        assertThat(texts(redelivered)).containsExactly("m1", "m2", "m3");
+
+        when("all the messages are acknowledged, the newest one first");
+        acknowledgeInOtherThread(redelivered.get(2), true);
+        acknowledgeInOtherThread(redelivered.get(0), true);
+        acknowledgeInOtherThread(redelivered.get(1), true);
+        Thread.sleep(QUIET_PERIOD);
+        activity2.stop();
+
+        then("nothing is redelivered");
+        ListeningActivity activity3 = source.startListening(this::onMessage);
+        assertNoMessage();
+        activity3.stop();
+    }
+
+    /** A failed message (with `retry` action) is redelivered, along with all the later ones. */
+    @Test
+    public void test200Retry() throws Exception {
+        given("two messages and a source with 'retry' action");
+        send("m4", "m5");
+        JmsAsyncUpdateSource source = createSource(AsyncUpdateErrorHandlingActionType.RETRY);
+        ListeningActivity activity = source.startListening(this::onMessage);
+        List<ReceivedMessage> received = receive(2);
+
+        when("the first message fails and the second one is processed");
+        acknowledgeInOtherThread(received.get(1), true);
+        acknowledgeInOtherThread(received.get(0), false);
+
+        then("both are redelivered to the same activity");
+        List<ReceivedMessage> redelivered = receive(2);
+        assertThat(texts(redelivered)).containsExactly("m4", "m5");
+        assertThat(activity.isAlive()).as("activity is alive").isTrue();
+
+        when("they are processed now");
+        acknowledgeInOtherThread(redelivered.get(0), true);
+        acknowledgeInOtherThread(redelivered.get(1), true);
+
+        then("nothing is redelivered");
+        assertNoMessage();
+        activity.stop();
+    }
+
+    /** A failed message (with `stop processing` action) stops the listening, and is redelivered later. */
+    @Test
+    public void test300StopProcessing() throws Exception {
+        given("a message and a source with 'stop processing' action");
+        send("m6");
+        JmsAsyncUpdateSource source = createSource(AsyncUpdateErrorHandlingActionType.STOP_PROCESSING);
+        ListeningActivity activity = source.startListening(this::onMessage);
+        ReceivedMessage received = receive(1).get(0);
+
+        when("the message fails");
+        acknowledgeInOtherThread(received, false);
+
+        then("the listening stops and the message is redelivered to a new activity");
+        long start = System.currentTimeMillis();
+        while (activity.isAlive() && System.currentTimeMillis() - start < RECEIVE_TIMEOUT) {
+            //noinspection BusyWait
+            Thread.sleep(100);
+        }
+        assertThat(activity.isAlive()).as("activity is alive").isFalse();
+        activity.stop();
+
+        ListeningActivity activity2 = source.startListening(this::onMessage);
+        ReceivedMessage redelivered = receive(1).get(0);
+        assertThat(redelivered.text()).isEqualTo("m6");
+        acknowledgeInOtherThread(redelivered, true);
+        Thread.sleep(QUIET_PERIOD);
+        activity2.stop();
+    }
+
+    private JmsAsyncUpdateSource createSource(AsyncUpdateErrorHandlingActionType action) {
+        JmsSourceType sourceBean = new JmsSourceType()
+                .name("test")
+                .connectionFactory(CONNECTION_FACTORY)
+                .destination(QUEUE);
+        ConnectorConfiguration configuration = new ConnectorConfiguration();
+        configuration.setSources(new AsyncUpdateSourcesType().jms(sourceBean));
+        configuration.setErrorHandlingAction(action);
+        AsyncUpdateConnectorInstance connectorInstance = new AsyncUpdateConnectorInstance();
+        connectorInstance.setConfiguration(configuration);
+        return JmsAsyncUpdateSource.create(sourceBean, connectorInstance);
+    }
+
+    private void send(String... texts) throws JMSException {
+        for (String text : texts) {
+            producer.send(producerSession.createTextMessage(text));
+        }
+    }
+
+    private void onMessage(AsyncUpdateMessageType message, AcknowledgementSink acknowledgementSink) {
+        receivedMessages.add(
+                new ReceivedMessage(((JmsTextMessageType) message).getText(), acknowledgementSink));
+    }
+
+    private List<ReceivedMessage> receive(int count) throws InterruptedException {
+        List<ReceivedMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ReceivedMessage message = receivedMessages.poll(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+            assertThat(message).as("message #" + (i + 1)).isNotNull();
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private void assertNoMessage() throws InterruptedException {
+        assertThat(receivedMessages.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS))
+                .as("unexpected message")
+                .isNull();
+    }
+
+    private void acknowledgeInOtherThread(ReceivedMessage message, boolean release) throws InterruptedException {
+        Thread thread = new Thread(
+                () -> message.acknowledgementSink().acknowledge(release, new OperationResult("acknowledge")));
+        thread.start();
+        thread.join();
+    }
+
+    private List<String> texts(List<ReceivedMessage> messages) {
+        return messages.stream().map(ReceivedMessage::text).toList();
+    }
+
+    private record ReceivedMessage(String text, AcknowledgementSink acknowledgementSink) {
+    }
+}
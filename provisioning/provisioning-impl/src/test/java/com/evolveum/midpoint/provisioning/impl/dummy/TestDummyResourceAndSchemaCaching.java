@@ -315,6 +315,9 @@ public class TestDummyResourceAndSchemaCaching extends AbstractDummyTest {
         ProjectionPolicyType projectionPolicyType = new ProjectionPolicyType();
         projectionPolicyType.setLegalize(true);
 
+        rememberCounter(InternalCounters.RESOURCE_SCHEMA_XSD_PARSE_COUNT);
+        rememberCounter(InternalCounters.RESOURCE_SCHEMA_SHARED_CACHE_HIT_COUNT);
+
         ObjectDelta<ResourceType> objectDelta = prismContext.deltaFactory().object()
                 .createModificationReplaceContainer(ResourceType.class, RESOURCE_DUMMY_OID,
                         ResourceType.F_PROJECTION, projectionPolicyType);
@@ -345,6 +348,9 @@ public class TestDummyResourceAndSchemaCaching extends AbstractDummyTest {
         assertCounterIncrement(InternalCounters.CONNECTOR_INSTANCE_INITIALIZATION_COUNT, 0);
         assertCounterIncrement(InternalCounters.CONNECTOR_INSTANCE_CONFIGURATION_COUNT, 0);
         assertCounterIncrement(InternalCounters.RESOURCE_SCHEMA_PARSE_COUNT, 1);
+        // The schema itself was not changed, so the XSD is not parsed again.
+        assertCounterIncrement(InternalCounters.RESOURCE_SCHEMA_XSD_PARSE_COUNT, 0);
+        assertCounterIncrement(InternalCounters.RESOURCE_SCHEMA_SHARED_CACHE_HIT_COUNT, 1);
 
         assertResourceVersionIncrement(resourceProvisioning, 0);
 
@@ -428,6 +434,9 @@ public class TestDummyResourceAndSchemaCaching extends AbstractDummyTest {
         ProjectionPolicyType projectionPolicyType = new ProjectionPolicyType();
         projectionPolicyType.setLegalize(false);
 
+        rememberCounter(InternalCounters.RESOURCE_SCHEMA_XSD_PARSE_COUNT);
+        rememberCounter(InternalCounters.RESOURCE_SCHEMA_SHARED_CACHE_HIT_COUNT);
+
         ObjectDelta<ResourceType> objectDelta = prismContext.deltaFactory().object()
                 .createModificationReplaceContainer(ResourceType.class, RESOURCE_DUMMY_OID,
                         ResourceType.F_PROJECTION, projectionPolicyType);
@@ -458,6 +467,9 @@ public class TestDummyResourceAndSchemaCaching extends AbstractDummyTest {
         assertCounterIncrement(InternalCounters.CONNECTOR_INSTANCE_INITIALIZATION_COUNT, 0);
         assertCounterIncrement(InternalCounters.CONNECTOR_INSTANCE_CONFIGURATION_COUNT, 0);
         assertCounterIncrement(InternalCounters.RESOURCE_SCHEMA_PARSE_COUNT, 1);
+        // The schema itself was not changed, so the XSD is not parsed again.
+        assertCounterIncrement(InternalCounters.RESOURCE_SCHEMA_XSD_PARSE_COUNT, 0);
+        assertCounterIncrement(InternalCounters.RESOURCE_SCHEMA_SHARED_CACHE_HIT_COUNT, 1);
 
         assertResourceVersionIncrement(resourceProvisioning, 0);
 
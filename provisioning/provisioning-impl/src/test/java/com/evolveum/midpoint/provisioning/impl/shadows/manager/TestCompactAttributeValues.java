@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl.shadows.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.constants.MidPointConstants;
+import com.evolveum.midpoint.tools.testng.AbstractUnitTest;
+
+/**
+ * Tests {@link CompactAttributeValues}. Only {@link CompactAttributeValues#matches(PrismProperty)} needs prism;
+ * the properties used there have no definitions.
+ */
+public class TestCompactAttributeValues extends AbstractUnitTest {
+
+    private static final QName ATTR_NAME = new QName(MidPointConstants.NS_RI, "member");
+
+    @BeforeClass
+    public void setup() throws Exception {
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @Test
+    public void test100RoundTrip() {
+        given("values of various types, including a byte array");
+        byte[] bytes = { 1, 2, 3 };
+        List<Object> realValues = List.of("cn=group1,dc=example,dc=com", 42, bytes);
+
+        when("compact values are created and converted back");
+        List<Object> converted = CompactAttributeValues.of(realValues).toRealValues();
+
+        then("the same values are obtained");
+        assertThat(converted).containsExactlyInAnyOrder(realValues.toArray());
+    }
+
+    @Test
+    public void test200Equality() {
+        when("values are created in different order and with equal but not identical byte arrays");
+        var values1 = CompactAttributeValues.of(List.of("a", "b", new byte[] { 1, 2 }));
+        var values2 = CompactAttributeValues.of(List.of(new byte[] { 1, 2 }, "b", "a"));
+
+        then("they are equal");
+        assertThat(values1).isEqualTo(values2);
+        assertThat(values1.hashCode()).isEqualTo(values2.hashCode());
+        assertThat(values1.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void test210Inequality() {
+        when("values differ in a single byte array element or in a value");
+        var values = CompactAttributeValues.of(List.of("a", new byte[] { 1, 2 }));
+        var differentBytes = CompactAttributeValues.of(List.of("a", new byte[] { 1, 3 }));
+        var differentString = CompactAttributeValues.of(List.of("A", new byte[] { 1, 2 }));
+        var subset = CompactAttributeValues.of(List.of("a"));
+
+        then("they are not equal");
+        assertThat(values).isNotEqualTo(differentBytes);
+        assertThat(values).isNotEqualTo(differentString);
+        assertThat(values).isNotEqualTo(subset);
+    }
+
+    @Test
+    public void test300MatchesInDifferentOrder() {
+        given("multi-valued property with values in a different order than the compact values");
+        var property = createProperty("c", "a", "b");
+
+        when("matching against compact values");
+        boolean matches = CompactAttributeValues.of(List.of("a", "b", "c")).matches(property);
+
+        then("they match");
+        assertThat(matches).isTrue();
+    }
+
+    @Test
+    public void test310NoMatchForDifferentValues() {
+        given("compact values");
+        var values = CompactAttributeValues.of(List.of("a", "b"));
+
+        then("no match for a different, missing, or extra value");
+        assertThat(values.matches(createProperty("a", "c"))).as("different value").isFalse();
+        assertThat(values.matches(createProperty("a"))).as("missing value").isFalse();
+        assertThat(values.matches(createProperty("a", "b", "c"))).as("extra value").isFalse();
+    }
+
+    @Test
+    public void test320DuplicateValues() {
+        given("property with a duplicate value");
+        var property = createProperty("a", "a");
+
+        then("no match, even if the number of values is the same, or the set of values is the same");
+        assertThat(CompactAttributeValues.of(List.of("a", "b")).matches(property)).as("same size").isFalse();
+        assertThat(CompactAttributeValues.of(List.of("a")).matches(property)).as("same set").isFalse();
+    }
+
+    @Test
+    public void test330EmptyProperty() {
+        given("empty property");
+        var property = createProperty();
+
+        then("it matches empty compact values only");
+        assertThat(CompactAttributeValues.of(List.of()).matches(property)).as("empty values").isTrue();
+        assertThat(CompactAttributeValues.of(List.of("a")).matches(property)).as("non-empty values").isFalse();
+        assertThat(CompactAttributeValues.of(List.of()).matches(createProperty("a"))).as("non-empty property").isFalse();
+    }
+
+    @Test
+    public void test340PolyStrings() {
+        given("compact values with poly strings");
+        var values = CompactAttributeValues.of(
+                List.of(new PolyString("Alice", "alice"), new PolyString("Bob", "bob")));
+
+        then("match for equal poly strings, no match if orig or norm differs");
+        assertThat(values.matches(createProperty(new PolyString("Bob", "bob"), new PolyString("Alice", "alice"))))
+                .as("equal values").isTrue();
+        assertThat(values.matches(createProperty(new PolyString("ALICE", "alice"), new PolyString("Bob", "bob"))))
+                .as("different orig").isFalse();
+        assertThat(values.matches(createProperty(new PolyString("Alice", "alice2"), new PolyString("Bob", "bob"))))
+                .as("different norm").isFalse();
+    }
+
+    @Test
+    public void test350ByteArrays() {
+        given("compact values with byte arrays");
+        var values = CompactAttributeValues.of(List.of(new byte[] { 1, 2 }, new byte[] { 3 }));
+
+        then("match for equal but not identical byte arrays, no match if an element differs");
+        assertThat(values.matches(createProperty(new byte[] { 3 }, new byte[] { 1, 2 })))
+                .as("equal values").isTrue();
+        assertThat(values.matches(createProperty(new byte[] { 3 }, new byte[] { 1, 3 })))
+                .as("different element").isFalse();
+        assertThat(values.matches(createProperty(new byte[] { 1, 2 }, new byte[] { 1, 2 })))
+                .as("duplicate value").isFalse();
+    }
+
+    /** Creates a property with given values, keeping the duplicates. */
+    @SafeVarargs
+    private <T> PrismProperty<T> createProperty(T... realValues) {
+        PrismProperty<T> property = PrismTestUtil.getPrismContext().itemFactory().createProperty(ATTR_NAME);
+        for (T realValue : realValues) {
+            property.addRealValueSkipUniquenessCheck(realValue);
+        }
+        return property;
+    }
+}
@@ -32,6 +32,10 @@ import java.util.Map;
  */
 public class JsonRequestFormatter {
 
+    /** Object mappers are thread-safe, and quite expensive to create. */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
+
     /**
      * Abstract representation of the operation requested.
      */
@@ -59,6 +63,12 @@ public class JsonRequestFormatter {
      */
     private boolean identifiersAsAttributes;
 
+    /**
+     * Should we produce compact (single-line) JSON instead of the pretty-printed one? Useful e.g. for JSON-lines
+     * consumers, and for reducing the message size.
+     */
+    private boolean compact;
+
     public JsonRequestFormatter(@NotNull OperationRequested operationRequested) {
         this.operationRequested = operationRequested;
     }
@@ -102,6 +112,19 @@ public class JsonRequestFormatter {
         this.identifiersAsAttributes = identifiersAsAttributes;
     }
 
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public JsonRequestFormatter compact() {
+        compact = true;
+        return this;
+    }
+
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
     /**
      * Does default formatting: creates the request and returns its JSON form.
      */
@@ -114,10 +137,11 @@ public class JsonRequestFormatter {
      * Returns JSON form of the (pre-prepared) request.
      */
     public String toJson() throws JsonProcessingException {
-        return new ObjectMapper()
-                .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL)
-                .writerWithDefaultPrettyPrinter()
-                .writeValueAsString(request);
+        if (compact) {
+            return OBJECT_MAPPER.writeValueAsString(request);
+        } else {
+            return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(request);
+        }
     }
 
     /**
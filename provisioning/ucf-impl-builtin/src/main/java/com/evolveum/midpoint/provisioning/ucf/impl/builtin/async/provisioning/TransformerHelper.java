@@ -103,6 +103,17 @@ public class TransformerHelper {
                         jsonRequestFormatter(operationRequested)
                                 .qualified()
                                 .format());
+            case COMPACT_SIMPLIFIED_JSON:
+                return StringAsyncProvisioningRequest.of(
+                        jsonRequestFormatter(operationRequested)
+                                .compact()
+                                .format());
+            case COMPACT_SIMPLIFIED_QUALIFIED_JSON:
+                return StringAsyncProvisioningRequest.of(
+                        jsonRequestFormatter(operationRequested)
+                                .qualified()
+                                .compact()
+                                .format());
             default:
                 throw new AssertionError(predefinedTransformation);
         }
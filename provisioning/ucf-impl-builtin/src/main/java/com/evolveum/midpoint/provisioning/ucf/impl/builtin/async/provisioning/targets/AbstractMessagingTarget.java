@@ -112,6 +112,10 @@ public abstract class AbstractMessagingTarget<C extends AsyncProvisioningTargetT
         } catch (RuntimeException | Error e) {
             result.recordFatalError(e);
             throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.recordFatalError(e);
+            throw new SystemException("Interrupted while sending the message", e);
         } catch (Exception e) {
             result.recordFatalError(e);
             throw new SystemException("Couldn't send the message: " + e.getMessage(), e);
@@ -24,15 +24,31 @@ import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.JmsProvisioningTargetType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.*;
 
 /**
  * Connection to async provisioning target using JMS API.
+ *
+ * If {@link JmsProvisioningTargetType#getBatchSize()} is greater than 1, messages are sent in transacted batches,
+ * see {@link MessageBatcher}. The delivery is then _at least once_: an operation that stops waiting for the commit
+ * (on timeout, interruption, or closing of the target) fails, even if its message may still be delivered.
  */
 public class JmsProvisioningTarget extends AbstractMessagingTarget<JmsProvisioningTargetType> {
 
     private static final Trace LOGGER = TraceManager.getTrace(JmsProvisioningTarget.class);
 
+    /** Default time (in milliseconds) to wait for more messages to be added to a batch. */
+    private static final int DEFAULT_BATCH_WAIT_TIME = 5;
+
+    /** How long (in milliseconds) an operation waits for the commit of the batch containing its message. */
+    private static final long BATCH_CONFIRMATION_TIMEOUT = 60000L;
+
+    /** How long (in milliseconds) to wait for the batcher thread to finish when closing the connection. */
+    private static final long BATCHER_STOP_TIMEOUT = 5000L;
+
     /** Connection factory used to create connections. */
     private final ConnectionFactory connectionFactory;
 
@@ -56,6 +72,11 @@ public class JmsProvisioningTarget extends AbstractMessagingTarget<JmsProvisioni
      */
     private final ThreadLocal<MessageProducer> producerThreadLocal = new ThreadLocal<>();
 
+    /**
+     * Sends messages in batches. Null if batching is not enabled.
+     */
+    private final MessageBatcher batcher;
+
     private JmsProvisioningTarget(@NotNull JmsProvisioningTargetType configuration, @NotNull AsyncProvisioningConnectorInstance connectorInstance) {
         super(configuration, connectorInstance);
 
@@ -66,6 +87,20 @@ public class JmsProvisioningTarget extends AbstractMessagingTarget<JmsProvisioni
         } catch (Throwable t) {
             throw new SystemException("Couldn't obtain JNDI objects for " + this + ": " + t.getMessage(), t);
         }
+
+        Integer batchSize = configuration.getBatchSize();
+        if (batchSize != null && batchSize > 1) {
+            Integer batchWaitTime = configuration.getBatchWaitTime();
+            batcher = new MessageBatcher(
+                    "JMS-batcher-" + configuration.getDestination(),
+                    batchSize,
+                    batchWaitTime != null ? batchWaitTime : DEFAULT_BATCH_WAIT_TIME,
+                    BATCH_CONFIRMATION_TIMEOUT,
+                    BATCHER_STOP_TIMEOUT,
+                    new TransactedSender());
+        } else {
+            batcher = null;
+        }
     }
 
     public static JmsProvisioningTarget create(@NotNull AsyncProvisioningTargetType configuration,
@@ -92,7 +127,11 @@ public class JmsProvisioningTarget extends AbstractMessagingTarget<JmsProvisioni
     }
 
     @Override
-    protected String executeSend(AsyncProvisioningRequest request) throws JMSException, EncryptionException {
+    protected String executeSend(AsyncProvisioningRequest request)
+            throws JMSException, EncryptionException, InterruptedException {
+        if (batcher != null) {
+            return sendBatched(request.asString());
+        }
         Session session = getOrCreateSession();
         TextMessage message = session.createTextMessage(request.asString());
         MessageProducer producer = getOrCreateProducer();
@@ -100,6 +139,23 @@ public class JmsProvisioningTarget extends AbstractMessagingTarget<JmsProvisioni
         return message.getJMSMessageID();
     }
 
+    private String sendBatched(String text) throws JMSException, InterruptedException {
+        try {
+            return batcher.send(text);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JMSException jmsException) {
+                throw jmsException;
+            } else {
+                throw new SystemException("Couldn't send the message: " + cause.getMessage(), cause);
+            }
+        } catch (TimeoutException e) {
+            throw new SystemException(
+                    "The message was not confirmed by " + this + " in " + BATCH_CONFIRMATION_TIMEOUT
+                            + " ms; it may still be delivered", e);
+        }
+    }
+
     /**
      * Gets current producer (thread-local) or creates a new one if needed.
      */
@@ -177,6 +233,9 @@ public class JmsProvisioningTarget extends AbstractMessagingTarget<JmsProvisioni
 
     @Override
     protected void closeBrokerConnection() {
+        if (batcher != null) {
+            batcher.stop();
+        }
         if (connection != null) {
             try {
                 connection.close();
@@ -188,6 +247,46 @@ public class JmsProvisioningTarget extends AbstractMessagingTarget<JmsProvisioni
         }
     }
 
+    /**
+     * Sends the batches of {@link #batcher} in a transacted session. Used by the batcher thread only,
+     * as JMS sessions are single-threaded.
+     */
+    private class TransactedSender implements MessageBatcher.BatchSender {
+
+        private Session session;
+        private MessageProducer producer;
+
+        @Override
+        public @NotNull List<String> sendBatch(@NotNull List<String> texts) throws JMSException, EncryptionException {
+            if (session == null) {
+                session = getOrCreateConnection().createSession(true, Session.SESSION_TRANSACTED);
+                producer = session.createProducer(destination);
+            }
+            List<String> messageIds = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                TextMessage message = session.createTextMessage(text);
+                producer.send(message);
+                messageIds.add(message.getJMSMessageID());
+            }
+            session.commit();
+            return messageIds;
+        }
+
+        @Override
+        public void close() {
+            if (session != null) {
+                try {
+                    session.close();
+                } catch (Throwable t) {
+                    LoggingUtils.logException(LOGGER, "Couldn't close batch session - ignoring this exception", t);
+                } finally {
+                    session = null;
+                    producer = null;
+                }
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "JmsProvisioningTarget{" +
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.ucf.impl.builtin.async.provisioning.targets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Sends messages in batches. Messages from concurrently running operations are collected (waiting at most
+ * {@link #waitTime} milliseconds for the next one) and sent by a dedicated thread in a single transaction of at most
+ * {@link #batchSize} messages, so the broker round-trip of the commit is shared by all of them.
+ *
+ * Each caller waits until the transaction containing its message is committed, but at most {@link #confirmationTimeout}
+ * milliseconds. If the transaction fails, all the callers get the exception. If the caller stops waiting (on timeout
+ * or interruption) for a message that is already being sent, the message may still be committed. The same is true
+ * for messages being sent when the batcher is stopped. Such operations fail, so a retry may send the message again:
+ * the delivery is _at least once_.
+ *
+ * The batches are sent by {@link BatchSender} that is used by the dedicated thread only, as e.g. JMS sessions
+ * are single-threaded. A new thread (with its own queue) is started when needed after the batcher was stopped.
+ */
+class MessageBatcher {
+
+    private static final Trace LOGGER = TraceManager.getTrace(MessageBatcher.class);
+
+    /** Sends the batches; used from the batcher thread only. */
+    interface BatchSender {
+
+        /** Sends the messages in a single transaction, returning their IDs (in the same order). */
+        @NotNull List<String> sendBatch(@NotNull List<String> texts) throws Exception;
+
+        /** Releases the resources (e.g. the session). Called after a failure and when the thread stops. */
+        void close();
+    }
+
+    @NotNull private final String name;
+    private final int batchSize;
+    private final long waitTime;
+    private final long confirmationTimeout;
+    private final long stopTimeout;
+    @NotNull private final BatchSender sender;
+
+    /** The current sending thread with its queue. Guarded by "this". */
+    private Worker worker;
+
+    MessageBatcher(
+            @NotNull String name, int batchSize, long waitTime, long confirmationTimeout, long stopTimeout,
+            @NotNull BatchSender sender) {
+        this.name = name;
+        this.batchSize = batchSize;
+        this.waitTime = waitTime;
+        this.confirmationTimeout = confirmationTimeout;
+        this.stopTimeout = stopTimeout;
+        this.sender = sender;
+    }
+
+    /**
+     * Sends the message and waits for the commit of its batch. Returns the message ID.
+     *
+     * @throws ExecutionException if the batch could not be sent; the cause is the original exception
+     * @throws TimeoutException if the commit was not confirmed in time; the message may or may not be sent
+     */
+    String send(@NotNull String text) throws ExecutionException, InterruptedException, TimeoutException {
+        PendingMessage pendingMessage = new PendingMessage(text);
+        Worker currentWorker;
+        synchronized (this) {
+            if (worker == null || !worker.thread.isAlive()) {
+                worker = new Worker();
+                worker.thread.start();
+            }
+            currentWorker = worker;
+            // Added while holding the lock, so that the worker cannot be stopped before the message is in its queue.
+            currentWorker.queue.add(pendingMessage);
+        }
+        try {
+            return pendingMessage.messageIdFuture.get(confirmationTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | TimeoutException e) {
+            if (currentWorker.queue.remove(pendingMessage)) {
+                LOGGER.debug("Message was withdrawn from the queue of {} before being sent", name);
+            } else {
+                LOGGER.warn("Stopped waiting for the confirmation of a message sent by {}; it may still be delivered", name);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the sending thread. Messages not confirmed by then (including those in the batch being sent, if the thread
+     * does not stop in time) are failed, so that no caller waits for them.
+     */
+    void stop() {
+        Worker workerToStop;
+        synchronized (this) {
+            workerToStop = worker;
+            worker = null;
+        }
+        if (workerToStop == null) {
+            return;
+        }
+        workerToStop.thread.interrupt();
+        try {
+            workerToStop.thread.join(stopTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (workerToStop.thread.isAlive()) {
+            LOGGER.warn("Batcher thread {} did not stop in {} ms", name, stopTimeout);
+        }
+        workerToStop.failPending();
+    }
+
+    private class Worker implements Runnable {
+
+        @NotNull private final BlockingQueue<PendingMessage> queue = new LinkedBlockingQueue<>();
+
+        @NotNull private final Thread thread;
+
+        /** The batch being sent, if any. */
+        private volatile List<PendingMessage> currentBatch;
+
+        private Worker() {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    List<PendingMessage> batch = new ArrayList<>(batchSize);
+                    batch.add(queue.take());
+                    long deadline = System.currentTimeMillis() + waitTime;
+                    while (batch.size() < batchSize) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        PendingMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : queue.poll();
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    sendBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                LOGGER.debug("Batcher thread {} was interrupted", name);
+            } finally {
+                sender.close();
+                failPending();
+            }
+        }
+
+        private void sendBatch(List<PendingMessage> batch) {
+            currentBatch = batch;
+            try {
+                List<String> messageIds = sender.sendBatch(
+                        batch.stream().map(PendingMessage::text).toList());
+                LOGGER.trace("Committed a batch of {} message(s) by {}", batch.size(), name);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).messageIdFuture.complete(messageIds.get(i));
+                }
+            } catch (Throwable t) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Couldn't send a batch of {} message(s) by {}", t,
+                        batch.size(), name);
+                sender.close(); // uncommitted messages are rolled back; the session will be re-created
+                batch.forEach(pendingMessage -> pendingMessage.messageIdFuture.completeExceptionally(t));
+            } finally {
+                currentBatch = null;
+            }
+        }
+
+        /** Fails the messages in the queue and in the batch being sent (if there's any). Confirmed messages are not affected. */
+        private void failPending() {
+            SystemException stopped = new SystemException("The target is being closed");
+            List<PendingMessage> batch = currentBatch;
+            if (batch != null) {
+                batch.forEach(pendingMessage -> pendingMessage.messageIdFuture.completeExceptionally(stopped));
+            }
+            PendingMessage remaining;
+            while ((remaining = queue.poll()) != null) {
+                remaining.messageIdFuture.completeExceptionally(stopped);
+            }
+        }
+    }
+
+    private record PendingMessage(@NotNull String text, @NotNull CompletableFuture<String> messageIdFuture) {
+
+        private PendingMessage(@NotNull String text) {
+            this(text, new CompletableFuture<>());
+        }
+    }
+}
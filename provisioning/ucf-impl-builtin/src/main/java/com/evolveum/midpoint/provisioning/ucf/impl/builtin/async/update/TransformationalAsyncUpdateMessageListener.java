@@ -101,6 +101,7 @@ class TransformationalAsyncUpdateMessageListener implements AsyncUpdateMessageLi
 
             OperationResult result = task.getResult();
             OperationResultBuilder resultBuilder = OperationResult.createFor(OP_ON_MESSAGE);
+            boolean acknowledgementDelegated = false;
             try {
 
                 ActivityTracingDefinitionType tracing = connectorInstance.getConfiguration()
@@ -145,9 +146,11 @@ class TransformationalAsyncUpdateMessageListener implements AsyncUpdateMessageLi
                     throw new SystemException("Couldn't evaluate message transformation expression: " + e.getMessage(), e);
                 }
                 if (changeBeans.isEmpty()) {
+                    acknowledgementDelegated = true;
                     acknowledgementSink.acknowledge(true, result);
                 } else {
                     AcknowledgementSink aggregatedSink = createAggregatingAcknowledgeSink(acknowledgementSink, changeBeans.size());
+                    acknowledgementDelegated = true;
                     for (UcfChangeType changeBean : changeBeans) {
                         // For this to work reliably, we have to run in a single thread. But that's ok.
                         // If we receive messages in multiple threads, there is no message ordering.
@@ -162,6 +165,11 @@ class TransformationalAsyncUpdateMessageListener implements AsyncUpdateMessageLi
                 LoggingUtils.logUnexpectedException(LOGGER, "Got exception while processing asynchronous message in {}", e, task);
                 result.recordFatalError(e.getMessage(), e);
                 // There is no primary identifier value to be produced here. So, no change event can be sent out.
+                // But the source has to know the message was not processed; otherwise, e.g., the acknowledgements
+                // of the subsequent messages could be held back.
+                if (!acknowledgementDelegated) {
+                    acknowledgementSink.acknowledge(false, result);
+                }
             } finally {
                 result.computeStatusIfUnknown();
                 // Note that tracing really works only if the processing is synchronous.
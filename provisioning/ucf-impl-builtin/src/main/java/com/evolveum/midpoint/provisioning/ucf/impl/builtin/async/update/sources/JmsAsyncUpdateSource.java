@@ -27,6 +27,7 @@ import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AsyncUpdateErrorHandlingActionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AsyncUpdateSourceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.JmsMessageType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.JmsSourceType;
@@ -37,7 +38,16 @@ import com.evolveum.prism.xml.ns._public.types_3.ProtectedStringType;
  * Async Update source for JMS API.
  *
  * An experimental implementation. Very primitive; suitable basically for testing and demonstration purposes.
- * In particular, it does NOT work with multiple worker threads.
+ *
+ * Messages are received by a single consumer, so their order is preserved. They can be processed by multiple worker threads
+ * of the async update activity; the activity keeps changes of the same object (i.e. with the same primary identifier)
+ * in order. As `CLIENT_ACKNOWLEDGE` mode acknowledges all the previously delivered messages, the acknowledgements
+ * are issued using {@link OrderedAcknowledgementWindow}.
+ *
+ * The JMS session is used only by a single thread that receives the messages, acknowledges them, and recovers
+ * the session (i.e. has the unacknowledged messages redelivered) when a message fails under `stopProcessing`
+ * or `retry` error handling action. The number of received but unacknowledged messages is limited (see
+ * {@link #MAX_IN_FLIGHT}).
  */
 @Experimental
 public class JmsAsyncUpdateSource implements ActiveAsyncUpdateSource {
@@ -46,6 +56,19 @@ public class JmsAsyncUpdateSource implements ActiveAsyncUpdateSource {
 
     private static final Trace LOGGER = TraceManager.getTrace(JmsAsyncUpdateSource.class);
 
+    /** How long to wait for a message before checking the acknowledgements and the state of the activity (in millis). */
+    private static final long RECEIVE_TIMEOUT = 200L;
+
+    /**
+     * How many messages can be received but not yet acknowledged. When reached, no more messages are received
+     * until the oldest ones are processed, so that a slow (or stuck) message does not make us hold an unlimited number
+     * of messages after it.
+     */
+    private static final int MAX_IN_FLIGHT = 1000;
+
+    /** How long to wait before receiving the messages again after a failure under `retry` action (in millis). */
+    private static final long RETRY_DELAY = 1000L;
+
     @NotNull private final JmsSourceType configuration;
     @NotNull private final AsyncUpdateConnectorInstance connectorInstance;
     @NotNull private final ConnectionFactory connectionFactory;
@@ -68,6 +91,14 @@ public class JmsAsyncUpdateSource implements ActiveAsyncUpdateSource {
 
         // the following items are initialized only once; in the constructor
         private Connection connection;
+        private Session session;
+        private MessageConsumer consumer;
+        private OrderedAcknowledgementWindow<Message> acknowledgementWindow;
+
+        @NotNull private final AsyncUpdateMessageListener listener;
+
+        /** Set when a message failed under `stopProcessing` action; the activity stops after recovering the messages. */
+        private volatile boolean stopAfterRecovery;
 
         private volatile boolean closed;
 
@@ -76,34 +107,21 @@ public class JmsAsyncUpdateSource implements ActiveAsyncUpdateSource {
             return !closed;
         }
 
-        private ListeningActivityImpl(AsyncUpdateMessageListener listener) {
+        private ListeningActivityImpl(@NotNull AsyncUpdateMessageListener listener) {
+            this.listener = listener;
             try {
                 connection = connectionFactory.createConnection(configuration.getUsername(), decrypt(configuration.getPassword()));
-                Session session = connection.createSession(false, CLIENT_ACKNOWLEDGE);
-                MessageConsumer consumer = session.createConsumer(destination);
-                consumer.setMessageListener(message -> {
-                    try {
-                        listener.onMessage(createAsyncUpdateMessage(message), (release, result) -> {
-                            // TODO This has to be done in the correct thread!!!
-                            if (release) {
-                                try {
-                                    message.acknowledge();
-                                } catch (JMSException e) {
-                                    LoggingUtils.logUnexpectedException(LOGGER, "Message could not be acknowledged", e);
-                                }
-                            } else {
-                                LOGGER.debug("Message processing was not successful. Message will not be acknowledged.");
-                            }
-                        });
-                    } catch (JMSException e) {
-                        throw new SystemException("Couldn't process JMS message: " + e.getMessage(), e);
-                    }
-                });
+                session = connection.createSession(false, CLIENT_ACKNOWLEDGE);
+                consumer = session.createConsumer(destination);
+                acknowledgementWindow = new OrderedAcknowledgementWindow<>(MAX_IN_FLIGHT);
                 connection.setExceptionListener(exception -> {
                     LOGGER.warn("JMS exception detected: {}", exception.getMessage(), exception);
                     stop();
                 });
                 connection.start();
+                Thread sessionThread = new Thread(this::receiveMessages, "JMS async update source " + configuration.getName());
+                sessionThread.setDaemon(true);
+                sessionThread.start();
                 LOGGER.info("Opened consumer {}", consumer);
             } catch (Throwable t) {
                 silentlyCloseActiveConnection();
@@ -111,6 +129,121 @@ public class JmsAsyncUpdateSource implements ActiveAsyncUpdateSource {
             }
         }
 
+        /**
+         * The only place where the session is used after the start. It is not allowed to use it from multiple threads,
+         * so the messages are received synchronously here (instead of a message listener), and the acknowledgements
+         * and recoveries requested by the worker threads are carried out here as well.
+         */
+        private void receiveMessages() {
+            try {
+                while (!closed) {
+                    acknowledgeCompleted();
+                    if (acknowledgementWindow.hasFailed()) {
+                        recoverAfterFailure();
+                        continue;
+                    }
+                    if (!acknowledgementWindow.awaitCapacity(RECEIVE_TIMEOUT)) {
+                        continue; // backpressure: the messages stay at the broker until we catch up
+                    }
+                    Message message = consumer.receive(RECEIVE_TIMEOUT);
+                    if (message != null && !closed) {
+                        processMessage(message);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.debug("Receiving of JMS messages was interrupted");
+            } catch (Throwable t) {
+                if (!closed) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't receive JMS messages, stopping the listening", t);
+                }
+            } finally {
+                closed = true;
+            }
+        }
+
+        private void processMessage(Message message) {
+            OrderedAcknowledgementWindow.Slot<Message> slot = acknowledgementWindow.register(message);
+            try {
+                listener.onMessage(createAsyncUpdateMessage(message), (release, result) -> {
+                    // This may be called from a worker thread, and in any order.
+                    if (release) {
+                        acknowledgementWindow.processed(slot);
+                    } else {
+                        processNegativeAcknowledgement(slot);
+                    }
+                });
+            } catch (JMSException | RuntimeException e) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Couldn't process JMS message", e);
+                processNegativeAcknowledgement(slot);
+            }
+        }
+
+        /**
+         * Acknowledges the newest message whose all predecessors were processed, and (implicitly) all of them.
+         * In `CLIENT_ACKNOWLEDGE` mode, this is what {@link Message#acknowledge()} does.
+         */
+        private void acknowledgeCompleted() throws JMSException {
+            Message message = acknowledgementWindow.pollAcknowledgeable();
+            if (message != null) {
+                message.acknowledge();
+            }
+        }
+
+        /**
+         * Makes the broker redeliver the failed message and all the unacknowledged messages after it. Then either stops
+         * (`stopProcessing`) or continues receiving after a delay (`retry`).
+         *
+         * We wait until all the messages being processed are finished, so that the messages before the failed one
+         * are acknowledged. Later messages that were processed successfully are redelivered as well (there is no way
+         * of acknowledging them individually), so they are processed again: the delivery is "at least once".
+         */
+        private void recoverAfterFailure() throws JMSException, InterruptedException {
+            LOGGER.debug("Waiting for messages being processed before recovering the session");
+            while (!acknowledgementWindow.awaitSettled(RECEIVE_TIMEOUT)) {
+                if (closed) {
+                    return;
+                }
+            }
+            acknowledgeCompleted();
+            int unacknowledged = acknowledgementWindow.size();
+            session.recover();
+            acknowledgementWindow.clear();
+            if (stopAfterRecovery) {
+                LOGGER.info("Message processing was not successful; {} message(s) will be redelivered. Stopping the listening.",
+                        unacknowledged);
+                closed = true;
+            } else {
+                LOGGER.info("Message processing was not successful; {} message(s) will be redelivered in {} ms",
+                        unacknowledged, RETRY_DELAY);
+                //noinspection BusyWait
+                Thread.sleep(RETRY_DELAY);
+            }
+        }
+
+        /** This may be called from a worker thread; so we only record the outcome for the session thread. */
+        private void processNegativeAcknowledgement(OrderedAcknowledgementWindow.Slot<Message> slot) {
+            AsyncUpdateErrorHandlingActionType action = connectorInstance.getErrorHandlingAction();
+            switch (action) {
+                case SKIP_UPDATE:
+                    LOGGER.debug("Message processing was not successful. Skipping the message.");
+                    acknowledgementWindow.skipped(slot);
+                    break;
+                case STOP_PROCESSING:
+                    LOGGER.debug("Message processing was not successful. Message will be redelivered, "
+                            + "stopping the listening.");
+                    stopAfterRecovery = true;
+                    acknowledgementWindow.failed(slot);
+                    break;
+                case RETRY:
+                    LOGGER.debug("Message processing was not successful. Message will be redelivered.");
+                    acknowledgementWindow.failed(slot);
+                    break;
+                default:
+                    throw new AssertionError(action);
+            }
+        }
+
         @Override
         public void stop() {
             silentlyCloseActiveConnection();
@@ -121,10 +254,17 @@ public class JmsAsyncUpdateSource implements ActiveAsyncUpdateSource {
             return "JMS-ListeningActivityImpl{" +
                     "connection=" + connection +
                     ", destination='" + destination + '\'' +
+                    ", unacknowledged=" + (acknowledgementWindow != null ? acknowledgementWindow.size() : 0) +
                     '}';
         }
 
+        /**
+         * Closing the connection is allowed from any thread. A receive call in progress in the session thread
+         * is terminated, and the unacknowledged messages are redelivered later.
+         */
         private void silentlyCloseActiveConnection() {
+            closed = true;
+            Connection connection = this.connection;
             try {
                 if (connection != null) {
                     LOGGER.info("Closing {}", connection); // todo debug
@@ -134,8 +274,6 @@ public class JmsAsyncUpdateSource implements ActiveAsyncUpdateSource {
             } catch (Throwable t) {
                 LoggingUtils.logUnexpectedException(LOGGER, "Couldn't close active connection {}", t, connection);
             }
-            connection = null;
-            closed = true;
         }
     }
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.ucf.impl.builtin.async.update.sources;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Keeps track of messages received from a single consumer, in the order of their delivery, and tells which of them
+ * can be acknowledged in a cumulative way (like JMS `CLIENT_ACKNOWLEDGE` mode does): only after all the preceding
+ * messages were processed.
+ *
+ * This allows the messages to be processed by multiple worker threads - in any order - without acknowledging
+ * a message whose processing has not finished yet. The window itself does not acknowledge anything: the outcomes
+ * are reported from the worker threads, and the thread owning the session asks for the message to be acknowledged
+ * (see {@link #pollAcknowledgeable()}), as the session must not be used concurrently.
+ *
+ * A failed message (see {@link #failed(Slot)}) stops the window from moving forward: neither it nor any later message
+ * is reported as acknowledgeable. It is up to the owner to have them redelivered and then {@link #clear()} the window.
+ *
+ * The number of messages in the window is bounded: the owner should not receive further messages until
+ * {@link #awaitCapacity(long)} says there is room for them. Otherwise, a single slow message would make the window
+ * (and the messages held by it) grow without limits.
+ *
+ * @param <M> type of the message
+ */
+class OrderedAcknowledgementWindow<M> {
+
+    private static final Trace LOGGER = TraceManager.getTrace(OrderedAcknowledgementWindow.class);
+
+    /** Maximal number of messages in the window. */
+    private final int maxInFlight;
+
+    /** Messages not acknowledged yet, in the order of their delivery. Guarded by `this`. */
+    @NotNull private final Deque<Slot<M>> slots = new ArrayDeque<>();
+
+    /** Number of slots with {@link State#PENDING} state. Guarded by `this`. */
+    private int pending;
+
+    /** True if a message failed. Guarded by `this`. */
+    private boolean failed;
+
+    OrderedAcknowledgementWindow(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Maximal number of messages in flight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** Registers a message. Must be called in the order of the delivery. */
+    synchronized @NotNull Slot<M> register(@NotNull M message) {
+        Slot<M> slot = new Slot<>(message);
+        slots.addLast(slot);
+        pending++;
+        return slot;
+    }
+
+    /** The message was processed and can be acknowledged. */
+    void processed(@NotNull Slot<M> slot) {
+        complete(slot, State.COMPLETED);
+    }
+
+    /** The message was not processed, but it should not prevent the acknowledgement of the subsequent messages. */
+    void skipped(@NotNull Slot<M> slot) {
+        complete(slot, State.COMPLETED);
+    }
+
+    /** The message was not processed. It and all the subsequent messages must not be acknowledged. */
+    void failed(@NotNull Slot<M> slot) {
+        complete(slot, State.FAILED);
+    }
+
+    private synchronized void complete(@NotNull Slot<M> slot, @NotNull State state) {
+        if (slot.state != State.PENDING) {
+            LOGGER.trace("Message {} was already completed or the window was cleared, ignoring the outcome", slot.message);
+            return;
+        }
+        slot.state = state;
+        pending--;
+        if (state == State.FAILED) {
+            LOGGER.debug("Message {} was not processed successfully; it and the subsequent ones will not be acknowledged",
+                    slot.message);
+            failed = true;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Removes the completed messages at the start of the window, and returns the newest of them. Acknowledging it
+     * acknowledges all of them. Returns `null` if there is nothing to acknowledge.
+     */
+    synchronized @Nullable M pollAcknowledgeable() {
+        Slot<M> newestCompleted = null;
+        while (!slots.isEmpty() && slots.peekFirst().state == State.COMPLETED) {
+            newestCompleted = slots.pollFirst();
+        }
+        if (newestCompleted != null) {
+            LOGGER.trace("Messages up to {} can be acknowledged; {} message(s) remain in the window",
+                    newestCompleted.message, slots.size());
+            return newestCompleted.message;
+        } else {
+            return null;
+        }
+    }
+
+    /** Returns true if a message has failed since the last {@link #clear()}. */
+    synchronized boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * Waits (at most given time) until no message is being processed. Returns true if that is the case.
+     */
+    synchronized boolean awaitSettled(long timeout) throws InterruptedException {
+        if (pending > 0) {
+            wait(timeout);
+        }
+        return pending == 0;
+    }
+
+    /**
+     * Waits (at most given time) until there is room for another message. Returns true if that is the case.
+     *
+     * The window shrinks only when the owner polls the acknowledgeable messages, so this method returns also
+     * when there is something to acknowledge (or a message failed), letting the owner act on that.
+     */
+    synchronized boolean awaitCapacity(long timeout) throws InterruptedException {
+        if (slots.size() >= maxInFlight && !failed && slots.peekFirst().state != State.COMPLETED) {
+            LOGGER.trace("The window is full ({} messages), waiting for the oldest message to complete", slots.size());
+            wait(timeout);
+        }
+        return slots.size() < maxInFlight;
+    }
+
+    /**
+     * Forgets all the messages, e.g. after they were recovered, i.e. scheduled for redelivery. Outcomes of messages
+     * still being processed are ignored.
+     */
+    synchronized void clear() {
+        for (Slot<M> slot : slots) {
+            slot.state = State.CLEARED;
+        }
+        slots.clear();
+        pending = 0;
+        failed = false;
+    }
+
+    synchronized int size() {
+        return slots.size();
+    }
+
+    private enum State {
+        PENDING, COMPLETED, FAILED, CLEARED
+    }
+
+    /** A message registered in the window. */
+    static class Slot<M> {
+
+        @NotNull private final M message;
+
+        /** Guarded by the window. */
+        @NotNull private State state = State.PENDING;
+
+        private Slot(@NotNull M message) {
+            this.message = message;
+        }
+    }
+}
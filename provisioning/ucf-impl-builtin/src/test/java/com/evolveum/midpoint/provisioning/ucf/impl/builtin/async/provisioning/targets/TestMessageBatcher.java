@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.ucf.impl.builtin.async.provisioning.targets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.tools.testng.AbstractUnitTest;
+import com.evolveum.midpoint.util.exception.SystemException;
+
+/**
+ * Tests {@link MessageBatcher} with a simulated broker, i.e. without JMS.
+ */
+public class TestMessageBatcher extends AbstractUnitTest {
+
+    private static final long TIMEOUT = 10000;
+
+    /** How long we wait to be (reasonably) sure that a thread is blocked. */
+    private static final long BLOCKED_TIMEOUT = 300;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test100Batching() throws Exception {
+        given("a batcher for 3 messages, waiting long enough for the batch to fill");
+        var sender = new SimulatedSender();
+        var batcher = new MessageBatcher("test100", 3, TIMEOUT, TIMEOUT, TIMEOUT, sender);
+
+        when("three messages are sent concurrently");
+        List<Future<String>> sends = new ArrayList<>();
+        for (String text : List.of("a", "b", "c")) {
+            sends.add(executor.submit(() -> batcher.send(text)));
+        }
+
+        then("they are sent in a single batch, each getting its own ID");
+        assertThat(sends.get(0).get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("id-a");
+        assertThat(sends.get(1).get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("id-b");
+        assertThat(sends.get(2).get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("id-c");
+        assertThat(sender.batches).hasSize(1);
+        assertThat(sender.batches.get(0)).containsExactlyInAnyOrder("a", "b", "c");
+
+        batcher.stop();
+        assertThat(sender.closed.get()).as("sender closed").isTrue();
+    }
+
+    @Test
+    public void test110Failure() throws Exception {
+        given("a batcher whose first batch fails");
+        var sender = new SimulatedSender();
+        sender.failuresToSimulate.set(1);
+        var batcher = new MessageBatcher("test110", 2, 1000, TIMEOUT, TIMEOUT, sender);
+
+        when("two messages are sent");
+        Future<String> first = executor.submit(() -> batcher.send("a"));
+        Future<String> second = executor.submit(() -> batcher.send("b"));
+
+        then("both operations get the exception, and the sender is reset");
+        assertFailedWith(first, IllegalStateException.class);
+        assertFailedWith(second, IllegalStateException.class);
+        assertThat(sender.closed.get()).as("sender closed").isTrue();
+
+        and("the next message is sent normally");
+        assertThat(batcher.send("c")).isEqualTo("id-c");
+
+        batcher.stop();
+    }
+
+    /**
+     * The broker does not respond, and the target is closed. The operations waiting for the batch being sent,
+     * as well as for the queued messages, must not wait forever.
+     */
+    @Test
+    public void test120Stop() throws Exception {
+        given("a batcher with a stuck sender");
+        var sender = new SimulatedSender();
+        sender.stuck = true;
+        var batcher = new MessageBatcher("test120", 1, 0, TIMEOUT, BLOCKED_TIMEOUT, sender);
+
+        Future<String> beingSent = executor.submit(() -> batcher.send("a"));
+        assertThat(sender.sendingStarted.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+        Future<String> queued = executor.submit(() -> batcher.send("b"));
+        assertBlocked(queued);
+
+        when("the batcher is stopped");
+        batcher.stop();
+
+        then("both operations fail");
+        assertFailedWith(beingSent, SystemException.class);
+        assertFailedWith(queued, SystemException.class);
+
+        sender.release.countDown();
+    }
+
+    /** The waiting for the confirmation is bounded; a message that was not sent yet is withdrawn. */
+    @Test
+    public void test130ConfirmationTimeout() throws Exception {
+        given("a batcher with a stuck sender and a short confirmation timeout");
+        var sender = new SimulatedSender();
+        sender.stuck = true;
+        var batcher = new MessageBatcher("test130", 1, 0, BLOCKED_TIMEOUT, TIMEOUT, sender);
+
+        when("two messages are sent");
+        Future<String> beingSent = executor.submit(() -> batcher.send("a"));
+        assertThat(sender.sendingStarted.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+        Future<String> queued = executor.submit(() -> batcher.send("b"));
+
+        then("both operations time out");
+        assertFailedWith(beingSent, TimeoutException.class);
+        assertFailedWith(queued, TimeoutException.class);
+
+        when("the broker responds");
+        sender.release.countDown();
+        batcher.stop();
+
+        then("only the first message was sent (and it might have been delivered), the queued one was withdrawn");
+        assertThat(sender.batches).containsExactly(List.of("a"));
+    }
+
+    private void assertFailedWith(Future<String> send, Class<? extends Throwable> expected) {
+        assertThatThrownBy(() -> send.get(TIMEOUT, TimeUnit.MILLISECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOf(expected);
+    }
+
+    private void assertBlocked(Future<?> future) {
+        assertThatThrownBy(() -> future.get(BLOCKED_TIMEOUT, TimeUnit.MILLISECONDS))
+                .as("operation is blocked")
+                .isInstanceOf(TimeoutException.class);
+    }
+
+    /** Returns `id-<text>` as the message ID. */
+    private static class SimulatedSender implements MessageBatcher.BatchSender {
+
+        private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failuresToSimulate = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /** If true, sending waits (ignoring interruptions) until {@link #release} is counted down. */
+        private volatile boolean stuck;
+        private final CountDownLatch sendingStarted = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public @NotNull List<String> sendBatch(@NotNull List<String> texts) {
+            sendingStarted.countDown();
+            if (stuck) {
+                waitForRelease();
+            }
+            if (failuresToSimulate.getAndDecrement() > 0) {
+                throw new IllegalStateException("Simulated broker failure");
+            }
+            batches.add(texts);
+            return texts.stream().map(text -> "id-" + text).toList();
+        }
+
+        private void waitForRelease() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
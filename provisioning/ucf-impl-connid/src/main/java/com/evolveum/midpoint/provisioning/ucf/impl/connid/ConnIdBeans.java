@@ -32,5 +32,6 @@ public class ConnIdBeans {
 
     @Autowired Protector protector;
     @Autowired LocalizationService localizationService;
+    @Autowired ConnectorConcurrencyLimiter concurrencyLimiter;
 
 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.ucf.impl.connid;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.configuration2.Configuration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.common.configuration.api.MidpointConfiguration;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceConnectorConcurrencyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+
+/**
+ * Limits the number of connector operations executed concurrently on this node: per resource
+ * (see {@link ResourceConnectorConcurrencyType}) and overall (`maxConcurrentOperations` in the `icf` section
+ * of the `config.xml` file).
+ *
+ * Threads exceeding the limits wait in a fair queue. All callers are limited in the same way, including the workers
+ * of multithreaded tasks.
+ *
+ * The permits are held only while the connector works: they are released when the operation is suspended to pass
+ * an object to midPoint (search and live sync handlers), and re-acquired when the handler returns. Hence the code
+ * running in the handlers - e.g. modifications issued while processing search results, or the coordinator feeding
+ * its workers - never waits for the limits while holding a permit. Together with the fixed order of acquisition
+ * (resource first, node second) this means no deadlock can occur among the limited threads. The price is that
+ * the connector may keep more connections open than the limit, as it keeps them also while midPoint handles
+ * the objects.
+ *
+ * The limits are applied here instead of relying on the ConnId connector pool, as the pool is not fair,
+ * it is configured per connector configuration (not per resource), and it does not report how long the threads wait.
+ */
+@Component
+public class ConnectorConcurrencyLimiter {
+
+    private static final Trace LOGGER = TraceManager.getTrace(ConnectorConcurrencyLimiter.class);
+
+    private static final String CONF_MAX_CONCURRENT_OPERATIONS = "maxConcurrentOperations";
+
+    @Autowired private MidpointConfiguration midpointConfiguration;
+
+    /** Node-wide limit; `null` if there is none. */
+    private Semaphore nodeSemaphore;
+
+    /** Limits for individual resources (by OID). The limit is re-created when the configuration changes. */
+    @NotNull private final Map<String, ResourceLimit> resourceLimits = new ConcurrentHashMap<>();
+
+    /**
+     * Permits of the operations started by the current thread; the innermost operation is at the top. Outer operations
+     * are suspended (i.e. their permits are released), as the inner ones are invoked from their handlers.
+     */
+    private final ThreadLocal<Deque<HeldPermit>> heldPermits = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @PostConstruct
+    public void initialize() {
+        Configuration config = midpointConfiguration.getConfiguration(MidpointConfiguration.ICF_CONFIGURATION);
+        setNodeLimit(config.getInt(CONF_MAX_CONCURRENT_OPERATIONS, 0));
+    }
+
+    @VisibleForTesting
+    void setNodeLimit(int max) {
+        if (max > 0) {
+            LOGGER.info("Limiting the number of concurrent connector operations on this node to {}", max);
+            nodeSemaphore = new Semaphore(max, true);
+        } else {
+            nodeSemaphore = null;
+        }
+    }
+
+    /**
+     * Waits until the operation on given resource can be started. Returns the time spent waiting (in milliseconds).
+     * Each call must be paired with {@link #release(String)} called by the same thread.
+     */
+    long acquire(@NotNull ResourceType resource) {
+        String resourceOid = resource.getOid();
+        if (resourceOid == null) {
+            return 0; // e.g. testing resources not stored in the repository; nothing to pair the permits with
+        }
+        Deque<HeldPermit> permits = heldPermits.get();
+        HeldPermit current = permits.peek();
+        if (current != null && !current.suspended && current.resourceOid.equals(resourceOid)) {
+            // Nested call of the same resource without a handler in between; the permit is already ours.
+            current.depth++;
+            return 0;
+        }
+        HeldPermit permit = new HeldPermit(resourceOid);
+        permits.push(permit);
+        return permit.acquire(
+                resource,
+                getResourceSemaphore(resourceOid, resource.getConnectorConcurrency()),
+                // The node permit is held at most once per thread, so the thread cannot block itself.
+                hasActivePermit(permits) ? null : nodeSemaphore);
+    }
+
+    /** Releases the permit obtained by {@link #acquire(ResourceType)}. */
+    void release(@Nullable String resourceOid) {
+        if (resourceOid == null) {
+            return;
+        }
+        HeldPermit permit = getInnermostPermit(resourceOid, "release");
+        if (permit == null || --permit.depth > 0) {
+            return;
+        }
+        heldPermits.get().pop();
+        permit.release();
+    }
+
+    /**
+     * Temporarily releases the permit of the current operation on given resource, as the operation is going to call
+     * back into midPoint (e.g. to process an object found). Must be followed by {@link #resume(ResourceType)}.
+     */
+    void suspend(@Nullable String resourceOid) {
+        if (resourceOid == null) {
+            return;
+        }
+        HeldPermit permit = getInnermostPermit(resourceOid, "suspend");
+        if (permit != null && !permit.suspended) {
+            permit.release();
+            permit.suspended = true;
+        }
+    }
+
+    /**
+     * Re-acquires the permit released by {@link #suspend(String)}, waiting if needed.
+     * Returns the time spent waiting (in milliseconds).
+     */
+    long resume(@NotNull ResourceType resource) {
+        String resourceOid = resource.getOid();
+        if (resourceOid == null) {
+            return 0;
+        }
+        HeldPermit permit = getInnermostPermit(resourceOid, "resume");
+        if (permit == null || !permit.suspended) {
+            return 0;
+        }
+        permit.suspended = false;
+        return permit.acquire(
+                resource,
+                getResourceSemaphore(resourceOid, resource.getConnectorConcurrency()),
+                hasActivePermit(heldPermits.get()) ? null : nodeSemaphore);
+    }
+
+    /** Returns the innermost permit, if it belongs to given resource. The handlers may be called in other threads. */
+    private @Nullable HeldPermit getInnermostPermit(@NotNull String resourceOid, String action) {
+        HeldPermit permit = heldPermits.get().peek();
+        if (permit == null || !permit.resourceOid.equals(resourceOid)) {
+            LOGGER.debug("Cannot {} a connector permit for resource {}, as it is not the innermost one held by the current"
+                    + " thread: {}", action, resourceOid, permit);
+            return null;
+        }
+        return permit;
+    }
+
+    /** Is there a permit (other than the innermost one) holding the node semaphore in this thread? */
+    private boolean hasActivePermit(@NotNull Deque<HeldPermit> permits) {
+        return permits.stream()
+                .skip(1)
+                .anyMatch(p -> p.nodeSemaphore != null);
+    }
+
+    private @Nullable Semaphore getResourceSemaphore(
+            @NotNull String resourceOid, @Nullable ResourceConnectorConcurrencyType concurrency) {
+        Integer max = concurrency != null ? concurrency.getMaxConcurrentOperations() : null;
+        if (max == null || max <= 0) {
+            resourceLimits.remove(resourceOid);
+            return null;
+        }
+        // Operations started under the previous limit release their permits to the previous semaphore,
+        // so the new limit may be temporarily exceeded; this is acceptable.
+        return resourceLimits
+                .compute(resourceOid, (oid, limit) -> limit != null && limit.max == max ? limit : new ResourceLimit(max))
+                .semaphore;
+    }
+
+    /**
+     * Returns the information about the limits for given resource: the limit, the number of the operations
+     * being executed, and the number of the threads waiting. Returns `null` if the resource is not limited.
+     */
+    @Nullable ResourceConcurrencyStatus getResourceStatus(@Nullable String resourceOid) {
+        ResourceLimit limit = resourceOid != null ? resourceLimits.get(resourceOid) : null;
+        if (limit == null) {
+            return null;
+        }
+        return new ResourceConcurrencyStatus(
+                limit.max,
+                limit.max - limit.semaphore.availablePermits(),
+                limit.semaphore.getQueueLength());
+    }
+
+    record ResourceConcurrencyStatus(int limit, int active, int waiting) {
+    }
+
+    private static class ResourceLimit {
+
+        private final int max;
+        @NotNull private final Semaphore semaphore;
+
+        private ResourceLimit(int max) {
+            this.max = max;
+            this.semaphore = new Semaphore(max, true);
+        }
+    }
+
+    private static class HeldPermit {
+
+        @NotNull private final String resourceOid;
+
+        /** Semaphores from which the permits are currently held; `null` if not held (or not limited). */
+        private Semaphore resourceSemaphore;
+        private Semaphore nodeSemaphore;
+
+        /** Is the operation suspended, i.e. are the permits temporarily released? */
+        private boolean suspended;
+
+        private int depth = 1;
+
+        private HeldPermit(@NotNull String resourceOid) {
+            this.resourceOid = resourceOid;
+        }
+
+        /** Acquires the permits (resource first, node second); returns the time spent waiting. */
+        private long acquire(
+                @NotNull ResourceType resource, @Nullable Semaphore resourceSemaphore, @Nullable Semaphore nodeSemaphore) {
+            long start = System.currentTimeMillis();
+            try {
+                if (resourceSemaphore != null) {
+                    resourceSemaphore.acquire();
+                    this.resourceSemaphore = resourceSemaphore;
+                }
+                if (nodeSemaphore != null) {
+                    nodeSemaphore.acquire();
+                    this.nodeSemaphore = nodeSemaphore;
+                }
+            } catch (InterruptedException e) {
+                // The task is most probably being suspended. We let the operation go without (some of) the permits,
+                // as the callers do not expect the failure here.
+                Thread.currentThread().interrupt();
+                LOGGER.debug("Interrupted while waiting for the connector concurrency limits for {}", resource);
+            }
+            long waited = System.currentTimeMillis() - start;
+            if (waited > 0) {
+                LOGGER.trace("Waited {} ms for the connector concurrency limits for {}", waited, resource);
+            }
+            return waited;
+        }
+
+        /** Releases the permits held (if any). */
+        private void release() {
+            if (resourceSemaphore != null) {
+                resourceSemaphore.release();
+                resourceSemaphore = null;
+            }
+            if (nodeSemaphore != null) {
+                nodeSemaphore.release();
+                nodeSemaphore = null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "HeldPermit{" + resourceOid + ", depth=" + depth + (suspended ? ", suspended" : "") + "}";
+        }
+    }
+}
@@ -149,6 +149,12 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
     /** Usually the resource name. */
     @NotNull private final String instanceName;
 
+    /**
+     * OID of the resource this instance works for, as seen in the executed operations (instances are not shared
+     * among resources). Used only for diagnostics, see {@link #getOperationalStatus()}.
+     */
+    private volatile String resourceOid;
+
     /** Complex description for development diagnostics, e.g. `ConnectorSpec(resource OID...)` */
     @NotNull private final String description;
 
@@ -320,6 +326,13 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
             status.setPoolConfigMaxIdleTime(poolConfiguration.getMaxIdleTimeMillis());
         }
 
+        var concurrencyStatus = b.concurrencyLimiter.getResourceStatus(resourceOid);
+        if (concurrencyStatus != null) {
+            status.setConcurrencyLimit(concurrencyStatus.limit());
+            status.setConcurrencyNumActive(concurrencyStatus.active());
+            status.setConcurrencyNumWaiting(concurrencyStatus.waiting());
+        }
+
         ObjectPool<PoolableConnector> pool = connectorOperationalContext.getPool();
         if (pool != null) {
             Statistics poolStats = pool.getStatistics();
@@ -1313,13 +1326,13 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
 
             InternalMonitor.recordConnectorOperation("delete");
             InternalMonitor.recordConnectorModification("delete");
-            ConnIdOperation operation = recordIcfOperationStart(ctx, ProvisioningOperation.ICF_DELETE, objectDefinition, uid);
-
             OperationResult icfResult = result.createSubresult(ConnectorFacade.class.getName() + ".delete");
             icfResult.addArbitraryObjectAsParam("uid", uid);
             icfResult.addArbitraryObjectAsParam("objectClass", objClass);
             icfResult.addContext("connector", getConnIdConnectorFacadeRequired().getClass());
 
+            ConnIdOperation operation = recordIcfOperationStart(ctx, ProvisioningOperation.ICF_DELETE, objectDefinition, uid);
+
             try {
                 LOGGER.trace("Invoking ConnId delete operation: {}", operation);
 
@@ -1763,10 +1776,11 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
         InternalMonitor.recordConnectorOperation("search");
         ConnIdOperation operation = recordIcfOperationStart(ctx, ProvisioningOperation.ICF_SEARCH, objectDefinition);
 
+        final Holder<Integer> fetched = new Holder<>(0);
+        SearchResult searchResult;
         try {
 
             Filter filter = convertFilterToIcf(query, objectDefinition);
-            final Holder<Integer> fetched = new Holder<>(0);
 
             ResultsHandler connIdHandler = new ResultsHandler() {
                 @Override
@@ -1781,16 +1795,7 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
                 }
             };
             LOGGER.trace("Invoking ConnId search operation (to count objects): {}", operation);
-            SearchResult searchResult = getConnIdConnectorFacadeRequired().search(icfObjectClass, filter, connIdHandler, options);
-            recordIcfOperationEnd(ctx, operation, null);
-
-            if (searchResult == null || searchResult.getRemainingPagedResults() == -1) {
-                throw new UnsupportedOperationException("Connector does not seem to support paged searches or does not provide object count information");
-            } else {
-                retval = fetched.getValue() + searchResult.getRemainingPagedResults();
-            }
-
-            icfResult.recordSuccess();
+            searchResult = getConnIdConnectorFacadeRequired().search(icfObjectClass, filter, connIdHandler, options);
         } catch (IntermediateSchemaException inEx) {
             recordIcfOperationEnd(ctx, operation, inEx);
             var ex = inEx.getSchemaException();
@@ -1823,6 +1828,20 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
             }
         }
 
+        // Recorded here (not in the try block), so that the end of the operation is recorded exactly once.
+        recordIcfOperationEnd(ctx, operation, null);
+
+        if (searchResult == null || searchResult.getRemainingPagedResults() == -1) {
+            UnsupportedOperationException uoe = new UnsupportedOperationException(
+                    "Connector does not seem to support paged searches or does not provide object count information");
+            icfResult.recordFatalError(uoe);
+            result.recordFatalError(uoe);
+            throw uoe;
+        } else {
+            retval = fetched.getValue() + searchResult.getRemainingPagedResults();
+        }
+        icfResult.recordSuccess();
+
         if (result.isUnknown()) {
             result.recordSuccess();
         }
@@ -2031,7 +2050,20 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
     private @Nullable ConnIdOperation recordIcfOperationStart(
             UcfExecutionContext reporter, ProvisioningOperation operation, ResourceObjectDefinition objectDefinition, Uid uid) {
         if (reporter != null) {
-            return reporter.recordIcfOperationStart(operation, objectDefinition, uid != null ? uid.getUidValue() : null);
+            resourceOid = reporter.getResourceOid();
+            // Must be paired with recordIcfOperationEnd, that releases the permit.
+            long queueWaitTime = b.concurrencyLimiter.acquire(reporter.getResource());
+            ConnIdOperation connIdOperation;
+            try {
+                connIdOperation =
+                        reporter.recordIcfOperationStart(operation, objectDefinition, uid != null ? uid.getUidValue() : null);
+            } catch (Throwable t) {
+                // The caller will not call recordIcfOperationEnd, as it has no operation to end.
+                b.concurrencyLimiter.release(reporter.getResourceOid());
+                throw t;
+            }
+            connIdOperation.setQueueWaitTime(queueWaitTime);
+            return connIdOperation;
         } else {
             LOGGER.warn("Couldn't record ConnId operation start as reporter is null.");
             return null;
@@ -2045,6 +2077,11 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
 
     void recordIcfOperationResume(UcfExecutionContext reporter, ConnIdOperation operation) {
         if (reporter != null) {
+            // The permit was released when the operation was suspended, see recordIcfOperationSuspend.
+            long queueWaitTime = b.concurrencyLimiter.resume(reporter.getResource());
+            if (operation != null) {
+                operation.setQueueWaitTime(operation.getQueueWaitTime() + queueWaitTime);
+            }
             reporter.recordIcfOperationResume(operation);
         } else {
             LOGGER.warn("Couldn't record ConnId operation resume as reporter is null.");
@@ -2054,6 +2091,8 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
     void recordIcfOperationSuspend(UcfExecutionContext reporter, ConnIdOperation operation) {
         if (reporter != null) {
             reporter.recordIcfOperationSuspend(operation);
+            // We are going to call midPoint code that may invoke other connector operations, possibly waiting for them.
+            b.concurrencyLimiter.suspend(reporter.getResourceOid());
         } else {
             LOGGER.warn("Couldn't record ConnId operation suspension as reporter is null.");
         }
@@ -2061,7 +2100,11 @@ class ConnectorInstanceConnIdImpl implements ConnectorInstance, ConnectorContext
 
     void recordIcfOperationEnd(UcfExecutionContext reporter, ConnIdOperation operation, Throwable ex) {
         if (reporter != null) {
-            reporter.recordIcfOperationEnd(operation, ex);
+            try {
+                reporter.recordIcfOperationEnd(operation, ex);
+            } finally {
+                b.concurrencyLimiter.release(reporter.getResourceOid());
+            }
         } else {
             LOGGER.warn("Couldn't record ConnId operation end as reporter is null.");
         }
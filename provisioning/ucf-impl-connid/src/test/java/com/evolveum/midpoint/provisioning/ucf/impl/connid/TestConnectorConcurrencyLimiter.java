@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.ucf.impl.connid;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.*;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.tools.testng.AbstractUnitTest;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceConnectorConcurrencyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+
+/**
+ * Tests {@link ConnectorConcurrencyLimiter} without any connectors: the operations are simulated by the calls
+ * done by {@link ConnectorInstanceConnIdImpl} around the ConnId operations.
+ */
+public class TestConnectorConcurrencyLimiter extends AbstractUnitTest {
+
+    /** How long we wait to be (reasonably) sure that a thread is blocked. */
+    private static final long BLOCKED_TIMEOUT = 300;
+
+    private static final long TIMEOUT = 10000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test100ResourceLimit() throws Exception {
+        given("a resource limited to a single operation");
+        var limiter = new ConnectorConcurrencyLimiter();
+        var resource = resource("d4b5e6a2-1a2b-4c5d-8e9f-000000000100", 1);
+
+        when("an operation is started");
+        limiter.acquire(resource);
+
+        then("another operation on the resource waits");
+        Future<?> other = executor.submit(() -> runOperation(limiter, resource));
+        assertBlocked(other);
+        assertThat(limiter.getResourceStatus(resource.getOid()))
+                .isEqualTo(new ConnectorConcurrencyLimiter.ResourceConcurrencyStatus(1, 1, 1));
+
+        when("the first operation ends");
+        limiter.release(resource.getOid());
+
+        then("the other operation proceeds and releases its permit");
+        other.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertThat(limiter.getResourceStatus(resource.getOid()))
+                .isEqualTo(new ConnectorConcurrencyLimiter.ResourceConcurrencyStatus(1, 0, 0));
+    }
+
+    @Test
+    public void test110NodeLimit() throws Exception {
+        given("a node limited to a single operation, and two unlimited resources");
+        var limiter = new ConnectorConcurrencyLimiter();
+        limiter.setNodeLimit(1);
+        var resource1 = resource("d4b5e6a2-1a2b-4c5d-8e9f-000000000111", null);
+        var resource2 = resource("d4b5e6a2-1a2b-4c5d-8e9f-000000000112", null);
+
+        when("an operation on the first resource is started");
+        limiter.acquire(resource1);
+
+        then("an operation on the second resource waits");
+        Future<?> other = executor.submit(() -> runOperation(limiter, resource2));
+        assertBlocked(other);
+
+        when("the first operation ends");
+        limiter.release(resource1.getOid());
+
+        then("the other operation proceeds");
+        other.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        and("the node permit is available again");
+        executor.submit(() -> runOperation(limiter, resource1)).get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A coordinator searches the resource, and passes the objects found to a worker that invokes an operation
+     * on the same resource. The coordinator waits for the worker (as if the worker queue were full).
+     * The permit is not held while the coordinator is in the handler, so the worker can proceed.
+     */
+    @Test
+    public void test120WorkerInvokedFromHandler() throws Exception {
+        given("a resource and the node limited to a single operation");
+        var limiter = new ConnectorConcurrencyLimiter();
+        limiter.setNodeLimit(1);
+        var resource = resource("d4b5e6a2-1a2b-4c5d-8e9f-000000000120", 1);
+
+        when("the coordinator starts a search and calls the handler, waiting for a worker");
+        limiter.acquire(resource);
+        limiter.suspend(resource.getOid());
+        executor.submit(() -> runOperation(limiter, resource))
+                .get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        and("the coordinator invokes a nested operation on the resource itself");
+        runOperation(limiter, resource);
+
+        and("the coordinator returns from the handler and finishes the search");
+        limiter.resume(resource);
+
+        then("the permit is held by the search while the connector works");
+        Future<?> other = executor.submit(() -> runOperation(limiter, resource));
+        assertBlocked(other);
+
+        limiter.release(resource.getOid());
+        other.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertThat(limiter.getResourceStatus(resource.getOid()))
+                .isEqualTo(new ConnectorConcurrencyLimiter.ResourceConcurrencyStatus(1, 0, 0));
+    }
+
+    @Test
+    public void test130ResumeWaitsForPermit() throws Exception {
+        given("a resource limited to a single operation");
+        var limiter = new ConnectorConcurrencyLimiter();
+        var resource = resource("d4b5e6a2-1a2b-4c5d-8e9f-000000000130", 1);
+
+        when("a search calls its handler");
+        CountDownLatch inHandler = new CountDownLatch(1);
+        CountDownLatch handlerMayReturn = new CountDownLatch(1);
+        Future<Long> search = executor.submit(() -> {
+            limiter.acquire(resource);
+            limiter.suspend(resource.getOid());
+            inHandler.countDown();
+            handlerMayReturn.await();
+            long waited = limiter.resume(resource);
+            limiter.release(resource.getOid());
+            return waited;
+        });
+        assertThat(inHandler.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+
+        and("another operation is started meanwhile, and the handler returns");
+        limiter.acquire(resource);
+        handlerMayReturn.countDown();
+
+        then("the search waits until the other operation ends");
+        assertBlocked(search);
+        limiter.release(resource.getOid());
+        assertThat(search.get(TIMEOUT, TimeUnit.MILLISECONDS)).as("time waited").isPositive();
+    }
+
+    @Test
+    public void test140ReleaseOnException() throws Exception {
+        given("a resource limited to a single operation");
+        var limiter = new ConnectorConcurrencyLimiter();
+        var resource = resource("d4b5e6a2-1a2b-4c5d-8e9f-000000000140", 1);
+
+        when("an operation fails");
+        assertThatThrownBy(() -> runOperation(limiter, resource, () -> {
+            throw new IllegalStateException("connector failure");
+        })).isInstanceOf(IllegalStateException.class);
+
+        then("the permit is released");
+        executor.submit(() -> runOperation(limiter, resource)).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertThat(limiter.getResourceStatus(resource.getOid()))
+                .isEqualTo(new ConnectorConcurrencyLimiter.ResourceConcurrencyStatus(1, 0, 0));
+    }
+
+    @Test
+    public void test150InterruptedWhileWaiting() throws Exception {
+        given("a resource limited to a single operation that is being executed");
+        var limiter = new ConnectorConcurrencyLimiter();
+        var resource = resource("d4b5e6a2-1a2b-4c5d-8e9f-000000000150", 1);
+        limiter.acquire(resource);
+
+        when("a waiting operation is interrupted");
+        Thread other = new Thread(() -> runOperation(limiter, resource));
+        other.start();
+        Thread.sleep(BLOCKED_TIMEOUT);
+        assertThat(limiter.getResourceStatus(resource.getOid()))
+                .isEqualTo(new ConnectorConcurrencyLimiter.ResourceConcurrencyStatus(1, 1, 1));
+        other.interrupt();
+        other.join(TIMEOUT);
+        assertThat(other.isAlive()).as("interrupted thread is alive").isFalse();
+
+        and("the first operation ends");
+        limiter.release(resource.getOid());
+
+        then("no permits are lost nor added by the interrupted operation");
+        assertThat(limiter.getResourceStatus(resource.getOid()))
+                .isEqualTo(new ConnectorConcurrencyLimiter.ResourceConcurrencyStatus(1, 0, 0));
+        limiter.acquire(resource);
+        Future<?> third = executor.submit(() -> runOperation(limiter, resource));
+        assertBlocked(third);
+        limiter.release(resource.getOid());
+        third.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private ResourceType resource(String oid, Integer maxConcurrentOperations) {
+        return new ResourceType()
+                .oid(oid)
+                .connectorConcurrency(
+                        new ResourceConnectorConcurrencyType()
+                                .maxConcurrentOperations(maxConcurrentOperations));
+    }
+
+    private Void runOperation(ConnectorConcurrencyLimiter limiter, ResourceType resource) {
+        return runOperation(limiter, resource, () -> {});
+    }
+
+    /** Mimics the acquire/release pattern of {@link ConnectorInstanceConnIdImpl}. */
+    private Void runOperation(ConnectorConcurrencyLimiter limiter, ResourceType resource, Runnable operation) {
+        limiter.acquire(resource);
+        try {
+            operation.run();
+        } finally {
+            limiter.release(resource.getOid());
+        }
+        return null;
+    }
+
+    private void assertBlocked(Future<?> future) throws Exception {
+        assertThatThrownBy(() -> future.get(BLOCKED_TIMEOUT, TimeUnit.MILLISECONDS))
+                .as("operation is blocked")
+                .isInstanceOf(TimeoutException.class);
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.api;
+
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.evolveum.midpoint.util.annotation.Experimental;
+
+/**
+ * Details of an object modification that were transferred along with the invalidation event from another node.
+ *
+ * Only the (local names of) top-level items that were modified, and the versions of the object before and after
+ * the modification are known. These are sent only for regular (non-overwriting) modifications where each modified
+ * item could be determined; in all other cases, the remote invalidation carries no details.
+ */
+@Experimental
+public record RemoteCacheInvalidationDetails(
+        @NotNull Set<String> modifiedItems,
+        @Nullable String versionBefore,
+        @Nullable String versionAfter) implements CacheInvalidationDetails {
+}
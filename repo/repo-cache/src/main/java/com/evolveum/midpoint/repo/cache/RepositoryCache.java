@@ -38,6 +38,7 @@ import com.evolveum.midpoint.repo.cache.handlers.ModificationOpHandler;
 import com.evolveum.midpoint.repo.cache.handlers.SearchOpHandler;
 import com.evolveum.midpoint.repo.cache.invalidation.Invalidator;
 import com.evolveum.midpoint.repo.cache.local.LocalRepoCacheCollection;
+import com.evolveum.midpoint.repo.cache.other.CloningStatistics;
 import com.evolveum.midpoint.schema.*;
 import com.evolveum.midpoint.schema.cache.CacheConfigurationManager;
 import com.evolveum.midpoint.schema.result.OperationResult;
@@ -442,6 +443,7 @@ public class RepositoryCache implements RepositoryService, Cache {
         globalObjectCache.dumpContent();
         globalVersionCache.dumpContent();
         globalQueryCache.dumpContent();
+        CloningStatistics.INSTANCE.dumpContent();
     }
     //endregion
 
@@ -25,6 +25,7 @@ import com.evolveum.midpoint.repo.cache.global.GlobalVersionCache;
 import com.evolveum.midpoint.repo.cache.local.LocalObjectCache;
 import com.evolveum.midpoint.repo.cache.local.LocalVersionCache;
 import com.evolveum.midpoint.repo.cache.local.QueryKey;
+import com.evolveum.midpoint.repo.cache.other.CloningStatistics;
 import com.evolveum.midpoint.schema.SearchResultList;
 import com.evolveum.midpoint.util.caching.CacheConfiguration;
 import com.evolveum.midpoint.util.caching.CachePerformanceCollector;
@@ -181,9 +182,10 @@ class CacheUpdater {
                 // We are going to return the object as read-only, so we can cache the same (frozen) object as we are returning.
                 object.freeze();
                 immutable = object;
+                CloningStatistics.INSTANCE.recordShared(object);
             } else {
                 // We are going to return the object as mutable, so we must cache the frozen clone of the retrieved object.
-                immutable = object.clone();
+                immutable = CloningStatistics.INSTANCE.cloneObject(object);
                 immutable.freeze();
             }
             storeImmutableObjectToObjectLocal(immutable, caches);
@@ -19,6 +19,7 @@ import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.repo.cache.global.GlobalObjectCache;
 import com.evolveum.midpoint.repo.cache.local.LocalObjectCache;
+import com.evolveum.midpoint.repo.cache.other.CloningStatistics;
 import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.result.OperationResult;
@@ -95,9 +96,10 @@ class GetObjectOpExecution<O extends ObjectType>
         immutable.checkImmutable();
         recordResult(immutable);
         if (readOnly) {
+            CloningStatistics.INSTANCE.recordShared(immutable);
             return immutable;
         } else {
-            return immutable.clone();
+            return CloningStatistics.INSTANCE.cloneObject(immutable);
         }
     }
 }
@@ -20,6 +20,7 @@ import org.springframework.stereotype.Component;
 
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.repo.cache.global.GlobalCacheObjectValue;
+import com.evolveum.midpoint.repo.cache.other.CloningStatistics;
 import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.result.OperationResult;
@@ -157,21 +158,28 @@ public class GetObjectOpHandler extends CachedOpHandler {
             throws SchemaException, ObjectNotFoundException {
         try {
             PrismObject<T> object = getObjectInternal(exec.type, exec.oid, exec.options, exec.result);
-            PrismObject<T> immutable = toImmutable(object);
-
-            if (!ObjectType.class.equals(exec.type)) {
+            if (ObjectType.class.equals(exec.type)) {
                 // Only cache object when read is performed by concrete type, reading by ObjectType
                 // and caching may actually lead to caching incorrectly read object
-                // if repository uses object class specific mappings
-                cacheUpdater.storeImmutableObjectToObjectLocal(immutable, exec.caches);
-                cacheUpdater.storeImmutableObjectToObjectGlobal(immutable);
-                cacheUpdater.storeObjectToVersionGlobal(immutable, exec.caches.globalVersion);
-                cacheUpdater.storeObjectToVersionLocal(immutable, exec.caches.localVersion);
+                // if repository uses object class specific mappings.
+                // So there is no need to create the frozen copy.
+                if (exec.readOnly) {
+                    object.freeze();
+                    return object;
+                } else {
+                    return object.isImmutable() ? CloningStatistics.INSTANCE.cloneObject(object) : object;
+                }
             }
+
+            PrismObject<T> immutable = toImmutable(object, exec.readOnly);
+            cacheUpdater.storeImmutableObjectToObjectLocal(immutable, exec.caches);
+            cacheUpdater.storeImmutableObjectToObjectGlobal(immutable);
+            cacheUpdater.storeObjectToVersionGlobal(immutable, exec.caches.globalVersion);
+            cacheUpdater.storeObjectToVersionLocal(immutable, exec.caches.localVersion);
             if (exec.readOnly) {
                 return immutable;
             } else {
-                return object.cloneIfImmutable();
+                return object.isImmutable() ? CloningStatistics.INSTANCE.cloneObject(object) : object;
             }
         } catch (ObjectNotFoundException | SchemaException ex) {
             globalObjectCache.remove(exec.oid);
@@ -180,11 +188,19 @@ public class GetObjectOpHandler extends CachedOpHandler {
         }
     }
 
-    private <T extends ObjectType> PrismObject<T> toImmutable(PrismObject<T> object) {
+    /**
+     * Returns frozen version of the object loaded from the repository. If the client asked for read-only object,
+     * the loaded one can be simply frozen, as it is not shared with anyone yet.
+     */
+    private <T extends ObjectType> PrismObject<T> toImmutable(PrismObject<T> object, boolean readOnly) {
         if (object.isImmutable()) {
             return object;
+        } else if (readOnly) {
+            object.freeze();
+            CloningStatistics.INSTANCE.recordShared(object);
+            return object;
         } else {
-            PrismObject<T> clone = object.clone();
+            PrismObject<T> clone = CloningStatistics.INSTANCE.cloneObject(object);
             clone.freeze();
             return clone;
         }
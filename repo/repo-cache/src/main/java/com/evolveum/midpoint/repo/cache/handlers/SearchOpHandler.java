@@ -25,6 +25,7 @@ import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.cache.RepositoryCache;
 import com.evolveum.midpoint.repo.cache.local.QueryKey;
+import com.evolveum.midpoint.repo.cache.other.CloningStatistics;
 import com.evolveum.midpoint.repo.cache.other.MonitoringUtil;
 import com.evolveum.midpoint.schema.*;
 import com.evolveum.midpoint.schema.result.OperationResult;
@@ -293,7 +294,13 @@ public class SearchOpHandler extends CachedOpHandler {
         try {
             for (PrismObject<T> immutableObject : immutableList) {
                 immutableObject.checkImmutable();
-                PrismObject<T> objectToHandle = exec.readOnly ? immutableObject : immutableObject.clone();
+                PrismObject<T> objectToHandle;
+                if (exec.readOnly) {
+                    CloningStatistics.INSTANCE.recordShared(immutableObject);
+                    objectToHandle = immutableObject;
+                } else {
+                    objectToHandle = CloningStatistics.INSTANCE.cloneObject(immutableObject);
+                }
                 if (!handler.handle(objectToHandle, result)) {
                     break;
                 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.cache.other;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.evolveum.midpoint.prism.Objectable;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Counts objects cloned by the repository cache (either for returning mutable objects to the clients,
+ * or for storing frozen copies into the caches), and objects that were shared instead, i.e. frozen objects
+ * returned to clients that asked for read-only data.
+ *
+ * The time spent cloning is measured as well, so the (estimated) time saved by sharing can be derived from it.
+ * This helps to find out which object types are worth reading with `readOnly` option.
+ *
+ * The statistics are node-wide and cumulative. They are dumped along with the cache content.
+ */
+public class CloningStatistics {
+
+    public static final CloningStatistics INSTANCE = new CloningStatistics();
+
+    private static final Trace LOGGER_CONTENT = TraceManager.getTrace(CloningStatistics.class.getName() + ".content");
+
+    private final Map<Class<?>, Counters> countersMap = new ConcurrentHashMap<>();
+
+    /** Clones the object, recording the time spent. */
+    public <O extends Objectable> @NotNull PrismObject<O> cloneObject(@NotNull PrismObject<O> object) {
+        long start = System.nanoTime();
+        PrismObject<O> clone = object.clone();
+        getCounters(object).recordClone(System.nanoTime() - start);
+        return clone;
+    }
+
+    /** Records that the (frozen) object was provided to the client without cloning. */
+    public void recordShared(@NotNull PrismObject<?> object) {
+        getCounters(object).shared.increment();
+    }
+
+    private Counters getCounters(PrismObject<?> object) {
+        return countersMap.computeIfAbsent(getType(object), k -> new Counters());
+    }
+
+    private Class<?> getType(PrismObject<?> object) {
+        Class<?> compileTimeClass = object.getCompileTimeClass();
+        return compileTimeClass != null ? compileTimeClass : Object.class;
+    }
+
+    /** Number of times the objects of given type were cloned. */
+    public long getClonedCount(@NotNull Class<?> type) {
+        Counters counters = countersMap.get(type);
+        return counters != null ? counters.cloned.sum() : 0;
+    }
+
+    /** Number of times the (frozen) objects of given type were provided without cloning. */
+    public long getSharedCount(@NotNull Class<?> type) {
+        Counters counters = countersMap.get(type);
+        return counters != null ? counters.shared.sum() : 0;
+    }
+
+    public void clear() {
+        countersMap.clear();
+    }
+
+    public void dumpContent() {
+        if (LOGGER_CONTENT.isInfoEnabled()) {
+            countersMap.forEach((type, counters) -> {
+                long cloned = counters.cloned.sum();
+                long nanos = counters.cloningTime.sum();
+                long shared = counters.shared.sum();
+                long averageMicros = cloned > 0 ? nanos / cloned / 1000 : 0;
+                LOGGER_CONTENT.info("Cloning statistics for {}: cloned {} time(s) taking {} ms (avg {} us); shared {} time(s)"
+                                + " saving approx. {} ms",
+                        type.getSimpleName(), cloned, nanos / 1_000_000, averageMicros, shared,
+                        cloned > 0 ? nanos / cloned * shared / 1_000_000 : 0);
+            });
+        }
+    }
+
+    private static class Counters {
+        private final LongAdder cloned = new LongAdder();
+        private final LongAdder cloningTime = new LongAdder();
+        private final LongAdder shared = new LongAdder();
+
+        private void recordClone(long nanos) {
+            cloned.increment();
+            cloningTime.add(nanos);
+        }
+    }
+}
@@ -43,6 +43,7 @@ import com.evolveum.midpoint.repo.cache.global.GlobalObjectCache;
 import com.evolveum.midpoint.repo.cache.global.GlobalQueryCache;
 import com.evolveum.midpoint.repo.cache.global.GlobalVersionCache;
 import com.evolveum.midpoint.repo.cache.local.QueryKey;
+import com.evolveum.midpoint.repo.cache.other.CloningStatistics;
 import com.evolveum.midpoint.repo.sqale.SqaleRepositoryService;
 import com.evolveum.midpoint.schema.*;
 import com.evolveum.midpoint.schema.constants.MidPointConstants;
@@ -112,6 +113,124 @@ public class TestRepositoryCache extends AbstractSpringTest implements InfraTest
         testGetCachedObject(SystemConfigurationType.class);
     }
 
+    /**
+     * Read-only get of a cached object: the object loaded from the repository is frozen and shared with the cache,
+     * and the subsequent read-only gets return the cached instance. No cloning is needed.
+     */
+    @Test
+    public void test120GetCachedObjectReadOnly() throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        given("an archetype in the repository");
+        OperationResult result = createOperationResult();
+        var readOnly = GetOperationOptions.createReadOnlyCollection();
+        clearStatistics();
+        clearCaches();
+        CloningStatistics.INSTANCE.clear();
+
+        PrismObject<ArchetypeType> archetype = new ArchetypeType()
+                .name(getTestNameShort())
+                .asPrismObject();
+        String oid = repositoryCache.addObject(archetype, null, result);
+
+        when("the archetype is retrieved read-only, twice");
+        PrismObject<ArchetypeType> object1 = repositoryCache.getObject(ArchetypeType.class, oid, readOnly, result);
+        PrismObject<ArchetypeType> object2 = repositoryCache.getObject(ArchetypeType.class, oid, readOnly, result);
+
+        then("the same immutable object is returned, without cloning");
+        assertEquals("Wrong object1", archetype, object1);
+        assertThat(object1.isImmutable()).as("object1 is immutable").isTrue();
+        assertThat(object2).as("object2").isSameAs(object1);
+        assertGetOperations(1);
+        assertObjectIsCached(oid);
+        assertClonedAndShared(ArchetypeType.class, 0, 2);
+
+        when("the archetype is retrieved in the mutable form");
+        PrismObject<ArchetypeType> object3 = repositoryCache.getObject(ArchetypeType.class, oid, null, result);
+
+        then("a mutable clone is returned");
+        assertEquals("Wrong object3", archetype, object3);
+        assertThat(object3.isImmutable()).as("object3 is immutable").isFalse();
+        assertClonedAndShared(ArchetypeType.class, 1, 2);
+
+        and("changing it does not influence the cached object");
+        object3.asObjectable().setDescription("garbage");
+        PrismObject<ArchetypeType> object4 = repositoryCache.getObject(ArchetypeType.class, oid, readOnly, result);
+        assertThat(object4).as("object4").isSameAs(object1);
+        assertThat(object4.asObjectable().getDescription()).as("description in object4").isNull();
+        assertGetOperations(1);
+    }
+
+    /**
+     * Mutable get of a cached object: the object loaded is cloned for the cache, and every subsequent get
+     * (served from the cache) clones the cached object.
+     */
+    @Test
+    public void test130GetCachedObjectMutable() throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        given("an archetype in the repository");
+        OperationResult result = createOperationResult();
+        clearStatistics();
+        clearCaches();
+        CloningStatistics.INSTANCE.clear();
+
+        PrismObject<ArchetypeType> archetype = new ArchetypeType()
+                .name(getTestNameShort())
+                .asPrismObject();
+        String oid = repositoryCache.addObject(archetype, null, result);
+
+        when("the archetype is retrieved twice");
+        PrismObject<ArchetypeType> object1 = repositoryCache.getObject(ArchetypeType.class, oid, null, result);
+        PrismObject<ArchetypeType> object2 = repositoryCache.getObject(ArchetypeType.class, oid, null, result);
+
+        then("mutable objects are returned, each one cloned once");
+        assertThat(object1.isImmutable()).as("object1 is immutable").isFalse();
+        assertThat(object2.isImmutable()).as("object2 is immutable").isFalse();
+        assertThat(object2).as("object2").isNotSameAs(object1);
+        assertGetOperations(1);
+        assertClonedAndShared(ArchetypeType.class, 2, 0);
+    }
+
+    /**
+     * Read-only get of objects that are not cached (by their type, and by `ObjectType`): they are frozen,
+     * not cloned.
+     */
+    @Test
+    public void test140GetUncachedObjectReadOnly() throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        given("a user in the repository");
+        OperationResult result = createOperationResult();
+        var readOnly = GetOperationOptions.createReadOnlyCollection();
+        clearStatistics();
+        clearCaches();
+        CloningStatistics.INSTANCE.clear();
+
+        PrismObject<UserType> user = new UserType()
+                .name(getTestNameShort())
+                .asPrismObject();
+        String oid = repositoryCache.addObject(user, null, result);
+
+        when("the user is retrieved read-only");
+        PrismObject<UserType> object1 = repositoryCache.getObject(UserType.class, oid, readOnly, result);
+
+        then("it is immutable, and it was not cloned");
+        assertEquals("Wrong object1", user, object1);
+        assertThat(object1.isImmutable()).as("object1 is immutable").isTrue();
+        assertObjectIsNotCached(oid);
+        assertClonedAndShared(UserType.class, 0, 1);
+
+        when("the user is retrieved read-only as ObjectType");
+        PrismObject<ObjectType> object2 = repositoryCache.getObject(ObjectType.class, oid, readOnly, result);
+
+        then("it is immutable, and it was not cloned");
+        assertEquals("Wrong object2", user, object2);
+        assertThat(object2.isImmutable()).as("object2 is immutable").isTrue();
+
+        when("the user is retrieved as ObjectType in the mutable form");
+        PrismObject<ObjectType> object3 = repositoryCache.getObject(ObjectType.class, oid, null, result);
+
+        then("it is mutable, and it was not cloned");
+        assertThat(object3.isImmutable()).as("object3 is immutable").isFalse();
+        assertClonedAndShared(UserType.class, 0, 1);
+        assertGetOperations(3);
+    }
+
     @Test
     public void test200SearchUsers() throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
         testSearchUncachedObjects(UserType.class);
@@ -490,6 +609,14 @@ public class TestRepositoryCache extends AbstractSpringTest implements InfraTest
         assertThat(value).as("cached version value for " + key).isNull();
     }
 
+    private void assertClonedAndShared(Class<?> type, long expectedCloned, long expectedShared) {
+        CloningStatistics.INSTANCE.dumpContent();
+        assertThat(CloningStatistics.INSTANCE.getClonedCount(type)).as("cloned " + type.getSimpleName())
+                .isEqualTo(expectedCloned);
+        assertThat(CloningStatistics.INSTANCE.getSharedCount(type)).as("shared " + type.getSimpleName())
+                .isEqualTo(expectedShared);
+    }
+
     private void clearCaches() {
         globalObjectCache.clear();
         globalVersionCache.clear();
@@ -10,6 +10,7 @@ package com.evolveum.midpoint.repo.common.activity.definition;
 import com.evolveum.midpoint.repo.common.activity.definition.WorkDefinitionFactory.WorkDefinitionInfo;
 import com.evolveum.midpoint.schema.config.ConfigurationItemOrigin;
 import com.evolveum.midpoint.util.DebugUtil;
+import com.evolveum.midpoint.util.exception.ConfigurationException;
 import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ActivityDefinitionType;
 
@@ -65,6 +66,14 @@ public abstract class AbstractWorkDefinition implements WorkDefinition {
         activityTailoring.addFrom(activityDefinitionBean);
     }
 
+    /**
+     * Checks whether this work definition is compatible with the other parts of the activity definition,
+     * e.g. with its distribution. Called when the activity definition is created. Nothing is checked by default.
+     */
+    protected void checkActivityDefinition(@NotNull ActivityDefinitionType activityDefinitionBean)
+            throws ConfigurationException {
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName();
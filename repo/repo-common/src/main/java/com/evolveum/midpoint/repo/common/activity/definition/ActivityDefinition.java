@@ -99,9 +99,10 @@ public class ActivityDefinition<WD extends WorkDefinition> implements DebugDumpa
     }
 
     private static @NotNull <WD extends AbstractWorkDefinition> ActivityDefinition<WD> createActivityDefinition(
-            WD workDefinition, ActivityDefinitionType definitionBean) {
+            WD workDefinition, ActivityDefinitionType definitionBean) throws ConfigurationException {
 
         workDefinition.addTailoringFrom(definitionBean);
+        workDefinition.checkActivityDefinition(definitionBean);
 
         return new ActivityDefinition<>(
                 definitionBean.getIdentifier(),
@@ -272,6 +272,25 @@ public abstract class ActivityState implements DebugDumpable {
                         .asItemDelta());
     }
 
+    /**
+     * Adds values to a multivalued work state item (e.g. a container). The definition is derived from the work state CTD.
+     */
+    public void addWorkStateItemRealValues(ItemPath path, Object... values) throws SchemaException {
+        Task task = getTask();
+        LOGGER.trace("addWorkStateItemRealValues: path={}, values={} in {}", path, values, task);
+
+        ItemDefinition<?> workStateItemDefinition = getWorkStateItemDefinition(path, null);
+        stateCheck(
+                workStateItemDefinition != null,
+                "Couldn't modify work state (path = '%s'), as the work state definition is not known. "
+                        + "Has it been initialized?", path);
+        task.modify(
+                PrismContext.get().deltaFor(TaskType.class)
+                        .item(getWorkStateItemPath().append(path), workStateItemDefinition)
+                        .addRealValues(Arrays.asList(values))
+                        .asItemDelta());
+    }
+
     private @Nullable ItemDefinition<?> getWorkStateItemDefinition(ItemPath path, ItemDefinition<?> explicitDefinition)
             throws SchemaException {
         if (explicitDefinition != null) {
@@ -13,6 +13,7 @@ import javax.xml.namespace.QName;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.RepositoryConfigurationType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.Expressions;
@@ -28,6 +29,7 @@ import com.evolveum.midpoint.repo.sqale.filtering.*;
 import com.evolveum.midpoint.repo.sqale.mapping.SqaleNestedMapping;
 import com.evolveum.midpoint.repo.sqale.mapping.SqaleTableMapping;
 import com.evolveum.midpoint.repo.sqlbase.JdbcSession;
+import com.evolveum.midpoint.repo.sqlbase.PageOf;
 import com.evolveum.midpoint.repo.sqlbase.QueryException;
 import com.evolveum.midpoint.repo.sqlbase.RepositoryException;
 import com.evolveum.midpoint.repo.sqlbase.SqlQueryContext;
@@ -53,6 +55,12 @@ public class SqaleQueryContext<S, Q extends FlexibleRelationalPathBase<R>, R>
      */
     private boolean containsOrgFilter = false;
 
+    /**
+     * Threshold for the trigram similarity operator `%` used as a pre-filter for fuzzy similarity filters,
+     * or null if there is no such filter in the query; see {@link #processFuzzyFilter}.
+     */
+    private Float trigramSimilarityThreshold;
+
     /**
      * Enables {@link #loadObject} method that is used to fetch additional objects,
      * e.g. container owners (parents) or references targets.
@@ -245,16 +253,83 @@ public class SqaleQueryContext<S, Q extends FlexibleRelationalPathBase<R>, R>
                     func.loe(levenshtein.getThresholdRequired()) :
                     func.lt(levenshtein.getThresholdRequired());
         } else if (method instanceof Similarity spec) {
+            String value = String.valueOf(values.singleValue());
             var func = Expressions.numberTemplate(Float.class,
                     "similarity({0}, {1})",
-                    path, String.valueOf(values.singleValue()));
+                    path, value);
             // Higher value means more similar
-            return spec.isInclusive() ?
+            Predicate predicate = spec.isInclusive() ?
                     func.goe(spec.getThresholdRequired()) :
                     func.gt(spec.getThresholdRequired());
+            if (isTrigramPrefilterApplicable(spec)) {
+                // Operator % means similarity >= pg_trgm.similarity_threshold, so it selects a superset of the matches
+                // as long as the setting is not higher than the required threshold, see setTrigramSimilarityThreshold().
+                // Unlike the function above, it can use gin_trgm_ops index to find the candidates,
+                // the exact condition is then evaluated only for them.
+                markTrigramSimilarityThreshold(spec.getThresholdRequired().floatValue());
+                predicate = Expressions.booleanTemplate("{0} % {1}", path, value).and(predicate);
+            }
+            return predicate;
         }
 
         return super.processFuzzyFilter(filter, path, values);
     }
 
+    /**
+     * Trigram pre-filter can be used for any similarity threshold the operator `%` accepts (see
+     * {@link #setTrigramSimilarityThreshold}), unless it is disabled by the configuration.
+     * Levenshtein distance has no relation to the trigram similarity, so it is always evaluated as is.
+     *
+     * The pre-filter does not change the results; it only allows the use of trigram indexes. Out of the box, these exist
+     * only for user full, given and family name (normalized) columns. Fuzzy searches on other items (e.g. extension
+     * items) are evaluated by scanning the rows, unless a suitable `gin_trgm_ops` index is added to the database.
+     */
+    private boolean isTrigramPrefilterApplicable(Similarity spec) {
+        float threshold = spec.getThresholdRequired().floatValue();
+        return repositoryContext().getJdbcRepositoryConfiguration() instanceof SqaleRepositoryConfiguration config
+                && config.isTrigramSimilarityPrefilter()
+                && threshold > 0 && threshold <= 1;
+    }
+
+    /** Records the threshold for the trigram pre-filter; the lowest one is used if there are more of them. */
+    private void markTrigramSimilarityThreshold(float threshold) {
+        if (trigramSimilarityThreshold == null || threshold < trigramSimilarityThreshold) {
+            trigramSimilarityThreshold = threshold;
+        }
+        SqaleQueryContext<?, ?, ?> parentContext = parentContext();
+        if (parentContext != null) {
+            parentContext.markTrigramSimilarityThreshold(threshold);
+        }
+    }
+
+    /**
+     * Sets `pg_trgm.similarity_threshold` for the current transaction, if the trigram pre-filter is used by the query.
+     * This way the `%` operator does not depend on the database, role or session setting, which can be changed at any time,
+     * and it selects only the candidates that can really match.
+     */
+    private void setTrigramSimilarityThreshold(JdbcSession jdbcSession) {
+        if (trigramSimilarityThreshold != null) {
+            jdbcSession.executeStatement("SELECT set_config('pg_trgm.similarity_threshold', '"
+                    + trigramSimilarityThreshold + "', true)");
+        }
+    }
+
+    @Override
+    public PageOf<Tuple> executeQuery(JdbcSession jdbcSession) throws QueryException {
+        setTrigramSimilarityThreshold(jdbcSession);
+        return super.executeQuery(jdbcSession);
+    }
+
+    @Override
+    public int executeCount(JdbcSession jdbcSession) {
+        setTrigramSimilarityThreshold(jdbcSession);
+        return super.executeCount(jdbcSession);
+    }
+
+    @Override
+    public int executeCount(JdbcSession jdbcSession, int limit) {
+        setTrigramSimilarityThreshold(jdbcSession);
+        return super.executeCount(jdbcSession, limit);
+    }
+
 }
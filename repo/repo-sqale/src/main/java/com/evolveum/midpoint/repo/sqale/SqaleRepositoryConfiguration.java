@@ -30,6 +30,8 @@ import com.evolveum.midpoint.util.exception.SystemException;
 public class SqaleRepositoryConfiguration implements JdbcRepositoryConfiguration {
 
     private static final String PROPERTY_SQL_DURATION_WARNING_MS = "sqlDurationWarningMs";
+    private static final String PROPERTY_TRIGRAM_SIMILARITY_PREFILTER = "trigramSimilarityPrefilter";
+    private static final String PROPERTY_FULL_TEXT_SEARCH_BY_WORD_PREFIX = "fullTextSearchByWordPrefix";
 
     private static final String DEFAULT_DRIVER = "org.postgresql.Driver";
     private static final SupportedDatabase DEFAULT_DATABASE = SupportedDatabase.POSTGRESQL;
@@ -89,6 +91,10 @@ public class SqaleRepositoryConfiguration implements JdbcRepositoryConfiguration
 
     private long sqlDurationWarningMs; // 0 or less means no warning
 
+    private boolean trigramSimilarityPrefilter;
+
+    private boolean fullTextSearchByWordPrefix;
+
     // Provided with configuration node "midpoint.repository".
     public SqaleRepositoryConfiguration(@NotNull Configuration configuration) {
         this.configuration = configuration;
@@ -143,6 +149,11 @@ public class SqaleRepositoryConfiguration implements JdbcRepositoryConfiguration
         sqlDurationWarningMs = configuration.getLong(
                 PROPERTY_SQL_DURATION_WARNING_MS, DEFAULT_SQL_DURATION_WARNING_MS);
 
+        trigramSimilarityPrefilter =
+                configuration.getBoolean(PROPERTY_TRIGRAM_SIMILARITY_PREFILTER, true);
+        fullTextSearchByWordPrefix =
+                configuration.getBoolean(PROPERTY_FULL_TEXT_SEARCH_BY_WORD_PREFIX, false);
+
         validateConfiguration();
     }
 
@@ -300,6 +311,33 @@ public class SqaleRepositoryConfiguration implements JdbcRepositoryConfiguration
         return sqlDurationWarningMs;
     }
 
+    /**
+     * If true (default), fuzzy similarity filters are rendered with the trigram similarity operator `%`
+     * as an additional condition, so the trigram (`gin_trgm_ops`) indexes can be used to find the candidates.
+     * The threshold of the operator (`pg_trgm.similarity_threshold`) is set for the transaction executing the query,
+     * see {@link SqaleQueryContext}, so it does not depend on the database setting.
+     * Levenshtein filters are not affected.
+     */
+    public boolean isTrigramSimilarityPrefilter() {
+        return trigramSimilarityPrefilter;
+    }
+
+    /**
+     * If true, full-text filter matches the beginnings of the words in `fullTextInfo` using `tsvector`
+     * and `tsquery`, which can use the GIN index on
+     * `array_to_tsvector(array_remove(string_to_array(fullTextInfo, ' '), ''))`,
+     * see {@link com.evolveum.midpoint.repo.sqale.filtering.FullTextFilterProcessor}.
+     * If false (default), it matches any substring of `fullTextInfo`, which can use only the trigram index.
+     */
+    public boolean isFullTextSearchByWordPrefix() {
+        return fullTextSearchByWordPrefix;
+    }
+
+    // exists because of testing
+    public void setFullTextSearchByWordPrefix(boolean fullTextSearchByWordPrefix) {
+        this.fullTextSearchByWordPrefix = fullTextSearchByWordPrefix;
+    }
+
     /**
      * Creates a copy of provided configuration for audit and applies override from config.xml.
      * This is used when the same data source is used by audit and repository.
@@ -314,6 +352,8 @@ public class SqaleRepositoryConfiguration implements JdbcRepositoryConfiguration
                 PROPERTY_ITERATIVE_SEARCH_BY_PAGING_BATCH_SIZE, mainRepoConfig.iterativeSearchByPagingBatchSize);
         config.createMissingCustomColumns = auditConfig.getBoolean(
                 PROPERTY_CREATE_MISSING_CUSTOM_COLUMNS, mainRepoConfig.createMissingCustomColumns);
+        config.trigramSimilarityPrefilter = mainRepoConfig.trigramSimilarityPrefilter;
+        config.fullTextSearchByWordPrefix = mainRepoConfig.fullTextSearchByWordPrefix;
 
         // perf stats settings must be copied to allow proper perf monitoring of audit
         config.performanceStatisticsFile = mainRepoConfig.performanceStatisticsFile;
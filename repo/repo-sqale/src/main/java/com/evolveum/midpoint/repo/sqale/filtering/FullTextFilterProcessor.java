@@ -6,13 +6,18 @@
  */
 package com.evolveum.midpoint.repo.sqale.filtering;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
 import org.apache.commons.lang3.StringUtils;
 
 import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.query.FullTextFilter;
 import com.evolveum.midpoint.repo.sqale.SqaleQueryContext;
+import com.evolveum.midpoint.repo.sqale.SqaleRepositoryConfiguration;
 import com.evolveum.midpoint.repo.sqale.qmodel.object.QObject;
 import com.evolveum.midpoint.repo.sqale.qmodel.object.QObjectMapping;
 import com.evolveum.midpoint.repo.sqlbase.QueryException;
@@ -20,6 +25,12 @@ import com.evolveum.midpoint.repo.sqlbase.filtering.FilterProcessor;
 
 /**
  * Filter processor that resolves {@link FullTextFilter}.
+ *
+ * By default, each word must be contained in `fullTextInfo` as a substring.
+ * If {@link SqaleRepositoryConfiguration#isFullTextSearchByWordPrefix()} is enabled, each word must be a prefix
+ * of some word of `fullTextInfo`, which is evaluated as text search using `tsvector`. The words of `fullTextInfo`
+ * are used as lexemes directly, so they are matched after the polystring normalization only, e.g. `snake_case`
+ * stays a single word - unlike with `to_tsvector`.
  */
 public class FullTextFilterProcessor implements FilterProcessor<FullTextFilter> {
 
@@ -45,14 +56,36 @@ public class FullTextFilterProcessor implements FilterProcessor<FullTextFilter>
             throw new QueryException("Fulltext currently supported only on objects");
         }
 
+        // We know it's object context, so we can risk the cast.
+        QObject<?> path = context.path(QObject.class);
+        if (isByWordPrefix()) {
+            // Must match the expression of the GIN indexes, e.g. m_user_fullTextInfo_tsv_idx.
+            // Both the vector and the query are created without a text search parser (which would split the words
+            // on its own rules), so the lexemes are exactly the words normalized the same way as the polystrings.
+            return Expressions.booleanTemplate(
+                    "array_to_tsvector(array_remove(string_to_array({0}, ' '), '')) @@ cast({1} as tsquery)",
+                    path.fullTextInfo, toPrefixTsQuery(words));
+        }
+
         Predicate predicate = null;
         for (String word : words) {
             // and() is null safe on both sides
             predicate = ExpressionUtils.and(predicate,
-                    // We know it's object context, so we can risk the cast.
-                    context.path(QObject.class).fullTextInfo.contains(word));
+                    path.fullTextInfo.contains(word));
         }
 
         return predicate;
     }
+
+    private boolean isByWordPrefix() {
+        return context.repositoryContext().getJdbcRepositoryConfiguration()
+                instanceof SqaleRepositoryConfiguration config && config.isFullTextSearchByWordPrefix();
+    }
+
+    /** Creates e.g. `'john':* & 'smi':*` - all words quoted, so no character in them is interpreted by tsquery. */
+    private String toPrefixTsQuery(String[] words) {
+        return Arrays.stream(words)
+                .map(word -> "'" + word.replace("\\", "\\\\").replace("'", "''") + "':*")
+                .collect(Collectors.joining(" & "));
+    }
 }
@@ -34,6 +34,7 @@ import com.evolveum.midpoint.schema.GetOperationOptionsBuilder;
 
 import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
 
+import com.querydsl.core.types.dsl.Expressions;
 import org.jetbrains.annotations.Nullable;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -52,6 +53,7 @@ import com.evolveum.midpoint.repo.sqale.qmodel.object.MObject;
 import com.evolveum.midpoint.repo.sqale.qmodel.object.MObjectType;
 import com.evolveum.midpoint.repo.sqale.qmodel.object.QAssignmentHolder;
 import com.evolveum.midpoint.repo.sqale.qmodel.object.QObject;
+import com.evolveum.midpoint.repo.sqlbase.JdbcSession;
 import com.evolveum.midpoint.repo.sqlbase.QueryException;
 import com.evolveum.midpoint.repo.sqlbase.filtering.item.PolyStringItemFilterProcessor;
 import com.evolveum.midpoint.schema.SchemaService;
@@ -3436,6 +3438,67 @@ public class SqaleRepoSearchTest extends SqaleRepoBaseTest {
                 user1Oid);
     }
 
+    /**
+     * Similarity filters use the trigram operator `%` as a pre-filter, its threshold is set for the transaction.
+     * The thresholds used here are both below and above the database default (0.3), which must not affect the results.
+     * Similarity of "us" and "user1" is 2/7 (0.29), of "user" and "user1" 4/7 (0.57).
+     */
+    @Test
+    public void test993FuzzySimilaritySearchWithTrigramPrefilter() throws SchemaException {
+        float databaseThreshold = getTrigramSimilarityThreshold();
+
+        searchUsersTest("with similarity filter with threshold lower than the database default (0.3)",
+                f -> f.item(UserType.F_EMPLOYEE_NUMBER)
+                        .fuzzyString("us").similarityInclusive(0.25f),
+                user1Oid);
+
+        searchUsersTest("with similarity filter with threshold higher than the similarity",
+                f -> f.item(UserType.F_EMPLOYEE_NUMBER)
+                        .fuzzyString("us").similarityInclusive(0.5f));
+
+        searchUsersTest("with exclusive similarity filter with threshold higher than the database default",
+                f -> f.item(UserType.F_EMPLOYEE_NUMBER)
+                        .fuzzyString("user").similarityExclusive(0.5f),
+                user1Oid);
+
+        searchUsersTest("with two similarity filters with different thresholds",
+                f -> f.item(UserType.F_EMPLOYEE_NUMBER)
+                        .fuzzyString("user").similarityInclusive(0.5f)
+                        .and()
+                        .item(UserType.F_EMPLOYEE_NUMBER)
+                        .fuzzyString("us").similarityInclusive(0.25f),
+                user1Oid);
+
+        searchUsersTest("with NOT similarity filter",
+                f -> f.not().item(UserType.F_EMPLOYEE_NUMBER)
+                        .fuzzyString("us").similarityInclusive(0.25f),
+                creatorOid, modifierOid, user2Oid, user3Oid, user4Oid);
+
+        and("count uses the same pre-filter");
+        OperationResult result = createOperationResult();
+        int count = repositoryService.countObjects(UserType.class,
+                prismContext.queryFor(UserType.class)
+                        .item(UserType.F_EMPLOYEE_NUMBER)
+                        .fuzzyString("us").similarityInclusive(0.25f)
+                        .build(),
+                null, result);
+        assertThat(count).isEqualTo(1);
+        assertThatOperationResult(result).isSuccess();
+
+        and("the threshold set for the search does not leak to other transactions");
+        assertThat(getTrigramSimilarityThreshold()).isEqualTo(databaseThreshold);
+    }
+
+    private float getTrigramSimilarityThreshold() {
+        try (JdbcSession jdbcSession = startReadOnlyTransaction()) {
+            Float threshold = jdbcSession.newQuery()
+                    .select(Expressions.numberTemplate(Float.class, "show_limit()"))
+                    .fetchOne();
+            assertThat(threshold).isNotNull();
+            return threshold;
+        }
+    }
+
     @Test
     public void test995InvalidFuzzyStringSearchWithNullValue() {
         assertThatThrownBy(() -> searchUsersTest("with fuzzy filter without values",
@@ -30,6 +30,7 @@ import com.evolveum.midpoint.audit.api.AuditEventStage;
 import com.evolveum.midpoint.audit.api.AuditEventType;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismObjectValue;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.repo.api.DeleteObjectResult;
 import com.evolveum.midpoint.repo.api.RepoModifyOptions;
@@ -495,6 +496,38 @@ public class SqaleRepoSmokeTest extends SqaleRepoBaseTest {
         assertThat(entry.sql).startsWith("select u.oid, u.objectType, u.fullObject");
     }
 
+    @Test
+    public void test410CountWithLimit() throws Exception {
+        OperationResult result = createOperationResult();
+
+        given("three users with the same name prefix");
+        String namePrefix = "user" + getTestNumber() + "-";
+        for (int i = 1; i <= 3; i++) {
+            repositoryService.addObject(
+                    new UserType().name(namePrefix + i).asPrismObject(), null, result);
+        }
+        ObjectQuery query = prismContext.queryFor(UserType.class)
+                .item(UserType.F_NAME).startsWith(namePrefix)
+                .build();
+
+        expect("count above the limit returns the limit plus one");
+        assertThat(countWithLimit(query, GetOperationOptions.createCountLimit(1), result)).isEqualTo(2);
+        assertThat(countWithLimit(query, GetOperationOptions.createCountLimit(0), result)).isEqualTo(1);
+
+        and("count not exceeding the limit is exact");
+        assertThat(countWithLimit(query, GetOperationOptions.createCountLimit(3), result)).isEqualTo(3);
+        assertThat(countWithLimit(query, GetOperationOptions.createCountLimit(100), result)).isEqualTo(3);
+
+        and("distinct count is always exact");
+        assertThat(countWithLimit(query, GetOperationOptions.createCountLimit(1).distinct(true), result))
+                .isEqualTo(3);
+        assertThatOperationResult(result).isSuccess();
+    }
+
+    private int countWithLimit(ObjectQuery query, GetOperationOptions options, OperationResult result) {
+        return repositoryService.countObjects(UserType.class, query, SelectorOptions.createCollection(options), result);
+    }
+
     @Test
     public void test500ExecuteQueryDiagnostics() throws Exception {
         // also known as "Query Playground"
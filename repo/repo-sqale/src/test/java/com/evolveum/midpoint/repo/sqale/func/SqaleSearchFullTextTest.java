@@ -22,6 +22,7 @@ import org.testng.annotations.Test;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.repo.api.RepoModifyOptions;
 import com.evolveum.midpoint.repo.sqale.SqaleRepoBaseTest;
+import com.evolveum.midpoint.repo.sqale.SqaleRepositoryConfiguration;
 import com.evolveum.midpoint.schema.SearchResultList;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.util.exception.ObjectAlreadyExistsException;
@@ -201,6 +202,46 @@ public class SqaleSearchFullTextTest extends SqaleRepoBaseTest {
                 user3Oid);
     }
 
+    @Test
+    public void test150SearchByWordPrefix() throws Exception {
+        given("full-text search by word prefix and a service with a word containing underscores");
+        SqaleRepositoryConfiguration config =
+                (SqaleRepositoryConfiguration) sqlRepoContext.getJdbcRepositoryConfiguration();
+        config.setFullTextSearchByWordPrefix(true);
+        OperationResult result = createOperationResult();
+        String serviceOid = repositoryService.addObject(
+                new ServiceType().name("service-150")
+                        .description("named snake_case_style")
+                        .asPrismObject(),
+                null, result);
+        try {
+            expect("words are matched by their prefix, not as substrings");
+            searchObjectTest("with full-text for word prefix 'task'",
+                    ObjectType.class,
+                    f -> f.fullText("task"),
+                    task1Oid, task2Oid, user4Oid);
+            searchObjectTest("with full-text for 'ask' which is not a word prefix",
+                    ObjectType.class,
+                    f -> f.fullText("ask"));
+            searchObjectTest("with full-text for word prefix with diacritics",
+                    ObjectType.class,
+                    f -> f.fullText("Ľahko"),
+                    user3Oid);
+
+            expect("words are the normalized polystring words, not the words of text search parser");
+            searchObjectTest("with full-text for prefix of a word with underscores",
+                    ObjectType.class,
+                    f -> f.fullText("snake_ca"),
+                    serviceOid);
+            searchObjectTest("with full-text for a part of a word with underscores",
+                    ObjectType.class,
+                    f -> f.fullText("case"));
+        } finally {
+            config.setFullTextSearchByWordPrefix(false);
+            repositoryService.deleteObject(ServiceType.class, serviceOid, result);
+        }
+    }
+
     @Test
     public void test200FullTextWithMultipleValuesIsNotSupportedYet() {
         assertThatThrownBy(() ->
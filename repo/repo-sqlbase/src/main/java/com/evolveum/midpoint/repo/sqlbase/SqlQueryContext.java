@@ -20,6 +20,8 @@ import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Wildcard;
 import com.querydsl.sql.SQLQuery;
 import org.jetbrains.annotations.NotNull;
 
@@ -413,6 +415,25 @@ public abstract class SqlQueryContext<S, Q extends FlexibleRelationalPathBase<R>
                 .fetchCount();
     }
 
+    /**
+     * Counts the rows, but at most `limit + 1` of them, so the result greater than `limit` means "more than `limit`".
+     * The database can stop after finding enough rows, which is much cheaper than the exact count for big tables.
+     * See {@link GetOperationOptions#getCountLimit()}.
+     */
+    public int executeCount(JdbcSession jdbcSession, int limit) {
+        SQLQuery<?> query = sqlQuery.clone(jdbcSession.connection());
+        if (query.getMetadata().isDistinct()) {
+            // Selecting a constant would collapse all the distinct rows into one, we use exact count instead.
+            return (int) query.fetchCount();
+        }
+        Long count = jdbcSession.newQuery()
+                .select(Wildcard.count)
+                .from(query.select(QuerydslUtils.EXPRESSION_ONE).limit(limit + 1L),
+                        Expressions.path(Object.class, "capped"))
+                .fetchOne();
+        return count != null ? count.intValue() : 0;
+    }
+
     /**
      * Adds new LEFT JOIN to the query and returns {@link SqlQueryContext} for this join path.
      * The returned context still uses the same SQL query; any further filter processing will
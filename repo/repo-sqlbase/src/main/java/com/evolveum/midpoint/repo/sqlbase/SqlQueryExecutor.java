@@ -44,9 +44,13 @@ public class SqlQueryExecutor {
         // TODO MID-6319: all options can be applied, just like for list?
         context.processOptions(options);
 
+        Integer countLimit = GetOperationOptions.getCountLimit(SelectorOptions.findRootOptions(options));
+
         context.beforeQuery();
         try (JdbcSession jdbcSession = sqlRepoContext.newJdbcSession().startReadOnlyTransaction()) {
-            return context.executeCount(jdbcSession);
+            return countLimit != null && countLimit >= 0
+                    ? context.executeCount(jdbcSession, countLimit)
+                    : context.executeCount(jdbcSession);
         }
     }
 
@@ -10,6 +10,7 @@ package com.evolveum.midpoint.task.quartzimpl;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.statistics.OperationSampler;
 import com.evolveum.midpoint.task.api.LightweightTaskHandler;
 import com.evolveum.midpoint.task.api.RunningLightweightTask;
 import com.evolveum.midpoint.task.api.Task;
@@ -112,6 +113,9 @@ public class RunningLightweightTaskImpl extends RunningTaskQuartzImpl implements
                 lightweightTaskHandler.run(this);
             } catch (Throwable t) {
                 LoggingUtils.logUnexpectedException(LOGGER, "Lightweight task handler has thrown an exception; task = {}", t, this);
+            } finally {
+                // The thread is pooled, so the samples must not be attributed to this task after it finishes.
+                OperationSampler.stopThreadLocalCollection();
             }
             beans.cacheConfigurationManager.unsetThreadLocalProfiles();
             setExecutingThread(null);
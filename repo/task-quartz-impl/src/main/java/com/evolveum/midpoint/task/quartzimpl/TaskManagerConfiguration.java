@@ -23,6 +23,7 @@ import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.repo.sqlbase.JdbcRepositoryConfiguration;
 import com.evolveum.midpoint.repo.sqlbase.SupportedDatabase;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.statistics.OperationSampler;
 import com.evolveum.midpoint.task.api.TaskManagerConfigurationException;
 import com.evolveum.midpoint.task.api.UseThreadInterrupt;
 import com.evolveum.midpoint.task.quartzimpl.cluster.ClusterManager;
@@ -85,6 +86,7 @@ public class TaskManagerConfiguration {
     private static final String SCHEDULER_INITIALLY_STOPPED_CONFIG_ENTRY = "schedulerInitiallyStopped";
 
     private static final String LOCAL_NODE_CLUSTERING_ENABLED_CONFIG_ENTRY = "localNodeClusteringEnabled";
+    private static final String OPERATION_SAMPLING_INTERVAL_CONFIG_ENTRY = "operationSamplingInterval";
 
     // The following are deprecated.
     private static final String WORK_ALLOCATION_MAX_RETRIES_ENTRY = "workAllocationMaxRetries";
@@ -195,6 +197,13 @@ public class TaskManagerConfiguration {
     private boolean schedulerInitiallyStopped;
     private boolean localNodeClusteringEnabled;
 
+    /**
+     * How often are the operation stacks of the task threads sampled (in milliseconds). Zero means no sampling.
+     *
+     * See {@link OperationSampler}.
+     */
+    private long operationSamplingInterval;
+
     private TaskExecutionLimitationsType taskExecutionLimitations;
 
     // quartz jdbc job store specific information
@@ -256,6 +265,7 @@ public class TaskManagerConfiguration {
             RUN_NOW_KEEPS_ORIGINAL_SCHEDULE_CONFIG_ENTRY,
             SCHEDULER_INITIALLY_STOPPED_CONFIG_ENTRY,
             LOCAL_NODE_CLUSTERING_ENABLED_CONFIG_ENTRY,
+            OPERATION_SAMPLING_INTERVAL_CONFIG_ENTRY,
             TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY,
             CHECK_FOR_TASK_CONCURRENT_EXECUTION_CONFIG_ENTRY,
             NODE_ALIVENESS_TIMEOUT_CONFIG_ENTRY,
@@ -368,6 +378,7 @@ public class TaskManagerConfiguration {
         runNowKeepsOriginalSchedule = c.getBoolean(RUN_NOW_KEEPS_ORIGINAL_SCHEDULE_CONFIG_ENTRY, RUN_NOW_KEEPS_ORIGINAL_SCHEDULE_DEFAULT);
         schedulerInitiallyStopped = c.getBoolean(SCHEDULER_INITIALLY_STOPPED_CONFIG_ENTRY, false);
         localNodeClusteringEnabled = c.getBoolean(LOCAL_NODE_CLUSTERING_ENABLED_CONFIG_ENTRY, false);
+        operationSamplingInterval = c.getLong(OPERATION_SAMPLING_INTERVAL_CONFIG_ENTRY, 0L);
 
         if (c.containsKey(TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY)) {
             taskExecutionLimitations = parseExecutionLimitations(c.getString(TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY));
@@ -636,6 +647,10 @@ public class TaskManagerConfiguration {
         return stalledTasksCheckInterval;
     }
 
+    public long getOperationSamplingInterval() {
+        return operationSamplingInterval;
+    }
+
     public int getStalledTasksThreshold() {
         return stalledTasksThreshold;
     }
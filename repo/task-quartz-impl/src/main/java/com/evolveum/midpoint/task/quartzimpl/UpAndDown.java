@@ -27,6 +27,7 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import com.evolveum.midpoint.common.configuration.api.MidpointConfiguration;
 import com.evolveum.midpoint.repo.sqlbase.JdbcRepositoryConfiguration;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.statistics.OperationSampler;
 import com.evolveum.midpoint.task.api.TaskManagerInitializationException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
@@ -145,6 +146,10 @@ public class UpAndDown implements BeanFactoryAware {
             }
         }
 
+        if (configuration.getOperationSamplingInterval() > 0) {
+            OperationSampler.start(configuration.getOperationSamplingInterval());
+        }
+
         LOGGER.trace("Quartz scheduler initialized (not yet started, however)");
         LOGGER.info("Task Manager initialized");
 
@@ -222,6 +227,8 @@ public class UpAndDown implements BeanFactoryAware {
             }
         }
 
+        OperationSampler.stop();
+
         clusterManager.stopClusterManagerThread(0L, result);
         clusterManager.recordNodeShutdown(result);
 
@@ -10,6 +10,7 @@ package com.evolveum.midpoint.task.quartzimpl.run;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.repo.api.PreconditionViolationException;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.statistics.OperationSampler;
 import com.evolveum.midpoint.task.api.*;
 import com.evolveum.midpoint.task.quartzimpl.*;
 import com.evolveum.midpoint.util.exception.*;
@@ -189,6 +190,7 @@ public class JobExecutor implements InterruptableJob {
     private void unsetThreadLocals() {
         beans.cacheConfigurationManager.unsetThreadLocalProfiles();
         OperationResult.setThreadLocalHandlingStrategy(null);
+        OperationSampler.stopThreadLocalCollection();
     }
 
     private TaskHandler getHandler(OperationResult result) throws StopJobException {
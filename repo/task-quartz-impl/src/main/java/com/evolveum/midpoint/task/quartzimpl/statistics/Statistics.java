@@ -80,6 +80,14 @@ public class Statistics {
     private volatile OperationsPerformanceInformationType operationsPerformanceInformation;
     private volatile OperationsPerformanceInformationType initialOperationsPerformanceInformation;
 
+    /**
+     * Most current version of operation samples (if the sampling is enabled). The samples themselves are collected
+     * by the sampling thread, but they are bound to the task thread, so we refresh this item from the task thread as well.
+     * The same rules as above apply.
+     */
+    private volatile OperationSamplesInformationType operationSamplesInformation;
+    private volatile OperationSamplesInformationType initialOperationSamplesInformation;
+
     private EnvironmentalPerformanceInformation getEnvironmentalPerformanceInformation() {
         return environmentalPerformanceInformation;
     }
@@ -137,6 +145,18 @@ public class Statistics {
         return rv;
     }
 
+    private OperationSamplesInformationType getAggregateOperationSamplesInformation(Collection<Statistics> children) {
+        if (operationSamplesInformation == null) {
+            return null;
+        }
+        OperationSamplesInformationType rv = operationSamplesInformation.clone();
+        OperationSamplesInformationUtil.addTo(rv, initialOperationSamplesInformation);
+        for (Statistics child : children) {
+            OperationSamplesInformationUtil.addTo(rv, child.getAggregateOperationSamplesInformation(emptySet()));
+        }
+        return rv;
+    }
+
     /**
      * Gets aggregated operation statistics from this object and provided child objects.
      *
@@ -147,10 +167,12 @@ public class Statistics {
         RepositoryPerformanceInformationType repo = getAggregateRepositoryPerformanceInformation(children);
         CachesPerformanceInformationType caches = getAggregateCachesPerformanceInformation(children);
         OperationsPerformanceInformationType methods = getAggregateOperationsPerformanceInformation(children);
+        OperationSamplesInformationType samples = getAggregateOperationSamplesInformation(children);
         // This is not fetched from children (present on coordinator task only).
         // It looks like that children are always LATs, and LATs do not have bucket management information.
         String cachingConfiguration = getAggregateCachingConfiguration(children);
-        if (env == null && repo == null && caches == null && methods == null && cachingConfiguration == null) {
+        if (env == null && repo == null && caches == null && methods == null && samples == null
+                && cachingConfiguration == null) {
             return null;
         }
         OperationStatsType rv = new OperationStatsType();
@@ -158,6 +180,7 @@ public class Statistics {
         rv.setRepositoryPerformanceInformation(repo);
         rv.setCachesPerformanceInformation(caches);
         rv.setOperationsPerformanceInformation(methods);
+        rv.setOperationSamplesInformation(samples);
         rv.setCachingConfiguration(cachingConfiguration);
         rv.setTimestamp(createXMLGregorianCalendar(new Date()));
         return rv;
@@ -239,6 +262,7 @@ public class Statistics {
         refreshRepositoryAndAuditPerformanceInformation(taskManager);
         refreshCachePerformanceInformation();
         refreshMethodsPerformanceInformation();
+        refreshOperationSamplesInformation();
         refreshCacheConfigurationInformation(taskManager.getCacheConfigurationManager());
     }
 
@@ -261,12 +285,19 @@ public class Statistics {
 
         OperationsPerformanceMonitor.INSTANCE.startThreadLocalPerformanceInformationCollection();
         operationsPerformanceInformation = new OperationsPerformanceInformationType();
+
+        if (OperationSampler.startThreadLocalCollection() != null) {
+            operationSamplesInformation = new OperationSamplesInformationType();
+        } else {
+            operationSamplesInformation = null;
+        }
     }
 
     private void setInitialValuesForThreadLocalStatistics(OperationStatsType operationStats) {
         initialRepositoryPerformanceInformation = operationStats != null ? operationStats.getRepositoryPerformanceInformation() : null;
         initialCachesPerformanceInformation = operationStats != null ? operationStats.getCachesPerformanceInformation() : null;
         initialOperationsPerformanceInformation = operationStats != null ? operationStats.getOperationsPerformanceInformation() : null;
+        initialOperationSamplesInformation = operationStats != null ? operationStats.getOperationSamplesInformation() : null;
     }
 
     private void refreshRepositoryAndAuditPerformanceInformation(TaskManagerQuartzImpl taskManager) {
@@ -288,6 +319,15 @@ public class Statistics {
         }
     }
 
+    private void refreshOperationSamplesInformation() {
+        OperationSampler.OperationSamples samples = OperationSampler.getThreadLocalSamples();
+        if (samples != null) {
+            operationSamplesInformation = OperationSamplesInformationUtil.toOperationSamplesInformationType(samples);
+        } else {
+            operationSamplesInformation = null; // sampling is not enabled
+        }
+    }
+
     private void refreshCachePerformanceInformation() {
         Map<String, CachePerformanceCollector.CacheData> performanceMap = CachePerformanceCollector.INSTANCE
                 .getThreadLocalPerformanceMap();
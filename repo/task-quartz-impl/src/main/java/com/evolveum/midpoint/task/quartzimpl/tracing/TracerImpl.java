@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
+import com.evolveum.midpoint.schema.traces.StreamingTraceWriter;
 import com.evolveum.midpoint.schema.traces.TraceWriter;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -115,19 +116,29 @@ public class TracerImpl implements Tracer, SystemConfigurationChangeListener {
 
             if (!Boolean.FALSE.equals(tracingProfile.isCreateTraceFile())) {
                 boolean zip = !Boolean.FALSE.equals(tracingProfile.isCompressOutput());
+                boolean streaming = Boolean.TRUE.equals(tracingProfile.isStreamingOutput());
                 Map<String, String> templateParameters = createTemplateParameters(result); // todo evaluate lazily if needed
-                File file = createFileName(zip, tracingProfile, templateParameters);
+                File file = createFileName(zip, streaming, tracingProfile, templateParameters);
                 try {
                     long start = System.currentTimeMillis();
-                    TracingOutputType tracingOutput = tracingOutputCreator.createTracingOutput(task, result, tracingProfile);
-                    String xml = new TraceWriter(prismContext)
-                            .writeTrace(tracingOutput, file, zip);
+                    long chars;
+                    if (streaming) {
+                        try (StreamingTraceWriter.Output output = new StreamingTraceWriter(prismContext).open(file, zip)) {
+                            tracingOutputCreator.writeTracingOutput(task, result, tracingProfile, output);
+                            chars = output.getCharsWritten();
+                        }
+                    } else {
+                        TracingOutputType tracingOutput = tracingOutputCreator.createTracingOutput(task, result, tracingProfile);
+                        chars = new TraceWriter(prismContext)
+                                .writeTrace(tracingOutput, file, zip)
+                                .length();
+                    }
 
                     if (zip) {
-                        LOGGER.info("Trace was written to {} ({} chars uncompressed) in {} milliseconds", file, xml.length(),
+                        LOGGER.info("Trace was written to {} ({} chars uncompressed) in {} milliseconds", file, chars,
                                 System.currentTimeMillis() - start);
                     } else {
-                        LOGGER.info("Trace was written to {} ({} chars) in {} milliseconds", file, xml.length(),
+                        LOGGER.info("Trace was written to {} ({} chars) in {} milliseconds", file, chars,
                                 System.currentTimeMillis() - start);
                     }
 
@@ -213,7 +224,7 @@ public class TracerImpl implements Tracer, SystemConfigurationChangeListener {
     }
 
     @NotNull
-    private File createFileName(boolean zip, TracingProfileType profile, Map<String, String> parameters) {
+    private File createFileName(boolean zip, boolean streaming, TracingProfileType profile, Map<String, String> parameters) {
         File traceDir = new File(System.getProperty(MidpointConfiguration.MIDPOINT_HOME_PROPERTY), TRACE_DIR_NAME);
         if (!traceDir.exists() || !traceDir.isDirectory()) {
             if (!traceDir.mkdir()) {
@@ -221,7 +232,7 @@ public class TracerImpl implements Tracer, SystemConfigurationChangeListener {
             }
         }
         String pattern = profile.getFileNamePattern() != null ? profile.getFileNamePattern() : DEFAULT_FILE_NAME_PATTERN;
-        return new File(traceDir, normalizeFileName(expandMacros(pattern, parameters)) + (zip ? ".zip" : ".xml"));
+        return new File(traceDir, normalizeFileName(expandMacros(pattern, parameters)) + (zip ? ".zip" : streaming ? StreamingTraceWriter.FILE_EXTENSION : ".xml"));
     }
 
     private String normalizeFileName(String name) {
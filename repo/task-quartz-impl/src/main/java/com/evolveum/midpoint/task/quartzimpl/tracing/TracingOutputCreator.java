@@ -13,6 +13,7 @@ import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.traces.StreamingTraceWriter;
 import com.evolveum.midpoint.schema.util.ObjectTypeUtil;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.task.api.TaskManager;
@@ -27,6 +28,9 @@ import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -43,11 +47,7 @@ public class TracingOutputCreator {
     @Autowired private TaskManager taskManager;
 
     TracingOutputType createTracingOutput(Task task, OperationResult result, TracingProfileType tracingProfile) {
-        TracingOutputType output = new TracingOutputType();
-        output.beginMetadata()
-                .createTimestamp(XmlTypeConverter.createXMLGregorianCalendar(System.currentTimeMillis()))
-                .profile(tracingProfile);
-        output.setEnvironment(createTracingEnvironmentDescription(task, tracingProfile));
+        TracingOutputType output = createHeader(task, tracingProfile);
 
         result.checkLogRecorderFlushed();
 
@@ -62,6 +62,58 @@ public class TracingOutputCreator {
         return output;
     }
 
+    /**
+     * Writes the tracing output record by record, converting the operation result tree to beans one node at a time.
+     * This way the serializable form of the whole result tree is never held in memory. Dictionary entries are written
+     * as they are created, before the first result that refers to them.
+     */
+    void writeTracingOutput(Task task, OperationResult result, TracingProfileType tracingProfile,
+            StreamingTraceWriter.Output output) throws SchemaException, IOException {
+        TracingOutputType header = createHeader(task, tracingProfile);
+
+        result.checkLogRecorderFlushed();
+
+        List<TraceDictionaryType> embeddedDictionaries = extractDictionaries(result);
+        TraceDictionaryType dictionary = createDictionary(embeddedDictionaries);
+        header.setDictionary(dictionary);
+        output.writeHeader(header);
+
+        ExtractingVisitor extractingVisitor = new ExtractingVisitor(dictionary, dictionary.getIdentifier());
+        LogCompressor logCompressor = new LogCompressor();
+        int entriesWritten = dictionary.getEntry().size();
+
+        // Iterative pre-order traversal, as the result trees can be quite deep.
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(new Node(result, 0));
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            OperationResultType nodeBean = node.result.createBeanRootOnly();
+            logCompressor.compressResult(nodeBean);
+            extractDictionary(nodeBean, extractingVisitor);
+            List<TraceDictionaryEntryType> entries = dictionary.getEntry();
+            for (; entriesWritten < entries.size(); entriesWritten++) {
+                output.writeDictionaryEntry(entries.get(entriesWritten));
+            }
+            output.writeResult(node.depth, nodeBean);
+
+            List<OperationResult> children = node.result.getSubresults();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(new Node(children.get(i), node.depth + 1));
+            }
+        }
+        extractingVisitor.logDiagnosticInformation();
+        result.setExtractedDictionary(dictionary);
+    }
+
+    private TracingOutputType createHeader(Task task, TracingProfileType tracingProfile) {
+        TracingOutputType output = new TracingOutputType();
+        output.beginMetadata()
+                .createTimestamp(XmlTypeConverter.createXMLGregorianCalendar(System.currentTimeMillis()))
+                .profile(tracingProfile);
+        output.setEnvironment(createTracingEnvironmentDescription(task, tracingProfile));
+        return output;
+    }
+
     private List<TraceDictionaryType> extractDictionaries(OperationResult result) {
         return result.getResultStream()
                 .map(OperationResult::getExtractedDictionary)
@@ -233,18 +285,23 @@ public class TracingOutputCreator {
     }
 
     private TraceDictionaryType extractDictionary(List<TraceDictionaryType> embeddedDictionaries, OperationResultType resultBean) {
+        TraceDictionaryType dictionary = createDictionary(embeddedDictionaries);
+
+        ExtractingVisitor extractingVisitor = new ExtractingVisitor(dictionary, dictionary.getIdentifier());
+        extractDictionary(resultBean, extractingVisitor);
+        extractingVisitor.logDiagnosticInformation();
+
+        return dictionary;
+    }
+
+    /** Creates a dictionary containing the entries of the embedded dictionaries. */
+    private TraceDictionaryType createDictionary(List<TraceDictionaryType> embeddedDictionaries) {
         TraceDictionaryType dictionary = new TraceDictionaryType();
 
         embeddedDictionaries.forEach(embeddedDictionary ->
                 dictionary.getEntry().addAll(CloneUtil.cloneCollectionMembers(embeddedDictionary.getEntry())));
 
-        int newDictionaryId = generateDictionaryId(embeddedDictionaries);
-        dictionary.setIdentifier(newDictionaryId);
-
-        ExtractingVisitor extractingVisitor = new ExtractingVisitor(dictionary, newDictionaryId);
-        extractDictionary(resultBean, extractingVisitor);
-        extractingVisitor.logDiagnosticInformation();
-
+        dictionary.setIdentifier(generateDictionaryId(embeddedDictionaries));
         return dictionary;
     }
 
@@ -261,4 +318,6 @@ public class TracingOutputCreator {
         resultBean.getPartialResults().forEach(partialResult -> extractDictionary(partialResult, extractingVisitor));
     }
 
+    private record Node(OperationResult result, int depth) {
+    }
 }
@@ -7,10 +7,25 @@
 
 package com.evolveum.midpoint.testing.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.testng.annotations.Test;
 
 import com.evolveum.midpoint.common.rest.MidpointAbstractProvider;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.query_3.QueryType;
 
 public class TestRestServiceJson extends TestAbstractRestService {
 
@@ -38,4 +53,46 @@ public class TestRestServiceJson extends TestAbstractRestService {
     protected MidpointAbstractProvider getProvider() {
         return jsonProvider;
     }
+
+    /** Streaming search (JSON only) fetching all users in small pages, following the paging cookie. */
+    @Test
+    public void test210SearchUsersStreamingInPages() throws Exception {
+        given("all users in the repository");
+        OperationResult result = getTestOperationResult();
+        Set<String> expectedOids = new HashSet<>();
+        for (PrismObject<UserType> user : repositoryService.searchObjects(UserType.class, null, null, result)) {
+            expectedOids.add(user.getOid());
+        }
+        assertThat(expectedOids).as("users in repository").hasSizeGreaterThan(2);
+
+        when("users are fetched in pages of 2");
+        Set<String> fetchedOids = new HashSet<>();
+        int pages = 0;
+        String cookie = null;
+        do {
+            WebClient client = prepareClient();
+            client.path("/users/search/stream");
+            client.query("maxSize", 2);
+            if (cookie != null) {
+                client.query("pagingCookie", cookie);
+            }
+            Response response = client.post(new QueryType());
+            assertStatus(response, 200);
+
+            JSONObject page = (JSONObject) JSONValue.parse(response.readEntity(String.class));
+            assertThat(page.get("error")).as("error").isNull();
+            JSONArray objects = (JSONArray) page.get("objects");
+            assertThat(objects).as("objects in page").hasSizeBetween(1, 2);
+            for (Object object : objects) {
+                String oid = (String) ((JSONObject) ((JSONObject) object).get("user")).get("oid");
+                assertThat(fetchedOids.add(oid)).as("new OID " + oid).isTrue();
+            }
+            cookie = (String) page.get("pagingCookie");
+            pages++;
+        } while (cookie != null && pages <= expectedOids.size());
+
+        then("all users are fetched exactly once");
+        assertThat(fetchedOids).isEqualTo(expectedOids);
+        assertThat(pages).as("pages").isEqualTo((expectedOids.size() + 1) / 2);
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.ninja.action;
+
+import java.io.File;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+@Parameters(resourceBundle = "messages", commandDescriptionKey = "exportOperationSamples")
+public class ExportOperationSamplesOptions {
+
+    public static final String P_OID_LONG = "--oid";
+
+    public static final String P_SUBTASKS_LONG = "--include-subtasks";
+
+    public static final String P_OUTPUT = "-o";
+    public static final String P_OUTPUT_LONG = "--output";
+
+    public static final String P_OVERWRITE = "-O";
+    public static final String P_OVERWRITE_LONG = "--overwrite";
+
+    @Parameter(names = { P_OID_LONG }, descriptionKey = "exportOperationSamples.oid", required = true)
+    private String oid;
+
+    @Parameter(names = { P_SUBTASKS_LONG }, descriptionKey = "exportOperationSamples.includeSubtasks")
+    private boolean includeSubtasks;
+
+    @Parameter(names = { P_OUTPUT, P_OUTPUT_LONG }, descriptionKey = "output.output")
+    private File output;
+
+    @Parameter(names = { P_OVERWRITE, P_OVERWRITE_LONG }, descriptionKey = "output.overwrite")
+    private boolean overwrite;
+
+    public String getOid() {
+        return oid;
+    }
+
+    public boolean isIncludeSubtasks() {
+        return includeSubtasks;
+    }
+
+    public File getOutput() {
+        return output;
+    }
+
+    public boolean isOverwrite() {
+        return overwrite;
+    }
+}
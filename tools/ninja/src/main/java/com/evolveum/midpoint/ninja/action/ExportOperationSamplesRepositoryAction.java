@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2010-2024 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.ninja.action;
+
+import static com.evolveum.midpoint.schema.GetOperationOptions.createReadOnlyCollection;
+
+import java.io.Writer;
+
+import com.evolveum.midpoint.ninja.impl.LogTarget;
+import com.evolveum.midpoint.ninja.util.NinjaUtils;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.statistics.OperationSamplesInformationUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationSamplesInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationStatsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+
+/**
+ * Exports operation samples (see `OperationSampler`) stored in a task, optionally including its subtasks,
+ * in the "collapsed stacks" format accepted by flame graph tools.
+ */
+public class ExportOperationSamplesRepositoryAction extends RepositoryAction<ExportOperationSamplesOptions, Void> {
+
+    private static final String DOT_CLASS = ExportOperationSamplesRepositoryAction.class.getName() + ".";
+
+    private static final String OPERATION_EXPORT = DOT_CLASS + "exportOperationSamples";
+
+    @Override
+    public String getOperationName() {
+        return "export operation samples";
+    }
+
+    @Override
+    public LogTarget getLogTarget() {
+        return options.getOutput() != null ? LogTarget.SYSTEM_OUT : LogTarget.SYSTEM_ERR;
+    }
+
+    @Override
+    public Void execute() throws Exception {
+        RepositoryService repository = context.getRepository();
+        OperationResult result = new OperationResult(OPERATION_EXPORT);
+
+        TaskType task = repository
+                .getObject(TaskType.class, options.getOid(), createReadOnlyCollection(), result)
+                .asObjectable();
+
+        OperationSamplesInformationType aggregate = new OperationSamplesInformationType();
+        int tasks = addSamples(aggregate, task, repository, result);
+        log.info("Collected {} samples with {} distinct operation stacks from {} task(s)",
+                aggregate.getSampleCount() != null ? aggregate.getSampleCount() : 0, aggregate.getStack().size(), tasks);
+
+        try (Writer writer = NinjaUtils.createWriter(
+                options.getOutput(), context.getCharset(), false, options.isOverwrite(), context.out)) {
+            writer.write(OperationSamplesInformationUtil.format(aggregate));
+        }
+        return null;
+    }
+
+    /** Returns the number of tasks processed. */
+    private int addSamples(
+            OperationSamplesInformationType aggregate, TaskType task, RepositoryService repository, OperationResult result)
+            throws SchemaException {
+        OperationStatsType stats = task.getOperationStats();
+        OperationSamplesInformationUtil.addTo(aggregate, stats != null ? stats.getOperationSamplesInformation() : null);
+        int tasks = 1;
+        if (options.isIncludeSubtasks() && task.getTaskIdentifier() != null) {
+            ObjectQuery query = context.getPrismContext().queryFor(TaskType.class)
+                    .item(TaskType.F_PARENT).eq(task.getTaskIdentifier())
+                    .build();
+            for (var subtask : repository.searchObjects(TaskType.class, query, createReadOnlyCollection(), result)) {
+                tasks += addSamples(aggregate, subtask.asObjectable(), repository, result);
+            }
+        }
+        return tasks;
+    }
+}
@@ -47,6 +47,9 @@ public enum Command {
 
     TRACE("trace", EditTraceOptions.class, EditTraceAction.class),
 
+    EXPORT_OPERATION_SAMPLES("export-operation-samples", ExportOperationSamplesOptions.class,
+            ExportOperationSamplesRepositoryAction.class),
+
     DOWNLOAD_DISTRIBUTION("download-distribution", DownloadDistributionOptions.class, DownloadDistributionAction.class),
 
     RUN_SQL("run-sql", RunSqlOptions.class, RunSqlAction.class),